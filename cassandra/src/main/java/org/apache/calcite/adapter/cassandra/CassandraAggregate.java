@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.cassandra;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.Pair;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link org.apache.calcite.rel.core.Aggregate} relational
+ * expression in Cassandra.
+ *
+ * <p>Only aggregates with no GROUP BY over a single partition are pushed
+ * down, and only {@code COUNT}, {@code MIN}, {@code MAX} and {@code SUM},
+ * which CQL evaluates in the coordinator without shipping rows to the
+ * client. CQL's {@code SUM} returns 0 rather than null on empty input;
+ * {@link CassandraRules} compensates with a projection above this
+ * expression.
+ */
+public class CassandraAggregate extends Aggregate implements CassandraRel {
+  public CassandraAggregate(
+      RelOptCluster cluster,
+      RelTraitSet traitSet,
+      RelNode input,
+      ImmutableBitSet groupSet,
+      List<ImmutableBitSet> groupSets,
+      List<AggregateCall> aggCalls) {
+    super(cluster, traitSet, ImmutableList.of(), input, groupSet, groupSets,
+        aggCalls);
+    assert getConvention() == CassandraRel.CONVENTION;
+    assert getConvention() == input.getConvention();
+    assert groupSet.isEmpty();
+  }
+
+  @Override public Aggregate copy(RelTraitSet traitSet, RelNode input,
+      ImmutableBitSet groupSet, List<ImmutableBitSet> groupSets,
+      List<AggregateCall> aggCalls) {
+    return new CassandraAggregate(getCluster(), traitSet, input, groupSet,
+        groupSets, aggCalls);
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq).multiplyBy(0.1);
+  }
+
+  public void implement(Implementor implementor) {
+    implementor.visitChild(0, getInput());
+
+    // Find the column that each input field reads. If the input is a
+    // projection, it has recorded the columns it selects, in order.
+    final List<String> inFields;
+    if (implementor.selectFields.isEmpty()) {
+      inFields = CassandraRules.cassandraFieldNames(getInput().getRowType());
+    } else {
+      inFields = new ArrayList<>(implementor.selectFields.keySet());
+    }
+
+    final Map<String, String> fields = new LinkedHashMap<>();
+    for (Pair<AggregateCall, String> pair : getNamedAggCalls()) {
+      fields.put(toCql(pair.left, inFields), "\"" + pair.right + "\"");
+    }
+    implementor.selectFields.clear();
+    implementor.add(fields, null);
+  }
+
+  /** Converts an aggregate call to a CQL expression, such as
+   * {@code COUNT(*)} or {@code MAX("time")}. */
+  private static String toCql(AggregateCall aggCall, List<String> inFields) {
+    final String name = aggCall.getAggregation().getName();
+    if (aggCall.getArgList().isEmpty()) {
+      return name + "(*)";
+    }
+    return name + "(\"" + inFields.get(aggCall.getArgList().get(0)) + "\")";
+  }
+}
@@ -49,7 +49,16 @@ class CassandraEnumerator implements Enumerator<Object> {
    * @param protoRowType The type of resulting rows
    */
   CassandraEnumerator(ResultSet results, RelProtoDataType protoRowType) {
-    this.iterator = results.iterator();
+    this(results.iterator(), protoRowType);
+  }
+
+  /** Creates a CassandraEnumerator.
+   *
+   * @param rows Iterator over rows
+   * @param protoRowType The type of resulting rows
+   */
+  CassandraEnumerator(Iterator<Row> rows, RelProtoDataType protoRowType) {
+    this.iterator = rows;
     this.current = null;
 
     final RelDataTypeFactory typeFactory =
@@ -137,6 +146,8 @@ public void reset() {
   }
 
   public void close() {
-    // Nothing to do here
+    if (iterator instanceof CassandraTokenRangeIterator) {
+      ((CassandraTokenRangeIterator) iterator).close();
+    }
   }
 }
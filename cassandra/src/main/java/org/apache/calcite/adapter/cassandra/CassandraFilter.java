@@ -93,6 +93,7 @@ public CassandraFilter copy(RelTraitSet traitSet, RelNode input,
   public void implement(Implementor implementor) {
     implementor.visitChild(0, getInput());
     implementor.add(null, Collections.singletonList(match));
+    implementor.singlePartition |= singlePartition;
   }
 
   /** Check if the filter restricts to a single partition.
@@ -28,7 +28,8 @@
  */
 public enum CassandraMethod {
   CASSANDRA_QUERYABLE_QUERY(CassandraTable.CassandraQueryable.class, "query",
-      List.class, List.class, List.class, List.class, Integer.class, Integer.class);
+      List.class, List.class, List.class, List.class, Integer.class, Integer.class,
+      Boolean.class);
 
   public final Method method;
 
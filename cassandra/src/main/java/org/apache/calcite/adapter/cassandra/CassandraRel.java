@@ -42,6 +42,8 @@ class Implementor {
     int offset = 0;
     int fetch = -1;
     final List<String> order = new ArrayList<>();
+    /** Whether the predicates restrict the query to a single partition. */
+    boolean singlePartition;
 
     RelOptTable table;
     CassandraTable cassandraTable;
@@ -29,19 +29,26 @@
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.core.RelFactories;
 import org.apache.calcite.rel.core.Sort;
 import org.apache.calcite.rel.logical.LogicalFilter;
 import org.apache.calcite.rel.logical.LogicalProject;
 import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexVisitorImpl;
 import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.sql.validate.SqlValidatorUtil;
 import org.apache.calcite.util.Pair;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -59,7 +66,9 @@ private CassandraRules() {}
       CassandraFilterRule.INSTANCE,
       CassandraProjectRule.INSTANCE,
       CassandraSortRule.INSTANCE,
-      CassandraLimitRule.INSTANCE
+      CassandraLimitRule.INSTANCE,
+      CassandraAggregateRule.INSTANCE,
+      CassandraAggregateRule.PROJECT_INSTANCE
   };
 
   static List<String> cassandraFieldNames(final RelDataType rowType) {
@@ -392,4 +401,169 @@ public void onMatch(RelOptRuleCall call) {
       }
     }
   }
+
+  /**
+   * Rule to convert an {@link org.apache.calcite.rel.core.Aggregate} over a
+   * single partition to a {@link CassandraAggregate}.
+   *
+   * <p>The aggregate must have no GROUP BY, and its calls must be
+   * non-DISTINCT {@code COUNT}, {@code MIN}, {@code MAX} or {@code SUM}.
+   * Because CQL's {@code SUM} returns 0 on empty input, each {@code SUM} is
+   * computed with a {@code COUNT} of its argument, and a projection above
+   * the aggregate returns null if the count is 0.
+   */
+  private static class CassandraAggregateRule extends RelOptRule {
+    private static final CassandraAggregateRule INSTANCE =
+        new CassandraAggregateRule(
+            operandJ(Aggregate.class, null, CassandraAggregateRule::canPush,
+                operand(CassandraToEnumerableConverter.class,
+                    singlePartitionFilter())),
+            "CassandraAggregateRule");
+
+    private static final CassandraAggregateRule PROJECT_INSTANCE =
+        new CassandraAggregateRule(
+            operandJ(Aggregate.class, null, CassandraAggregateRule::canPush,
+                operand(CassandraToEnumerableConverter.class,
+                    operandJ(CassandraProject.class, null,
+                        CassandraAggregateRule::isDistinctColumns,
+                        singlePartitionFilter()))),
+            "CassandraAggregateRule:project");
+
+    private CassandraAggregateRule(RelOptRuleOperand operand,
+        String description) {
+      super(operand, description);
+    }
+
+    private static RelOptRuleOperand singlePartitionFilter() {
+      return operandJ(CassandraFilter.class, null,
+          CassandraFilter::isSinglePartition, any());
+    }
+
+    /** Returns whether CQL can compute an aggregate. */
+    private static boolean canPush(Aggregate aggregate) {
+      if (!aggregate.getGroupSet().isEmpty()
+          || aggregate.getGroupType() != Aggregate.Group.SIMPLE) {
+        return false;
+      }
+      final List<RelDataTypeField> fields =
+          aggregate.getInput().getRowType().getFieldList();
+      for (AggregateCall aggCall : aggregate.getAggCallList()) {
+        if (aggCall.isDistinct()
+            || aggCall.filterArg >= 0
+            || !aggCall.collation.getFieldCollations().isEmpty()
+            || aggCall.getArgList().size() > 1) {
+          return false;
+        }
+        final SqlKind kind = aggCall.getAggregation().getKind();
+        if (kind == SqlKind.COUNT) {
+          continue;
+        }
+        if (aggCall.getArgList().size() != 1) {
+          return false;
+        }
+        final SqlTypeName typeName =
+            fields.get(aggCall.getArgList().get(0)).getType().getSqlTypeName();
+        switch (kind) {
+        case SUM:
+          // CQL's SUM returns the type of its argument, as Calcite's does
+          if (!SqlTypeName.NUMERIC_TYPES.contains(typeName)) {
+            return false;
+          }
+          break;
+        case MIN:
+        case MAX:
+          if (typeName.getFamily() == null
+              || typeName == SqlTypeName.ARRAY
+              || typeName == SqlTypeName.MULTISET
+              || typeName == SqlTypeName.MAP
+              || typeName == SqlTypeName.ROW
+              || typeName == SqlTypeName.STRUCTURED) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Returns whether a projection reads each column at most once; a
+     * {@link CassandraProject} can only be aggregated if it does. */
+    private static boolean isDistinctColumns(CassandraProject project) {
+      final Set<Integer> columns = new HashSet<>();
+      for (RexNode e : project.getProjects()) {
+        if (!columns.add(((RexInputRef) e).getIndex())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** @see org.apache.calcite.rel.convert.ConverterRule */
+    public void onMatch(RelOptRuleCall call) {
+      final Aggregate aggregate = call.rel(0);
+      final CassandraToEnumerableConverter converter = call.rel(1);
+      final RexBuilder rexBuilder = aggregate.getCluster().getRexBuilder();
+      final RelDataType bigint =
+          aggregate.getCluster().getTypeFactory()
+              .createSqlType(SqlTypeName.BIGINT);
+
+      final List<AggregateCall> aggCalls = new ArrayList<>();
+      final List<RexNode> projects = new ArrayList<>();
+      boolean identity = true;
+      for (AggregateCall aggCall : aggregate.getAggCallList()) {
+        final int i = register(aggCalls, aggCall);
+        identity &= i == projects.size();
+        final RexNode ref = rexBuilder.makeInputRef(aggCall.getType(), i);
+        if (aggCall.getAggregation().getKind() == SqlKind.SUM) {
+          final int count = register(aggCalls,
+              AggregateCall.create(SqlStdOperatorTable.COUNT, false,
+                  aggCall.getArgList(), -1, bigint, null));
+          identity = false;
+          projects.add(
+              rexBuilder.makeCall(SqlStdOperatorTable.CASE,
+                  rexBuilder.makeCall(SqlStdOperatorTable.EQUALS,
+                      rexBuilder.makeInputRef(bigint, count),
+                      rexBuilder.makeZeroLiteral(bigint)),
+                  rexBuilder.makeNullLiteral(aggCall.getType()),
+                  ref));
+        } else {
+          projects.add(ref);
+        }
+      }
+
+      final RelNode cassandraAggregate =
+          new CassandraAggregate(aggregate.getCluster(),
+              aggregate.getTraitSet().replace(CassandraRel.CONVENTION),
+              converter.getInput(), aggregate.getGroupSet(),
+              aggregate.getGroupSets(), aggCalls);
+      if (identity && aggCalls.size() == projects.size()) {
+        call.transformTo(cassandraAggregate);
+      } else {
+        call.transformTo(
+            call.builder()
+                .push(cassandraAggregate)
+                .project(projects, aggregate.getRowType().getFieldNames())
+                .build());
+      }
+    }
+
+    /** Adds an aggregate call to a list, unless an equivalent call is
+     * already present, and returns its position. CQL cannot select the same
+     * expression twice. */
+    private static int register(List<AggregateCall> aggCalls,
+        AggregateCall aggCall) {
+      for (int i = 0; i < aggCalls.size(); i++) {
+        final AggregateCall c = aggCalls.get(i);
+        if (c.getAggregation() == aggCall.getAggregation()
+            && c.getArgList().equals(aggCall.getArgList())
+            && c.getType().equals(aggCall.getType())) {
+          return i;
+        }
+      }
+      aggCalls.add(aggCall);
+      return aggCalls.size() - 1;
+    }
+  }
 }
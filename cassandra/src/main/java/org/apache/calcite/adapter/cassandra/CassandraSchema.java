@@ -73,6 +73,9 @@ public class CassandraSchema extends AbstractSchema {
   private final SchemaPlus parentSchema;
   final String name;
   final Hook.Closeable hook;
+  /** Maximum number of token-range queries to run concurrently when a query
+   * spans several partitions; 1 to read such queries in a single query. */
+  final int parallelism;
 
   static final CodecRegistry CODEC_REGISTRY = CodecRegistry.DEFAULT_INSTANCE;
   static final CqlToSqlTypeConversionRules CQL_TO_SQL_TYPE =
@@ -128,8 +131,29 @@ public CassandraSchema(String host, String keyspace, String username, String pas
    */
   public CassandraSchema(String host, int port, String keyspace, String username, String password,
         SchemaPlus parentSchema, String name) {
+    this(host, port, keyspace, username, password, parentSchema, name, 1);
+  }
+
+  /**
+   * Creates a Cassandra schema.
+   *
+   * @param host Cassandra host, e.g. "localhost"
+   * @param port Cassandra port, e.g. 9042
+   * @param keyspace Cassandra keyspace name, e.g. "twissandra"
+   * @param username Cassandra username
+   * @param password Cassandra password
+   * @param parallelism Maximum number of token-range queries to run
+   *                    concurrently when a query spans several partitions
+   */
+  public CassandraSchema(String host, int port, String keyspace, String username, String password,
+        SchemaPlus parentSchema, String name, int parallelism) {
     super();
 
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: "
+          + parallelism);
+    }
+    this.parallelism = parallelism;
     this.keyspace = keyspace;
     try {
       Cluster cluster;
@@ -27,6 +27,8 @@
  */
 @SuppressWarnings("UnusedDeclaration")
 public class CassandraSchemaFactory implements SchemaFactory {
+  private static final int DEFAULT_PORT = 9042;
+
   public CassandraSchemaFactory() {
   }
 
@@ -38,17 +40,23 @@ public Schema create(SchemaPlus parentSchema, String name,
     String username = (String) map.get("username");
     String password = (String) map.get("password");
 
+    int port = DEFAULT_PORT;
     if (map.containsKey("port")) {
-      Object portObj = map.get("port");
-      int port;
-      if (portObj instanceof String) {
-        port = Integer.parseInt((String) portObj);
-      } else {
-        port = (int) portObj;
-      }
-      return new CassandraSchema(host, port, keyspace, username, password, parentSchema, name);
+      port = intOperand(map.get("port"));
+    }
+    int parallelism = 1;
+    if (map.containsKey("parallelism")) {
+      parallelism = intOperand(map.get("parallelism"));
+    }
+    return new CassandraSchema(host, port, keyspace, username, password,
+        parentSchema, name, parallelism);
+  }
+
+  private static int intOperand(Object value) {
+    if (value instanceof String) {
+      return Integer.parseInt((String) value);
     } else {
-      return new CassandraSchema(host, keyspace, username, password, parentSchema, name);
+      return (int) value;
     }
   }
 }
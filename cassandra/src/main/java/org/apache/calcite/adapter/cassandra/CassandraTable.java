@@ -29,6 +29,7 @@
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rel.type.RelDataTypeField;
 import org.apache.calcite.rel.type.RelDataTypeImpl;
 import org.apache.calcite.rel.type.RelDataTypeSystem;
 import org.apache.calcite.rel.type.RelProtoDataType;
@@ -36,6 +37,7 @@
 import org.apache.calcite.schema.TranslatableTable;
 import org.apache.calcite.schema.impl.AbstractTableQueryable;
 import org.apache.calcite.sql.type.SqlTypeFactoryImpl;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.Util;
 
@@ -97,7 +99,7 @@ public List<RelFieldCollation> getClusteringOrder() {
 
   public Enumerable<Object> query(final Session session) {
     return query(session, ImmutableList.of(), ImmutableList.of(),
-        ImmutableList.of(), ImmutableList.of(), 0, -1);
+        ImmutableList.of(), ImmutableList.of(), 0, -1, false);
   }
 
   /** Executes a CQL query on the underlying table.
@@ -110,6 +112,28 @@ public Enumerable<Object> query(final Session session) {
   public Enumerable<Object> query(final Session session, List<Map.Entry<String, Class>> fields,
         final List<Map.Entry<String, String>> selectFields, List<String> predicates,
         List<String> order, final Integer offset, final Integer fetch) {
+    return query(session, fields, selectFields, predicates, order, offset,
+        fetch, true);
+  }
+
+  /** Executes a CQL query on the underlying table.
+   *
+   * <p>If the query may span several partitions, has no ORDER BY or LIMIT,
+   * and the schema allows more than one concurrent query, the ring is split
+   * into its token ranges and one query is issued for each range; see
+   * {@link CassandraTokenRangeIterator}.
+   *
+   * @param session Cassandra session
+   * @param fields List of fields to project
+   * @param predicates A list of predicates which should be used in the query
+   * @param singlePartition Whether the predicates restrict the query to a
+   *                        single partition
+   * @return Enumerator of results
+   */
+  public Enumerable<Object> query(final Session session, List<Map.Entry<String, Class>> fields,
+        final List<Map.Entry<String, String>> selectFields, List<String> predicates,
+        List<String> order, final Integer offset, final Integer fetch,
+        final boolean singlePartition) {
     // Build the type of the resulting row based on the provided fields
     final RelDataTypeFactory typeFactory =
         new SqlTypeFactoryImpl(RelDataTypeSystem.DEFAULT);
@@ -117,8 +141,11 @@ public Enumerable<Object> query(final Session session, List<Map.Entry<String, Cl
     final RelDataType rowType = getRowType(typeFactory);
 
     Function1<String, Void> addField = fieldName -> {
-      RelDataType relDataType =
-          rowType.getField(fieldName, true, false).getType();
+      final RelDataTypeField field = rowType.getField(fieldName, true, false);
+      // Expressions such as aggregate calls are not columns of the table
+      final RelDataType relDataType = field != null
+          ? field.getType()
+          : typeFactory.createSqlType(SqlTypeName.ANY);
       fieldInfo.add(fieldName, relDataType).nullable(true);
       return null;
     };
@@ -175,6 +202,7 @@ public Enumerable<Object> query(final Session session, List<Map.Entry<String, Cl
         .append(columnFamily)
         .append("\"")
         .append(whereClause);
+    final String selectFrom = queryBuilder.toString();
     if (!order.isEmpty()) {
       queryBuilder.append(Util.toString(order, " ORDER BY ", ", ", ""));
     }
@@ -190,6 +218,24 @@ public Enumerable<Object> query(final Session session, List<Map.Entry<String, Cl
     queryBuilder.append(" ALLOW FILTERING");
     final String query = queryBuilder.toString();
 
+    final int parallelism = schema.parallelism;
+    if (!singlePartition && parallelism > 1 && order.isEmpty() && limit == 0) {
+      final String tokenFunction = Util.toString(
+          Util.transform(getKeyFields().left, key -> "\"" + key + "\""),
+          "token(", ", ", ")");
+      return new AbstractEnumerable<Object>() {
+        public Enumerator<Object> enumerator() {
+          final List<String> queries =
+              CassandraTokenRangeIterator.rangeQueries(
+                  session.getCluster().getMetadata().getTokenRanges(),
+                  selectFrom, !predicates.isEmpty(), tokenFunction);
+          return new CassandraEnumerator(
+              new CassandraTokenRangeIterator(session, queries, parallelism),
+              resultRowType);
+        }
+      };
+    }
+
     return new AbstractEnumerable<Object>() {
       public Enumerator<Object> enumerator() {
         final ResultSet results = session.execute(query);
@@ -249,9 +295,10 @@ private Session getSession() {
     @SuppressWarnings("UnusedDeclaration")
     public Enumerable<Object> query(List<Map.Entry<String, Class>> fields,
         List<Map.Entry<String, String>> selectFields, List<String> predicates,
-        List<String> order, Integer offset, Integer fetch) {
+        List<String> order, Integer offset, Integer fetch,
+        Boolean singlePartition) {
       return getTable().query(getSession(), fields, selectFields, predicates,
-          order, offset, fetch);
+          order, offset, fetch, singlePartition);
     }
   }
 }
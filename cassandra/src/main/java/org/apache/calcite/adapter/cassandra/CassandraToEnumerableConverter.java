@@ -117,11 +117,15 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
     final Expression fetch =
         list.append("fetch",
             Expressions.constant(cassandraImplementor.fetch));
+    final Expression singlePartition =
+        list.append("singlePartition",
+            Expressions.constant(cassandraImplementor.singlePartition));
     Expression enumerable =
         list.append("enumerable",
             Expressions.call(table,
                 CassandraMethod.CASSANDRA_QUERYABLE_QUERY.method, fields,
-                selectFields, predicates, order, offset, fetch));
+                selectFields, predicates, order, offset, fetch,
+                singlePartition));
     if (CalciteSystemProperty.DEBUG.value()) {
       System.out.println("Cassandra: " + predicates);
     }
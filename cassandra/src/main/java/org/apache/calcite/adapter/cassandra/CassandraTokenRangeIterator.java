@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.cassandra;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Token;
+import com.datastax.driver.core.TokenRange;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterator over the rows of several CQL queries, each restricted to one
+ * token range of the ring, that runs up to a given number of the queries
+ * concurrently.
+ *
+ * <p>Rows are returned one query at a time, in the order the queries were
+ * given; while the rows of one query are being read, the following queries
+ * are already running. While reading a page of rows, the next page is
+ * fetched in the background.
+ */
+class CassandraTokenRangeIterator implements Iterator<Row>, AutoCloseable {
+  /** Number of rows left in the current page at which to start fetching
+   * the next page. */
+  private static final int PREFETCH_THRESHOLD = 100;
+
+  private final Session session;
+  private final Iterator<String> queries;
+  private final int parallelism;
+  private final Deque<ResultSetFuture> pending = new ArrayDeque<>();
+  private ResultSet current;
+
+  /** Creates a CassandraTokenRangeIterator.
+   *
+   * @param session Cassandra session
+   * @param queries Queries to run, one per token range
+   * @param parallelism Maximum number of queries to run concurrently
+   */
+  CassandraTokenRangeIterator(Session session, List<String> queries,
+      int parallelism) {
+    this.session = session;
+    this.queries = queries.iterator();
+    this.parallelism = parallelism;
+    submit();
+  }
+
+  /** Creates one query per token range, by restricting the token of the
+   * partition key.
+   *
+   * @param ranges Token ranges of the ring
+   * @param selectFrom Query without token restriction, of the form
+   *                   "SELECT ... FROM ... [WHERE ...]"
+   * @param hasWhere Whether {@code selectFrom} has a WHERE clause
+   * @param tokenFunction Call to the token function, for example
+   *                      {@code token("username")}
+   * @return Queries that together read the whole ring
+   */
+  static List<String> rangeQueries(Set<TokenRange> ranges, String selectFrom,
+      boolean hasWhere, String tokenFunction) {
+    final String prefix = selectFrom + (hasWhere ? " AND " : " WHERE ");
+    final String suffix = " ALLOW FILTERING";
+    final List<String> queries = new ArrayList<>();
+    for (TokenRange range : ranges) {
+      final Token start = range.getStart();
+      final Token end = range.getEnd();
+      if (start.equals(end)) {
+        // A single range that covers the whole ring
+        queries.add(selectFrom + suffix);
+      } else if (start.compareTo(end) > 0) {
+        // The range wraps around the end of the ring
+        queries.add(prefix + tokenFunction + " > " + start + suffix);
+        queries.add(prefix + tokenFunction + " <= " + end + suffix);
+      } else {
+        queries.add(prefix + tokenFunction + " > " + start
+            + " AND " + tokenFunction + " <= " + end + suffix);
+      }
+    }
+    return queries;
+  }
+
+  /** Starts queries until {@link #parallelism} are running or there are
+   * none left. */
+  private void submit() {
+    while (pending.size() < parallelism && queries.hasNext()) {
+      pending.add(session.executeAsync(queries.next()));
+    }
+  }
+
+  @Override public boolean hasNext() {
+    while (current == null || current.isExhausted()) {
+      if (pending.isEmpty()) {
+        return false;
+      }
+      current = pending.removeFirst().getUninterruptibly();
+      submit();
+    }
+    return true;
+  }
+
+  @Override public Row next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final Row row = current.one();
+    if (current.getAvailableWithoutFetching() == PREFETCH_THRESHOLD
+        && !current.isFullyFetched()) {
+      current.fetchMoreResults();
+    }
+    return row;
+  }
+
+  /** Cancels the queries that have not been read. */
+  @Override public void close() {
+    for (ResultSetFuture future : pending) {
+      future.cancel(true);
+    }
+    pending.clear();
+  }
+}
@@ -105,6 +105,31 @@ static void load(Session session) {
             + "; f_varint=10\n");
   }
 
+  /** SUM, MIN and MAX of a single partition are computed by Cassandra. */
+  @Test void testAggregate() {
+    CalciteAssert.that()
+        .with(DTCASSANDRA)
+        .query("select sum(\"f_bigint\") as \"s\", sum(\"f_double\") as \"d\",\n"
+            + "  min(\"f_smallint\") as \"lo\", max(\"f_text\") as \"hi\",\n"
+            + "  count(*) as \"c\"\n"
+            + "from \"test_simple\" where \"f_int\" = 0")
+        .returns("s=3000000000; d=2.0; lo=5; hi=abcdefg; c=1\n")
+        .explainContains("CassandraAggregate(group=[{}]");
+  }
+
+  /** CQL's SUM returns 0 for a partition with no rows; the plan must return
+   * null, as SQL requires. MIN and MAX are also null. */
+  @Test void testAggregateEmptyPartition() {
+    CalciteAssert.that()
+        .with(DTCASSANDRA)
+        .query("select sum(\"f_bigint\") as \"s\", sum(\"f_double\") as \"d\",\n"
+            + "  min(\"f_smallint\") as \"lo\", max(\"f_text\") as \"hi\",\n"
+            + "  count(*) as \"c\"\n"
+            + "from \"test_simple\" where \"f_int\" = 1")
+        .returns("s=null; d=null; lo=null; hi=null; c=0\n")
+        .explainContains("CassandraAggregate(group=[{}]");
+  }
+
   @Test void testCounterRowType() {
     CalciteAssert.that()
             .with(DTCASSANDRA)
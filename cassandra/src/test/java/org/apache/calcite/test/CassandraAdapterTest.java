@@ -46,6 +46,11 @@ class CassandraAdapterTest {
   private static final ImmutableMap<String, String> TWISSANDRA =
           CassandraExtension.getDataset("/model.json");
 
+  /** Connection factory based on the "twissandra" model, with queries that
+   * span several partitions split by token range. */
+  private static final ImmutableMap<String, String> TWISSANDRA_PARALLEL =
+          CassandraExtension.getDataset("/model-parallel.json");
+
   @BeforeAll
   static void load(Session session) {
     new CQLDataLoader(session)
@@ -153,4 +158,37 @@ static void load(Session session) {
         .enableMaterializations(true)
         .explainContains("CassandraTableScan(table=[[twissandra, Tweets_By_User]])");
   }
+
+  @Test void testTokenRangeScan() {
+    CalciteAssert.that()
+        .with(TWISSANDRA_PARALLEL)
+        .query("select * from \"users\"")
+        .returnsCount(10);
+    CalciteAssert.that()
+        .with(TWISSANDRA_PARALLEL)
+        .query("select * from \"userline\"")
+        .returnsCount(292);
+  }
+
+  @Test void testAggregate() {
+    CalciteAssert.that()
+        .with(TWISSANDRA)
+        .query("select count(*) as \"c\", count(\"tweet_id\") as \"t\"\n"
+            + "from \"userline\" where \"username\" = '!PUBLIC!'")
+        .returns("c=146; t=146\n")
+        .explainContains("PLAN=CassandraToEnumerableConverter\n"
+            + "  CassandraAggregate(group=[{}], c=[COUNT()], t=[COUNT($0)])\n");
+  }
+
+  /** MIN and MAX of a partition with no rows are null, and COUNT is 0. */
+  @Test void testAggregateEmptyPartition() {
+    CalciteAssert.that()
+        .with(TWISSANDRA)
+        .query("select count(*) as \"c\", min(\"tweet_id\") as \"lo\",\n"
+            + "  max(\"tweet_id\") as \"hi\"\n"
+            + "from \"userline\" where \"username\" = 'nobody'")
+        .returns("c=0; lo=null; hi=null\n")
+        .explainContains("CassandraAggregate(group=[{}], c=[COUNT()], "
+            + "lo=[MIN($0)], hi=[MAX($0)])");
+  }
 }
@@ -20,6 +20,7 @@
 import org.apache.calcite.linq4j.QueryProvider;
 import org.apache.calcite.linq4j.tree.Expressions;
 import org.apache.calcite.linq4j.tree.ParameterExpression;
+import org.apache.calcite.runtime.ExecutionProfile;
 import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.sql.advise.SqlAdvisor;
 
@@ -122,7 +123,11 @@ enum Variable {
      *
      * <p>Default value is "user.name" from
      * {@link System#getProperty(String)}. */
-    SYSTEM_USER("systemUser", String.class);
+    SYSTEM_USER("systemUser", String.class),
+
+    /** Collects row counts and timings of operators while executing
+     * {@code EXPLAIN ANALYZE}. Not present otherwise. */
+    PROFILE("profile", ExecutionProfile.class);
 
     public final String camelName;
     public final Class clazz;
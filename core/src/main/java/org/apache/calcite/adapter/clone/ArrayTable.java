@@ -17,6 +17,10 @@
 package org.apache.calcite.adapter.clone;
 
 import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.columnar.ColumnBatch;
+import org.apache.calcite.adapter.columnar.ColumnVector;
+import org.apache.calcite.adapter.columnar.ColumnarTable;
+import org.apache.calcite.adapter.columnar.Columnars;
 import org.apache.calcite.adapter.java.AbstractQueryableTable;
 import org.apache.calcite.linq4j.AbstractEnumerable;
 import org.apache.calcite.linq4j.Enumerable;
@@ -55,7 +59,8 @@
  * values in the column; see {@link Representation} and
  * {@link RepresentationType}.
  */
-class ArrayTable extends AbstractQueryableTable implements ScannableTable {
+class ArrayTable extends AbstractQueryableTable
+    implements ScannableTable, ColumnarTable {
   private final RelProtoDataType protoRowType;
   private final Supplier<Content> supplier;
 
@@ -91,6 +96,18 @@ public Enumerator<Object[]> enumerator() {
     };
   }
 
+  public Enumerable<ColumnBatch> batches(DataContext root) {
+    final List<Primitive> primitives =
+        Columnars.primitives(root.getTypeFactory(),
+            getRowType(root.getTypeFactory()));
+    return new AbstractEnumerable<ColumnBatch>() {
+      public Enumerator<ColumnBatch> enumerator() {
+        final Content content = supplier.get();
+        return content.batchEnumerator(primitives);
+      }
+    };
+  }
+
   public <T> Queryable<T> asQueryable(final QueryProvider queryProvider,
       SchemaPlus schema, String tableName) {
     return new AbstractTableQueryable<T>(queryProvider, schema, this,
@@ -214,6 +231,24 @@ public Column permute(int[] sources) {
           cardinality);
     }
 
+    /** Copies the values of rows {@code offset} onwards into a vector,
+     * in bulk if the representation allows. */
+    void copyTo(int offset, ColumnVector vector) {
+      switch (representation.getType()) {
+      case PRIMITIVE_ARRAY:
+      case OBJECT_ARRAY:
+        if (vector.copyFrom(dataSet, offset)) {
+          return;
+        }
+        break;
+      default:
+        break;
+      }
+      for (int i = 0; i < vector.size; i++) {
+        vector.set(i, representation.getObject(dataSet, offset + i));
+      }
+    }
+
     @Override public String toString() {
       return "Column(representation=" + representation
           + ", value=" + representation.toString(dataSet) + ")";
@@ -832,6 +867,15 @@ public Enumerator<Object[]> arrayEnumerator() {
       return new ArrayEnumerator(size, columns);
     }
 
+    /** Returns an enumerator over batches of rows.
+     *
+     * @param primitives Representation of the vector of each column
+     */
+    public Enumerator<ColumnBatch> batchEnumerator(
+        List<Primitive> primitives) {
+      return new BatchEnumerator(size, columns, primitives);
+    }
+
     /** Enumerator over a table with a single column; each element
      * returned is an object. */
     private static class ObjectEnumerator implements Enumerator<Object> {
@@ -894,5 +938,52 @@ public void reset() {
       public void close() {
       }
     }
+
+    /** Enumerator over a table; each element returned is a batch of up to
+     * {@link ColumnBatch#SIZE} rows. Primitive arrays are copied into the
+     * batch's vectors in bulk. */
+    private static class BatchEnumerator implements Enumerator<ColumnBatch> {
+      final int rowCount;
+      final List<Column> columns;
+      final List<Primitive> primitives;
+      int offset = -ColumnBatch.SIZE;
+      ColumnBatch batch;
+
+      BatchEnumerator(int rowCount, List<Column> columns,
+          List<Primitive> primitives) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+        this.primitives = primitives;
+      }
+
+      public ColumnBatch current() {
+        return batch;
+      }
+
+      public boolean moveNext() {
+        offset += ColumnBatch.SIZE;
+        if (offset >= rowCount) {
+          batch = null;
+          return false;
+        }
+        final int n = Math.min(ColumnBatch.SIZE, rowCount - offset);
+        final List<ColumnVector> vectors = new ArrayList<>();
+        for (int j = 0; j < columns.size(); j++) {
+          final ColumnVector vector = ColumnVector.of(primitives.get(j), n);
+          columns.get(j).copyTo(offset, vector);
+          vectors.add(vector);
+        }
+        batch = new ColumnBatch(n, vectors);
+        return true;
+      }
+
+      public void reset() {
+        offset = -ColumnBatch.SIZE;
+        batch = null;
+      }
+
+      public void close() {
+      }
+    }
   }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Batch of rows, held as one {@link ColumnVector} per column.
+ *
+ * <p>Operators in {@link ColumnarConvention} exchange batches rather than
+ * rows. Each vector in a batch has {@link #rowCount} values.
+ *
+ * <p>A batch may have a selection vector, which holds the positions of the
+ * rows that are present. A filter produces a batch that shares its input's
+ * vectors and has a selection vector, rather than copying the rows that
+ * match; operators that consume a batch look only at the rows in
+ * {@link #selection}, and expressions may evaluate the rows that are not
+ * present, as long as doing so has no side effects.
+ */
+public class ColumnBatch {
+  /** Maximum number of rows that an operator puts into a batch. */
+  public static final int SIZE = 1024;
+
+  /** Number of values in each vector. */
+  public final int rowCount;
+  public final ImmutableList<ColumnVector> columns;
+  /** Positions of the rows that are present, in ascending order, or null if
+   * all rows are present. Only the first {@link #size} elements are
+   * valid. */
+  public final int[] selection;
+  /** Number of rows that are present. */
+  public final int size;
+
+  public ColumnBatch(int rowCount, List<ColumnVector> columns) {
+    this(rowCount, columns, null, rowCount);
+  }
+
+  public ColumnBatch(int rowCount, List<ColumnVector> columns,
+      int[] selection, int size) {
+    this.rowCount = rowCount;
+    this.columns = ImmutableList.copyOf(columns);
+    this.selection = selection;
+    this.size = size;
+    for (ColumnVector column : columns) {
+      assert column.size == rowCount;
+    }
+    assert selection != null ? size <= selection.length : size == rowCount;
+  }
+
+  /** Returns the position of the {@code k}th row that is present. */
+  public int index(int k) {
+    return selection == null ? k : selection[k];
+  }
+
+  /** Returns a batch that has the same vectors as this batch, of which only
+   * the given rows are present. Does not copy any values.
+   *
+   * @param selection Positions of the rows that are present; each must be
+   *                  present in this batch
+   * @param size Number of valid elements of {@code selection} */
+  public ColumnBatch withSelection(int[] selection, int size) {
+    return new ColumnBatch(rowCount, columns, selection, size);
+  }
+
+  /** Returns a batch that has the same rows as this batch and no selection
+   * vector, copying the rows that are present if necessary. */
+  public ColumnBatch compact() {
+    return selection == null ? this : select(selection, size);
+  }
+
+  /** Returns the vector of a given column. */
+  public ColumnVector column(int i) {
+    return columns.get(i);
+  }
+
+  /** Creates a batch that contains a copy of a selection of this batch's
+   * rows. Positions are into the vectors, regardless of whether this batch
+   * has a selection vector.
+   *
+   * @see ColumnVector#select(int[], int) */
+  public ColumnBatch select(int[] selection, int count) {
+    final ImmutableList.Builder<ColumnVector> builder =
+        ImmutableList.builder();
+    for (ColumnVector column : columns) {
+      builder.add(column.select(selection, count));
+    }
+    return new ColumnBatch(count, builder.build());
+  }
+
+  /** Returns the values of row {@code i}, boxed. */
+  public Object[] row(int i) {
+    final Object[] row = new Object[columns.size()];
+    for (int c = 0; c < row.length; c++) {
+      row[c] = columns.get(c).get(i);
+    }
+    return row;
+  }
+}
@@ -0,0 +1,452 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.tree.Primitive;
+import org.apache.calcite.rel.type.RelDataType;
+
+import java.util.List;
+
+/**
+ * Values of one column for each row in a {@link ColumnBatch}.
+ *
+ * <p>Values whose Java representation is a primitive (or its box) are held in
+ * an array of {@code long} (for {@code boolean}, {@code byte}, {@code char},
+ * {@code short}, {@code int} and {@code long}) or {@code double} (for
+ * {@code float} and {@code double}), with a bitmap recording which rows are
+ * null. Other values are held in an array of objects, with null values
+ * represented by null.
+ */
+public abstract class ColumnVector {
+  /** Java primitive type of the values, or null if the values are objects. */
+  public final Primitive primitive;
+
+  /** Number of values. */
+  public final int size;
+
+  private ColumnVector(Primitive primitive, int size) {
+    this.primitive = primitive;
+    this.size = size;
+  }
+
+  /** Returns the primitive type with which a column of a given type is
+   * represented, or null if it is represented as objects. */
+  public static Primitive primitive(JavaTypeFactory typeFactory,
+      RelDataType type) {
+    final Primitive primitive =
+        Primitive.ofBoxOr(typeFactory.getJavaClass(type));
+    if (primitive == null
+        || primitive == Primitive.VOID
+        || primitive == Primitive.OTHER) {
+      return null;
+    }
+    return primitive;
+  }
+
+  /** Returns whether values of a given primitive type are held in a
+   * {@link LongVector}. */
+  public static boolean isLong(Primitive primitive) {
+    return primitive != null && !isDouble(primitive);
+  }
+
+  /** Returns whether values of a given primitive type are held in a
+   * {@link DoubleVector}. */
+  public static boolean isDouble(Primitive primitive) {
+    return primitive == Primitive.FLOAT || primitive == Primitive.DOUBLE;
+  }
+
+  /** Creates a vector with all values zero or null. */
+  public static ColumnVector of(Primitive primitive, int size) {
+    if (primitive == null) {
+      return new ObjectVector(new Object[size]);
+    } else if (isDouble(primitive)) {
+      return new DoubleVector(primitive, new double[size], null);
+    } else {
+      return new LongVector(primitive, new long[size], null);
+    }
+  }
+
+  /** Creates a vector that consists of a value repeated. */
+  public static ColumnVector constant(Primitive primitive, Object value,
+      int size) {
+    final ColumnVector vector = of(primitive, size);
+    for (int i = 0; i < size; i++) {
+      vector.set(i, value);
+    }
+    return vector;
+  }
+
+  /** Creates a vector that contains the values of several vectors, one after
+   * the other. */
+  public static ColumnVector concat(Primitive primitive,
+      List<ColumnVector> vectors) {
+    int size = 0;
+    for (ColumnVector vector : vectors) {
+      size += vector.size;
+    }
+    final ColumnVector result = of(primitive, size);
+    int offset = 0;
+    for (ColumnVector vector : vectors) {
+      vector.copyTo(result, offset);
+      offset += vector.size;
+    }
+    return result;
+  }
+
+  /** Returns whether the value of row {@code i} is null. */
+  public abstract boolean isNull(int i);
+
+  /** Returns the value of row {@code i}, boxed as its Java representation
+   * requires. */
+  public abstract Object get(int i);
+
+  /** Sets the value of row {@code i}. The value is null, or an instance of
+   * the box of {@link #primitive}. */
+  public abstract void set(int i, Object value);
+
+  /** Creates a vector that contains a selection of this vector's rows.
+   *
+   * <p>Row {@code i} of the result is row {@code selection[i]} of this
+   * vector, or null if {@code selection[i]} is negative.
+   *
+   * @param selection Ordinals of rows
+   * @param count Number of rows to select
+   */
+  public abstract ColumnVector select(int[] selection, int count);
+
+  /** Returns a bitmap in which bit {@code i} is set if row {@code i} is
+   * null, or null if no rows are null. The caller must not modify it. */
+  abstract long[] nullBitmap();
+
+  /** Copies this vector's values into another vector of the same kind,
+   * starting at a given row. */
+  protected abstract void copyTo(ColumnVector target, int offset);
+
+  /** Copies the values of a primitive array, starting at a given position,
+   * into this vector. Returns false if the array is not of a type that this
+   * vector can copy in bulk. */
+  public boolean copyFrom(Object array, int offset) {
+    return false;
+  }
+
+  /** Vector of values held as {@code long}. */
+  public static class LongVector extends ColumnVector {
+    public final long[] values;
+    /** Null bitmap; bit {@code i} is set if row {@code i} is null. Null if
+     * there are no null values. */
+    long[] nulls;
+
+    LongVector(Primitive primitive, long[] values, long[] nulls) {
+      super(primitive, values.length);
+      this.values = values;
+      this.nulls = nulls;
+    }
+
+    public boolean isNull(int i) {
+      return nulls != null && (nulls[i >> 6] & (1L << i)) != 0;
+    }
+
+    /** Marks row {@code i} as null. */
+    public void setNull(int i) {
+      if (nulls == null) {
+        nulls = new long[(size + 63) >> 6];
+      }
+      nulls[i >> 6] |= 1L << i;
+    }
+
+    long[] nullBitmap() {
+      return nulls;
+    }
+
+    public Object get(int i) {
+      if (isNull(i)) {
+        return null;
+      }
+      final long v = values[i];
+      switch (primitive) {
+      case BOOLEAN:
+        return v != 0;
+      case BYTE:
+        return (byte) v;
+      case CHAR:
+        return (char) v;
+      case SHORT:
+        return (short) v;
+      case INT:
+        return (int) v;
+      default:
+        return v;
+      }
+    }
+
+    public void set(int i, Object value) {
+      if (value == null) {
+        setNull(i);
+      } else if (value instanceof Boolean) {
+        values[i] = (Boolean) value ? 1L : 0L;
+      } else if (value instanceof Character) {
+        values[i] = (Character) value;
+      } else {
+        values[i] = ((Number) value).longValue();
+      }
+    }
+
+    /** Truncates each value to the range of {@link #primitive}, as a Java
+     * cast would. */
+    void narrow() {
+      switch (primitive) {
+      case BYTE:
+        for (int i = 0; i < size; i++) {
+          values[i] = (byte) values[i];
+        }
+        break;
+      case CHAR:
+        for (int i = 0; i < size; i++) {
+          values[i] = (char) values[i];
+        }
+        break;
+      case SHORT:
+        for (int i = 0; i < size; i++) {
+          values[i] = (short) values[i];
+        }
+        break;
+      case INT:
+        for (int i = 0; i < size; i++) {
+          values[i] = (int) values[i];
+        }
+        break;
+      default:
+        break;
+      }
+    }
+
+    public LongVector select(int[] selection, int count) {
+      final LongVector vector =
+          new LongVector(primitive, new long[count], null);
+      for (int i = 0; i < count; i++) {
+        final int j = selection[i];
+        if (j < 0 || isNull(j)) {
+          vector.setNull(i);
+        } else {
+          vector.values[i] = values[j];
+        }
+      }
+      return vector;
+    }
+
+    protected void copyTo(ColumnVector target, int offset) {
+      final LongVector vector = (LongVector) target;
+      System.arraycopy(values, 0, vector.values, offset, size);
+      if (nulls != null) {
+        for (int i = 0; i < size; i++) {
+          if (isNull(i)) {
+            vector.setNull(offset + i);
+          }
+        }
+      }
+    }
+
+    @Override public boolean copyFrom(Object array, int offset) {
+      if (array instanceof long[]) {
+        System.arraycopy(array, offset, values, 0, size);
+      } else if (array instanceof int[]) {
+        final int[] ints = (int[]) array;
+        for (int i = 0; i < size; i++) {
+          values[i] = ints[offset + i];
+        }
+      } else if (array instanceof short[]) {
+        final short[] shorts = (short[]) array;
+        for (int i = 0; i < size; i++) {
+          values[i] = shorts[offset + i];
+        }
+      } else if (array instanceof byte[]) {
+        final byte[] bytes = (byte[]) array;
+        for (int i = 0; i < size; i++) {
+          values[i] = bytes[offset + i];
+        }
+      } else if (array instanceof char[]) {
+        final char[] chars = (char[]) array;
+        for (int i = 0; i < size; i++) {
+          values[i] = chars[offset + i];
+        }
+      } else if (array instanceof boolean[]) {
+        final boolean[] booleans = (boolean[]) array;
+        for (int i = 0; i < size; i++) {
+          values[i] = booleans[offset + i] ? 1L : 0L;
+        }
+      } else {
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /** Vector of values held as {@code double}. */
+  public static class DoubleVector extends ColumnVector {
+    public final double[] values;
+    /** Null bitmap; bit {@code i} is set if row {@code i} is null. Null if
+     * there are no null values. */
+    long[] nulls;
+
+    DoubleVector(Primitive primitive, double[] values, long[] nulls) {
+      super(primitive, values.length);
+      this.values = values;
+      this.nulls = nulls;
+    }
+
+    public boolean isNull(int i) {
+      return nulls != null && (nulls[i >> 6] & (1L << i)) != 0;
+    }
+
+    /** Marks row {@code i} as null. */
+    public void setNull(int i) {
+      if (nulls == null) {
+        nulls = new long[(size + 63) >> 6];
+      }
+      nulls[i >> 6] |= 1L << i;
+    }
+
+    long[] nullBitmap() {
+      return nulls;
+    }
+
+    public Object get(int i) {
+      if (isNull(i)) {
+        return null;
+      }
+      return primitive == Primitive.FLOAT
+          ? (Object) (float) values[i]
+          : (Object) values[i];
+    }
+
+    public void set(int i, Object value) {
+      if (value == null) {
+        setNull(i);
+      } else {
+        values[i] = ((Number) value).doubleValue();
+      }
+    }
+
+    /** Rounds each value to {@code float} precision if {@link #primitive} is
+     * {@code float}. */
+    void narrow() {
+      if (primitive == Primitive.FLOAT) {
+        for (int i = 0; i < size; i++) {
+          values[i] = (float) values[i];
+        }
+      }
+    }
+
+    public DoubleVector select(int[] selection, int count) {
+      final DoubleVector vector =
+          new DoubleVector(primitive, new double[count], null);
+      for (int i = 0; i < count; i++) {
+        final int j = selection[i];
+        if (j < 0 || isNull(j)) {
+          vector.setNull(i);
+        } else {
+          vector.values[i] = values[j];
+        }
+      }
+      return vector;
+    }
+
+    protected void copyTo(ColumnVector target, int offset) {
+      final DoubleVector vector = (DoubleVector) target;
+      System.arraycopy(values, 0, vector.values, offset, size);
+      if (nulls != null) {
+        for (int i = 0; i < size; i++) {
+          if (isNull(i)) {
+            vector.setNull(offset + i);
+          }
+        }
+      }
+    }
+
+    @Override public boolean copyFrom(Object array, int offset) {
+      if (array instanceof double[]) {
+        System.arraycopy(array, offset, values, 0, size);
+      } else if (array instanceof float[]) {
+        final float[] floats = (float[]) array;
+        for (int i = 0; i < size; i++) {
+          values[i] = floats[offset + i];
+        }
+      } else {
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /** Vector of values held as objects. */
+  public static class ObjectVector extends ColumnVector {
+    public final Object[] values;
+
+    ObjectVector(Object[] values) {
+      super(null, values.length);
+      this.values = values;
+    }
+
+    public boolean isNull(int i) {
+      return values[i] == null;
+    }
+
+    public Object get(int i) {
+      return values[i];
+    }
+
+    long[] nullBitmap() {
+      long[] nulls = null;
+      for (int i = 0; i < size; i++) {
+        if (values[i] == null) {
+          if (nulls == null) {
+            nulls = new long[(size + 63) >> 6];
+          }
+          nulls[i >> 6] |= 1L << i;
+        }
+      }
+      return nulls;
+    }
+
+    public void set(int i, Object value) {
+      values[i] = value;
+    }
+
+    public ObjectVector select(int[] selection, int count) {
+      final Object[] selected = new Object[count];
+      for (int i = 0; i < count; i++) {
+        final int j = selection[i];
+        selected[i] = j < 0 ? null : values[j];
+      }
+      return new ObjectVector(selected);
+    }
+
+    protected void copyTo(ColumnVector target, int offset) {
+      System.arraycopy(values, 0, ((ObjectVector) target).values, offset,
+          size);
+    }
+
+    @Override public boolean copyFrom(Object array, int offset) {
+      if (array instanceof Object[]) {
+        System.arraycopy(array, offset, values, 0, size);
+        return true;
+      }
+      return false;
+    }
+  }
+}
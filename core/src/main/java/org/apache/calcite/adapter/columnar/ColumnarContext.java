@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.rel.RelNode;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Context for executing a tree of {@link ColumnarRel}.
+ *
+ * <p>Holds the {@link DataContext}, and the rows produced by the inputs in
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableConvention} that
+ * the tree converts to columnar.
+ */
+public class ColumnarContext {
+  public final DataContext root;
+  private final Map<RelNode, Enumerable<Object[]>> inputs =
+      new IdentityHashMap<>();
+
+  /** Creates a ColumnarContext.
+   *
+   * @param root Data context
+   * @param converters Converters from enumerable convention, in the order
+   *                   returned by {@link Columnars#enumerableInputs}
+   * @param inputs Rows of each converter's input
+   */
+  ColumnarContext(DataContext root, List<EnumerableToColumnarConverter> converters,
+      List<Enumerable<Object[]>> inputs) {
+    this.root = Objects.requireNonNull(root);
+    assert converters.size() == inputs.size();
+    for (int i = 0; i < converters.size(); i++) {
+      this.inputs.put(converters.get(i), inputs.get(i));
+    }
+  }
+
+  /** Returns the rows of a converter's input. */
+  Enumerable<Object[]> input(EnumerableToColumnarConverter converter) {
+    return Objects.requireNonNull(inputs.get(converter));
+  }
+}
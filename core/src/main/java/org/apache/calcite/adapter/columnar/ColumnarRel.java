@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.rel.RelNode;
+
+/**
+ * Relational expression that uses the {@link ColumnarConvention} calling
+ * convention.
+ */
+public interface ColumnarRel extends RelNode {
+  /** Executes this relational expression, returning its rows as batches.
+   *
+   * <p>Each batch has one vector per field of this expression's row type, and
+   * at most {@link ColumnBatch#SIZE} rows. */
+  Enumerable<ColumnBatch> execute(ColumnarContext context);
+}
@@ -0,0 +1,509 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.adapter.columnar.ColumnVector.DoubleVector;
+import org.apache.calcite.adapter.columnar.ColumnVector.LongVector;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.tree.Primitive;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeUtil;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compiles a {@link RexNode} into a {@link ColumnarExpression}.
+ *
+ * <p>Supports input references, literals, comparisons, {@code AND},
+ * {@code OR}, {@code NOT}, {@code IS [NOT] NULL}, arithmetic and numeric
+ * {@code CAST}. Arithmetic and comparison follow Java semantics for the
+ * values' representation, as generated code in
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableConvention} does.
+ */
+public class ColumnarRexCompiler {
+  private final JavaTypeFactory typeFactory;
+
+  public ColumnarRexCompiler(JavaTypeFactory typeFactory) {
+    this.typeFactory = Objects.requireNonNull(typeFactory);
+  }
+
+  /** Returns whether every expression in a list can be compiled. */
+  public boolean canCompile(List<? extends RexNode> nodes) {
+    for (RexNode node : nodes) {
+      if (compile(node) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Compiles an expression, or returns null if it contains an operator or
+   * type that is not supported. */
+  public ColumnarExpression compile(RexNode node) {
+    switch (node.getKind()) {
+    case INPUT_REF:
+      final int index = ((RexInputRef) node).getIndex();
+      return batch -> batch.column(index);
+    case LITERAL:
+      return compileLiteral((RexLiteral) node);
+    default:
+      if (node instanceof RexCall) {
+        return compileCall((RexCall) node);
+      }
+      return null;
+    }
+  }
+
+  private Primitive primitive(RelDataType type) {
+    return ColumnVector.primitive(typeFactory, type);
+  }
+
+  private ColumnarExpression compileLiteral(RexLiteral literal) {
+    final Primitive primitive = primitive(literal.getType());
+    final Object value;
+    if (literal.getValue() == null) {
+      value = null;
+    } else {
+      switch (literal.getTypeName()) {
+      case BOOLEAN:
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+      case BIGINT:
+      case REAL:
+      case FLOAT:
+      case DOUBLE:
+      case DATE:
+      case TIME:
+      case TIMESTAMP:
+        if (primitive == null) {
+          return null;
+        }
+        value = literal.getValueAs(primitive.boxClass);
+        break;
+      case CHAR:
+      case VARCHAR:
+        value = literal.getValueAs(String.class);
+        break;
+      case DECIMAL:
+        value = literal.getValueAs(BigDecimal.class);
+        break;
+      default:
+        return null;
+      }
+    }
+    return batch -> ColumnVector.constant(primitive, value, batch.rowCount);
+  }
+
+  private ColumnarExpression compileCall(RexCall call) {
+    final List<ColumnarExpression> operands = new ArrayList<>();
+    for (RexNode operand : call.getOperands()) {
+      final ColumnarExpression e = compile(operand);
+      if (e == null) {
+        return null;
+      }
+      operands.add(e);
+    }
+    final Primitive primitive = primitive(call.getType());
+    switch (call.getKind()) {
+    case EQUALS:
+    case NOT_EQUALS:
+    case LESS_THAN:
+    case LESS_THAN_OR_EQUAL:
+    case GREATER_THAN:
+    case GREATER_THAN_OR_EQUAL:
+      return compileComparison(call, operands.get(0), operands.get(1));
+    case AND:
+    case OR:
+      return compileLogical(call.getKind(), operands);
+    case NOT:
+      return batch -> not((LongVector) operands.get(0).evaluate(batch));
+    case IS_NULL:
+    case IS_NOT_NULL:
+      final boolean isNull = call.getKind() == SqlKind.IS_NULL;
+      return batch -> isNull(operands.get(0).evaluate(batch), isNull);
+    case PLUS:
+    case MINUS:
+    case TIMES:
+    case DIVIDE:
+      if (!isNumeric(call.getType(), primitive)
+          || !isNumeric(call.operands.get(0))
+          || !isNumeric(call.operands.get(1))) {
+        return null;
+      }
+      return compileArithmetic(call.getKind(), primitive, operands.get(0),
+          operands.get(1), call.operands);
+    case MINUS_PREFIX:
+      if (!isNumeric(call.getType(), primitive)
+          || !isNumeric(call.operands.get(0))) {
+        return null;
+      }
+      final ColumnarExpression zero =
+          batch -> ColumnVector.constant(primitive, 0, batch.rowCount);
+      return compileArithmetic(SqlKind.MINUS, primitive, zero,
+          operands.get(0), call.operands);
+    case CAST:
+      return compileCast(call, primitive, operands.get(0));
+    default:
+      return null;
+    }
+  }
+
+  private ColumnarExpression compileArithmetic(SqlKind kind,
+      Primitive primitive, ColumnarExpression left, ColumnarExpression right,
+      List<RexNode> operandNodes) {
+    if (ColumnVector.isDouble(primitive)) {
+      return batch -> arithmetic(kind, primitive,
+          asDouble(left.evaluate(batch)), asDouble(right.evaluate(batch)));
+    }
+    for (RexNode operandNode : operandNodes) {
+      if (ColumnVector.isDouble(primitive(operandNode.getType()))) {
+        // Integer result of a floating-point operation; not supported
+        return null;
+      }
+    }
+    return batch -> arithmetic(kind, primitive,
+        (LongVector) left.evaluate(batch), (LongVector) right.evaluate(batch),
+        batch);
+  }
+
+  private boolean isNumeric(RexNode node) {
+    return isNumeric(node.getType(), primitive(node.getType()));
+  }
+
+  private static boolean isNumeric(RelDataType type, Primitive primitive) {
+    return primitive != null && SqlTypeUtil.isNumeric(type);
+  }
+
+  private ColumnarExpression compileComparison(RexCall call,
+      ColumnarExpression left, ColumnarExpression right) {
+    final RexNode leftNode = call.operands.get(0);
+    final RexNode rightNode = call.operands.get(1);
+    final Primitive leftPrimitive = primitive(leftNode.getType());
+    final Primitive rightPrimitive = primitive(rightNode.getType());
+    final SqlKind kind = call.getKind();
+    if (leftPrimitive == null || rightPrimitive == null) {
+      if (leftPrimitive != null || rightPrimitive != null) {
+        return null;
+      }
+      final Type leftClass = typeFactory.getJavaClass(leftNode.getType());
+      final Type rightClass = typeFactory.getJavaClass(rightNode.getType());
+      if (!leftClass.equals(rightClass)) {
+        return null;
+      }
+      return batch -> compare(kind,
+          (ColumnVector.ObjectVector) left.evaluate(batch),
+          (ColumnVector.ObjectVector) right.evaluate(batch));
+    }
+    if (ColumnVector.isDouble(leftPrimitive)
+        || ColumnVector.isDouble(rightPrimitive)) {
+      return batch -> compare(kind, asDouble(left.evaluate(batch)),
+          asDouble(right.evaluate(batch)));
+    }
+    return batch -> compare(kind, (LongVector) left.evaluate(batch),
+        (LongVector) right.evaluate(batch));
+  }
+
+  private ColumnarExpression compileLogical(SqlKind kind,
+      List<ColumnarExpression> operands) {
+    return batch -> {
+      final List<LongVector> vectors = new ArrayList<>();
+      for (ColumnarExpression operand : operands) {
+        vectors.add((LongVector) operand.evaluate(batch));
+      }
+      return logical(kind, batch.rowCount, vectors);
+    };
+  }
+
+  private ColumnarExpression compileCast(RexCall call, Primitive primitive,
+      ColumnarExpression operand) {
+    final RelDataType operandType = call.operands.get(0).getType();
+    final Primitive operandPrimitive = primitive(operandType);
+    if (primitive == operandPrimitive
+        && (primitive != null
+            || typeFactory.getJavaClass(call.getType())
+                .equals(typeFactory.getJavaClass(operandType)))
+        && call.getType().getSqlTypeName() == operandType.getSqlTypeName()) {
+      // Cast that only changes nullability or precision
+      return operand;
+    }
+    if (!isNumeric(call.getType(), primitive)
+        || !isNumeric(operandType, operandPrimitive)) {
+      return null;
+    }
+    return batch -> cast(primitive, operand.evaluate(batch));
+  }
+
+  /** Returns the union of two null bitmaps, as a new array. */
+  private static long[] union(long[] nulls0, long[] nulls1) {
+    if (nulls0 == null) {
+      return nulls1 == null ? null : nulls1.clone();
+    }
+    final long[] nulls = nulls0.clone();
+    if (nulls1 != null) {
+      for (int i = 0; i < nulls.length; i++) {
+        nulls[i] |= nulls1[i];
+      }
+    }
+    return nulls;
+  }
+
+  private static DoubleVector asDouble(ColumnVector vector) {
+    if (vector instanceof DoubleVector) {
+      return (DoubleVector) vector;
+    }
+    final LongVector longVector = (LongVector) vector;
+    final double[] values = new double[vector.size];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = longVector.values[i];
+    }
+    return new DoubleVector(Primitive.DOUBLE, values, longVector.nulls);
+  }
+
+  private static LongVector compare(SqlKind kind, LongVector left,
+      LongVector right) {
+    final int[] c = new int[left.size];
+    for (int i = 0; i < c.length; i++) {
+      c[i] = Long.compare(left.values[i], right.values[i]);
+    }
+    return comparison(kind, c, union(left.nulls, right.nulls));
+  }
+
+  private static LongVector compare(SqlKind kind, DoubleVector left,
+      DoubleVector right) {
+    final int[] c = new int[left.size];
+    for (int i = 0; i < c.length; i++) {
+      final double x = left.values[i];
+      final double y = right.values[i];
+      c[i] = x < y ? -1 : x > y ? 1 : 0;
+    }
+    return comparison(kind, c, union(left.nulls, right.nulls));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static LongVector compare(SqlKind kind,
+      ColumnVector.ObjectVector left, ColumnVector.ObjectVector right) {
+    final int[] c = new int[left.size];
+    for (int i = 0; i < c.length; i++) {
+      final Object x = left.values[i];
+      final Object y = right.values[i];
+      if (x != null && y != null) {
+        c[i] = ((Comparable) x).compareTo(y);
+      }
+    }
+    return comparison(kind, c,
+        union(left.nullBitmap(), right.nullBitmap()));
+  }
+
+  /** Converts the results of comparing each row into a boolean vector. */
+  private static LongVector comparison(SqlKind kind, int[] c, long[] nulls) {
+    final long[] values = new long[c.length];
+    switch (kind) {
+    case EQUALS:
+      for (int i = 0; i < c.length; i++) {
+        values[i] = c[i] == 0 ? 1L : 0L;
+      }
+      break;
+    case NOT_EQUALS:
+      for (int i = 0; i < c.length; i++) {
+        values[i] = c[i] != 0 ? 1L : 0L;
+      }
+      break;
+    case LESS_THAN:
+      for (int i = 0; i < c.length; i++) {
+        values[i] = c[i] < 0 ? 1L : 0L;
+      }
+      break;
+    case LESS_THAN_OR_EQUAL:
+      for (int i = 0; i < c.length; i++) {
+        values[i] = c[i] <= 0 ? 1L : 0L;
+      }
+      break;
+    case GREATER_THAN:
+      for (int i = 0; i < c.length; i++) {
+        values[i] = c[i] > 0 ? 1L : 0L;
+      }
+      break;
+    case GREATER_THAN_OR_EQUAL:
+      for (int i = 0; i < c.length; i++) {
+        values[i] = c[i] >= 0 ? 1L : 0L;
+      }
+      break;
+    default:
+      throw new AssertionError(kind);
+    }
+    return new LongVector(Primitive.BOOLEAN, values, nulls);
+  }
+
+  /** Evaluates {@code AND} or {@code OR} using three-valued logic. */
+  private static LongVector logical(SqlKind kind, int rowCount,
+      List<LongVector> operands) {
+    // For AND, a FALSE operand dominates; for OR, a TRUE operand dominates.
+    final long dominant = kind == SqlKind.AND ? 0L : 1L;
+    final boolean[] decided = new boolean[rowCount];
+    final boolean[] unknown = new boolean[rowCount];
+    for (LongVector operand : operands) {
+      for (int i = 0; i < rowCount; i++) {
+        if (operand.isNull(i)) {
+          unknown[i] = true;
+        } else if (operand.values[i] == dominant) {
+          decided[i] = true;
+        }
+      }
+    }
+    final LongVector result =
+        new LongVector(Primitive.BOOLEAN, new long[rowCount], null);
+    for (int i = 0; i < rowCount; i++) {
+      if (decided[i]) {
+        result.values[i] = dominant;
+      } else if (unknown[i]) {
+        result.setNull(i);
+      } else {
+        result.values[i] = 1L - dominant;
+      }
+    }
+    return result;
+  }
+
+  private static LongVector not(LongVector operand) {
+    final long[] values = new long[operand.size];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1L - operand.values[i];
+    }
+    return new LongVector(Primitive.BOOLEAN, values,
+        union(operand.nulls, null));
+  }
+
+  private static LongVector isNull(ColumnVector operand, boolean isNull) {
+    final long[] values = new long[operand.size];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = operand.isNull(i) == isNull ? 1L : 0L;
+    }
+    return new LongVector(Primitive.BOOLEAN, values, null);
+  }
+
+  private static LongVector arithmetic(SqlKind kind, Primitive primitive,
+      LongVector left, LongVector right, ColumnBatch batch) {
+    final long[] x = left.values;
+    final long[] y = right.values;
+    final long[] values = new long[x.length];
+    final long[] nulls = union(left.nulls, right.nulls);
+    switch (kind) {
+    case PLUS:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] + y[i];
+      }
+      break;
+    case MINUS:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] - y[i];
+      }
+      break;
+    case TIMES:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] * y[i];
+      }
+      break;
+    case DIVIDE:
+      // Only divide rows that are present, and whose values are not null;
+      // in any other row, the divisor may be 0
+      for (int k = 0; k < batch.size; k++) {
+        final int i = batch.index(k);
+        if (nulls == null || (nulls[i >> 6] & (1L << i)) == 0) {
+          values[i] = x[i] / y[i];
+        }
+      }
+      break;
+    default:
+      throw new AssertionError(kind);
+    }
+    final LongVector result = new LongVector(primitive, values, nulls);
+    result.narrow();
+    return result;
+  }
+
+  private static DoubleVector arithmetic(SqlKind kind, Primitive primitive,
+      DoubleVector left, DoubleVector right) {
+    final double[] x = left.values;
+    final double[] y = right.values;
+    final double[] values = new double[x.length];
+    switch (kind) {
+    case PLUS:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] + y[i];
+      }
+      break;
+    case MINUS:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] - y[i];
+      }
+      break;
+    case TIMES:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] * y[i];
+      }
+      break;
+    case DIVIDE:
+      for (int i = 0; i < values.length; i++) {
+        values[i] = x[i] / y[i];
+      }
+      break;
+    default:
+      throw new AssertionError(kind);
+    }
+    final DoubleVector result =
+        new DoubleVector(primitive, values, union(left.nulls, right.nulls));
+    result.narrow();
+    return result;
+  }
+
+  private static ColumnVector cast(Primitive primitive, ColumnVector operand) {
+    if (ColumnVector.isDouble(primitive)) {
+      final DoubleVector source = asDouble(operand);
+      final DoubleVector result =
+          new DoubleVector(primitive, source.values.clone(),
+              union(source.nulls, null));
+      result.narrow();
+      return result;
+    }
+    final long[] values = new long[operand.size];
+    final long[] nulls;
+    if (operand instanceof DoubleVector) {
+      final DoubleVector source = (DoubleVector) operand;
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (long) source.values[i];
+      }
+      nulls = union(source.nulls, null);
+    } else {
+      final LongVector source = (LongVector) operand;
+      System.arraycopy(source.values, 0, values, 0, values.length);
+      nulls = union(source.nulls, null);
+    }
+    final LongVector result = new LongVector(primitive, values, nulls);
+    result.narrow();
+    return result;
+  }
+}
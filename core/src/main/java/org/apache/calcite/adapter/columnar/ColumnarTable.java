@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.schema.Table;
+
+/**
+ * Table that can return its contents as batches of column vectors, and can
+ * therefore be the source of a plan in {@link ColumnarConvention} without
+ * converting rows.
+ *
+ * @see Columnars.ColumnarTableScan
+ */
+public interface ColumnarTable extends Table {
+  /** Returns the contents of this table as batches.
+   *
+   * <p>Each batch has one vector per field of the table's row type, whose
+   * {@link ColumnVector#primitive} is as given by
+   * {@link ColumnVector#primitive(JavaTypeFactory, RelDataType)} for the
+   * field's type, and at most {@link ColumnBatch#SIZE} rows. */
+  Enumerable<ColumnBatch> batches(DataContext root);
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterImpl;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.BuiltInMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relational expression that converts an input in {@link ColumnarConvention}
+ * to {@link org.apache.calcite.adapter.enumerable.EnumerableConvention}.
+ *
+ * <p>Generates code for the enumerable inputs of the columnar tree (each
+ * below an {@link EnumerableToColumnarConverter}), then calls
+ * {@link Columnars#toRows} to execute the tree and convert its batches into
+ * rows.
+ */
+public class ColumnarToEnumerableConverter extends ConverterImpl
+    implements EnumerableRel {
+  protected ColumnarToEnumerableConverter(RelOptCluster cluster,
+      RelTraitSet traits, RelNode input) {
+    super(cluster, ConventionTraitDef.INSTANCE, traits, input);
+  }
+
+  @Override public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+    return new ColumnarToEnumerableConverter(getCluster(), traitSet,
+        sole(inputs));
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq)
+        .multiplyBy(ColumnarConvention.CONVERSION_COST_MULTIPLIER);
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final JavaTypeFactory typeFactory = implementor.getTypeFactory();
+    final BlockBuilder builder = new BlockBuilder();
+    final List<Expression> inputs = new ArrayList<>();
+    for (EnumerableToColumnarConverter converter
+        : Columnars.enumerableInputs(getInput())) {
+      final EnumerableRel input = (EnumerableRel) converter.getInput();
+      final Result result =
+          implementor.visitChild(converter, 0, input, Prefer.ARRAY);
+      // Batches are built from rows that are arrays, even if there is one
+      // column
+      inputs.add(
+          builder.append("input",
+              result.physType.convertTo(
+                  builder.append("input", result.block),
+                  JavaRowFormat.ARRAY)));
+    }
+    final PhysType physType =
+        PhysTypeImpl.of(typeFactory, getRowType(), JavaRowFormat.ARRAY);
+    final Expression rows_ =
+        builder.append("rows",
+            Expressions.call(BuiltInMethod.COLUMNAR_TO_ROWS.method,
+                implementor.getRootExpression(),
+                implementor.stash((ColumnarRel) getInput(), ColumnarRel.class),
+                Expressions.newArrayInit(Enumerable.class, inputs)));
+    final Expression sliced_ =
+        getRowType().getFieldCount() == 1
+            ? Expressions.call(BuiltInMethod.SLICE0.method, rows_)
+            : rows_;
+    builder.add(sliced_);
+    return implementor.result(physType, builder.toBlock());
+  }
+}
@@ -0,0 +1,1159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.columnar;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.columnar.ColumnVector.DoubleVector;
+import org.apache.calcite.adapter.columnar.ColumnVector.LongVector;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.tree.Primitive;
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.core.CorrelationId;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.RelFactories;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.logical.LogicalTableScan;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Utilities pertaining to {@link ColumnarRel} and {@link ColumnarConvention}.
+ */
+public class Columnars {
+  private Columnars() {}
+
+  public static final RelOptRule COLUMNAR_TABLE_SCAN_RULE =
+      new ColumnarTableScanRule(RelFactories.LOGICAL_BUILDER);
+
+  public static final RelOptRule COLUMNAR_FILTER_RULE =
+      new ColumnarFilterRule(RelFactories.LOGICAL_BUILDER);
+
+  public static final RelOptRule COLUMNAR_PROJECT_RULE =
+      new ColumnarProjectRule(RelFactories.LOGICAL_BUILDER);
+
+  public static final RelOptRule COLUMNAR_AGGREGATE_RULE =
+      new ColumnarAggregateRule(RelFactories.LOGICAL_BUILDER);
+
+  public static final RelOptRule COLUMNAR_JOIN_RULE =
+      new ColumnarJoinRule(RelFactories.LOGICAL_BUILDER);
+
+  public static final RelOptRule ENUMERABLE_TO_COLUMNAR_RULE =
+      new EnumerableToColumnarConverterRule(RelFactories.LOGICAL_BUILDER);
+
+  public static final RelOptRule COLUMNAR_TO_ENUMERABLE_RULE =
+      new ColumnarToEnumerableConverterRule(RelFactories.LOGICAL_BUILDER);
+
+  /** All rules that convert logical relational expressions to columnar, and
+   * convert between columnar and enumerable conventions. */
+  public static final ImmutableList<RelOptRule> RULES =
+      ImmutableList.of(
+          COLUMNAR_TABLE_SCAN_RULE,
+          COLUMNAR_FILTER_RULE,
+          COLUMNAR_PROJECT_RULE,
+          COLUMNAR_AGGREGATE_RULE,
+          COLUMNAR_JOIN_RULE,
+          ENUMERABLE_TO_COLUMNAR_RULE,
+          COLUMNAR_TO_ENUMERABLE_RULE);
+
+  /** Returns the primitive representation of each field of a row type.
+   *
+   * @see ColumnVector#primitive(JavaTypeFactory, RelDataType) */
+  public static List<Primitive> primitives(JavaTypeFactory typeFactory,
+      RelDataType rowType) {
+    final List<Primitive> primitives = new ArrayList<>();
+    for (RelDataTypeField field : rowType.getFieldList()) {
+      primitives.add(ColumnVector.primitive(typeFactory, field.getType()));
+    }
+    return primitives;
+  }
+
+  /** Returns a compiler for the expressions of a relational expression, or
+   * null if its type factory cannot map types to Java classes. */
+  private static ColumnarRexCompiler compiler(RelNode rel) {
+    final RelDataTypeFactory typeFactory = rel.getCluster().getTypeFactory();
+    return typeFactory instanceof JavaTypeFactory
+        ? new ColumnarRexCompiler((JavaTypeFactory) typeFactory)
+        : null;
+  }
+
+  /** Returns the converters from enumerable convention within a tree of
+   * columnar relational expressions, in depth-first order. Does not look
+   * inside the converters' inputs. */
+  static List<EnumerableToColumnarConverter> enumerableInputs(RelNode rel) {
+    final List<EnumerableToColumnarConverter> list = new ArrayList<>();
+    addEnumerableInputs(rel, list);
+    return list;
+  }
+
+  private static void addEnumerableInputs(RelNode rel,
+      List<EnumerableToColumnarConverter> list) {
+    if (rel instanceof EnumerableToColumnarConverter) {
+      list.add((EnumerableToColumnarConverter) rel);
+      return;
+    }
+    for (RelNode input : rel.getInputs()) {
+      addEnumerableInputs(input, list);
+    }
+  }
+
+  /** Executes a tree of columnar relational expressions and returns its rows.
+   *
+   * <p>Called from code generated by {@link ColumnarToEnumerableConverter}.
+   *
+   * @param root Data context
+   * @param rel Root of the columnar tree
+   * @param inputs Rows of each converter returned by
+   *              {@link #enumerableInputs(RelNode)}, as arrays
+   */
+  @SuppressWarnings("unchecked")
+  public static Enumerable<Object[]> toRows(DataContext root, ColumnarRel rel,
+      Enumerable[] inputs) {
+    final List<Enumerable<Object[]>> inputList = new ArrayList<>();
+    for (Enumerable input : inputs) {
+      inputList.add((Enumerable<Object[]>) input);
+    }
+    final ColumnarContext context =
+        new ColumnarContext(root, enumerableInputs(rel), inputList);
+    final Enumerable<ColumnBatch> batches = rel.execute(context);
+    return new AbstractEnumerable<Object[]>() {
+      public Enumerator<Object[]> enumerator() {
+        return new RowEnumerator(batches.enumerator());
+      }
+    };
+  }
+
+  /** Converts rows, represented as arrays, into batches. */
+  static Enumerable<ColumnBatch> toBatches(Enumerable<Object[]> rows,
+      List<Primitive> primitives) {
+    return new AbstractEnumerable<ColumnBatch>() {
+      public Enumerator<ColumnBatch> enumerator() {
+        return new BatchEnumerator(rows.enumerator(), primitives);
+      }
+    };
+  }
+
+  /** Enumerator that converts batches into rows. */
+  private static class RowEnumerator implements Enumerator<Object[]> {
+    private final Enumerator<ColumnBatch> batches;
+    private ColumnBatch batch;
+    private int i;
+
+    RowEnumerator(Enumerator<ColumnBatch> batches) {
+      this.batches = batches;
+    }
+
+    public Object[] current() {
+      return batch.row(batch.index(i));
+    }
+
+    public boolean moveNext() {
+      if (batch != null && ++i < batch.size) {
+        return true;
+      }
+      while (batches.moveNext()) {
+        batch = batches.current();
+        if (batch.size > 0) {
+          i = 0;
+          return true;
+        }
+      }
+      batch = null;
+      return false;
+    }
+
+    public void reset() {
+      batches.reset();
+      batch = null;
+    }
+
+    public void close() {
+      batches.close();
+    }
+  }
+
+  /** Enumerator that converts rows into batches. */
+  private static class BatchEnumerator implements Enumerator<ColumnBatch> {
+    private final Enumerator<Object[]> rows;
+    private final List<Primitive> primitives;
+    private final List<Object[]> buffer = new ArrayList<>();
+    private ColumnBatch batch;
+    private boolean done;
+
+    BatchEnumerator(Enumerator<Object[]> rows, List<Primitive> primitives) {
+      this.rows = rows;
+      this.primitives = primitives;
+    }
+
+    public ColumnBatch current() {
+      return batch;
+    }
+
+    public boolean moveNext() {
+      buffer.clear();
+      while (!done && buffer.size() < ColumnBatch.SIZE) {
+        if (rows.moveNext()) {
+          buffer.add(rows.current());
+        } else {
+          done = true;
+        }
+      }
+      if (buffer.isEmpty()) {
+        batch = null;
+        return false;
+      }
+      final int rowCount = buffer.size();
+      final List<ColumnVector> columns = new ArrayList<>();
+      for (int c = 0; c < primitives.size(); c++) {
+        final ColumnVector column =
+            ColumnVector.of(primitives.get(c), rowCount);
+        for (int r = 0; r < rowCount; r++) {
+          column.set(r, buffer.get(r)[c]);
+        }
+        columns.add(column);
+      }
+      batch = new ColumnBatch(rowCount, columns);
+      return true;
+    }
+
+    public void reset() {
+      rows.reset();
+      done = false;
+      batch = null;
+    }
+
+    public void close() {
+      rows.close();
+    }
+  }
+
+  /** Returns the key of row {@code i} in a batch: null if any key column is
+   * null, the value if there is one key column, otherwise a list. */
+  private static Object key(ColumnBatch batch, int[] keys, int i) {
+    if (keys.length == 1) {
+      return batch.column(keys[0]).get(i);
+    }
+    final Object[] values = new Object[keys.length];
+    for (int k = 0; k < keys.length; k++) {
+      values[k] = batch.column(keys[k]).get(i);
+      if (values[k] == null) {
+        return null;
+      }
+    }
+    return Arrays.asList(values);
+  }
+
+  /** Rule that converts a {@link LogicalTableScan} of a {@link ColumnarTable}
+   * to columnar convention. */
+  public static class ColumnarTableScanRule extends RelOptRule {
+
+    /**
+     * Creates a ColumnarTableScanRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public ColumnarTableScanRule(RelBuilderFactory relBuilderFactory) {
+      super(operand(LogicalTableScan.class, none()), relBuilderFactory, null);
+    }
+
+    @Override public void onMatch(RelOptRuleCall call) {
+      final LogicalTableScan scan = call.rel(0);
+      final RelOptTable table = scan.getTable();
+      if (table.unwrap(ColumnarTable.class) != null) {
+        call.transformTo(ColumnarTableScan.create(scan.getCluster(), table));
+      }
+    }
+  }
+
+  /** Scan of a table that implements {@link ColumnarTable}. */
+  public static class ColumnarTableScan extends TableScan
+      implements ColumnarRel {
+    /** Creates a ColumnarTableScan.
+     *
+     * <p>Use {@link #create} unless you know what you are doing. */
+    ColumnarTableScan(RelOptCluster cluster, RelTraitSet traitSet,
+        RelOptTable table) {
+      super(cluster, traitSet, ImmutableList.of(), table);
+    }
+
+    /** Creates a ColumnarTableScan. */
+    public static ColumnarTableScan create(RelOptCluster cluster,
+        RelOptTable relOptTable) {
+      return new ColumnarTableScan(cluster,
+          cluster.traitSetOf(ColumnarConvention.INSTANCE), relOptTable);
+    }
+
+    @Override public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+      assert inputs.isEmpty();
+      return new ColumnarTableScan(getCluster(), traitSet, table);
+    }
+
+    @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+        RelMetadataQuery mq) {
+      return super.computeSelfCost(planner, mq)
+          .multiplyBy(ColumnarConvention.COST_MULTIPLIER);
+    }
+
+    public Enumerable<ColumnBatch> execute(ColumnarContext context) {
+      return table.unwrap(ColumnarTable.class).batches(context.root);
+    }
+  }
+
+  /** Rule that converts a {@link Filter} to columnar convention. */
+  public static class ColumnarFilterRule extends ConverterRule {
+
+    /**
+     * Creates a ColumnarFilterRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public ColumnarFilterRule(RelBuilderFactory relBuilderFactory) {
+      super(LogicalFilter.class,
+          (Predicate<LogicalFilter>) ColumnarFilter::canImplement,
+          Convention.NONE, ColumnarConvention.INSTANCE, relBuilderFactory,
+          "ColumnarFilterRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalFilter filter = (LogicalFilter) rel;
+      return new ColumnarFilter(rel.getCluster(),
+          rel.getTraitSet().replace(ColumnarConvention.INSTANCE),
+          convert(filter.getInput(),
+              filter.getInput().getTraitSet()
+                  .replace(ColumnarConvention.INSTANCE)),
+          filter.getCondition());
+    }
+  }
+
+  /** Implementation of {@link Filter} in columnar convention.
+   *
+   * <p>Evaluates the condition for a whole batch, then copies the rows for
+   * which it is true into a new batch. */
+  public static class ColumnarFilter extends Filter implements ColumnarRel {
+    public ColumnarFilter(RelOptCluster cluster, RelTraitSet traitSet,
+        RelNode input, RexNode condition) {
+      super(cluster, traitSet, input, condition);
+      assert getConvention() instanceof ColumnarConvention;
+    }
+
+    /** Returns whether a filter's condition can be evaluated in columnar
+     * convention. */
+    public static boolean canImplement(Filter filter) {
+      final ColumnarRexCompiler compiler = compiler(filter);
+      return compiler != null
+          && RelOptUtil.notContainsWindowedAgg(filter)
+          && compiler.compile(filter.getCondition()) != null;
+    }
+
+    public ColumnarFilter copy(RelTraitSet traitSet, RelNode input,
+        RexNode condition) {
+      return new ColumnarFilter(getCluster(), traitSet, input, condition);
+    }
+
+    @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+        RelMetadataQuery mq) {
+      return super.computeSelfCost(planner, mq)
+          .multiplyBy(ColumnarConvention.COST_MULTIPLIER);
+    }
+
+    public Enumerable<ColumnBatch> execute(ColumnarContext context) {
+      final ColumnarExpression condition =
+          new ColumnarRexCompiler(context.root.getTypeFactory())
+              .compile(this.condition);
+      return ((ColumnarRel) getInput()).execute(context)
+          .select(batch -> filter(batch, condition))
+          .where(batch -> batch.size > 0);
+    }
+
+    /** Evaluates the condition and returns a batch whose selection vector
+     * contains the rows for which it is true. The vectors are not copied. */
+    private static ColumnBatch filter(ColumnBatch batch,
+        ColumnarExpression condition) {
+      final LongVector v = (LongVector) condition.evaluate(batch);
+      final int[] selection = new int[batch.size];
+      int n = 0;
+      for (int k = 0; k < batch.size; k++) {
+        final int i = batch.index(k);
+        if (v.values[i] != 0 && !v.isNull(i)) {
+          selection[n++] = i;
+        }
+      }
+      return n == batch.size ? batch : batch.withSelection(selection, n);
+    }
+  }
+
+  /** Rule that converts a {@link LogicalProject} to columnar convention. */
+  public static class ColumnarProjectRule extends ConverterRule {
+
+    /**
+     * Creates a ColumnarProjectRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public ColumnarProjectRule(RelBuilderFactory relBuilderFactory) {
+      super(LogicalProject.class,
+          (Predicate<LogicalProject>) ColumnarProject::canImplement,
+          Convention.NONE, ColumnarConvention.INSTANCE, relBuilderFactory,
+          "ColumnarProjectRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalProject project = (LogicalProject) rel;
+      return new ColumnarProject(rel.getCluster(),
+          rel.getTraitSet().replace(ColumnarConvention.INSTANCE),
+          convert(project.getInput(),
+              project.getInput().getTraitSet()
+                  .replace(ColumnarConvention.INSTANCE)),
+          project.getProjects(),
+          project.getRowType());
+    }
+  }
+
+  /** Implementation of {@link Project} in columnar convention.
+   *
+   * <p>Each output column is computed for a whole batch at a time; a column
+   * that is just a reference to an input column is passed through without
+   * copying. */
+  public static class ColumnarProject extends Project implements ColumnarRel {
+    public ColumnarProject(RelOptCluster cluster, RelTraitSet traitSet,
+        RelNode input, List<? extends RexNode> projects, RelDataType rowType) {
+      super(cluster, traitSet, ImmutableList.of(), input, projects, rowType);
+      assert getConvention() instanceof ColumnarConvention;
+    }
+
+    /** Returns whether a project's expressions can be evaluated in columnar
+     * convention. */
+    public static boolean canImplement(Project project) {
+      final ColumnarRexCompiler compiler = compiler(project);
+      return compiler != null
+          && RelOptUtil.notContainsWindowedAgg(project)
+          && compiler.canCompile(project.getProjects());
+    }
+
+    public ColumnarProject copy(RelTraitSet traitSet, RelNode input,
+        List<RexNode> projects, RelDataType rowType) {
+      return new ColumnarProject(getCluster(), traitSet, input, projects,
+          rowType);
+    }
+
+    @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+        RelMetadataQuery mq) {
+      return super.computeSelfCost(planner, mq)
+          .multiplyBy(ColumnarConvention.COST_MULTIPLIER);
+    }
+
+    public Enumerable<ColumnBatch> execute(ColumnarContext context) {
+      final ColumnarRexCompiler compiler =
+          new ColumnarRexCompiler(context.root.getTypeFactory());
+      final List<ColumnarExpression> expressions = new ArrayList<>();
+      for (RexNode project : exps) {
+        expressions.add(compiler.compile(project));
+      }
+      return ((ColumnarRel) getInput()).execute(context)
+          .select(batch -> {
+            final List<ColumnVector> columns = new ArrayList<>();
+            for (ColumnarExpression expression : expressions) {
+              columns.add(expression.evaluate(batch));
+            }
+            return new ColumnBatch(batch.rowCount, columns, batch.selection,
+                batch.size);
+          });
+    }
+  }
+
+  /** Rule that converts a {@link LogicalAggregate} to columnar
+   * convention. */
+  public static class ColumnarAggregateRule extends ConverterRule {
+
+    /**
+     * Creates a ColumnarAggregateRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public ColumnarAggregateRule(RelBuilderFactory relBuilderFactory) {
+      super(LogicalAggregate.class,
+          (Predicate<LogicalAggregate>) ColumnarAggregate::canImplement,
+          Convention.NONE, ColumnarConvention.INSTANCE, relBuilderFactory,
+          "ColumnarAggregateRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalAggregate agg = (LogicalAggregate) rel;
+      final RelTraitSet traitSet =
+          agg.getTraitSet().replace(ColumnarConvention.INSTANCE);
+      return new ColumnarAggregate(rel.getCluster(), traitSet,
+          convert(agg.getInput(), traitSet), agg.getGroupSet(),
+          agg.getGroupSets(), agg.getAggCallList());
+    }
+  }
+
+  /** Implementation of {@link Aggregate} in columnar convention, using a
+   * hash table.
+   *
+   * <p>For each batch, first computes the group of every row, then updates
+   * the accumulators of each aggregate function in a loop over the batch.
+   * Supports {@code COUNT}, {@code SUM}, {@code $SUM0}, {@code MIN} and
+   * {@code MAX}, without {@code DISTINCT} or {@code FILTER}. */
+  public static class ColumnarAggregate extends Aggregate
+      implements ColumnarRel {
+    public ColumnarAggregate(RelOptCluster cluster, RelTraitSet traitSet,
+        RelNode input, ImmutableBitSet groupSet,
+        List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+      super(cluster, traitSet, ImmutableList.of(), input, groupSet, groupSets,
+          aggCalls);
+      assert getConvention() instanceof ColumnarConvention;
+    }
+
+    /** Returns whether an aggregate can be implemented in columnar
+     * convention. */
+    public static boolean canImplement(Aggregate aggregate) {
+      final RelDataTypeFactory typeFactory =
+          aggregate.getCluster().getTypeFactory();
+      if (aggregate.getGroupType() != Group.SIMPLE
+          || !(typeFactory instanceof JavaTypeFactory)) {
+        return false;
+      }
+      final RelDataType inputRowType = aggregate.getInput().getRowType();
+      for (AggregateCall aggCall : aggregate.getAggCallList()) {
+        if (aggCall.isDistinct()
+            || aggCall.filterArg >= 0
+            || !aggCall.getCollation().getFieldCollations().isEmpty()) {
+          return false;
+        }
+        switch (aggCall.getAggregation().getKind()) {
+        case COUNT:
+          break;
+        case SUM:
+        case SUM0:
+        case MIN:
+        case MAX:
+          if (aggCall.getArgList().size() != 1) {
+            return false;
+          }
+          final Primitive argPrimitive =
+              ColumnVector.primitive((JavaTypeFactory) typeFactory,
+                  inputRowType.getFieldList()
+                      .get(aggCall.getArgList().get(0)).getType());
+          final Primitive primitive =
+              ColumnVector.primitive((JavaTypeFactory) typeFactory,
+                  aggCall.getType());
+          if (argPrimitive == null || primitive == null
+              || ColumnVector.isDouble(argPrimitive)
+                  != ColumnVector.isDouble(primitive)) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override public ColumnarAggregate copy(RelTraitSet traitSet,
+        RelNode input, ImmutableBitSet groupSet,
+        List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+      return new ColumnarAggregate(getCluster(), traitSet, input, groupSet,
+          groupSets, aggCalls);
+    }
+
+    @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+        RelMetadataQuery mq) {
+      return super.computeSelfCost(planner, mq)
+          .multiplyBy(ColumnarConvention.COST_MULTIPLIER);
+    }
+
+    public Enumerable<ColumnBatch> execute(ColumnarContext context) {
+      final List<Primitive> primitives =
+          primitives(context.root.getTypeFactory(), getRowType());
+      final Enumerable<ColumnBatch> input =
+          ((ColumnarRel) getInput()).execute(context);
+      return new AbstractEnumerable<ColumnBatch>() {
+        public Enumerator<ColumnBatch> enumerator() {
+          final HashAggregator aggregator =
+              new HashAggregator(groupSet.toArray(), aggCalls, primitives);
+          try (Enumerator<ColumnBatch> batches = input.enumerator()) {
+            while (batches.moveNext()) {
+              aggregator.add(batches.current());
+            }
+          }
+          return Linq4j.enumerator(aggregator.result());
+        }
+      };
+    }
+  }
+
+  /** Computes the groups and aggregate values of a
+   * {@link ColumnarAggregate}. */
+  private static class HashAggregator {
+    private final int[] keys;
+    private final List<AggregateCall> aggCalls;
+    private final List<Primitive> primitives;
+    private final Map<Object, Integer> groupIds = new HashMap<>();
+    private final List<Object[]> groupKeys = new ArrayList<>();
+    private final Accumulator[] accumulators;
+
+    HashAggregator(int[] keys, List<AggregateCall> aggCalls,
+        List<Primitive> primitives) {
+      this.keys = keys;
+      this.aggCalls = aggCalls;
+      this.primitives = primitives;
+      this.accumulators = new Accumulator[aggCalls.size()];
+      for (int i = 0; i < accumulators.length; i++) {
+        accumulators[i] = new Accumulator(aggCalls.get(i));
+      }
+      if (keys.length == 0) {
+        // An aggregate without GROUP BY returns one row, even if its input
+        // is empty
+        group(new Object[0]);
+      }
+    }
+
+    private int group(Object[] key) {
+      final int g = groupKeys.size();
+      groupKeys.add(key);
+      for (Accumulator accumulator : accumulators) {
+        accumulator.ensureCapacity(g + 1);
+      }
+      return g;
+    }
+
+    void add(ColumnBatch batch) {
+      final int[] groups = new int[batch.rowCount];
+      if (keys.length > 0) {
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          final Object[] key = new Object[keys.length];
+          for (int j = 0; j < keys.length; j++) {
+            key[j] = batch.column(keys[j]).get(i);
+          }
+          final Object mapKey = keys.length == 1 ? key[0] : Arrays.asList(key);
+          Integer g = groupIds.get(mapKey);
+          if (g == null) {
+            g = group(key);
+            groupIds.put(mapKey, g);
+          }
+          groups[i] = g;
+        }
+      }
+      for (Accumulator accumulator : accumulators) {
+        accumulator.add(batch, groups);
+      }
+    }
+
+    List<ColumnBatch> result() {
+      final List<ColumnBatch> batches = new ArrayList<>();
+      final int groupCount = groupKeys.size();
+      for (int start = 0; start < groupCount; start += ColumnBatch.SIZE) {
+        final int n = Math.min(ColumnBatch.SIZE, groupCount - start);
+        final List<ColumnVector> columns = new ArrayList<>();
+        for (int k = 0; k < keys.length; k++) {
+          final ColumnVector column = ColumnVector.of(primitives.get(k), n);
+          for (int i = 0; i < n; i++) {
+            column.set(i, groupKeys.get(start + i)[k]);
+          }
+          columns.add(column);
+        }
+        for (int a = 0; a < accumulators.length; a++) {
+          columns.add(
+              accumulators[a].result(primitives.get(keys.length + a), start,
+                  n));
+        }
+        batches.add(new ColumnBatch(n, columns));
+      }
+      return batches;
+    }
+  }
+
+  /** Accumulates the values of one aggregate function for every group. */
+  private static class Accumulator {
+    private final AggregateCall aggCall;
+    /** Number of rows (for {@code COUNT}) or non-null values. */
+    private long[] counts = new long[16];
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+
+    Accumulator(AggregateCall aggCall) {
+      this.aggCall = aggCall;
+    }
+
+    void ensureCapacity(int groupCount) {
+      if (groupCount > counts.length) {
+        final int capacity = Math.max(groupCount, counts.length * 2);
+        counts = Arrays.copyOf(counts, capacity);
+        if (longs != null) {
+          longs = Arrays.copyOf(longs, capacity);
+        }
+        if (doubles != null) {
+          doubles = Arrays.copyOf(doubles, capacity);
+        }
+        if (objects != null) {
+          objects = Arrays.copyOf(objects, capacity);
+        }
+      }
+    }
+
+    void add(ColumnBatch batch, int[] groups) {
+      final List<Integer> args = aggCall.getArgList();
+      if (aggCall.getAggregation().getKind() == SqlKind.COUNT) {
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!anyNull(batch, args, i)) {
+            ++counts[groups[i]];
+          }
+        }
+        return;
+      }
+      final ColumnVector column = batch.column(args.get(0));
+      if (column instanceof LongVector) {
+        addLongs(batch, (LongVector) column, groups);
+      } else if (column instanceof DoubleVector) {
+        addDoubles(batch, (DoubleVector) column, groups);
+      } else {
+        addObjects(batch, (ColumnVector.ObjectVector) column, groups);
+      }
+    }
+
+    private static boolean anyNull(ColumnBatch batch, List<Integer> args,
+        int i) {
+      for (int arg : args) {
+        if (batch.column(arg).isNull(i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void addLongs(ColumnBatch batch, LongVector column, int[] groups) {
+      if (longs == null) {
+        longs = new long[counts.length];
+      }
+      final long[] values = column.values;
+      switch (aggCall.getAggregation().getKind()) {
+      case SUM:
+      case SUM0:
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!column.isNull(i)) {
+            final int g = groups[i];
+            longs[g] += values[i];
+            ++counts[g];
+          }
+        }
+        break;
+      case MIN:
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!column.isNull(i)) {
+            final int g = groups[i];
+            if (counts[g]++ == 0 || values[i] < longs[g]) {
+              longs[g] = values[i];
+            }
+          }
+        }
+        break;
+      case MAX:
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!column.isNull(i)) {
+            final int g = groups[i];
+            if (counts[g]++ == 0 || values[i] > longs[g]) {
+              longs[g] = values[i];
+            }
+          }
+        }
+        break;
+      default:
+        throw new AssertionError(aggCall);
+      }
+    }
+
+    private void addDoubles(ColumnBatch batch, DoubleVector column, int[] groups) {
+      if (doubles == null) {
+        doubles = new double[counts.length];
+      }
+      final double[] values = column.values;
+      switch (aggCall.getAggregation().getKind()) {
+      case SUM:
+      case SUM0:
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!column.isNull(i)) {
+            final int g = groups[i];
+            doubles[g] += values[i];
+            ++counts[g];
+          }
+        }
+        break;
+      case MIN:
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!column.isNull(i)) {
+            final int g = groups[i];
+            if (counts[g]++ == 0 || values[i] < doubles[g]) {
+              doubles[g] = values[i];
+            }
+          }
+        }
+        break;
+      case MAX:
+        for (int k = 0; k < batch.size; k++) {
+          final int i = batch.index(k);
+          if (!column.isNull(i)) {
+            final int g = groups[i];
+            if (counts[g]++ == 0 || values[i] > doubles[g]) {
+              doubles[g] = values[i];
+            }
+          }
+        }
+        break;
+      default:
+        throw new AssertionError(aggCall);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addObjects(ColumnBatch batch,
+        ColumnVector.ObjectVector column, int[] groups) {
+      if (objects == null) {
+        objects = new Object[counts.length];
+      }
+      final boolean min = aggCall.getAggregation().getKind() == SqlKind.MIN;
+      final Object[] values = column.values;
+      for (int k = 0; k < batch.size; k++) {
+        final int i = batch.index(k);
+        if (values[i] != null) {
+          final int g = groups[i];
+          if (counts[g]++ == 0) {
+            objects[g] = values[i];
+          } else {
+            final int c = ((Comparable) values[i]).compareTo(objects[g]);
+            if (min ? c < 0 : c > 0) {
+              objects[g] = values[i];
+            }
+          }
+        }
+      }
+    }
+
+    /** Returns a vector of the results for groups {@code start} to
+     * {@code start + n - 1}. */
+    ColumnVector result(Primitive primitive, int start, int n) {
+      final SqlKind kind = aggCall.getAggregation().getKind();
+      final ColumnVector vector = ColumnVector.of(primitive, n);
+      for (int i = 0; i < n; i++) {
+        final int g = start + i;
+        if (kind == SqlKind.COUNT) {
+          vector.set(i, counts[g]);
+        } else if (counts[g] == 0) {
+          vector.set(i, kind == SqlKind.SUM0 ? (Object) 0 : null);
+        } else if (longs != null) {
+          vector.set(i, longs[g]);
+        } else if (doubles != null) {
+          vector.set(i, doubles[g]);
+        } else {
+          vector.set(i, objects[g]);
+        }
+      }
+      if (vector instanceof LongVector) {
+        ((LongVector) vector).narrow();
+      } else if (vector instanceof DoubleVector) {
+        ((DoubleVector) vector).narrow();
+      }
+      return vector;
+    }
+  }
+
+  /** Rule that converts a {@link LogicalJoin} to columnar convention. */
+  public static class ColumnarJoinRule extends ConverterRule {
+
+    /**
+     * Creates a ColumnarJoinRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public ColumnarJoinRule(RelBuilderFactory relBuilderFactory) {
+      super(LogicalJoin.class,
+          (Predicate<LogicalJoin>) ColumnarHashJoin::canImplement,
+          Convention.NONE, ColumnarConvention.INSTANCE, relBuilderFactory,
+          "ColumnarJoinRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalJoin join = (LogicalJoin) rel;
+      final List<RelNode> inputs = new ArrayList<>();
+      for (RelNode input : join.getInputs()) {
+        inputs.add(
+            convert(input,
+                input.getTraitSet().replace(ColumnarConvention.INSTANCE)));
+      }
+      return new ColumnarHashJoin(rel.getCluster(),
+          rel.getCluster().traitSetOf(ColumnarConvention.INSTANCE),
+          inputs.get(0), inputs.get(1), join.getCondition(),
+          join.getVariablesSet(), join.getJoinType());
+    }
+  }
+
+  /** Implementation of an equi-{@link Join} in columnar convention, using a
+   * hash table.
+   *
+   * <p>Reads all batches of the right input into a hash table, then probes
+   * it with each batch of the left input, writing matching pairs of rows to
+   * output batches. Supports {@code INNER} and {@code LEFT} joins. */
+  public static class ColumnarHashJoin extends Join implements ColumnarRel {
+    protected ColumnarHashJoin(RelOptCluster cluster, RelTraitSet traitSet,
+        RelNode left, RelNode right, RexNode condition,
+        Set<CorrelationId> variablesSet, JoinRelType joinType) {
+      super(cluster, traitSet, ImmutableList.of(), left, right, condition,
+          variablesSet, joinType);
+      assert getConvention() instanceof ColumnarConvention;
+    }
+
+    /** Returns whether a join can be implemented in columnar convention. */
+    public static boolean canImplement(Join join) {
+      final RelDataTypeFactory typeFactory = join.getCluster().getTypeFactory();
+      if (join.getJoinType() != JoinRelType.INNER
+              && join.getJoinType() != JoinRelType.LEFT
+          || !(typeFactory instanceof JavaTypeFactory)) {
+        return false;
+      }
+      final JoinInfo joinInfo = join.analyzeCondition();
+      if (!joinInfo.isEqui() || joinInfo.leftKeys.isEmpty()) {
+        return false;
+      }
+      final JavaTypeFactory javaTypeFactory = (JavaTypeFactory) typeFactory;
+      final List<RelDataTypeField> leftFields =
+          join.getLeft().getRowType().getFieldList();
+      final List<RelDataTypeField> rightFields =
+          join.getRight().getRowType().getFieldList();
+      for (int i = 0; i < joinInfo.leftKeys.size(); i++) {
+        // Keys are compared using equals, so must have the same Java class
+        final RelDataType leftType =
+            leftFields.get(joinInfo.leftKeys.get(i)).getType();
+        final RelDataType rightType =
+            rightFields.get(joinInfo.rightKeys.get(i)).getType();
+        final Primitive primitive =
+            ColumnVector.primitive(javaTypeFactory, leftType);
+        if (primitive != ColumnVector.primitive(javaTypeFactory, rightType)
+            || primitive == null
+                && !javaTypeFactory.getJavaClass(leftType)
+                    .equals(javaTypeFactory.getJavaClass(rightType))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override public ColumnarHashJoin copy(RelTraitSet traitSet,
+        RexNode condition, RelNode left, RelNode right, JoinRelType joinType,
+        boolean semiJoinDone) {
+      return new ColumnarHashJoin(getCluster(), traitSet, left, right,
+          condition, variablesSet, joinType);
+    }
+
+    @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+        RelMetadataQuery mq) {
+      return super.computeSelfCost(planner, mq)
+          .multiplyBy(ColumnarConvention.COST_MULTIPLIER);
+    }
+
+    public Enumerable<ColumnBatch> execute(ColumnarContext context) {
+      final JoinInfo joinInfo = analyzeCondition();
+      final int[] leftKeys = joinInfo.leftKeys.toIntArray();
+      final int[] rightKeys = joinInfo.rightKeys.toIntArray();
+      final List<Primitive> rightPrimitives =
+          primitives(context.root.getTypeFactory(), right.getRowType());
+      final Enumerable<ColumnBatch> leftBatches =
+          ((ColumnarRel) left).execute(context);
+      final Enumerable<ColumnBatch> rightBatches =
+          ((ColumnarRel) right).execute(context);
+      return new AbstractEnumerable<ColumnBatch>() {
+        public Enumerator<ColumnBatch> enumerator() {
+          final HashTable table =
+              new HashTable(rightBatches.toList(), rightPrimitives,
+                  rightKeys);
+          return leftBatches
+              .selectMany(batch ->
+                  Linq4j.asEnumerable(
+                      table.probe(batch, leftKeys,
+                          joinType == JoinRelType.LEFT)))
+              .enumerator();
+        }
+      };
+    }
+  }
+
+  /** Hash table of the rows of the right input of a
+   * {@link ColumnarHashJoin}. */
+  private static class HashTable {
+    /** All rows of the right input. */
+    private final ColumnBatch rows;
+    /** For each key, the last row with that key. */
+    private final Map<Object, Integer> heads = new HashMap<>();
+    /** For each row, the previous row with the same key, or -1. */
+    private final int[] next;
+
+    HashTable(List<ColumnBatch> batches, List<Primitive> primitives,
+        int[] keys) {
+      final List<ColumnVector> columns = new ArrayList<>();
+      for (int c = 0; c < primitives.size(); c++) {
+        final List<ColumnVector> vectors = new ArrayList<>();
+        for (ColumnBatch batch : batches) {
+          vectors.add(batch.compact().column(c));
+        }
+        columns.add(ColumnVector.concat(primitives.get(c), vectors));
+      }
+      final int rowCount = columns.isEmpty() ? 0 : columns.get(0).size;
+      this.rows = new ColumnBatch(rowCount, columns);
+      this.next = new int[rowCount];
+      for (int j = 0; j < rowCount; j++) {
+        final Object key = key(rows, keys, j);
+        if (key != null) {
+          final Integer previous = heads.put(key, j);
+          next[j] = previous == null ? -1 : previous;
+        }
+      }
+    }
+
+    /** Returns the batches that result from joining a batch of left rows to
+     * this table. If {@code outer}, a left row that has no match is joined to
+     * a row of nulls. */
+    List<ColumnBatch> probe(ColumnBatch batch, int[] keys, boolean outer) {
+      final List<ColumnBatch> result = new ArrayList<>();
+      final int[] leftSelection = new int[ColumnBatch.SIZE];
+      final int[] rightSelection = new int[ColumnBatch.SIZE];
+      int n = 0;
+      for (int k = 0; k < batch.size; k++) {
+        final int i = batch.index(k);
+        final Object key = key(batch, keys, i);
+        final Integer head = key == null ? null : heads.get(key);
+        int j = head == null ? -1 : head;
+        if (j < 0 && !outer) {
+          continue;
+        }
+        do {
+          leftSelection[n] = i;
+          rightSelection[n] = j;
+          if (++n == ColumnBatch.SIZE) {
+            result.add(join(batch, leftSelection, rightSelection, n));
+            n = 0;
+          }
+          j = j < 0 ? -1 : next[j];
+        } while (j >= 0);
+      }
+      if (n > 0) {
+        result.add(join(batch, leftSelection, rightSelection, n));
+      }
+      return result;
+    }
+
+    private ColumnBatch join(ColumnBatch left, int[] leftSelection,
+        int[] rightSelection, int n) {
+      final List<ColumnVector> columns = new ArrayList<>();
+      columns.addAll(left.select(leftSelection, n).columns);
+      columns.addAll(rows.select(rightSelection, n).columns);
+      return new ColumnBatch(n, columns);
+    }
+  }
+
+  /** Rule that converts any relational expression in enumerable convention
+   * to columnar convention, by adding an
+   * {@link EnumerableToColumnarConverter}. */
+  public static class EnumerableToColumnarConverterRule extends ConverterRule {
+
+    /**
+     * Creates an EnumerableToColumnarConverterRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public EnumerableToColumnarConverterRule(
+        RelBuilderFactory relBuilderFactory) {
+      super(RelNode.class, (Predicate<RelNode>) r -> true,
+          EnumerableConvention.INSTANCE, ColumnarConvention.INSTANCE,
+          relBuilderFactory, "EnumerableToColumnarConverterRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      return new EnumerableToColumnarConverter(rel.getCluster(),
+          rel.getTraitSet().replace(ColumnarConvention.INSTANCE), rel);
+    }
+  }
+
+  /** Rule that converts any relational expression in columnar convention to
+   * enumerable convention, by adding a
+   * {@link ColumnarToEnumerableConverter}. */
+  public static class ColumnarToEnumerableConverterRule extends ConverterRule {
+
+    /**
+     * Creates a ColumnarToEnumerableConverterRule.
+     *
+     * @param relBuilderFactory Builder for relational expressions
+     */
+    public ColumnarToEnumerableConverterRule(
+        RelBuilderFactory relBuilderFactory) {
+      super(RelNode.class, (Predicate<RelNode>) r -> true,
+          ColumnarConvention.INSTANCE, EnumerableConvention.INSTANCE,
+          relBuilderFactory, "ColumnarToEnumerableConverterRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      return new ColumnarToEnumerableConverter(rel.getCluster(),
+          rel.getTraitSet().replace(EnumerableConvention.INSTANCE), rel);
+    }
+  }
+}
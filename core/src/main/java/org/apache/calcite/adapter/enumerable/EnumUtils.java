@@ -17,6 +17,8 @@
 package org.apache.calcite.adapter.enumerable;
 
 import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.config.CalciteConnectionConfig;
+import org.apache.calcite.config.CalciteConnectionProperty;
 import org.apache.calcite.linq4j.AbstractEnumerable;
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Enumerator;
@@ -24,6 +26,8 @@
 import org.apache.calcite.linq4j.Ord;
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.function.Function2;
+import org.apache.calcite.linq4j.function.LongFunction1;
+import org.apache.calcite.linq4j.function.Predicate1;
 import org.apache.calcite.linq4j.function.Predicate2;
 import org.apache.calcite.linq4j.tree.BlockBuilder;
 import org.apache.calcite.linq4j.tree.BlockStatement;
@@ -696,6 +700,113 @@ private static Expression matchMethodParameterType(
     return null;
   }
 
+  /** Returns the maximum number of rows (for a sort), groups (for an
+   * aggregate) or build-side rows (for a hash join) that a relational
+   * expression may hold in memory before it writes rows to temporary files,
+   * or -1 if there is no limit.
+   *
+   * @see CalciteConnectionProperty#SPILL_THRESHOLD */
+  static int spillThreshold(RelNode rel) {
+    final CalciteConnectionConfig config =
+        rel.getCluster().getPlanner().getContext()
+            .unwrap(CalciteConnectionConfig.class);
+    return config == null ? -1 : config.spillThreshold();
+  }
+
+  /** Returns the number of threads that may execute a pipeline of operators
+   * in parallel; 1 if queries are executed in a single thread.
+   *
+   * @see CalciteConnectionProperty#PARALLELISM */
+  static int parallelism(RelNode rel) {
+    final CalciteConnectionConfig config =
+        rel.getCluster().getPlanner().getContext()
+            .unwrap(CalciteConnectionConfig.class);
+    return config == null ? 1 : config.parallelism();
+  }
+
+  /** Returns whether rows of a given format can be written to a temporary
+   * file. Rows in other formats must be converted to
+   * {@link JavaRowFormat#ARRAY} first. */
+  static boolean isSpillable(JavaRowFormat format) {
+    return format == JavaRowFormat.ARRAY || format == JavaRowFormat.SCALAR;
+  }
+
+  /** Returns the given physical type if its rows can be written to a
+   * temporary file, otherwise an equivalent type whose format is
+   * {@link JavaRowFormat#ARRAY}. */
+  static PhysType spillablePhysType(JavaTypeFactory typeFactory,
+      PhysType physType) {
+    if (isSpillable(physType.getFormat())) {
+      return physType;
+    }
+    return PhysTypeImpl.of(typeFactory, physType.getRowType(),
+        JavaRowFormat.ARRAY, false);
+  }
+
+  /** Returns whether a relational expression may hold its hash keys as
+   * primitive values.
+   *
+   * @see CalciteConnectionProperty#PRIMITIVE_HASH_KEYS */
+  static boolean primitiveHashKeys(RelNode rel) {
+    final CalciteConnectionConfig config =
+        rel.getCluster().getPlanner().getContext()
+            .unwrap(CalciteConnectionConfig.class);
+    return config != null && config.primitiveHashKeys();
+  }
+
+  /** Returns whether a hash key consisting of the given fields can be held
+   * in a primitive {@code long} rather than a boxed object; that is, whether
+   * primitive hash keys are enabled and the key is a single field of integral
+   * type. DATE, TIME and TIMESTAMP values qualify, because they are
+   * represented as {@code int} or {@code long}. */
+  static boolean isLongKey(RelNode rel, PhysType physType,
+      List<Integer> fields) {
+    if (fields.size() != 1 || !primitiveHashKeys(rel)) {
+      return false;
+    }
+    final Primitive primitive =
+        Primitive.ofBoxOr(physType.fieldClass(fields.get(0)));
+    if (primitive == null) {
+      return false;
+    }
+    switch (primitive) {
+    case BYTE:
+    case SHORT:
+    case INT:
+    case LONG:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  /** Generates a {@link LongFunction1} that returns the value of a field as
+   * a {@code long}. It must not be applied to a row where the field is
+   * null.
+   *
+   * @see #isLongKey(RelNode, PhysType, List) */
+  static Expression longKeySelector(PhysType physType, int field) {
+    final ParameterExpression v1 =
+        Expressions.parameter(physType.getJavaRowType(), "v1");
+    return Expressions.lambda(LongFunction1.class,
+        convert(physType.fieldReference(v1, field), long.class), v1);
+  }
+
+  /** Generates a {@link Predicate1} that returns whether a field is null, or
+   * a null constant if the field is not nullable. */
+  static Expression nullKeyPredicate(PhysType physType, int field) {
+    if (!physType.fieldNullable(field)
+        || Primitive.is(physType.fieldClass(field))) {
+      return Expressions.constant(null, Predicate1.class);
+    }
+    final ParameterExpression v1 =
+        Expressions.parameter(physType.getJavaRowType(), "v1");
+    return Expressions.lambda(Predicate1.class,
+        Expressions.equal(physType.fieldReference(v1, field),
+            RexImpTable.NULL_EXPR),
+        v1);
+  }
+
   /** Transforms a JoinRelType to Linq4j JoinType. **/
   static JoinType toLinq4jJoinType(JoinRelType joinRelType) {
     switch (joinRelType) {
@@ -22,6 +22,7 @@
 import org.apache.calcite.config.CalciteSystemProperty;
 import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
 import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.linq4j.function.EqualityComparer;
 import org.apache.calcite.linq4j.function.Function0;
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.function.Function2;
@@ -35,6 +36,7 @@
 import org.apache.calcite.rel.InvalidRelException;
 import org.apache.calcite.rel.RelCollations;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.Aggregate;
 import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.type.RelDataType;
@@ -105,6 +107,28 @@ public EnumerableAggregate(RelOptCluster cluster, RelTraitSet traitSet,
     }
   }
 
+  @Override public RelWriter explainTerms(RelWriter pw) {
+    final int spillThreshold = spillThreshold();
+    return super.explainTerms(pw)
+        .itemIf("spillThreshold", spillThreshold, spillThreshold >= 0);
+  }
+
+  /** Returns the maximum number of groups that this aggregate holds in memory
+   * before it spills, or -1 if it never spills.
+   *
+   * <p>Only an aggregate that has a single, non-empty group set and is
+   * implemented by a hash table can spill. */
+  private int spillThreshold() {
+    if (getGroupType() != Group.SIMPLE
+        || getGroupCount() == 0
+        || aggCalls.isEmpty()
+            && groupSet.equals(
+                ImmutableBitSet.range(getInput().getRowType().getFieldCount()))) {
+      return -1;
+    }
+    return EnumUtils.spillThreshold(this);
+  }
+
   public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
     final JavaTypeFactory typeFactory = implementor.getTypeFactory();
     final BlockBuilder builder = new BlockBuilder();
@@ -178,7 +202,20 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
     // return child
     //     .distinct(equalityComparer);
 
-    final PhysType inputPhysType = result.physType;
+    final int spillThreshold = spillThreshold();
+    final PhysType inputPhysType;
+    if (spillThreshold >= 0
+        && !EnumUtils.isSpillable(result.physType.getFormat())) {
+      // Rows are written to temporary files, so they must be serializable
+      childExp =
+          builder.append("rows",
+              result.physType.convertTo(childExp, JavaRowFormat.ARRAY));
+      inputPhysType =
+          PhysTypeImpl.of(typeFactory, child.getRowType(),
+              JavaRowFormat.ARRAY, false);
+    } else {
+      inputPhysType = result.physType;
+    }
 
     ParameterExpression parameter =
         Expressions.parameter(inputPhysType.getJavaRowType(), "a0");
@@ -427,6 +464,46 @@ public RexToLixTranslator rowTranslator() {
                   resultBlock.toBlock(),
                   key_,
                   acc_));
+      if (spillThreshold < 0
+          && getGroupType() == Group.SIMPLE
+          && keyPhysType.comparer() == null
+          && EnumUtils.isLongKey(this, inputPhysType, groupSet.asList())) {
+        // The key is a single integral column; avoid boxing it for every row
+        final int key = groupSet.nth(0);
+        builder.add(
+            Expressions.return_(null,
+                Expressions.call(BuiltInMethod.GROUP_BY_LONG.method,
+                    childExp,
+                    keySelector_,
+                    EnumUtils.longKeySelector(inputPhysType, key),
+                    EnumUtils.nullKeyPredicate(inputPhysType, key),
+                    Expressions.call(lambdaFactory,
+                        BuiltInMethod.AGG_LAMBDA_FACTORY_ACC_INITIALIZER.method),
+                    Expressions.call(lambdaFactory,
+                        BuiltInMethod.AGG_LAMBDA_FACTORY_ACC_ADDER.method),
+                    Expressions.call(lambdaFactory,
+                        BuiltInMethod.AGG_LAMBDA_FACTORY_ACC_RESULT_SELECTOR.method,
+                        resultSelector_))));
+        return implementor.result(physType, builder.toBlock());
+      }
+      if (spillThreshold >= 0) {
+        builder.add(
+            Expressions.return_(null,
+                Expressions.call(BuiltInMethod.GROUP_BY_WITH_SPILL.method,
+                    childExp,
+                    keySelector_,
+                    Expressions.call(lambdaFactory,
+                        BuiltInMethod.AGG_LAMBDA_FACTORY_ACC_INITIALIZER.method),
+                    Expressions.call(lambdaFactory,
+                        BuiltInMethod.AGG_LAMBDA_FACTORY_ACC_ADDER.method),
+                    Expressions.call(lambdaFactory,
+                        BuiltInMethod.AGG_LAMBDA_FACTORY_ACC_RESULT_SELECTOR.method,
+                        resultSelector_),
+                    Util.first(keyPhysType.comparer(),
+                        Expressions.constant(null, EqualityComparer.class)),
+                    Expressions.constant(spillThreshold))));
+        return implementor.result(physType, builder.toBlock());
+      }
       builder.add(
           Expressions.return_(null,
               Expressions.call(childExp,
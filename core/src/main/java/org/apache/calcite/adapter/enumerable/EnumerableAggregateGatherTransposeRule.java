@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.sql.SqlAggFunction;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Planner rule that pushes an {@link EnumerableAggregate} through an
+ * {@link EnumerableGather}.
+ *
+ * <p>Each thread below the gather computes a partial aggregate of the rows
+ * that it reads, and an aggregate above the gather combines the partial
+ * aggregates: {@code COUNT} becomes {@code SUM0} of the partial counts, and
+ * {@code SUM}, {@code SUM0}, {@code MIN} and {@code MAX} are applied again.
+ *
+ * <p>The rule applies only if every aggregate function is one of those,
+ * none is {@code DISTINCT}, and there are no grouping sets.
+ */
+class EnumerableAggregateGatherTransposeRule extends RelOptRule {
+  EnumerableAggregateGatherTransposeRule() {
+    super(
+        operandJ(EnumerableAggregate.class, null,
+            EnumerableAggregateGatherTransposeRule::isSplittable,
+            operand(EnumerableGather.class,
+                operand(RelNode.class, any()))),
+        "EnumerableAggregateGatherTransposeRule");
+  }
+
+  /** Returns whether an aggregate can be computed by combining partial
+   * aggregates of arbitrary subsets of its input. */
+  static boolean isSplittable(Aggregate aggregate) {
+    if (aggregate.getGroupType() != Aggregate.Group.SIMPLE) {
+      return false;
+    }
+    for (AggregateCall aggCall : aggregate.getAggCallList()) {
+      if (aggCall.isDistinct()) {
+        return false;
+      }
+      switch (aggCall.getAggregation().getKind()) {
+      case COUNT:
+      case SUM:
+      case SUM0:
+      case MIN:
+      case MAX:
+        break;
+      default:
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final EnumerableAggregate aggregate = call.rel(0);
+    final EnumerableGather gather = call.rel(1);
+    final RelNode input = call.rel(2);
+    if (input instanceof Aggregate) {
+      return; // already split
+    }
+    final int groupCount = aggregate.getGroupCount();
+    final List<AggregateCall> aggCalls = new ArrayList<>();
+    for (Ord<AggregateCall> aggCall : Ord.zip(aggregate.getAggCallList())) {
+      final SqlAggFunction aggFunction =
+          aggCall.e.getAggregation().getKind() == SqlKind.COUNT
+              ? SqlStdOperatorTable.SUM0
+              : aggCall.e.getAggregation();
+      aggCalls.add(
+          AggregateCall.create(aggFunction, false, aggCall.e.isApproximate(),
+              aggCall.e.ignoreNulls(), ImmutableList.of(groupCount + aggCall.i),
+              -1, RelCollations.EMPTY, aggCall.e.getType(),
+              aggCall.e.getName()));
+    }
+    final RelNode partial =
+        aggregate.copy(aggregate.getTraitSet(), ImmutableList.of(input));
+    call.transformTo(
+        aggregate.copy(aggregate.getTraitSet(),
+            gather.copy(gather.getTraitSet(), ImmutableList.of(partial)),
+            ImmutableBitSet.range(groupCount), null, aggCalls));
+  }
+}
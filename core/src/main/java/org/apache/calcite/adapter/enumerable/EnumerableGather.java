@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Blocks;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.linq4j.tree.ParameterExpression;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.util.BuiltInMethod;
+
+import java.util.List;
+
+/**
+ * Relational expression that executes the operators below it in several
+ * threads and combines their output.
+ *
+ * <p>Its input is a pipeline of single-input operators that ends in an
+ * {@link EnumerableScatter}. At run time each thread executes its own copy of
+ * the pipeline, taking morsels of the scatter's input as it needs them; see
+ * {@link org.apache.calcite.linq4j.EnumerableDefaults#gather}. The output is
+ * in no particular order.
+ *
+ * <p>The number of threads is the
+ * {@link org.apache.calcite.rel.metadata.RelMetadataQuery#splitCount split count}
+ * of the input.
+ */
+public class EnumerableGather extends SingleRel implements EnumerableRel {
+  /** Creates an EnumerableGather.
+   *
+   * <p>Use {@link #create} unless you know what you're doing. */
+  public EnumerableGather(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode input) {
+    super(cluster, traitSet, input);
+    assert getConvention() instanceof EnumerableConvention;
+  }
+
+  /** Creates an EnumerableGather. */
+  public static EnumerableGather create(RelNode input) {
+    final RelOptCluster cluster = input.getCluster();
+    final RelTraitSet traitSet =
+        cluster.traitSetOf(EnumerableConvention.INSTANCE);
+    return new EnumerableGather(cluster, traitSet, input);
+  }
+
+  @Override public EnumerableGather copy(RelTraitSet traitSet,
+      List<RelNode> inputs) {
+    return new EnumerableGather(getCluster(), traitSet, sole(inputs));
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final EnumerableScatter scatter = scatter(getInput());
+    final BlockBuilder builder = new BlockBuilder();
+    final Result sourceResult =
+        implementor.visitChild(scatter, 0,
+            (EnumerableRel) scatter.getInput(), pref);
+    final Expression source_ = builder.append("source", sourceResult.block);
+
+    // final Enumerable source = <<scatter's input>>;
+    // return EnumerableDefaults.gather(source,
+    //     new Function1() {
+    //       public Enumerable apply(Enumerable partition) {
+    //         <<pipeline, reading from partition>>
+    //       }
+    //     },
+    //     parallelism);
+    final ParameterExpression partition_ =
+        Expressions.parameter(Enumerable.class, "partition");
+    implementor.registerScatter(scatter,
+        implementor.result(sourceResult.physType, Blocks.toBlock(partition_)));
+    final Result result =
+        implementor.visitChild(this, 0, (EnumerableRel) getInput(), pref);
+    implementor.clearScatter(scatter);
+
+    final int parallelism =
+        getCluster().getMetadataQuery().splitCount(getInput());
+    builder.add(
+        Expressions.return_(null,
+            Expressions.call(BuiltInMethod.GATHER.method,
+                source_,
+                Expressions.lambda(result.block, partition_),
+                Expressions.constant(parallelism))));
+    return implementor.result(result.physType, builder.toBlock());
+  }
+
+  /** Returns the scatter at the bottom of a pipeline. */
+  private static EnumerableScatter scatter(RelNode rel) {
+    for (RelNode r = rel;; r = r.getInput(0)) {
+      if (r instanceof EnumerableScatter) {
+        return (EnumerableScatter) r;
+      }
+      if (r.getInputs().size() != 1) {
+        throw new AssertionError("pipeline must end in a scatter: " + rel);
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexVisitorImpl;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.validate.SqlUserDefinedAggFunction;
+import org.apache.calcite.sql.validate.SqlUserDefinedFunction;
+import org.apache.calcite.util.Util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Planner rule that executes an {@link EnumerableCalc} or an
+ * {@link EnumerableAggregate} on an {@link EnumerableTableScan} in several
+ * threads.
+ *
+ * <p>A calc becomes a gather of the calc on a scatter of the scan. An
+ * aggregate becomes the aggregate of a gather on a scatter of the scan;
+ * {@link EnumerableAggregateGatherTransposeRule} then splits it into partial
+ * aggregates, computed in each thread, and a final aggregate.
+ *
+ * <p>The degree of parallelism is the
+ * {@link org.apache.calcite.config.CalciteConnectionProperty#PARALLELISM}
+ * connection property; the rule does nothing unless it is greater than 1.
+ * Because the output of a gather is in no particular order, the rule does
+ * not apply if the table is sorted. Nor does it apply to a calc that uses
+ * correlating variables, which would start threads for each correlating row.
+ *
+ * <p>Expressions in a pipeline are evaluated concurrently, so the rule does
+ * not apply if the calc calls a non-deterministic or dynamic function (such
+ * as {@code RAND}, {@code CURRENT_TIMESTAMP} or {@code NEXT VALUE FOR}) or a
+ * user-defined function, or if the aggregate calls a user-defined aggregate
+ * function; they are not known to be thread-safe.
+ *
+ * <p>It is not in {@link EnumerableRules#ENUMERABLE_RULES}. It runs after the
+ * Volcano planner, in {@link org.apache.calcite.tools.Programs#parallel}.
+ */
+class EnumerableGatherRule extends RelOptRule {
+  EnumerableGatherRule() {
+    super(
+        operandJ(SingleRel.class, null, EnumerableGatherRule::isParallelizable,
+            operandJ(EnumerableTableScan.class, null,
+                EnumerableGatherRule::isUnsorted, none())),
+        "EnumerableGatherRule");
+  }
+
+  private static boolean isUnsorted(TableScan scan) {
+    final List<RelCollation> collations = scan.getTable().getCollationList();
+    return collations == null
+        || collations.stream()
+            .allMatch(collation -> collation.getFieldCollations().isEmpty());
+  }
+
+  private static boolean isParallelizable(RelNode rel) {
+    if (rel instanceof EnumerableCalc) {
+      return RelOptUtil.getVariablesUsed(rel).isEmpty()
+          && ((EnumerableCalc) rel).getProgram().getExprList().stream()
+              .allMatch(EnumerableGatherRule::isThreadSafe);
+    }
+    return rel instanceof EnumerableAggregate
+        && EnumerableAggregateGatherTransposeRule.isSplittable(
+            (EnumerableAggregate) rel)
+        && ((EnumerableAggregate) rel).getAggCallList().stream()
+            .noneMatch(aggCall ->
+                aggCall.getAggregation() instanceof SqlUserDefinedAggFunction);
+  }
+
+  /** Returns whether an expression may be evaluated by several threads at
+   * once. */
+  private static boolean isThreadSafe(RexNode node) {
+    try {
+      node.accept(
+          new RexVisitorImpl<Void>(true) {
+            @Override public Void visitCall(RexCall call) {
+              final SqlOperator operator = call.getOperator();
+              if (!operator.isDeterministic()
+                  || operator.isDynamicFunction()
+                  || operator instanceof SqlUserDefinedFunction) {
+                throw Util.FoundOne.NULL;
+              }
+              return super.visitCall(call);
+            }
+          });
+      return true;
+    } catch (Util.FoundOne e) {
+      return false;
+    }
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final SingleRel rel = call.rel(0);
+    final EnumerableTableScan scan = call.rel(1);
+    final int parallelism = EnumUtils.parallelism(scan);
+    if (parallelism <= 1) {
+      return;
+    }
+    final EnumerableScatter scatter = EnumerableScatter.create(scan, parallelism);
+    if (rel instanceof EnumerableCalc) {
+      call.transformTo(
+          EnumerableGather.create(
+              rel.copy(rel.getTraitSet(), ImmutableList.of(scatter))));
+    } else {
+      call.transformTo(
+          rel.copy(rel.getTraitSet(),
+              ImmutableList.of(EnumerableGather.create(scatter))));
+    }
+  }
+}
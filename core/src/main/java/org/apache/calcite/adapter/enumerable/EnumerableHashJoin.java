@@ -16,6 +16,7 @@
  */
 package org.apache.calcite.adapter.enumerable;
 
+import org.apache.calcite.adapter.java.JavaTypeFactory;
 import org.apache.calcite.linq4j.tree.BlockBuilder;
 import org.apache.calcite.linq4j.tree.Expression;
 import org.apache.calcite.linq4j.tree.Expressions;
@@ -26,6 +27,7 @@
 import org.apache.calcite.rel.RelCollationTraitDef;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelNodes;
+import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.CorrelationId;
 import org.apache.calcite.rel.core.Join;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -142,7 +144,17 @@ public static EnumerableHashJoin create(
     }
   }
 
+  @Override public RelWriter explainTerms(RelWriter pw) {
+    final int spillThreshold = EnumUtils.spillThreshold(this);
+    return super.explainTerms(pw)
+        .itemIf("spillThreshold", spillThreshold, spillThreshold >= 0);
+  }
+
   @Override public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final int spillThreshold = EnumUtils.spillThreshold(this);
+    if (spillThreshold >= 0) {
+      return implementPartitionedHashJoin(implementor, pref, spillThreshold);
+    }
     switch (joinType) {
     case SEMI:
     case ANTI:
@@ -215,6 +227,38 @@ private Result implementHashJoin(EnumerableRelImplementor implementor, Prefer pr
     final PhysType keyPhysType =
         leftResult.physType.project(
             joinInfo.leftKeys, JavaRowFormat.LIST);
+    if (joinInfo.nonEquiConditions.isEmpty()
+        && keyPhysType.comparer() == null
+        && EnumUtils.isLongKey(this, leftResult.physType, joinInfo.leftKeys)
+        && EnumUtils.isLongKey(this, rightResult.physType,
+            joinInfo.rightKeys)) {
+      // The key is a single integral column; avoid boxing it for every row
+      final int leftKey = joinInfo.leftKeys.get(0);
+      final int rightKey = joinInfo.rightKeys.get(0);
+      return implementor.result(
+          physType,
+          builder.append(
+              Expressions.call(
+                  BuiltInMethod.LONG_HASH_JOIN.method,
+                  Expressions.list(
+                      leftExpression,
+                      rightExpression,
+                      EnumUtils.longKeySelector(leftResult.physType, leftKey),
+                      EnumUtils.nullKeyPredicate(leftResult.physType,
+                          leftKey),
+                      EnumUtils.longKeySelector(rightResult.physType,
+                          rightKey),
+                      EnumUtils.nullKeyPredicate(rightResult.physType,
+                          rightKey),
+                      EnumUtils.joinSelector(joinType,
+                          physType,
+                          ImmutableList.of(
+                              leftResult.physType, rightResult.physType)),
+                      Expressions.constant(joinType.generatesNullsOnLeft()),
+                      Expressions.constant(
+                          joinType.generatesNullsOnRight()))))
+              .toBlock());
+    }
     Expression predicate = Expressions.constant(null);
     if (!joinInfo.nonEquiConditions.isEmpty()) {
       RexNode nonEquiCondition = RexUtil.composeConjunction(
@@ -249,4 +293,71 @@ private Result implementHashJoin(EnumerableRelImplementor implementor, Prefer pr
                     .append(predicate)))
             .toBlock());
   }
+
+  /** Implements the join by calling
+   * {@link org.apache.calcite.linq4j.EnumerableDefaults#partitionedHashJoin},
+   * which writes partitions of both inputs to temporary files if the right
+   * input has more than {@code spillThreshold} rows. */
+  private Result implementPartitionedHashJoin(
+      EnumerableRelImplementor implementor, Prefer pref, int spillThreshold) {
+    final JavaTypeFactory typeFactory = implementor.getTypeFactory();
+    final BlockBuilder builder = new BlockBuilder();
+    // Rows are written to temporary files, so they must be serializable
+    final Result leftResult =
+        implementor.visitChild(this, 0, (EnumerableRel) left, pref);
+    final PhysType leftPhysType =
+        EnumUtils.spillablePhysType(typeFactory, leftResult.physType);
+    final Expression leftExpression =
+        builder.append("left",
+            leftResult.physType.convertTo(
+                builder.append("left", leftResult.block), leftPhysType));
+    final Result rightResult =
+        implementor.visitChild(this, 1, (EnumerableRel) right, pref);
+    final PhysType rightPhysType =
+        EnumUtils.spillablePhysType(typeFactory, rightResult.physType);
+    final Expression rightExpression =
+        builder.append("right",
+            rightResult.physType.convertTo(
+                builder.append("right", rightResult.block), rightPhysType));
+    final PhysType physType;
+    final Expression resultSelector;
+    if (isSemiJoin()) {
+      physType = leftPhysType;
+      resultSelector = Expressions.constant(null);
+    } else {
+      physType = PhysTypeImpl.of(typeFactory, getRowType(), pref.preferArray());
+      resultSelector =
+          EnumUtils.joinSelector(joinType, physType,
+              ImmutableList.of(leftPhysType, rightPhysType));
+    }
+    final PhysType keyPhysType =
+        leftPhysType.project(joinInfo.leftKeys, JavaRowFormat.LIST);
+    Expression predicate = Expressions.constant(null);
+    if (!joinInfo.nonEquiConditions.isEmpty()) {
+      RexNode nonEquiCondition = RexUtil.composeConjunction(
+          getCluster().getRexBuilder(), joinInfo.nonEquiConditions, true);
+      if (nonEquiCondition != null) {
+        predicate = EnumUtils.generatePredicate(implementor, getCluster().getRexBuilder(),
+            left, right, leftPhysType, rightPhysType, nonEquiCondition);
+      }
+    }
+    return implementor.result(
+        physType,
+        builder.append(
+            Expressions.call(
+                BuiltInMethod.PARTITIONED_HASH_JOIN.method,
+                Expressions.list(
+                    leftExpression,
+                    rightExpression,
+                    leftPhysType.generateAccessor(joinInfo.leftKeys),
+                    rightPhysType.generateAccessor(joinInfo.rightKeys),
+                    resultSelector,
+                    Util.first(keyPhysType.comparer(),
+                        Expressions.constant(null)),
+                    Expressions.constant(
+                        EnumUtils.toLinq4jJoinType(joinType)),
+                    predicate,
+                    Expressions.constant(spillThreshold))))
+            .toBlock());
+  }
 }
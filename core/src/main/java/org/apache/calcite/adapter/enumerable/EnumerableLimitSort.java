@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexDynamicParam;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.BuiltInMethod;
+import org.apache.calcite.util.Pair;
+
+/**
+ * Implementation of {@link org.apache.calcite.rel.core.Sort} in
+ * {@link EnumerableConvention enumerable calling convention} that has a fetch,
+ * and therefore needs to keep only the first {@code offset + fetch} rows of
+ * its sorted input.
+ *
+ * <p>Rather than sorting the whole input and then applying the limit, as
+ * {@link EnumerableSort} followed by {@link EnumerableLimit} would, it keeps
+ * the best rows seen so far in a bounded heap. Memory use is therefore
+ * proportional to {@code offset + fetch}, not to the size of the input.
+ */
+public class EnumerableLimitSort extends Sort implements EnumerableRel {
+
+  /**
+   * Creates an EnumerableLimitSort.
+   *
+   * <p>Use {@link #create} unless you know what you're doing.
+   */
+  public EnumerableLimitSort(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode input, RelCollation collation, RexNode offset, RexNode fetch) {
+    super(cluster, traitSet, input, collation, offset, fetch);
+    assert getConvention() instanceof EnumerableConvention;
+    assert getConvention() == input.getConvention();
+    assert fetch != null;
+  }
+
+  /** Creates an EnumerableLimitSort. */
+  public static EnumerableLimitSort create(RelNode input,
+      RelCollation collation, RexNode offset, RexNode fetch) {
+    final RelOptCluster cluster = input.getCluster();
+    final RelTraitSet traitSet =
+        cluster.traitSetOf(EnumerableConvention.INSTANCE)
+            .replace(collation);
+    return new EnumerableLimitSort(cluster, traitSet, input, collation,
+        offset, fetch);
+  }
+
+  @Override public EnumerableLimitSort copy(RelTraitSet traitSet,
+      RelNode newInput, RelCollation newCollation, RexNode offset,
+      RexNode fetch) {
+    return new EnumerableLimitSort(getCluster(), traitSet, newInput,
+        newCollation, offset, fetch);
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    // Every input row is compared against a heap of at most
+    // "offset + fetch" rows, so the cost is n * log(k) rather than the
+    // n * log(n) of a full sort.
+    final double inputRowCount = mq.getRowCount(getInput());
+    double heapSize = valueOf(fetch, inputRowCount);
+    if (offset != null) {
+      heapSize += valueOf(offset, inputRowCount);
+    }
+    heapSize = Math.min(heapSize, inputRowCount);
+    final double bytesPerRow = getRowType().getFieldCount() * 4;
+    final double cpu =
+        inputRowCount * Math.max(1D, Math.log(heapSize)) * bytesPerRow;
+    return planner.getCostFactory().makeCost(inputRowCount, cpu, 0);
+  }
+
+  /** Returns the value of an offset or fetch, or a default if it is a
+   * dynamic parameter whose value is not known at planning time. */
+  private static double valueOf(RexNode node, double defaultValue) {
+    if (node instanceof RexLiteral) {
+      return RexLiteral.intValue(node);
+    }
+    return defaultValue;
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final BlockBuilder builder = new BlockBuilder();
+    final EnumerableRel child = (EnumerableRel) getInput();
+    final Result result = implementor.visitChild(this, 0, child, pref);
+    final PhysType physType =
+        PhysTypeImpl.of(
+            implementor.getTypeFactory(),
+            getRowType(),
+            result.format);
+    final Expression childExp =
+        builder.append("child", result.block);
+
+    final PhysType inputPhysType = result.physType;
+    final Pair<Expression, Expression> pair =
+        inputPhysType.generateCollationKey(
+            collation.getFieldCollations());
+
+    final Expression offsetExp = offset == null
+        ? Expressions.constant(0)
+        : getExpression(offset);
+    builder.add(
+        Expressions.return_(null,
+            Expressions.call(
+                BuiltInMethod.ORDER_BY_WITH_OFFSET_AND_FETCH.method,
+                childExp,
+                builder.append("keySelector", pair.left),
+                builder.append("comparator", pair.right),
+                builder.append("offset", offsetExp),
+                builder.append("fetch", getExpression(fetch)))));
+    return implementor.result(physType, builder.toBlock());
+  }
+
+  private static Expression getExpression(RexNode node) {
+    if (node instanceof RexDynamicParam) {
+      final RexDynamicParam param = (RexDynamicParam) node;
+      return Expressions.convert_(
+          Expressions.call(DataContext.ROOT,
+              BuiltInMethod.DATA_CONTEXT_GET.method,
+              Expressions.constant("?" + param.getIndex())),
+          Integer.class);
+    } else {
+      return Expressions.constant(RexLiteral.intValue(node));
+    }
+  }
+}
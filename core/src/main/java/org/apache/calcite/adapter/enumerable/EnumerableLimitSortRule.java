@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Sort;
+
+/**
+ * Rule to convert a {@link org.apache.calcite.rel.core.Sort} that has a
+ * collation and a fetch into an {@link EnumerableLimitSort}.
+ *
+ * <p>It is not in {@link EnumerableRules#ENUMERABLE_RULES}; add
+ * {@link EnumerableRules#ENUMERABLE_LIMIT_SORT_RULE} to the planner to use
+ * it. It is opt-in because it changes the plan of every
+ * {@code ORDER BY ... LIMIT} query from {@link EnumerableLimit} over
+ * {@link EnumerableSort} to a single operator, and because, matching
+ * {@code Sort} in {@link org.apache.calcite.plan.Convention#NONE}, it
+ * competes with adapter rules that push a sort with a fetch into the
+ * data source; it will become a default rule once plans in the test suites
+ * and adapters have been verified against it.
+ */
+class EnumerableLimitSortRule extends RelOptRule {
+  EnumerableLimitSortRule() {
+    super(
+        operandJ(Sort.class, Convention.NONE,
+            sort -> sort.fetch != null
+                && !sort.getCollation().getFieldCollations().isEmpty(),
+            any()),
+        "EnumerableLimitSortRule");
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final Sort sort = call.rel(0);
+    final RelNode input = sort.getInput();
+    call.transformTo(
+        EnumerableLimitSort.create(
+            convert(input,
+                input.getTraitSet().replace(EnumerableConvention.INSTANCE)),
+            sort.getCollation(),
+            sort.offset,
+            sort.fetch));
+  }
+}
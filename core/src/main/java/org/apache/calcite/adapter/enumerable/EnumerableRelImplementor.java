@@ -42,6 +42,7 @@
 import org.apache.calcite.linq4j.tree.UnaryExpression;
 import org.apache.calcite.linq4j.tree.VisitorImpl;
 import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.runtime.Bindable;
 import org.apache.calcite.sql.SqlExplainLevel;
@@ -80,6 +81,10 @@ public class EnumerableRelImplementor extends JavaRelImplementor {
       new HashMap<>();
   private final Map<Object, ParameterExpression> stashedParameters =
       new IdentityHashMap<>();
+  private final Map<EnumerableScatter, EnumerableRel.Result> scatterResults =
+      new IdentityHashMap<>();
+
+  private boolean profile;
 
   protected final Function1<String, RexToLixTranslator.InputGetter> allCorrelateVariables =
       this::getCorrelVariableGetter;
@@ -90,6 +95,13 @@ public EnumerableRelImplementor(RexBuilder rexBuilder,
     this.map = internalParameters;
   }
 
+  /** Sets whether to generate code that records the row count and timing of
+   * each operator in an {@link org.apache.calcite.runtime.ExecutionProfile},
+   * as required by {@code EXPLAIN ANALYZE}. */
+  public void setProfile(boolean profile) {
+    this.profile = profile;
+  }
+
   public EnumerableRel.Result visitChild(
       EnumerableRel parent,
       int ordinal,
@@ -98,7 +110,57 @@ public EnumerableRel.Result visitChild(
     if (parent != null) {
       assert child == parent.getInputs().get(ordinal);
     }
-    return child.implement(this, prefer);
+    return implementChild(child, prefer);
+  }
+
+  /** Generates code for an enumerable input of a relational expression that
+   * is not enumerable, such as a converter to another convention whose
+   * consumer executes the input's code. */
+  public EnumerableRel.Result visitChild(
+      RelNode parent,
+      int ordinal,
+      EnumerableRel child,
+      EnumerableRel.Prefer prefer) {
+    assert child == parent.getInputs().get(ordinal);
+    return implementChild(child, prefer);
+  }
+
+  private EnumerableRel.Result implementChild(EnumerableRel child,
+      EnumerableRel.Prefer prefer) {
+    final EnumerableRel.Result result = child.implement(this, prefer);
+    return profile ? profile(child, result) : result;
+  }
+
+  /** Wraps the enumerable returned by a relational expression's code so that
+   * it records statistics in the
+   * {@link org.apache.calcite.runtime.ExecutionProfile}, if any, of the
+   * current execution. */
+  private EnumerableRel.Result profile(EnumerableRel rel,
+      EnumerableRel.Result result) {
+    final List<Statement> statements = result.block.statements;
+    if (statements.isEmpty()) {
+      return result;
+    }
+    final Statement last = statements.get(statements.size() - 1);
+    if (!(last instanceof GotoStatement)
+        || ((GotoStatement) last).expression == null) {
+      return result;
+    }
+    final Type type = ((GotoStatement) last).expression.getType();
+    if (!(type instanceof Class || type instanceof ParameterizedType)
+        || !Types.isAssignableFrom(Enumerable.class, type)) {
+      return result;
+    }
+    final List<Statement> list =
+        new ArrayList<>(statements.subList(0, statements.size() - 1));
+    list.add(
+        Expressions.return_(null,
+            Expressions.call(BuiltInMethod.PROFILE.method,
+                DataContext.ROOT,
+                Expressions.constant(rel.getId()),
+                ((GotoStatement) last).expression)));
+    return new EnumerableRel.Result(Expressions.block(list), result.physType,
+        result.format);
   }
 
   public ClassDeclaration implementRoot(EnumerableRel rootRel,
@@ -106,6 +168,9 @@ public ClassDeclaration implementRoot(EnumerableRel rootRel,
     EnumerableRel.Result result;
     try {
       result = rootRel.implement(this, prefer);
+      if (profile) {
+        result = profile(rootRel, result);
+      }
     } catch (RuntimeException e) {
       IllegalStateException ex = new IllegalStateException("Unable to implement "
           + RelOptUtil.toString(rootRel, SqlExplainLevel.ALL_ATTRIBUTES));
@@ -467,6 +532,26 @@ public RexToLixTranslator.InputGetter getCorrelVariableGetter(String name) {
     return corrVars.get(name);
   }
 
+  /** Registers the result that an {@link EnumerableScatter} returns, instead
+   * of the result of its input, while the {@link EnumerableGather} that
+   * consumes it is being implemented. */
+  public void registerScatter(EnumerableScatter scatter,
+      EnumerableRel.Result result) {
+    scatterResults.put(scatter, result);
+  }
+
+  public void clearScatter(EnumerableScatter scatter) {
+    assert scatterResults.containsKey(scatter) : "Scatter " + scatter
+        + " should be registered";
+    scatterResults.remove(scatter);
+  }
+
+  /** Returns the result registered for an {@link EnumerableScatter}, or null
+   * if it is not being implemented as part of an {@link EnumerableGather}. */
+  public EnumerableRel.Result getScatterResult(EnumerableScatter scatter) {
+    return scatterResults.get(scatter);
+  }
+
   public EnumerableRel.Result result(PhysType physType, BlockStatement block) {
     return new EnumerableRel.Result(
         block, physType, ((PhysTypeImpl) physType).format);
@@ -68,6 +68,25 @@ private EnumerableRules() {
   public static final EnumerableLimitRule ENUMERABLE_LIMIT_RULE =
       new EnumerableLimitRule();
 
+  /** Rule that converts a {@link org.apache.calcite.rel.core.Sort} with a
+   * collation and a fetch into an {@link EnumerableLimitSort}. Not enabled
+   * by default. */
+  public static final EnumerableLimitSortRule ENUMERABLE_LIMIT_SORT_RULE =
+      new EnumerableLimitSortRule();
+
+  /** Rule that executes a calc or an aggregate on a table scan in several
+   * threads, using {@link EnumerableScatter} and {@link EnumerableGather}.
+   * Not enabled by default; see
+   * {@link org.apache.calcite.tools.Programs#parallel}. */
+  public static final EnumerableGatherRule ENUMERABLE_GATHER_RULE =
+      new EnumerableGatherRule();
+
+  /** Rule that pushes an aggregate through an {@link EnumerableGather},
+   * computing partial aggregates in each thread. Not enabled by default. */
+  public static final EnumerableAggregateGatherTransposeRule
+      ENUMERABLE_AGGREGATE_GATHER_TRANSPOSE_RULE =
+      new EnumerableAggregateGatherTransposeRule();
+
   public static final EnumerableUnionRule ENUMERABLE_UNION_RULE =
       new EnumerableUnionRule();
 
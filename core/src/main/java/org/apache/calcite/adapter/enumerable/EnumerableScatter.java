@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.SingleRel;
+
+import java.util.List;
+
+/**
+ * Relational expression that divides its input into batches of rows, called
+ * morsels, so that the operators between it and an {@link EnumerableGather}
+ * can process them in several threads.
+ *
+ * <p>The operators between the scatter and the gather must produce a correct
+ * result for any subset of the rows; for example {@link EnumerableCalc}, and
+ * an {@link EnumerableAggregate} that computes partial aggregates.
+ *
+ * <p>If a scatter is implemented other than as part of a gather, it returns
+ * its input unchanged.
+ */
+public class EnumerableScatter extends SingleRel implements EnumerableRel {
+  private final int parallelism;
+
+  /** Creates an EnumerableScatter.
+   *
+   * <p>Use {@link #create} unless you know what you're doing. */
+  public EnumerableScatter(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode input, int parallelism) {
+    super(cluster, traitSet, input);
+    assert getConvention() instanceof EnumerableConvention;
+    assert parallelism > 1 : parallelism;
+    this.parallelism = parallelism;
+  }
+
+  /** Creates an EnumerableScatter. */
+  public static EnumerableScatter create(RelNode input, int parallelism) {
+    return new EnumerableScatter(input.getCluster(), input.getTraitSet(),
+        input, parallelism);
+  }
+
+  /** Returns the number of threads that process the morsels. */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  @Override public EnumerableScatter copy(RelTraitSet traitSet,
+      List<RelNode> inputs) {
+    return new EnumerableScatter(getCluster(), traitSet, sole(inputs),
+        parallelism);
+  }
+
+  @Override public RelWriter explainTerms(RelWriter pw) {
+    return super.explainTerms(pw)
+        .item("parallelism", parallelism);
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final Result result = implementor.getScatterResult(this);
+    if (result != null) {
+      return result;
+    }
+    return implementor.visitChild(this, 0, (EnumerableRel) getInput(), pref);
+  }
+}
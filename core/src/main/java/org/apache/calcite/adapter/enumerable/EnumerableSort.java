@@ -23,6 +23,7 @@
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelCollation;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.Sort;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.util.BuiltInMethod;
@@ -64,11 +65,18 @@ public static EnumerableSort create(RelNode child, RelCollation collation,
         offset, fetch);
   }
 
+  @Override public RelWriter explainTerms(RelWriter pw) {
+    final int spillThreshold = EnumUtils.spillThreshold(this);
+    return super.explainTerms(pw)
+        .itemIf("spillThreshold", spillThreshold, spillThreshold >= 0);
+  }
+
   public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
     final BlockBuilder builder = new BlockBuilder();
     final EnumerableRel child = (EnumerableRel) getInput();
     final Result result = implementor.visitChild(this, 0, child, pref);
-    final PhysType physType =
+    final int spillThreshold = EnumUtils.spillThreshold(this);
+    PhysType physType =
         PhysTypeImpl.of(
             implementor.getTypeFactory(),
             getRowType(),
@@ -77,10 +85,33 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
         builder.append("child", result.block);
 
     PhysType inputPhysType = result.physType;
+    if (spillThreshold >= 0
+        && !EnumUtils.isSpillable(inputPhysType.getFormat())) {
+      // Rows are written to temporary files, so they must be serializable
+      childExp =
+          builder.append("rows",
+              inputPhysType.convertTo(childExp, JavaRowFormat.ARRAY));
+      inputPhysType =
+          PhysTypeImpl.of(implementor.getTypeFactory(), child.getRowType(),
+              JavaRowFormat.ARRAY, false);
+      physType =
+          PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(),
+              JavaRowFormat.ARRAY, false);
+    }
     final Pair<Expression, Expression> pair =
         inputPhysType.generateCollationKey(
             collation.getFieldCollations());
 
+    if (spillThreshold >= 0) {
+      builder.add(
+          Expressions.return_(null,
+              Expressions.call(BuiltInMethod.ORDER_BY_WITH_SPILL.method,
+                  childExp,
+                  builder.append("keySelector", pair.left),
+                  builder.append("comparator", pair.right),
+                  Expressions.constant(spillThreshold))));
+      return implementor.result(physType, builder.toBlock());
+    }
     builder.add(
         Expressions.return_(null,
             Expressions.call(childExp,
@@ -79,6 +79,26 @@ public class JdbcSchema implements Schema {
   private ImmutableMap<String, JdbcTable> tableMap;
   private final boolean snapshot;
 
+  /** Number of rows the driver fetches per round trip; 0 for the driver's
+   * default. */
+  final int fetchSize;
+
+  /** Auto-commit mode for queries, or null to leave the connection's
+   * setting. */
+  final Boolean autoCommit;
+
+  /** Number of concurrent range queries for a scan of a table that has a
+   * partition column. */
+  final int parallelism;
+
+  /** Column on which to split scans, by table name. */
+  final ImmutableMap<String, String> partitionColumns;
+
+  /** Whether literals in comparisons are sent as parameters of a prepared
+   * statement, so that queries that differ only in those literals share
+   * one SQL string. */
+  final boolean parameterizeLiterals;
+
   @Experimental
   public static final ThreadLocal<Foo> THREAD_METADATA = new ThreadLocal<>();
 
@@ -96,17 +116,54 @@ public class JdbcSchema implements Schema {
    */
   public JdbcSchema(DataSource dataSource, SqlDialect dialect,
       JdbcConvention convention, String catalog, String schema) {
-    this(dataSource, dialect, convention, catalog, schema, null);
+    this(dataSource, dialect, convention, catalog, schema, 0, null, 1,
+        ImmutableMap.of(), false);
+  }
+
+  /**
+   * Creates a JDBC schema with options for how tables are read.
+   *
+   * @param dataSource Data source
+   * @param dialect SQL dialect
+   * @param convention Calling convention
+   * @param catalog Catalog name, or null
+   * @param schema Schema name pattern
+   * @param fetchSize Number of rows the driver fetches per round trip, or 0
+   *                  for the driver's default
+   * @param autoCommit Auto-commit mode for queries, or null to leave the
+   *                   connection's setting
+   * @param parallelism Number of concurrent range queries for a scan of a
+   *                    table in {@code partitionColumns}
+   * @param partitionColumns Numeric, date or timestamp column on which to
+   *                         split scans, by table name
+   * @param parameterizeLiterals Whether to send literals in comparisons as
+   *                             parameters of a prepared statement
+   */
+  public JdbcSchema(DataSource dataSource, SqlDialect dialect,
+      JdbcConvention convention, String catalog, String schema,
+      int fetchSize, Boolean autoCommit, int parallelism,
+      Map<String, String> partitionColumns, boolean parameterizeLiterals) {
+    this(dataSource, dialect, convention, catalog, schema, fetchSize,
+        autoCommit, parallelism, ImmutableMap.copyOf(partitionColumns),
+        parameterizeLiterals, null);
   }
 
   private JdbcSchema(DataSource dataSource, SqlDialect dialect,
       JdbcConvention convention, String catalog, String schema,
+      int fetchSize, Boolean autoCommit, int parallelism,
+      ImmutableMap<String, String> partitionColumns,
+      boolean parameterizeLiterals,
       ImmutableMap<String, JdbcTable> tableMap) {
     this.dataSource = Objects.requireNonNull(dataSource);
     this.dialect = Objects.requireNonNull(dialect);
     this.convention = convention;
     this.catalog = catalog;
     this.schema = schema;
+    this.fetchSize = fetchSize;
+    this.autoCommit = autoCommit;
+    this.parallelism = parallelism;
+    this.partitionColumns = Objects.requireNonNull(partitionColumns);
+    this.parameterizeLiterals = parameterizeLiterals;
     this.tableMap = tableMap;
     this.snapshot = tableMap != null;
   }
@@ -128,12 +185,54 @@ public static JdbcSchema create(
       SqlDialectFactory dialectFactory,
       String catalog,
       String schema) {
+    return create(parentSchema, name, dataSource, dialectFactory, catalog,
+        schema, 0, null, 1, ImmutableMap.of(), false);
+  }
+
+  /**
+   * Creates a JdbcSchema with options for how tables are read.
+   *
+   * @param parentSchema Parent schema
+   * @param name Name
+   * @param dataSource Data source
+   * @param dialectFactory Factory for the SQL dialect
+   * @param catalog Catalog name, or null
+   * @param schema Schema name pattern
+   * @param fetchSize Number of rows the driver fetches per round trip, or 0
+   *                  for the driver's default
+   * @param autoCommit Auto-commit mode for queries, or null to leave the
+   *                   connection's setting
+   * @param parallelism Number of concurrent range queries for a scan of a
+   *                    table in {@code partitionColumns}
+   * @param partitionColumns Column on which to split scans, by table name
+   * @param parameterizeLiterals Whether to send literals in comparisons as
+   *                             parameters of a prepared statement
+   * @return A JdbcSchema
+   */
+  public static JdbcSchema create(
+      SchemaPlus parentSchema,
+      String name,
+      DataSource dataSource,
+      SqlDialectFactory dialectFactory,
+      String catalog,
+      String schema,
+      int fetchSize,
+      Boolean autoCommit,
+      int parallelism,
+      Map<String, String> partitionColumns,
+      boolean parameterizeLiterals) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: "
+          + parallelism);
+    }
     final Expression expression =
         Schemas.subSchemaExpression(parentSchema, name, JdbcSchema.class);
     final SqlDialect dialect = createDialect(dialectFactory, dataSource);
     final JdbcConvention convention =
         JdbcConvention.of(dialect, expression, name);
-    return new JdbcSchema(dataSource, dialect, convention, catalog, schema);
+    return new JdbcSchema(dataSource, dialect, convention, catalog, schema,
+        fetchSize, autoCommit, parallelism, partitionColumns,
+        parameterizeLiterals);
   }
 
   /**
@@ -159,7 +258,8 @@ public static JdbcSchema create(
         final String jdbcDriver = (String) operand.get("jdbcDriver");
         final String jdbcUser = (String) operand.get("jdbcUser");
         final String jdbcPassword = (String) operand.get("jdbcPassword");
-        dataSource = dataSource(jdbcUrl, jdbcDriver, jdbcUser, jdbcPassword);
+        dataSource = dataSource(jdbcUrl, jdbcDriver, jdbcUser, jdbcPassword,
+            operand);
       }
     } catch (Exception e) {
       throw new RuntimeException("Error while reading dataSource", e);
@@ -168,15 +268,47 @@ public static JdbcSchema create(
     String jdbcSchema = (String) operand.get("jdbcSchema");
     String sqlDialectFactory = (String) operand.get("sqlDialectFactory");
 
+    final SqlDialectFactory factory;
     if (sqlDialectFactory == null || sqlDialectFactory.isEmpty()) {
-      return JdbcSchema.create(
-          parentSchema, name, dataSource, jdbcCatalog, jdbcSchema);
+      factory = SqlDialectFactoryImpl.INSTANCE;
     } else {
-      SqlDialectFactory factory = AvaticaUtils.instantiatePlugin(
+      factory = AvaticaUtils.instantiatePlugin(
           SqlDialectFactory.class, sqlDialectFactory);
-      return JdbcSchema.create(
-          parentSchema, name, dataSource, factory, jdbcCatalog, jdbcSchema);
     }
+    final int fetchSize = intOperand(operand, "fetchSize", 0);
+    final Object autoCommit = operand.get("autoCommit");
+    final int parallelism = intOperand(operand, "parallelism", 1);
+    final ImmutableMap.Builder<String, String> partitionColumns =
+        ImmutableMap.builder();
+    final Object columns = operand.get("partitionColumns");
+    if (columns instanceof Map) {
+      for (Map.Entry<?, ?> e : ((Map<?, ?>) columns).entrySet()) {
+        partitionColumns.put(e.getKey().toString(), e.getValue().toString());
+      }
+    } else if (columns != null) {
+      throw new IllegalArgumentException(
+          "partitionColumns must be a map from table name to column name");
+    }
+    final Object parameterizeLiterals = operand.get("parameterizeLiterals");
+    return JdbcSchema.create(parentSchema, name, dataSource, factory,
+        jdbcCatalog, jdbcSchema, fetchSize,
+        autoCommit == null ? null : Boolean.valueOf(autoCommit.toString()),
+        parallelism, partitionColumns.build(),
+        parameterizeLiterals == null
+            ? intOperand(operand, "statementCacheSize", 0) > 0
+            : Boolean.parseBoolean(parameterizeLiterals.toString()));
+  }
+
+  private static int intOperand(Map<String, Object> operand, String name,
+      int defaultValue) {
+    final Object value = operand.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).intValue();
+    }
+    return Integer.parseInt(value.toString());
   }
 
   /**
@@ -200,12 +332,34 @@ public static SqlDialect createDialect(SqlDialectFactory dialectFactory,
   /** Creates a JDBC data source with the given specification. */
   public static DataSource dataSource(String url, String driverClassName,
       String username, String password) {
+    return dataSource(url, driverClassName, username, password,
+        ImmutableMap.of());
+  }
+
+  /**
+   * Creates a JDBC data source with the given specification and pool
+   * settings.
+   *
+   * <p>The following entries of {@code poolOperands} are used; others are
+   * ignored:
+   *
+   * <ul>
+   * <li>{@code poolMaxTotal}: maximum number of open connections
+   * <li>{@code poolMaxIdle}: maximum number of idle connections
+   * <li>{@code poolMinIdle}: minimum number of idle connections
+   * <li>{@code poolMaxWaitMillis}: how long to wait for a connection
+   * <li>{@code statementCacheSize}: number of prepared statements kept open
+   *     per connection, keyed by SQL string; 0 disables the cache
+   * </ul>
+   */
+  public static DataSource dataSource(String url, String driverClassName,
+      String username, String password, Map<String, ?> poolOperands) {
     if (url.startsWith("jdbc:hsqldb:")) {
       // Prevent hsqldb from screwing up java.util.logging.
       System.setProperty("hsqldb.reconfig_logging", "false");
     }
     return JdbcUtils.DataSourcePool.INSTANCE.get(url, driverClassName, username,
-        password);
+        password, poolOperands);
   }
 
   public boolean isMutable() {
@@ -214,7 +368,8 @@ public boolean isMutable() {
 
   public Schema snapshot(SchemaVersion version) {
     return new JdbcSchema(dataSource, dialect, convention, catalog, schema,
-        tableMap);
+        fetchSize, autoCommit, parallelism, partitionColumns,
+        parameterizeLiterals, tableMap);
   }
 
   // Used by generated code.
@@ -181,8 +181,21 @@ public <T> Queryable<T> asQueryable(QueryProvider queryProvider,
   public Enumerable<Object[]> scan(DataContext root) {
     final JavaTypeFactory typeFactory = root.getTypeFactory();
     final SqlString sql = generateSql();
-    return ResultSetEnumerable.of(jdbcSchema.getDataSource(), sql.getSql(),
-        JdbcUtils.ObjectArrayRowBuilder.factory(fieldClasses(typeFactory)));
+    return configure(
+        ResultSetEnumerable.of(jdbcSchema.getDataSource(), sql.getSql(),
+            JdbcUtils.ObjectArrayRowBuilder.factory(fieldClasses(typeFactory))));
+  }
+
+  /** Applies the schema's fetch size and auto-commit mode. */
+  private <T> ResultSetEnumerable<T> configure(
+      ResultSetEnumerable<T> enumerable) {
+    if (jdbcSchema.fetchSize != 0) {
+      enumerable.setFetchSize(jdbcSchema.fetchSize);
+    }
+    if (jdbcSchema.autoCommit != null) {
+      enumerable.setAutoCommit(jdbcSchema.autoCommit);
+    }
+    return enumerable;
   }
 
   @Override public Collection getModifiableCollection() {
@@ -219,10 +232,11 @@ public Enumerator<T> enumerator() {
           ((CalciteConnection) queryProvider).getTypeFactory();
       final SqlString sql = generateSql();
       //noinspection unchecked
-      final Enumerable<T> enumerable = (Enumerable<T>) ResultSetEnumerable.of(
-          jdbcSchema.getDataSource(),
-          sql.getSql(),
-          JdbcUtils.ObjectArrayRowBuilder.factory(fieldClasses(typeFactory)));
+      final Enumerable<T> enumerable = (Enumerable<T>) configure(
+          ResultSetEnumerable.of(
+              jdbcSchema.getDataSource(),
+              sql.getSql(),
+              JdbcUtils.ObjectArrayRowBuilder.factory(fieldClasses(typeFactory))));
       return enumerable.enumerator();
     }
   }
@@ -40,16 +40,24 @@
 import org.apache.calcite.rel.convert.ConverterImpl;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.runtime.SqlFunctions;
 import org.apache.calcite.schema.Schemas;
+import org.apache.calcite.sql.SqlCall;
 import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlDynamicParam;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNumericLiteral;
 import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.sql.util.SqlShuttle;
 import org.apache.calcite.sql.util.SqlString;
 import org.apache.calcite.util.BuiltInMethod;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -93,7 +101,12 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
             pref.prefer(JavaRowFormat.CUSTOM));
     final JdbcConvention jdbcConvention =
         (JdbcConvention) child.getConvention();
-    SqlString sqlString = generateSql(jdbcConvention.dialect);
+    final JdbcSchema jdbcSchema = findSchema(child);
+    final List<Object> literals =
+        jdbcSchema != null && jdbcSchema.parameterizeLiterals
+            ? new ArrayList<>()
+            : null;
+    SqlString sqlString = generateSql(jdbcConvention.dialect, literals);
     String sql = sqlString.getSql();
     if (CalciteSystemProperty.DEBUG.value()) {
       System.out.println("[" + sql + "]");
@@ -164,10 +177,20 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
         && !sqlString.getDynamicParameters().isEmpty()) {
       final Expression preparedStatementConsumer_ =
           builder0.append("preparedStatementConsumer",
-              Expressions.call(BuiltInMethod.CREATE_ENRICHER.method,
-                  Expressions.newArrayInit(Integer.class, 1,
-                      toIndexesTableExpression(sqlString)),
-                  DataContext.ROOT));
+              literals == null || literals.isEmpty()
+                  ? Expressions.call(BuiltInMethod.CREATE_ENRICHER.method,
+                      Expressions.newArrayInit(Integer.class, 1,
+                          toIndexesTableExpression(sqlString)),
+                      DataContext.ROOT)
+                  : Expressions.call(
+                      BuiltInMethod.CREATE_ENRICHER_WITH_LITERALS.method,
+                      Expressions.newArrayInit(Integer.class, 1,
+                          toIndexesTableExpression(sqlString)),
+                      Expressions.newArrayInit(Object.class,
+                          literals.stream()
+                              .map(Expressions::constant)
+                              .collect(Collectors.toList())),
+                      DataContext.ROOT));
 
       enumerable = builder0.append("enumerable",
           Expressions.call(
@@ -189,11 +212,100 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
             Expressions.call(enumerable,
                 BuiltInMethod.RESULT_SET_ENUMERABLE_SET_TIMEOUT.method,
                 DataContext.ROOT)));
+    if (jdbcSchema != null) {
+      if (jdbcSchema.fetchSize != 0) {
+        builder0.add(
+            Expressions.statement(
+                Expressions.call(enumerable,
+                    BuiltInMethod.RESULT_SET_ENUMERABLE_SET_FETCH_SIZE.method,
+                    Expressions.constant(jdbcSchema.fetchSize))));
+      }
+      if (jdbcSchema.autoCommit != null) {
+        builder0.add(
+            Expressions.statement(
+                Expressions.call(enumerable,
+                    BuiltInMethod.RESULT_SET_ENUMERABLE_SET_AUTO_COMMIT.method,
+                    Expressions.constant(jdbcSchema.autoCommit))));
+      }
+      final String partitionColumn = partitionColumn(child);
+      if (partitionColumn != null) {
+        final SqlDialect dialect = jdbcConvention.dialect;
+        final String column = dialect.quoteIdentifier(partitionColumn);
+        final String boundsSql = "SELECT MIN(" + column + "), MAX(" + column
+            + ") FROM "
+            + ((JdbcTableScan) child).jdbcTable.tableName()
+                .toSqlString(dialect).getSql();
+        builder0.add(
+            Expressions.statement(
+                Expressions.call(enumerable,
+                    BuiltInMethod.RESULT_SET_ENUMERABLE_SET_PARTITIONING.method,
+                    Expressions.constant(column),
+                    Expressions.constant(boundsSql),
+                    Expressions.constant(jdbcSchema.parallelism))));
+      }
+    }
     builder0.add(
         Expressions.return_(null, enumerable));
     return implementor.result(physType, builder0.toBlock());
   }
 
+  /** Returns the schema of the first table read by a relational
+   * expression, or null. */
+  private static JdbcSchema findSchema(RelNode rel) {
+    if (rel instanceof JdbcTableScan) {
+      return ((JdbcTableScan) rel).jdbcTable.jdbcSchema;
+    }
+    for (RelNode input : rel.getInputs()) {
+      final JdbcSchema schema = findSchema(input);
+      if (schema != null) {
+        return schema;
+      }
+    }
+    return null;
+  }
+
+  /** Returns the column on which to split a scan into range queries, or
+   * null if the scan should not be split.
+   *
+   * <p>Only a plain scan of a table that has a numeric, date or timestamp
+   * partition column is split, because the range condition is appended to
+   * the generated query. */
+  private static String partitionColumn(JdbcRel rel) {
+    if (!(rel instanceof JdbcTableScan)) {
+      return null;
+    }
+    final JdbcTable jdbcTable = ((JdbcTableScan) rel).jdbcTable;
+    final JdbcSchema jdbcSchema = jdbcTable.jdbcSchema;
+    if (jdbcSchema.parallelism <= 1) {
+      return null;
+    }
+    final String column =
+        jdbcSchema.partitionColumns.get(jdbcTable.jdbcTableName);
+    if (column == null) {
+      return null;
+    }
+    final RelDataTypeField field =
+        rel.getRowType().getField(column, true, false);
+    if (field == null) {
+      return null;
+    }
+    switch (field.getType().getSqlTypeName()) {
+    case TINYINT:
+    case SMALLINT:
+    case INTEGER:
+    case BIGINT:
+    case DECIMAL:
+    case FLOAT:
+    case REAL:
+    case DOUBLE:
+    case DATE:
+    case TIMESTAMP:
+      return field.getName();
+    default:
+      return null;
+    }
+  }
+
   private List<ConstantExpression> toIndexesTableExpression(SqlString sqlString) {
     return sqlString.getDynamicParameters().stream()
         .map(Expressions::constant)
@@ -325,12 +437,104 @@ private String jdbcGetMethod(Primitive primitive) {
         : "get" + SqlFunctions.initcap(primitive.primitiveName);
   }
 
-  private SqlString generateSql(SqlDialect dialect) {
+  /** Generates the SQL for the input.
+   *
+   * <p>If {@code literals} is not null, literals that are compared to
+   * columns or expressions are replaced with dynamic parameters, so that
+   * queries that differ only in those literals can share a prepared
+   * statement; the values are added to {@code literals}. */
+  private SqlString generateSql(SqlDialect dialect, List<Object> literals) {
     final JdbcImplementor jdbcImplementor =
         new JdbcImplementor(dialect,
             (JavaTypeFactory) getCluster().getTypeFactory());
     final JdbcImplementor.Result result =
         jdbcImplementor.visitChild(0, getInput());
-    return result.asStatement().toSqlString(dialect);
+    SqlNode node = result.asStatement();
+    if (literals != null) {
+      node = node.accept(new LiteralParameterizer(literals));
+    }
+    return node.toSqlString(dialect);
+  }
+
+  /** Shuttle that replaces literal operands of comparisons with dynamic
+   * parameters.
+   *
+   * <p>The {@code k}th literal becomes a parameter with index {@code -1 - k},
+   * which distinguishes it from the query's own dynamic parameters; see
+   * {@link org.apache.calcite.runtime.ResultSetEnumerable#createEnricher(Integer[], Object[], DataContext)}. */
+  private static class LiteralParameterizer extends SqlShuttle {
+    private final List<Object> literals;
+
+    LiteralParameterizer(List<Object> literals) {
+      this.literals = literals;
+    }
+
+    @Override public SqlNode visit(SqlCall call) {
+      switch (call.getKind()) {
+      case EQUALS:
+      case NOT_EQUALS:
+      case LESS_THAN:
+      case LESS_THAN_OR_EQUAL:
+      case GREATER_THAN:
+      case GREATER_THAN_OR_EQUAL:
+        final SqlNode left = call.operand(0);
+        final SqlNode right = call.operand(1);
+        if (right instanceof SqlLiteral && !(left instanceof SqlLiteral)) {
+          return comparison(call, left.accept(this),
+              parameter((SqlLiteral) right));
+        }
+        if (left instanceof SqlLiteral && !(right instanceof SqlLiteral)) {
+          return comparison(call, parameter((SqlLiteral) left),
+              right.accept(this));
+        }
+        return call;
+      default:
+        return super.visit(call);
+      }
+    }
+
+    private static SqlNode comparison(SqlCall call, SqlNode left,
+        SqlNode right) {
+      return call.getOperator().createCall(call.getFunctionQuantifier(),
+          call.getParserPosition(), left, right);
+    }
+
+    /** Returns a dynamic parameter for a literal, or the literal itself if
+     * its value cannot be bound. */
+    private SqlNode parameter(SqlLiteral literal) {
+      final Object value = value(literal);
+      if (value == null) {
+        return literal;
+      }
+      literals.add(value);
+      return new SqlDynamicParam(-literals.size(),
+          literal.getParserPosition());
+    }
+
+    private static Object value(SqlLiteral literal) {
+      if (literal instanceof SqlNumericLiteral) {
+        final SqlNumericLiteral numeric = (SqlNumericLiteral) literal;
+        final BigDecimal bd = numeric.bigDecimalValue();
+        if (!numeric.isExact()) {
+          return bd.doubleValue();
+        }
+        if (numeric.isInteger()) {
+          try {
+            return bd.longValueExact();
+          } catch (ArithmeticException e) {
+            return bd;
+          }
+        }
+        return bd;
+      }
+      switch (literal.getTypeName()) {
+      case CHAR:
+        return literal.getValueAs(String.class);
+      case BOOLEAN:
+        return literal.booleanValue();
+      default:
+        return null;
+      }
+    }
   }
 }
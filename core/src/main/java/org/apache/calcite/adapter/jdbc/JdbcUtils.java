@@ -31,6 +31,7 @@
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Ints;
 
 import java.sql.Connection;
@@ -41,6 +42,8 @@
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -209,6 +212,12 @@ private static Date shift(Date v) {
   static class DataSourcePool {
     public static final DataSourcePool INSTANCE = new DataSourcePool();
 
+    /** Names of the pool operands, in the order they occur in a cache key
+     * after the connection properties. */
+    static final List<String> POOL_OPERANDS =
+        ImmutableList.of("poolMaxTotal", "poolMaxIdle", "poolMinIdle",
+            "poolMaxWaitMillis", "statementCacheSize");
+
     private final LoadingCache<List<String>, BasicDataSource> cache =
         CacheBuilder.newBuilder().softValues()
             .build(CacheLoader.from(DataSourcePool::dataSource));
@@ -220,16 +229,47 @@ static class DataSourcePool {
       dataSource.setUsername(key.get(1));
       dataSource.setPassword(key.get(2));
       dataSource.setDriverClassName(key.get(3));
+      if (key.get(4) != null) {
+        dataSource.setMaxTotal(Integer.parseInt(key.get(4)));
+      }
+      if (key.get(5) != null) {
+        dataSource.setMaxIdle(Integer.parseInt(key.get(5)));
+      }
+      if (key.get(6) != null) {
+        dataSource.setMinIdle(Integer.parseInt(key.get(6)));
+      }
+      if (key.get(7) != null) {
+        dataSource.setMaxWaitMillis(Long.parseLong(key.get(7)));
+      }
+      if (key.get(8) != null && Integer.parseInt(key.get(8)) > 0) {
+        // Each pooled connection keeps up to this many prepared statements,
+        // keyed by SQL string, open on the server.
+        dataSource.setPoolPreparedStatements(true);
+        dataSource.setMaxOpenPreparedStatements(Integer.parseInt(key.get(8)));
+      }
       return dataSource;
     }
 
     public DataSource get(String url, String driverClassName,
         String username, String password) {
+      return get(url, driverClassName, username, password,
+          ImmutableMap.of());
+    }
+
+    /** Returns a data source, configuring its pool from
+     * {@code poolOperands}, whose keys are in {@link #POOL_OPERANDS}. */
+    public DataSource get(String url, String driverClassName,
+        String username, String password, Map<String, ?> poolOperands) {
       // Get data source objects from a cache, so that we don't have to sniff
       // out what kind of database they are quite as often.
-      final List<String> key =
-          ImmutableNullableList.of(url, username, password, driverClassName);
-      return cache.getUnchecked(key);
+      final List<String> key = new ArrayList<>();
+      key.addAll(
+          Arrays.asList(url, username, password, driverClassName));
+      for (String operand : POOL_OPERANDS) {
+        final Object value = poolOperands.get(operand);
+        key.add(value == null ? null : value.toString());
+      }
+      return cache.getUnchecked(ImmutableNullableList.copyOf(key));
     }
   }
 }
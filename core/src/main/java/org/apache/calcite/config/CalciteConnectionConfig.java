@@ -78,4 +78,12 @@ public interface CalciteConnectionConfig extends ConnectionConfig {
   boolean typeCoercion();
   /** @see CalciteConnectionProperty#LENIENT_OPERATOR_LOOKUP */
   boolean lenientOperatorLookup();
+  /** @see CalciteConnectionProperty#SPILL_THRESHOLD */
+  int spillThreshold();
+  /** @see CalciteConnectionProperty#PARALLELISM */
+  int parallelism();
+  /** @see CalciteConnectionProperty#COLUMNAR */
+  boolean columnar();
+  /** @see CalciteConnectionProperty#PRIMITIVE_HASH_KEYS */
+  boolean primitiveHashKeys();
 }
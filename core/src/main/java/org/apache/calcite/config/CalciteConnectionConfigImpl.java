@@ -27,6 +27,8 @@
 import org.apache.calcite.sql.validate.SqlConformance;
 import org.apache.calcite.sql.validate.SqlConformanceEnum;
 
+import com.google.common.collect.ImmutableMap;
+
 import java.util.List;
 import java.util.Properties;
 
@@ -65,6 +67,21 @@ public boolean isSet(CalciteConnectionProperty property) {
     return properties.containsKey(property.camelName());
   }
 
+  /** Returns the properties that have been assigned a value, as an immutable
+   * map from name to value.
+   *
+   * <p>The map is a copy, unaffected by later changes to the properties, and
+   * two configurations with equal maps behave the same; therefore it is
+   * suitable for use as part of a cache key. */
+  public ImmutableMap<String, String> toMap() {
+    final ImmutableMap.Builder<String, String> builder =
+        ImmutableMap.builder();
+    for (String name : properties.stringPropertyNames()) {
+      builder.put(name, properties.getProperty(name));
+    }
+    return builder.build();
+  }
+
   public boolean approximateDistinctCount() {
     return CalciteConnectionProperty.APPROXIMATE_DISTINCT_COUNT.wrap(properties)
         .getBoolean();
@@ -199,4 +216,24 @@ public boolean lenientOperatorLookup() {
     return CalciteConnectionProperty.LENIENT_OPERATOR_LOOKUP.wrap(properties)
         .getBoolean();
   }
+
+  public int spillThreshold() {
+    return CalciteConnectionProperty.SPILL_THRESHOLD.wrap(properties)
+        .getInt();
+  }
+
+  public int parallelism() {
+    return CalciteConnectionProperty.PARALLELISM.wrap(properties)
+        .getInt();
+  }
+
+  public boolean columnar() {
+    return CalciteConnectionProperty.COLUMNAR.wrap(properties)
+        .getBoolean();
+  }
+
+  public boolean primitiveHashKeys() {
+    return CalciteConnectionProperty.PRIMITIVE_HASH_KEYS.wrap(properties)
+        .getBoolean();
+  }
 }
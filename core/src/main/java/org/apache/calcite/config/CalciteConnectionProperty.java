@@ -75,6 +75,29 @@ public enum CalciteConnectionProperty implements ConnectionProperty {
   /** URI of the model. */
   MODEL("model", Type.STRING, null, false),
 
+  /** Maximum number of rows that a sort, groups that an aggregate, or
+   * build-side rows that a hash join, in the enumerable convention may hold
+   * in memory before it writes rows to temporary files ("spills"). The
+   * default, -1, means no limit. */
+  SPILL_THRESHOLD("spillThreshold", Type.NUMBER, -1, false),
+
+  /** Number of threads that may execute a pipeline of operators in the
+   * enumerable convention (a table scan, filter, projection and partial
+   * aggregation) in parallel. The default, 1, means that queries are
+   * executed in a single thread. */
+  PARALLELISM("parallelism", Type.NUMBER, 1, false),
+
+  /** Whether the planner may execute filters, projections, aggregates and
+   * joins in the columnar convention, in which operators exchange batches of
+   * column vectors rather than rows. */
+  COLUMNAR("columnar", Type.BOOLEAN, false, false),
+
+  /** Whether a hash join or hash aggregate in the enumerable convention whose
+   * key is a single column of integral, DATE, TIME or TIMESTAMP type may hold
+   * its keys as primitive {@code long} values rather than boxed objects.
+   * Doing so changes the order in which an aggregate returns its groups. */
+  PRIMITIVE_HASH_KEYS("primitiveHashKeys", Type.BOOLEAN, false, false),
+
   /** Lexical policy. */
   LEX("lex", Type.ENUM, Lex.ORACLE, false),
 
@@ -130,6 +130,16 @@
   public static final CalciteSystemProperty<Boolean> TOPDOWN_OPT =
       booleanProperty("calcite.planner.topdown.opt", false);
 
+  /**
+   * Number of threads on which the Volcano planner fires rule matches.
+   *
+   * <p>The default, 1, fires rule matches sequentially.
+   *
+   * @see org.apache.calcite.plan.volcano.VolcanoPlanner#setParallelism(int)
+   */
+  public static final CalciteSystemProperty<Integer> PLANNER_PARALLELISM =
+      intProperty("calcite.planner.parallelism", 1);
+
   /**
    * Whether to run integration tests.
    */
@@ -307,6 +317,26 @@
   public static final CalciteSystemProperty<Integer> METADATA_HANDLER_CACHE_MAXIMUM_SIZE =
       intProperty("calcite.metadata.handler.cache.maximum.size", 1000);
 
+  /**
+   * The maximum weight of the metadata cache that is shared by all metadata
+   * queries; see {@link org.apache.calcite.rel.metadata.RelMetadataCache}.
+   *
+   * <p>The weight of an entry is the length of the digest of its relational
+   * expression. If the value is 0 or less, there is no shared cache.</p>
+   */
+  public static final CalciteSystemProperty<Integer> METADATA_SHARED_CACHE_MAXIMUM_WEIGHT =
+      intProperty("calcite.metadata.shared.cache.maximum.weight", 0);
+
+  /**
+   * Directory in which to cache the bytecode of generated metadata handlers,
+   * so that a new JVM can load handlers rather than compile them.
+   *
+   * <p>Each class file is keyed by a digest of the generated source and the
+   * Calcite version. If not specified, handlers are not cached on disk.</p>
+   */
+  public static final CalciteSystemProperty<String> METADATA_HANDLER_CACHE_DIRECTORY =
+      stringProperty("calcite.metadata.handler.cache.directory", null);
+
   /**
    * The maximum size of the cache used for storing Bindable objects, instantiated via
    * dynamically generated Java classes.
@@ -341,6 +371,47 @@
       intProperty("calcite.bindable.cache.concurrencyLevel", 1,
           v -> v >= 1 && v <= Integer.MAX_VALUE);
 
+  /**
+   * The maximum number of prepared SQL statements held in the plan cache.
+   *
+   * <p>The default value is 0.</p>
+   *
+   * <p>The property can take any value between [0, {@link Integer#MAX_VALUE}] inclusive. If the
+   * value is not valid (or not specified) then the default value is used.</p>
+   *
+   * <p>When a statement is prepared a second time, with the same SQL text (ignoring differences
+   * in white space), connection properties and default schema, and no explicit changes to the
+   * root schema in between, the cached signature is returned and parsing, validation,
+   * optimization and code generation are skipped.</p>
+   *
+   * <p>Setting this property to 0 disables the cache.</p>
+   */
+  public static final CalciteSystemProperty<Integer> PLAN_CACHE_MAX_SIZE =
+      intProperty("calcite.plan.cache.maxSize", 0, v -> v >= 0 && v <= Integer.MAX_VALUE);
+
+  /**
+   * The maximum number of optimized plans held in the plan shape cache.
+   *
+   * <p>The default value is 0.</p>
+   *
+   * <p>The property can take any value between [0, {@link Integer#MAX_VALUE}] inclusive. If the
+   * value is not valid (or not specified) then the default value is used.</p>
+   *
+   * <p>Before a query is optimized, literals that are compared with a column in a filter or join
+   * condition are replaced by dynamic parameters. If a query of the same shape (that is, identical
+   * but for those literals) has been prepared before, with the same connection properties and
+   * default schema, and no explicit changes to the root schema in between, its optimized plan and
+   * generated code are re-used, and the literals are bound when the statement is executed.</p>
+   *
+   * <p>Because the planner no longer sees the values of those literals, it cannot use them to
+   * simplify expressions, and some adapters may push down fewer filters.</p>
+   *
+   * <p>Setting this property to 0 disables the cache.</p>
+   */
+  public static final CalciteSystemProperty<Integer> PLAN_SHAPE_CACHE_MAX_SIZE =
+      intProperty("calcite.plan.shape.cache.maxSize", 0,
+          v -> v >= 0 && v <= Integer.MAX_VALUE);
+
   private static CalciteSystemProperty<Boolean> booleanProperty(String key,
       boolean defaultValue) {
     // Note that "" -> true (convenient for command-lines flags like '-Dflag')
@@ -36,6 +36,7 @@
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.function.Functions;
 import org.apache.calcite.linq4j.function.Predicate1;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelDataTypeFactoryImpl;
@@ -753,6 +754,44 @@ private static class CalciteMetaSchema extends MetaSchema {
     }
   }
 
+  /** Metrics of one rule in the optimization of one statement; a row in the
+   * "PLANNER_METRICS" metadata table.
+   *
+   * <p>Statement-level metrics such as {@link #setCount} are repeated in each
+   * of the statement's rows.
+   *
+   * @see org.apache.calcite.plan.RelOptPlannerMetrics */
+  public static class MetaPlannerMetric {
+    public final long statementSeq;
+    public final String rule;
+    public final long attemptCount;
+    public final long productionCount;
+    public final long totalNanos;
+    public final long maxNanos;
+    public final int setCount;
+    public final int subsetCount;
+    public final int relCount;
+    public final int ruleQueueSize;
+    public final long metadataRequestCount;
+    public final long metadataComputeCount;
+
+    MetaPlannerMetric(long statementSeq, RelOptPlannerMetrics metrics,
+        RelOptPlannerMetrics.RuleMetrics ruleMetrics) {
+      this.statementSeq = statementSeq;
+      this.rule = ruleMetrics.rule;
+      this.attemptCount = ruleMetrics.attemptCount;
+      this.productionCount = ruleMetrics.productionCount;
+      this.totalNanos = ruleMetrics.totalNanos;
+      this.maxNanos = ruleMetrics.maxNanos;
+      this.setCount = metrics.setCount;
+      this.subsetCount = metrics.subsetCount;
+      this.relCount = metrics.relCount;
+      this.ruleQueueSize = metrics.ruleQueueSize;
+      this.metadataRequestCount = metrics.metadataRequestCount;
+      this.metadataComputeCount = metrics.metadataComputeCount;
+    }
+  }
+
   /** Table whose contents are metadata.
    *
    * @param <E> element type */
@@ -49,6 +49,7 @@
 import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.sql.DataSource;
 
 /**
@@ -71,6 +72,9 @@ public abstract class CalciteSchema {
   protected final NameMap<FunctionEntry> nullaryFunctionMap;
   protected final NameMap<CalciteSchema> subSchemaMap;
   private List<? extends List<String>> path;
+  /** Number of times that this schema or one of its descendants has been
+   * modified; see {@link #getModificationCount()}. */
+  private final AtomicLong modificationCount = new AtomicLong();
 
   protected CalciteSchema(CalciteSchema parent, Schema schema,
       String name, NameMap<CalciteSchema> subSchemaMap,
@@ -193,6 +197,7 @@ public TableEntry add(String tableName, Table table,
     final TableEntryImpl entry =
         new TableEntryImpl(this, tableName, table, sqls);
     tableMap.put(tableName, entry);
+    modified();
     return entry;
   }
 
@@ -201,6 +206,7 @@ public TypeEntry add(String name, RelProtoDataType type) {
     final TypeEntry entry =
         new TypeEntryImpl(this, name, type);
     typeMap.put(name, entry);
+    modified();
     return entry;
   }
 
@@ -212,6 +218,7 @@ private FunctionEntry add(String name, Function function) {
     if (function.getParameters().isEmpty()) {
       nullaryFunctionMap.put(name, entry);
     }
+    modified();
     return entry;
   }
 
@@ -221,6 +228,7 @@ private LatticeEntry add(String name, Lattice lattice) {
     }
     final LatticeEntryImpl entry = new LatticeEntryImpl(this, name, lattice);
     latticeMap.put(name, entry);
+    modified();
     return entry;
   }
 
@@ -233,6 +241,26 @@ public CalciteSchema root() {
     }
   }
 
+  /** Returns the number of times that this schema or any of its descendants
+   * has been modified by adding or removing an explicit table, function, type,
+   * lattice or sub-schema.
+   *
+   * <p>Caches of objects derived from a schema, such as prepared statements,
+   * compare this count to decide whether an entry is stale. The count does
+   * not change if the underlying {@link Schema} changes the tables it
+   * provides implicitly. */
+  public long getModificationCount() {
+    return modificationCount.get();
+  }
+
+  /** Records that this schema has been modified, incrementing the
+   * modification count of this schema and of all of its ancestors. */
+  protected void modified() {
+    for (CalciteSchema s = this; s != null; s = s.parent) {
+      s.modificationCount.incrementAndGet();
+    }
+  }
+
   /** Returns whether this is a root schema. */
   public boolean isRoot() {
     return parent == null;
@@ -524,12 +552,12 @@ public static CalciteSchema createRootSchema(boolean addMetadataSchema,
 
   @Experimental
   public boolean removeSubSchema(String name) {
-    return subSchemaMap.remove(name) != null;
+    return removed(subSchemaMap.remove(name) != null);
   }
 
   @Experimental
   public boolean removeTable(String name) {
-    return tableMap.remove(name) != null;
+    return removed(tableMap.remove(name) != null);
   }
 
   @Experimental
@@ -539,12 +567,20 @@ public boolean removeFunction(String name) {
       return false;
     }
     functionMap.remove(name, remove);
+    modified();
     return true;
   }
 
   @Experimental
   public boolean removeType(String name) {
-    return typeMap.remove(name) != null;
+    return removed(typeMap.remove(name) != null);
+  }
+
+  private boolean removed(boolean removed) {
+    if (removed) {
+      modified();
+    }
+    return removed;
   }
 
   /**
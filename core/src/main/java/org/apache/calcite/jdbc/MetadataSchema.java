@@ -17,19 +17,27 @@
 package org.apache.calcite.jdbc;
 
 import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
+import org.apache.calcite.prepare.CalcitePrepareImpl;
 import org.apache.calcite.schema.Schema;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.schema.impl.AbstractSchema;
+import org.apache.calcite.util.Pair;
 
 import com.google.common.collect.ImmutableMap;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.calcite.jdbc.CalciteMetaImpl.MetaColumn;
+import static org.apache.calcite.jdbc.CalciteMetaImpl.MetaPlannerMetric;
 import static org.apache.calcite.jdbc.CalciteMetaImpl.MetaTable;
 
-/** Schema that contains metadata tables such as "TABLES" and "COLUMNS". */
+/** Schema that contains metadata tables such as "TABLES", "COLUMNS" and
+ * "PLANNER_METRICS". */
 class MetadataSchema extends AbstractSchema {
   private static final Map<String, Table> TABLE_MAP =
       ImmutableMap.of(
@@ -58,6 +66,24 @@ public Enumerator<MetaTable> enumerator(CalciteMetaImpl meta) {
               }
               return meta.tables(catalog).enumerator();
             }
+          },
+          "PLANNER_METRICS",
+          new CalciteMetaImpl.MetadataTable<MetaPlannerMetric>(
+              MetaPlannerMetric.class) {
+            public Enumerator<MetaPlannerMetric> enumerator(
+                CalciteMetaImpl meta) {
+              final List<MetaPlannerMetric> list = new ArrayList<>();
+              for (Pair<Long, RelOptPlannerMetrics> pair
+                  : CalcitePrepareImpl.recentPlannerMetrics()) {
+                for (RelOptPlannerMetrics.RuleMetrics ruleMetrics
+                    : pair.right.ruleMetrics) {
+                  list.add(
+                      new MetaPlannerMetric(pair.left, pair.right,
+                          ruleMetrics));
+                }
+              }
+              return Linq4j.asEnumerable(list).enumerator();
+            }
           });
 
   public static final Schema INSTANCE = new MetadataSchema();
@@ -56,6 +56,14 @@ static class Materialization {
     final String sql;
     final RelDataType rowType;
     final List<String> viewSchemaPath;
+    /** Factory that populated the materialized table, or null if the table
+     * was not created by the materialization service and therefore cannot be
+     * re-populated. */
+    final MaterializationService.TableFactory tableFactory;
+    /** Whether a table that the query reads has changed since the
+     * materialized table was populated. A stale materialization is not used
+     * to answer queries until it is refreshed. */
+    boolean stale;
 
     /** Creates a materialization.
      *
@@ -67,13 +75,15 @@ static class Materialization {
      *                          materialization service will change the value as
      * @param sql  Query that is materialized
      * @param rowType Row type
+     * @param tableFactory Factory that populated the table, or null
      */
     Materialization(MaterializationKey key,
         CalciteSchema rootSchema,
         CalciteSchema.TableEntry materializedTable,
         String sql,
         RelDataType rowType,
-        List<String> viewSchemaPath) {
+        List<String> viewSchemaPath,
+        MaterializationService.TableFactory tableFactory) {
       this.key = key;
       this.rootSchema = Objects.requireNonNull(rootSchema);
       Preconditions.checkArgument(rootSchema.isRoot(), "must be root schema");
@@ -81,6 +91,7 @@ static class Materialization {
       this.sql = sql;
       this.rowType = rowType;
       this.viewSchemaPath = viewSchemaPath;
+      this.tableFactory = tableFactory; // may be null
     }
   }
 
@@ -0,0 +1,520 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.materialize;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.clone.CloneSchema;
+import org.apache.calcite.config.CalciteConnectionConfig;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.jdbc.CalciteMetaImpl;
+import org.apache.calcite.jdbc.CalcitePrepare;
+import org.apache.calcite.jdbc.CalciteSchema;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rel.type.RelDataTypeImpl;
+import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.Schemas;
+import org.apache.calcite.schema.Table;
+import org.apache.calcite.schema.impl.AbstractTable;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlJoin;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.SqlSelectKeyword;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
+import org.apache.calcite.sql.util.SqlShuttle;
+import org.apache.calcite.util.Litmus;
+import org.apache.calcite.util.Util;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains a materialization incrementally, given rows that have been
+ * appended to one of the tables that it reads.
+ *
+ * <p>Incremental maintenance applies to a query that is a single
+ * {@code SELECT} over inner joins, reading the modified table once, whose
+ * select items are either grouping expressions or calls to {@code SUM},
+ * {@code COUNT}, {@code MIN} or {@code MAX}. The maintainer evaluates the
+ * query with the appended rows in place of the modified table, and merges
+ * the resulting delta aggregate into the contents of the materialized table.
+ * A query without aggregates is maintained by appending the delta rows.
+ *
+ * <p>Because inner join distributes over union, the delta query joins the
+ * appended rows to the <em>current</em> contents of the other tables; so the
+ * rows must be applied in the order in which they were added.
+ */
+class MaterializationMaintainer {
+  private final MaterializationActor.Materialization materialization;
+  private final CalciteConnection connection;
+  private final SqlNode query;
+
+  MaterializationMaintainer(
+      MaterializationActor.Materialization materialization) {
+    this.materialization = materialization;
+    this.connection =
+        CalciteMetaImpl.connect(materialization.rootSchema, null);
+    this.query = parse(connection.config(), materialization.sql);
+  }
+
+  private static SqlNode parse(CalciteConnectionConfig config, String sql) {
+    final SqlParser parser =
+        SqlParser.create(sql,
+            SqlParser.configBuilder()
+                .setQuotedCasing(config.quotedCasing())
+                .setUnquotedCasing(config.unquotedCasing())
+                .setQuoting(config.quoting())
+                .setConformance(config.conformance())
+                .setCaseSensitive(config.caseSensitive())
+                .build());
+    try {
+      return parser.parseQuery();
+    } catch (SqlParseException e) {
+      throw new RuntimeException("while parsing materialization " + sql, e);
+    }
+  }
+
+  /** Returns the identifiers in the query that reference a given table. */
+  List<SqlIdentifier> references(Table table) {
+    final List<SqlIdentifier> ids = new ArrayList<>();
+    query.accept(
+        new SqlBasicVisitor<Void>() {
+          @Override public Void visit(SqlCall call) {
+            if (call instanceof SqlSelect
+                && ((SqlSelect) call).getFrom() != null) {
+              for (SqlIdentifier id
+                  : tableIdentifiers(((SqlSelect) call).getFrom(), false)) {
+                final CalciteSchema.TableEntry entry = resolve(id);
+                if (entry != null && entry.getTable() == table) {
+                  ids.add(id);
+                }
+              }
+            }
+            return super.visit(call);
+          }
+        });
+    return ids;
+  }
+
+  /** Returns the table identifiers in a {@code FROM} clause, or null if
+   * {@code innerOnly} and the clause contains something other than inner
+   * joins of tables. */
+  private static List<SqlIdentifier> tableIdentifiers(SqlNode from,
+      boolean innerOnly) {
+    final List<SqlIdentifier> ids = new ArrayList<>();
+    return addTableIdentifiers(ids, from, innerOnly) ? ids : null;
+  }
+
+  private static boolean addTableIdentifiers(List<SqlIdentifier> ids,
+      SqlNode from, boolean innerOnly) {
+    switch (from.getKind()) {
+    case IDENTIFIER:
+      ids.add((SqlIdentifier) from);
+      return true;
+    case AS:
+      return addTableIdentifiers(ids, ((SqlCall) from).operand(0), innerOnly);
+    case JOIN:
+      final SqlJoin join = (SqlJoin) from;
+      switch (join.getJoinType()) {
+      case INNER:
+      case COMMA:
+      case CROSS:
+        break;
+      default:
+        if (innerOnly) {
+          return false;
+        }
+      }
+      return addTableIdentifiers(ids, join.getLeft(), innerOnly)
+          & addTableIdentifiers(ids, join.getRight(), innerOnly);
+    default:
+      // A sub-query; its tables, if any, are found when the visitor reaches
+      // it.
+      return !innerOnly;
+    }
+  }
+
+  /** Resolves a table name the way the validator would: first relative to
+   * the materialization's schema path and its ancestors, then to the root. */
+  private CalciteSchema.TableEntry resolve(SqlIdentifier id) {
+    final boolean caseSensitive = connection.config().caseSensitive();
+    List<String> path = schemaPath();
+    for (;;) {
+      final CalciteSchema schema =
+          Schemas.subSchema(materialization.rootSchema,
+              Iterables.concat(path, Util.skipLast(id.names)));
+      if (schema != null) {
+        final CalciteSchema.TableEntry entry =
+            schema.getTable(Util.last(id.names), caseSensitive);
+        if (entry != null) {
+          return entry;
+        }
+      }
+      if (path.isEmpty()) {
+        return null;
+      }
+      path = Util.skipLast(path);
+    }
+  }
+
+  /** Returns the path within which the query is validated: the
+   * materialization's schema path if specified, otherwise the path of the
+   * schema that contains the materialized table. */
+  private List<String> schemaPath() {
+    return materialization.viewSchemaPath != null
+        ? materialization.viewSchemaPath
+        : materialization.materializedTable.schema.path(null);
+  }
+
+  /** Returns the kind of each select item, or null if the query cannot be
+   * maintained incrementally after rows are appended to the table referenced
+   * by {@code ref}.
+   *
+   * <p>A grouping expression has kind {@link SqlKind#OTHER}; an aggregate
+   * has the kind of its aggregate function. */
+  List<SqlKind> mergeKinds(SqlIdentifier ref) {
+    if (!(query instanceof SqlSelect)) {
+      return null;
+    }
+    final SqlSelect select = (SqlSelect) query;
+    if (select.isDistinct()
+        || select.getHaving() != null
+        || select.getWindowList().size() > 0
+        || select.getOrderList() != null
+        || select.getOffset() != null
+        || select.getFetch() != null) {
+      return null;
+    }
+    final List<SqlIdentifier> ids = tableIdentifiers(select.getFrom(), true);
+    if (ids == null || !ids.contains(ref)) {
+      return null;
+    }
+    if (select.getGroup() != null) {
+      for (SqlNode node : select.getGroup()) {
+        switch (node.getKind()) {
+        case GROUPING_SETS:
+        case ROLLUP:
+        case CUBE:
+          return null;
+        }
+      }
+    }
+    final List<SqlKind> kinds = new ArrayList<>();
+    for (SqlNode node : select.getSelectList()) {
+      if (node.getKind() == SqlKind.AS) {
+        node = ((SqlCall) node).operand(0);
+      }
+      if (node instanceof SqlIdentifier && ((SqlIdentifier) node).isStar()) {
+        return null;
+      }
+      if (node instanceof SqlCall
+          && ((SqlCall) node).getOperator().isAggregator()) {
+        final SqlCall call = (SqlCall) node;
+        if (call.getFunctionQuantifier() != null
+            && call.getFunctionQuantifier().getValue()
+                == SqlSelectKeyword.DISTINCT) {
+          return null;
+        }
+        switch (call.getKind()) {
+        case SUM:
+        case SUM0:
+        case COUNT:
+        case MIN:
+        case MAX:
+          kinds.add(call.getKind());
+          continue;
+        default:
+          return null;
+        }
+      }
+      if (containsAggregate(node)) {
+        return null;
+      }
+      kinds.add(SqlKind.OTHER);
+    }
+    if (select.getGroup() != null) {
+      // Rows are merged on the values of the grouping select items. If a
+      // GROUP BY item is not among them, rows of different groups may have
+      // the same values, so the query cannot be maintained incrementally.
+      for (SqlNode node : select.getGroup()) {
+        if (!isGroupingSelectItem(select, kinds, node)) {
+          return null;
+        }
+      }
+    }
+    return kinds;
+  }
+
+  /** Returns whether an expression is identical to a select item that is
+   * a grouping expression. */
+  private static boolean isGroupingSelectItem(SqlSelect select,
+      List<SqlKind> kinds, SqlNode node) {
+    for (int i = 0; i < kinds.size(); i++) {
+      SqlNode item = select.getSelectList().get(i);
+      if (item.getKind() == SqlKind.AS) {
+        item = ((SqlCall) item).operand(0);
+      }
+      if (kinds.get(i) == SqlKind.OTHER
+          && item.equalsDeep(node, Litmus.IGNORE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean containsAggregate(SqlNode node) {
+    try {
+      node.accept(
+          new SqlBasicVisitor<Void>() {
+            @Override public Void visit(SqlCall call) {
+              if (call.getOperator().isAggregator()) {
+                throw Util.FoundOne.NULL;
+              }
+              return super.visit(call);
+            }
+          });
+      return false;
+    } catch (Util.FoundOne e) {
+      return true;
+    }
+  }
+
+  /** Merges rows that have been appended to a table into the materialized
+   * table, and returns the new materialized table.
+   *
+   * <p>Reads every row of the current materialized table and creates a new
+   * clone table; the old one is left unchanged, so queries that are reading
+   * it are not affected.
+   *
+   * @param ref   Reference to the modified table in the query
+   * @param kinds Kind of each select item, per {@link #mergeKinds}
+   * @param table Modified table
+   * @param delta Rows that have been appended to the modified table
+   */
+  CalciteSchema.TableEntry merge(SqlIdentifier ref, List<SqlKind> kinds,
+      Table table, Iterable<Object[]> delta) {
+    final CalciteSchema.TableEntry entry = resolve(ref);
+    final String deltaName =
+        Schemas.uniqueTableName(entry.schema, "$delta_" + entry.name);
+    entry.schema.add(deltaName, new DeltaTable(table, delta));
+    final List<Object[]> deltaRows;
+    try {
+      deltaRows =
+          execute(deltaQuery(ref, entry.schema.path(deltaName)));
+    } finally {
+      entry.schema.removeTable(deltaName);
+    }
+
+    final CalciteSchema.TableEntry tableEntry =
+        materialization.materializedTable;
+    final DataContext dataContext =
+        Schemas.createDataContext(connection,
+            materialization.rootSchema.plus());
+    final List<Object[]> rows = new ArrayList<>();
+    for (Object[] row
+        : ((ScannableTable) tableEntry.getTable()).scan(dataContext)) {
+      rows.add(row);
+    }
+    if (!isAggregate(kinds)) {
+      // No aggregates, so each delta row is a new row.
+      rows.addAll(deltaRows);
+    } else {
+      final Map<List<Object>, Object[]> map = new LinkedHashMap<>();
+      for (Object[] row : rows) {
+        map.put(key(kinds, row), row);
+      }
+      for (Object[] row : deltaRows) {
+        final List<Object> key = key(kinds, row);
+        final Object[] oldRow = map.get(key);
+        if (oldRow == null) {
+          map.put(key, row);
+        } else {
+          map.put(key, combine(kinds, oldRow, row));
+        }
+      }
+      rows.clear();
+      rows.addAll(map.values());
+    }
+
+    final boolean scalar = materialization.rowType.getFieldCount() == 1;
+    final Table newTable =
+        CloneSchema.createCloneTable(connection.getTypeFactory(),
+            RelDataTypeImpl.proto(materialization.rowType), null,
+            Linq4j.asEnumerable(rows)
+                .select(row -> scalar ? row[0] : (Object) row));
+    return tableEntry.schema.add(tableEntry.name, newTable, tableEntry.sqls);
+  }
+
+  private boolean isAggregate(List<SqlKind> kinds) {
+    return ((SqlSelect) query).getGroup() != null
+        || kinds.stream().anyMatch(kind -> kind != SqlKind.OTHER);
+  }
+
+  /** Returns the query with a table reference replaced by a reference to
+   * another table. The new reference keeps the old one's alias, so that
+   * qualified column references still resolve. */
+  private String deltaQuery(SqlIdentifier ref, List<String> deltaPath) {
+    final SqlIdentifier deltaId =
+        new SqlIdentifier(deltaPath, ref.getParserPosition());
+    final SqlNode deltaQuery =
+        query.accept(
+            new SqlShuttle() {
+              @Override public SqlNode visit(SqlIdentifier id) {
+                if (id == ref) {
+                  return SqlStdOperatorTable.AS.createCall(
+                      id.getParserPosition(), deltaId,
+                      new SqlIdentifier(Util.last(id.names),
+                          id.getParserPosition()));
+                }
+                return id;
+              }
+
+              @Override public SqlNode visit(SqlCall call) {
+                if (call.getKind() == SqlKind.AS && call.operand(0) == ref) {
+                  final List<SqlNode> operands =
+                      new ArrayList<>(call.getOperandList());
+                  operands.set(0, deltaId);
+                  return call.getOperator().createCall(
+                      call.getParserPosition(), operands);
+                }
+                return super.visit(call);
+              }
+            });
+    return deltaQuery.toSqlString(SqlDialect.DatabaseProduct.CALCITE
+        .getDialect()).getSql();
+  }
+
+  private List<Object[]> execute(String sql) {
+    final ImmutableMap<CalciteConnectionProperty, String> map =
+        ImmutableMap.of(CalciteConnectionProperty.CREATE_MATERIALIZATIONS,
+            "false",
+            CalciteConnectionProperty.MATERIALIZATIONS_ENABLED, "false");
+    final CalcitePrepare.CalciteSignature<Object> signature =
+        Schemas.prepare(connection, materialization.rootSchema,
+            schemaPath(), sql, map);
+    final DataContext dataContext =
+        Schemas.createDataContext(connection,
+            signature.rootSchema.plus());
+    final List<Object[]> rows = new ArrayList<>();
+    for (Object o : signature.enumerable(dataContext)) {
+      rows.add(o instanceof Object[] ? (Object[]) o : new Object[] {o});
+    }
+    return rows;
+  }
+
+  private static List<Object> key(List<SqlKind> kinds, Object[] row) {
+    final List<Object> key = new ArrayList<>();
+    for (int i = 0; i < kinds.size(); i++) {
+      if (kinds.get(i) == SqlKind.OTHER) {
+        key.add(row[i]);
+      }
+    }
+    return key;
+  }
+
+  /** Combines two rows that have the same grouping key. */
+  private static Object[] combine(List<SqlKind> kinds, Object[] row0,
+      Object[] row1) {
+    final Object[] row = Arrays.copyOf(row0, row0.length);
+    for (int i = 0; i < kinds.size(); i++) {
+      final Object v0 = row0[i];
+      final Object v1 = row1[i];
+      switch (kinds.get(i)) {
+      case SUM:
+      case SUM0:
+      case COUNT:
+        row[i] = v0 == null ? v1 : v1 == null ? v0 : add(v0, v1);
+        break;
+      case MIN:
+      case MAX:
+        if (v0 == null) {
+          row[i] = v1;
+        } else if (v1 != null) {
+          //noinspection unchecked
+          final int c = ((Comparable) v0).compareTo(v1);
+          row[i] = (kinds.get(i) == SqlKind.MIN) == (c <= 0) ? v0 : v1;
+        }
+        break;
+      default:
+        break;
+      }
+    }
+    return row;
+  }
+
+  /** Adds two numbers, returning a value of the same class as the first. */
+  private static Object add(Object v0, Object v1) {
+    final Number n0 = (Number) v0;
+    final Number n1 = (Number) v1;
+    if (v0 instanceof BigDecimal) {
+      return ((BigDecimal) v0).add(
+          v1 instanceof BigDecimal
+              ? (BigDecimal) v1
+              : new BigDecimal(n1.toString()));
+    } else if (v0 instanceof Long) {
+      return n0.longValue() + n1.longValue();
+    } else if (v0 instanceof Integer) {
+      return n0.intValue() + n1.intValue();
+    } else if (v0 instanceof Short) {
+      return (short) (n0.shortValue() + n1.shortValue());
+    } else if (v0 instanceof Byte) {
+      return (byte) (n0.byteValue() + n1.byteValue());
+    } else if (v0 instanceof Float) {
+      return n0.floatValue() + n1.floatValue();
+    } else {
+      return n0.doubleValue() + n1.doubleValue();
+    }
+  }
+
+  /** Table that contains the rows appended to another table, and has the same
+   * row type. */
+  private static class DeltaTable extends AbstractTable
+      implements ScannableTable {
+    private final Table table;
+    private final Iterable<Object[]> rows;
+
+    DeltaTable(Table table, Iterable<Object[]> rows) {
+      this.table = table;
+      this.rows = rows;
+    }
+
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+      return table.getRowType(typeFactory);
+    }
+
+    public Enumerable<Object[]> scan(DataContext root) {
+      return Linq4j.asEnumerable(rows);
+    }
+  }
+}
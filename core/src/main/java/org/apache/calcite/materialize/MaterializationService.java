@@ -31,8 +31,11 @@
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeImpl;
 import org.apache.calcite.runtime.Hook;
+import org.apache.calcite.schema.ScannableTable;
 import org.apache.calcite.schema.Schemas;
 import org.apache.calcite.schema.Table;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.util.ImmutableBitSet;
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.Util;
@@ -124,8 +127,10 @@ public MaterializationKey defineMaterialization(final CalciteSchema schema,
     }
 
     RelDataType rowType = null;
+    TableFactory populatingTableFactory = null;
     if (tableEntry == null) {
       Table table = tableFactory.createTable(schema, viewSql, viewSchemaPath);
+      populatingTableFactory = tableFactory;
       final String tableName = Schemas.uniqueTableName(schema,
           Util.first(suggestedTableName, "m"));
       tableEntry = schema.add(tableName, table, ImmutableList.of(viewSql));
@@ -142,7 +147,8 @@ public MaterializationKey defineMaterialization(final CalciteSchema schema,
     final MaterializationKey key = new MaterializationKey();
     final MaterializationActor.Materialization materialization =
         new MaterializationActor.Materialization(key, schema.root(),
-            tableEntry, viewSql, rowType, viewSchemaPath);
+            tableEntry, viewSql, rowType, viewSchemaPath,
+            populatingTableFactory);
     actor.keyMap.put(materialization.key, materialization);
     actor.keyBySql.put(queryKey, materialization.key);
     if (tileKey != null) {
@@ -152,11 +158,11 @@ public MaterializationKey defineMaterialization(final CalciteSchema schema,
   }
 
   /** Checks whether a materialization is valid, and if so, returns the table
-   * where the data are stored. */
+   * where the data are stored. A stale materialization is not valid. */
   public CalciteSchema.TableEntry checkValid(MaterializationKey key) {
     final MaterializationActor.Materialization materialization =
         actor.keyMap.get(key);
-    if (materialization != null) {
+    if (materialization != null && !materialization.stale) {
       return materialization.materializedTable;
     }
     return null;
@@ -312,7 +318,8 @@ public List<Prepare.Materialization> query(CalciteSchema rootSchema) {
     for (MaterializationActor.Materialization materialization
         : actor.keyMap.values()) {
       if (materialization.rootSchema.schema == rootSchema.schema
-          && materialization.materializedTable != null) {
+          && materialization.materializedTable != null
+          && !materialization.stale) {
         list.add(
             new Prepare.Materialization(materialization.materializedTable,
                 materialization.sql, materialization.viewSchemaPath));
@@ -321,6 +328,123 @@ public List<Prepare.Materialization> query(CalciteSchema rootSchema) {
     return list;
   }
 
+  /** Marks as stale each materialization that reads from a given table.
+   *
+   * <p>A stale materialization is not used to answer queries until it is
+   * refreshed. Call this method when the table has been modified in a way
+   * other than by appending rows, then call {@link #refresh(MaterializationKey)}
+   * to re-populate the materializations. */
+  public void markStale(CalciteSchema rootSchema, List<String> tablePath) {
+    final Table table = table(rootSchema, tablePath);
+    for (MaterializationActor.Materialization materialization
+        : materializations(rootSchema)) {
+      if (!new MaterializationMaintainer(materialization).references(table)
+          .isEmpty()) {
+        materialization.stale = true;
+      }
+    }
+  }
+
+  /** Refreshes the materializations that read from a given table, after
+   * rows have been appended to that table.
+   *
+   * <p>Where possible, computes the aggregate of the appended rows and merges
+   * it into the materialized table.
+   * Otherwise re-populates the materialized table from scratch. A
+   * materialization whose table was not created by this service cannot be
+   * re-populated, and remains stale.
+   *
+   * <p>Merging avoids re-executing the materialization's query over the whole
+   * modified table, but it is not free: each call scans every row of the
+   * materialized table and builds a new copy of it, so the cost of a call is
+   * proportional to the size of the materialized table plus the size of the
+   * delta. Prefer fewer, larger batches to many small ones.
+   *
+   * <p>Call this method once for each batch of rows, after the rows have been
+   * added to the table, in the order that the batches were added.
+   *
+   * @param rootSchema Root schema
+   * @param tablePath  Path of the modified table
+   * @param delta      Rows that have been appended to the table
+   */
+  public void refresh(CalciteSchema rootSchema, List<String> tablePath,
+      Iterable<Object[]> delta) {
+    final Table table = table(rootSchema, tablePath);
+    for (MaterializationActor.Materialization materialization
+        : materializations(rootSchema)) {
+      final MaterializationMaintainer maintainer =
+          new MaterializationMaintainer(materialization);
+      final List<SqlIdentifier> refs = maintainer.references(table);
+      if (refs.isEmpty()) {
+        continue;
+      }
+      materialization.stale = true;
+      final List<SqlKind> kinds = refs.size() == 1
+          && materialization.tableFactory != null
+          && materialization.materializedTable.getTable()
+              instanceof ScannableTable
+          ? maintainer.mergeKinds(refs.get(0))
+          : null;
+      if (kinds != null) {
+        materialization.materializedTable =
+            maintainer.merge(refs.get(0), kinds, table, delta);
+        materialization.stale = false;
+      } else {
+        repopulate(materialization);
+      }
+    }
+  }
+
+  /** Re-populates a materialization from scratch, and returns whether it is
+   * now valid. */
+  public boolean refresh(MaterializationKey key) {
+    final MaterializationActor.Materialization materialization =
+        actor.keyMap.get(key);
+    return materialization != null && repopulate(materialization);
+  }
+
+  private boolean repopulate(
+      MaterializationActor.Materialization materialization) {
+    if (materialization.tableFactory == null) {
+      return false;
+    }
+    final CalciteSchema.TableEntry tableEntry =
+        materialization.materializedTable;
+    final Table table =
+        materialization.tableFactory.createTable(tableEntry.schema,
+            materialization.sql, materialization.viewSchemaPath);
+    materialization.materializedTable =
+        tableEntry.schema.add(tableEntry.name, table, tableEntry.sqls);
+    materialization.stale = false;
+    return true;
+  }
+
+  private List<MaterializationActor.Materialization> materializations(
+      CalciteSchema rootSchema) {
+    final List<MaterializationActor.Materialization> list = new ArrayList<>();
+    for (MaterializationActor.Materialization materialization
+        : actor.keyMap.values()) {
+      if (materialization.rootSchema.schema == rootSchema.schema
+          && materialization.materializedTable != null) {
+        list.add(materialization);
+      }
+    }
+    return list;
+  }
+
+  private static Table table(CalciteSchema rootSchema,
+      List<String> tablePath) {
+    final CalciteSchema schema =
+        Schemas.subSchema(rootSchema, Util.skipLast(tablePath));
+    final CalciteSchema.TableEntry entry = schema == null
+        ? null
+        : schema.getTable(Util.last(tablePath), true);
+    if (entry == null) {
+      throw new IllegalArgumentException("table not found: " + tablePath);
+    }
+    return entry.getTable();
+  }
+
   /** De-registers all materialized tables in the system. */
   public void clear() {
     actor.keyMap.clear();
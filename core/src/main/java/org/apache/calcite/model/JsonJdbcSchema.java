@@ -16,6 +16,8 @@
  */
 package org.apache.calcite.model;
 
+import java.util.Map;
+
 /**
  * JSON object representing a schema that maps to a JDBC database.
  *
@@ -69,6 +71,74 @@ public class JsonJdbcSchema extends JsonSchema {
    */
   public String jdbcSchema;
 
+  /** Number of rows that the JDBC driver fetches per round trip.
+   *
+   * <p>Optional. If not specified, uses the driver's default. Some drivers,
+   * such as PostgreSQL's, also need {@link #autoCommit} to be false to stream
+   * results rather than read them all into memory.
+   */
+  public Integer fetchSize;
+
+  /** Auto-commit mode of connections that run queries.
+   *
+   * <p>Optional. If not specified, the connection's setting is left as is.
+   */
+  public Boolean autoCommit;
+
+  /** Number of concurrent range queries that read a table listed in
+   * {@link #partitionColumns}.
+   *
+   * <p>Optional. Default 1, which means scans are not split.
+   */
+  public Integer parallelism;
+
+  /** Map from table name to the numeric, date or timestamp column on which
+   * scans of that table are split into {@link #parallelism} range queries.
+   *
+   * <p>Optional.
+   */
+  public Map<String, String> partitionColumns;
+
+  /** Maximum number of open connections in the pool.
+   *
+   * <p>Optional. If not specified, uses the pool's default.
+   */
+  public Integer poolMaxTotal;
+
+  /** Maximum number of idle connections in the pool.
+   *
+   * <p>Optional. If not specified, uses the pool's default.
+   */
+  public Integer poolMaxIdle;
+
+  /** Minimum number of idle connections in the pool.
+   *
+   * <p>Optional. If not specified, uses the pool's default.
+   */
+  public Integer poolMinIdle;
+
+  /** Maximum time, in milliseconds, to wait for a connection from the pool.
+   *
+   * <p>Optional. If not specified, waits indefinitely.
+   */
+  public Long poolMaxWaitMillis;
+
+  /** Number of prepared statements that each pooled connection keeps open,
+   * keyed by SQL string.
+   *
+   * <p>Optional. Default 0, which means statements are not cached.
+   */
+  public Integer statementCacheSize;
+
+  /** Whether literals in comparisons are sent as parameters of a prepared
+   * statement, so that queries that differ only in those literals share a
+   * cached statement.
+   *
+   * <p>Optional. Defaults to true if {@link #statementCacheSize} is positive,
+   * false otherwise.
+   */
+  public Boolean parameterizeLiterals;
+
   @Override public void accept(ModelHandler handler) {
     handler.visit(this);
   }
@@ -40,6 +40,7 @@
 import org.apache.calcite.schema.impl.TableMacroImpl;
 import org.apache.calcite.schema.impl.ViewTable;
 import org.apache.calcite.sql.SqlDialectFactory;
+import org.apache.calcite.sql.SqlDialectFactoryImpl;
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.Util;
@@ -57,6 +58,7 @@
 import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -328,23 +330,35 @@ protected Map<String, Object> operandMap(JsonSchema jsonSchema,
   public void visit(JsonJdbcSchema jsonSchema) {
     checkRequiredAttributes(jsonSchema, "name");
     final SchemaPlus parentSchema = currentMutableSchema("jdbc schema");
+    final Map<String, Object> poolOperands = new HashMap<>();
+    poolOperands.put("poolMaxTotal", jsonSchema.poolMaxTotal);
+    poolOperands.put("poolMaxIdle", jsonSchema.poolMaxIdle);
+    poolOperands.put("poolMinIdle", jsonSchema.poolMinIdle);
+    poolOperands.put("poolMaxWaitMillis", jsonSchema.poolMaxWaitMillis);
+    poolOperands.put("statementCacheSize", jsonSchema.statementCacheSize);
     final DataSource dataSource =
         JdbcSchema.dataSource(jsonSchema.jdbcUrl,
             jsonSchema.jdbcDriver,
             jsonSchema.jdbcUser,
-            jsonSchema.jdbcPassword);
-    final JdbcSchema schema;
+            jsonSchema.jdbcPassword,
+            poolOperands);
+    final SqlDialectFactory factory;
     if (jsonSchema.sqlDialectFactory == null || jsonSchema.sqlDialectFactory.isEmpty()) {
-      schema =
-          JdbcSchema.create(parentSchema, jsonSchema.name, dataSource,
-              jsonSchema.jdbcCatalog, jsonSchema.jdbcSchema);
+      factory = SqlDialectFactoryImpl.INSTANCE;
     } else {
-      SqlDialectFactory factory = AvaticaUtils.instantiatePlugin(
+      factory = AvaticaUtils.instantiatePlugin(
           SqlDialectFactory.class, jsonSchema.sqlDialectFactory);
-      schema =
-          JdbcSchema.create(parentSchema, jsonSchema.name, dataSource,
-              factory, jsonSchema.jdbcCatalog, jsonSchema.jdbcSchema);
     }
+    final JdbcSchema schema =
+        JdbcSchema.create(parentSchema, jsonSchema.name, dataSource,
+            factory, jsonSchema.jdbcCatalog, jsonSchema.jdbcSchema,
+            Util.first(jsonSchema.fetchSize, 0), jsonSchema.autoCommit,
+            Util.first(jsonSchema.parallelism, 1),
+            jsonSchema.partitionColumns == null
+                ? ImmutableMap.of()
+                : jsonSchema.partitionColumns,
+            Util.first(jsonSchema.parameterizeLiterals,
+                Util.first(jsonSchema.statementCacheSize, 0) > 0));
     final SchemaPlus schemaPlus = parentSchema.add(jsonSchema.name, schema);
     populateSchema(jsonSchema, schemaPlus);
   }
@@ -83,6 +83,11 @@ public abstract class AbstractRelOptPlanner implements RelOptPlanner {
 
   private RexExecutor executor;
 
+  /** Statistics of each rule that has been attempted, in order of first
+   * attempt. */
+  private final Map<RelOptRule, RuleStats> ruleStats =
+      new LinkedHashMap<>();
+
   //~ Constructors -----------------------------------------------------------
 
   /**
@@ -114,7 +119,9 @@ protected AbstractRelOptPlanner(RelOptCostFactory costFactory,
 
   //~ Methods ----------------------------------------------------------------
 
-  public void clear() {}
+  public void clear() {
+    ruleStats.clear();
+  }
 
   public Context getContext() {
     return context;
@@ -335,7 +342,12 @@ protected void fireRule(
       listener.ruleAttempted(event);
     }
 
-    ruleCall.getRule().onMatch(ruleCall);
+    final long start = System.nanoTime();
+    try {
+      ruleCall.getRule().onMatch(ruleCall);
+    } finally {
+      onRuleAttempted(ruleCall.getRule(), System.nanoTime() - start);
+    }
 
     if (listener != null) {
       RelOptListener.RuleAttemptedEvent event =
@@ -364,6 +376,9 @@ protected void notifyTransformation(
       LOGGER.debug("call#{}: Rule {} arguments {} produced {}",
           ruleCall.id, ruleCall.getRule(), Arrays.toString(ruleCall.rels), newRel);
     }
+    if (before) {
+      onRuleProduction(ruleCall.getRule());
+    }
 
     if (listener != null) {
       RelOptListener.RuleProductionEvent event =
@@ -435,6 +450,52 @@ public RelOptListener getListener() {
     return listener;
   }
 
+  /**
+   * Records that a rule's {@link RelOptRule#onMatch} method has been called.
+   *
+   * @param rule  Rule
+   * @param nanos Elapsed time of the call, in nanoseconds
+   */
+  protected void onRuleAttempted(RelOptRule rule, long nanos) {
+    final RuleStats stats = ruleStats(rule);
+    ++stats.attemptCount;
+    stats.totalNanos += nanos;
+    stats.maxNanos = Math.max(stats.maxNanos, nanos);
+  }
+
+  /** Records that a rule has produced a relational expression. */
+  protected void onRuleProduction(RelOptRule rule) {
+    ++ruleStats(rule).productionCount;
+  }
+
+  private RuleStats ruleStats(RelOptRule rule) {
+    return ruleStats.computeIfAbsent(rule, r -> new RuleStats());
+  }
+
+  public RelOptPlannerMetrics getMetrics() {
+    final RelNode root = getRoot();
+    return metrics(0, 0, 0, 0,
+        root == null ? 0L : root.getCluster().getMetadataRequestCount(),
+        root == null ? 0L : root.getCluster().getMetadataComputeCount());
+  }
+
+  /** Creates a metrics snapshot from this planner's rule statistics and the
+   * given memo and metadata statistics. */
+  protected RelOptPlannerMetrics metrics(int setCount, int subsetCount,
+      int relCount, int ruleQueueSize, long metadataRequestCount,
+      long metadataComputeCount) {
+    final List<RelOptPlannerMetrics.RuleMetrics> list = new ArrayList<>();
+    for (Map.Entry<RelOptRule, RuleStats> entry : ruleStats.entrySet()) {
+      final RuleStats stats = entry.getValue();
+      list.add(
+          new RelOptPlannerMetrics.RuleMetrics(entry.getKey().toString(),
+              stats.attemptCount, stats.productionCount, stats.totalNanos,
+              stats.maxNanos));
+    }
+    return new RelOptPlannerMetrics(list, setCount, subsetCount, relCount,
+        ruleQueueSize, metadataRequestCount, metadataComputeCount);
+  }
+
   /** Returns sub-classes of relational expression. */
   public Iterable<Class<? extends RelNode>> subClasses(
       final Class<? extends RelNode> clazz) {
@@ -528,4 +589,13 @@ public String dump() {
       return sb.toString();
     }
   }
+
+  /** Mutable statistics of a rule; snapshot is
+   * {@link RelOptPlannerMetrics.RuleMetrics}. */
+  private static class RuleStats {
+    long attemptCount;
+    long productionCount;
+    long totalNanos;
+    long maxNanos;
+  }
 }
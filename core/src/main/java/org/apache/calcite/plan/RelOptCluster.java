@@ -29,6 +29,7 @@
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.TryThreadLocal;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -54,7 +55,13 @@ public class RelOptCluster {
   private HintStrategyTable hintStrategies;
   private final RelTraitSet emptyTraitSet;
   private RelMetadataQuery mq;
+  /** Metadata query of the current thread, if the thread has its own; see
+   * {@link #withThreadMetadataQuery()}. */
+  private final TryThreadLocal<RelMetadataQuery> threadMq =
+      TryThreadLocal.of(null);
   private Supplier<RelMetadataQuery> mqSupplier;
+  private long metadataRequestCount;
+  private long metadataComputeCount;
 
   //~ Constructors -----------------------------------------------------------
 
@@ -174,12 +181,29 @@ public void setMetadataQuerySupplier(Supplier<RelMetadataQuery> mqSupplier) {
    * for example if you are in a {@link RelOptRule#onMatch(RelOptRuleCall)}
    * method, then use {@link RelOptRuleCall#getMetadataQuery()} instead. */
   public RelMetadataQuery getMetadataQuery() {
+    final RelMetadataQuery threadMq = this.threadMq.get();
+    if (threadMq != null) {
+      return threadMq;
+    }
     if (mq == null) {
       mq = this.mqSupplier.get();
     }
     return mq;
   }
 
+  /**
+   * Gives the current thread its own RelMetadataQuery, which
+   * {@link #getMetadataQuery()} returns on this thread until the result is
+   * closed.
+   *
+   * <p>A RelMetadataQuery caches results in structures that are not
+   * thread-safe, so a planner that fires rules on several threads calls
+   * this method on each of them.
+   */
+  public TryThreadLocal.Memo withThreadMetadataQuery() {
+    return threadMq.push(mqSupplier.get());
+  }
+
   /**
    * Returns the supplier of RelMetadataQuery.
    */
@@ -192,9 +216,29 @@ public Supplier<RelMetadataQuery> getMetadataQuerySupplier() {
    * invalid. Typically invoked from {@link RelOptRuleCall#transformTo}.
    */
   public void invalidateMetadataQuery() {
+    if (threadMq.get() != null) {
+      threadMq.set(mqSupplier.get());
+      return;
+    }
+    if (mq != null) {
+      metadataRequestCount += mq.requestCount;
+      metadataComputeCount += mq.computeCount;
+    }
     mq = null;
   }
 
+  /** Returns the number of metadata requests made by queries created for
+   * this cluster, including the current query. */
+  public long getMetadataRequestCount() {
+    return metadataRequestCount + (mq == null ? 0 : mq.requestCount);
+  }
+
+  /** Returns the number of metadata requests made by queries created for
+   * this cluster that were not cached and had to be computed. */
+  public long getMetadataComputeCount() {
+    return metadataComputeCount + (mq == null ? 0 : mq.computeCount);
+  }
+
   /**
    * Sets up the hint propagation strategies to be used during rule planning.
    *
@@ -353,6 +353,18 @@ RelNode register(
   /** Called when a relational expression is copied to a similar expression. */
   void onCopy(RelNode rel, RelNode newRel);
 
+  /**
+   * Returns a snapshot of the work this planner has done since it was
+   * created or last {@link #clear() cleared}: per-rule attempt counts,
+   * production counts and timings, memo size and metadata request counts.
+   *
+   * <p>The default implementation returns {@link RelOptPlannerMetrics#EMPTY},
+   * for planners that do not record metrics.
+   */
+  default RelOptPlannerMetrics getMetrics() {
+    return RelOptPlannerMetrics.EMPTY;
+  }
+
   /** @deprecated Use {@link RexExecutor} */
   @Deprecated // to be removed before 2.0
   interface Executor extends RexExecutor {
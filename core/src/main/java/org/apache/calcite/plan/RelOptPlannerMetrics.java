@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.plan;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Snapshot of the work done by a {@link RelOptPlanner}: how often each rule
+ * was attempted, how many transformations it produced and how long it took,
+ * the size of the planner's memo, and how many metadata requests were made.
+ *
+ * <p>Obtain via {@link RelOptPlanner#getMetrics()}; the
+ * {@link org.apache.calcite.runtime.Hook#PLANNER_METRICS} hook receives one
+ * after each query has been optimized.
+ *
+ * <p>Times are wall-clock times measured with {@link System#nanoTime()}, and
+ * include the time spent in nested calls such as metadata requests and
+ * registration of the rule's output.
+ */
+public class RelOptPlannerMetrics {
+  public static final RelOptPlannerMetrics EMPTY =
+      new RelOptPlannerMetrics(ImmutableList.of(), 0, 0, 0, 0, 0L, 0L);
+
+  /** Metrics of each rule that has been attempted, in order of first
+   * attempt. */
+  public final List<RuleMetrics> ruleMetrics;
+  /** Number of equivalence sets ({@code RelSet}s) in the memo. */
+  public final int setCount;
+  /** Number of subsets ({@code RelSubset}s) in the memo. */
+  public final int subsetCount;
+  /** Number of distinct relational expressions registered. */
+  public final int relCount;
+  /** Number of rule matches waiting to be fired. */
+  public final int ruleQueueSize;
+  /** Number of metadata requests, including those served from cache. */
+  public final long metadataRequestCount;
+  /** Number of metadata requests that had to be computed. */
+  public final long metadataComputeCount;
+
+  public RelOptPlannerMetrics(List<RuleMetrics> ruleMetrics, int setCount,
+      int subsetCount, int relCount, int ruleQueueSize,
+      long metadataRequestCount, long metadataComputeCount) {
+    this.ruleMetrics = ImmutableList.copyOf(ruleMetrics);
+    this.setCount = setCount;
+    this.subsetCount = subsetCount;
+    this.relCount = relCount;
+    this.ruleQueueSize = ruleQueueSize;
+    this.metadataRequestCount = metadataRequestCount;
+    this.metadataComputeCount = metadataComputeCount;
+  }
+
+  /** Returns the metrics of a given rule, or null if the rule has not been
+   * attempted. */
+  public RuleMetrics rule(String ruleDescription) {
+    for (RuleMetrics metrics : ruleMetrics) {
+      if (metrics.rule.equals(ruleDescription)) {
+        return metrics;
+      }
+    }
+    return null;
+  }
+
+  /** Returns the total number of rule attempts. */
+  public long attemptCount() {
+    long n = 0;
+    for (RuleMetrics metrics : ruleMetrics) {
+      n += metrics.attemptCount;
+    }
+    return n;
+  }
+
+  /** Returns the total time spent in rules, in nanoseconds. */
+  public long totalNanos() {
+    long n = 0;
+    for (RuleMetrics metrics : ruleMetrics) {
+      n += metrics.totalNanos;
+    }
+    return n;
+  }
+
+  @Override public String toString() {
+    final StringBuilder buf = new StringBuilder();
+    buf.append("sets: ").append(setCount)
+        .append(", subsets: ").append(subsetCount)
+        .append(", rels: ").append(relCount)
+        .append(", queue: ").append(ruleQueueSize)
+        .append(", metadata requests: ").append(metadataRequestCount)
+        .append(", metadata computed: ").append(metadataComputeCount);
+    for (RuleMetrics metrics : ruleMetrics) {
+      buf.append("\n").append(metrics);
+    }
+    return buf.toString();
+  }
+
+  /** Metrics of one rule. */
+  public static class RuleMetrics {
+    /** Description of the rule. */
+    public final String rule;
+    /** Number of times the rule's {@code onMatch} was called. */
+    public final long attemptCount;
+    /** Number of relational expressions the rule produced. */
+    public final long productionCount;
+    /** Total time spent in the rule, in nanoseconds. */
+    public final long totalNanos;
+    /** Longest single call to the rule, in nanoseconds. */
+    public final long maxNanos;
+
+    public RuleMetrics(String rule, long attemptCount, long productionCount,
+        long totalNanos, long maxNanos) {
+      this.rule = Objects.requireNonNull(rule);
+      this.attemptCount = attemptCount;
+      this.productionCount = productionCount;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    @Override public String toString() {
+      return rule + ": attempts " + attemptCount
+          + ", productions " + productionCount
+          + ", total " + totalNanos / 1000 + "us"
+          + ", max " + maxNanos / 1000 + "us";
+    }
+  }
+}
@@ -685,7 +685,9 @@ private static class Cache {
     Cache() {
     }
 
-    RelTraitSet getOrAdd(List<RelTrait> traits) {
+    // Synchronized because rules may fire concurrently; see
+    // VolcanoPlanner#setParallelism.
+    synchronized RelTraitSet getOrAdd(List<RelTrait> traits) {
       RelTraitSet traitSet1 = map.get(traits);
       if (traitSet1 != null) {
         return traitSet1;
@@ -26,6 +26,7 @@
 import org.apache.calcite.plan.RelOptCostImpl;
 import org.apache.calcite.plan.RelOptMaterialization;
 import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleOperand;
 import org.apache.calcite.plan.RelTrait;
@@ -163,6 +164,12 @@ public RelNode getRoot() {
     return root;
   }
 
+  @Override public RelOptPlannerMetrics getMetrics() {
+    return metrics(0, 0, graph.vertexSet().size(), 0,
+        root == null ? 0L : root.getCluster().getMetadataRequestCount(),
+        root == null ? 0L : root.getCluster().getMetadataComputeCount());
+  }
+
   @Override public void clear() {
     super.clear();
     for (RelOptRule rule : getRules()) {
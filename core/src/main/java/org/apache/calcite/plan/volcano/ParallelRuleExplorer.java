@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.plan.volcano;
+
+import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.metadata.JaninoRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQueryBase;
+import org.apache.calcite.util.ControlFlowException;
+import org.apache.calcite.util.TryThreadLocal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fires the rule matches of a {@link VolcanoPlanner} on a pool of worker
+ * threads.
+ *
+ * <p>Matches leave the {@link RuleQueue} in batches of up to
+ * {@code parallelism} matches. The matches of a batch fire concurrently,
+ * all seeing the state of the planner at the start of the batch, and the
+ * expressions they produce are kept in the rule calls rather than
+ * registered. The planner thread then calls {@link VolcanoRuleCall#onMatch()}
+ * for each match, in the order in which the matches left the queue, to
+ * register those expressions. Thus only the planner thread modifies sets
+ * and subsets, and the order of registration does not depend on how the
+ * workers were scheduled; planning the same query with the same rules
+ * produces the same plan every time.
+ *
+ * <p>A rule that modifies the planner from its
+ * {@link org.apache.calcite.plan.RelOptRule#onMatch onMatch} method, for
+ * example by calling {@link org.apache.calcite.plan.RelOptRule#convert}, is
+ * interrupted by {@link SequentialFiringRequired}, and fires again,
+ * sequentially, when its turn comes to be registered. Rules that fire in
+ * parallel must not have other side effects.
+ *
+ * <p>Each worker thread has its own
+ * {@link org.apache.calcite.rel.metadata.RelMetadataQuery}, returned by
+ * {@link org.apache.calcite.plan.RelOptCluster#getMetadataQuery()} on that
+ * thread, and the expressions it creates get their ids when they are
+ * registered; see {@link AbstractRelNode#DEFER_IDS}.
+ */
+class ParallelRuleExplorer implements AutoCloseable {
+  private final VolcanoPlanner planner;
+  private final int parallelism;
+  private final ExecutorService executor;
+
+  ParallelRuleExplorer(VolcanoPlanner planner, int parallelism) {
+    this.planner = planner;
+    this.parallelism = parallelism;
+    this.executor =
+        Executors.newFixedThreadPool(parallelism,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("volcano-explorer-%d")
+                .build());
+  }
+
+  /**
+   * Removes a batch of matches from the queue of a given phase, and fires
+   * them on the worker threads.
+   *
+   * <p>The caller must then call {@link VolcanoRuleCall#onMatch()} on each
+   * match, in order, to register what it produced.
+   *
+   * @param phase Planner phase
+   * @return Matches that were fired, or an empty list if the queue is empty
+   */
+  List<VolcanoRuleMatch> explore(VolcanoPlannerPhase phase) {
+    final List<VolcanoRuleMatch> batch = new ArrayList<>();
+    while (batch.size() < parallelism) {
+      final VolcanoRuleMatch match = planner.ruleQueue.popMatch(phase);
+      if (match == null) {
+        break;
+      }
+      batch.add(match);
+    }
+    if (batch.size() <= 1) {
+      // Nothing to gain; the caller fires the match sequentially.
+      return batch;
+    }
+
+    planner.checkCancel();
+    final JaninoRelMetadataProvider provider =
+        RelMetadataQueryBase.THREAD_PROVIDERS.get();
+    final List<Future<Boolean>> futures = new ArrayList<>();
+    RuntimeException failure = null;
+    planner.exploring = true;
+    try {
+      for (VolcanoRuleMatch match : batch) {
+        futures.add(
+            executor.submit(() -> {
+              RelMetadataQueryBase.THREAD_PROVIDERS.set(provider);
+              try (TryThreadLocal.Memo mq =
+                       match.rel(0).getCluster().withThreadMetadataQuery();
+                   TryThreadLocal.Memo ids =
+                       AbstractRelNode.DEFER_IDS.push(true)) {
+                return match.explore();
+              }
+            }));
+      }
+      // Wait for every worker, even after a failure, so that none is still
+      // reading the planner when the planner thread starts registering.
+      for (Future<Boolean> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof RuntimeException
+                ? (RuntimeException) e.getCause()
+                : new RuntimeException(e.getCause());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(future -> future.cancel(true));
+      throw new VolcanoTimeoutException();
+    } finally {
+      planner.exploring = false;
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return batch;
+  }
+
+  @Override public void close() {
+    executor.shutdownNow();
+  }
+
+  /** Thrown when a rule that is firing on a worker thread tries to modify
+   * the planner. */
+  static class SequentialFiringRequired extends ControlFlowException {
+    @SuppressWarnings("ThrowableInstanceNeverThrown")
+    static final SequentialFiringRequired INSTANCE =
+        new SequentialFiringRequired();
+  }
+}
@@ -112,6 +112,16 @@ public void clear() {
     }
   }
 
+  /** Returns the number of rule matches waiting to be fired, summed over
+   * all phases. */
+  public int size() {
+    int n = 0;
+    for (PhaseMatchList matchList : matchListMap.values()) {
+      n += matchList.size();
+    }
+    return n;
+  }
+
   /**
    * Removes the {@link PhaseMatchList rule-match list} for the given planner
    * phase.
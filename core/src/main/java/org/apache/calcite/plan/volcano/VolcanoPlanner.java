@@ -28,6 +28,7 @@
 import org.apache.calcite.plan.RelOptMaterialization;
 import org.apache.calcite.plan.RelOptMaterializations;
 import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
 import org.apache.calcite.plan.RelOptRuleOperand;
@@ -37,6 +38,7 @@
 import org.apache.calcite.plan.RelTrait;
 import org.apache.calcite.plan.RelTraitDef;
 import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.AbstractRelNode;
 import org.apache.calcite.rel.PhysicalNode;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.convert.Converter;
@@ -197,6 +199,19 @@ public class VolcanoPlanner extends AbstractRelOptPlanner {
    */
   boolean topDownOpt = CalciteSystemProperty.TOPDOWN_OPT.value();
 
+  /**
+   * Number of threads on which to fire rule matches; if greater than 1,
+   * rule matches are fired by a {@link ParallelRuleExplorer}.
+   */
+  int parallelism = CalciteSystemProperty.PLANNER_PARALLELISM.value();
+
+  /**
+   * Whether rule matches are firing on the worker threads of a
+   * {@link ParallelRuleExplorer}, during which time the planner must not be
+   * modified.
+   */
+  volatile boolean exploring;
+
   //~ Constructors -----------------------------------------------------------
 
   /**
@@ -252,6 +267,24 @@ public void setTopDownOpt(boolean value) {
     topDownOpt = value;
   }
 
+  /**
+   * Sets the number of threads on which to fire rule matches.
+   *
+   * <p>If greater than 1, independent rule matches fire concurrently, and
+   * the expressions they produce are registered by the planner thread in
+   * the order in which the matches were queued, so the plan does not depend
+   * on thread scheduling. Rules that modify the planner while firing, and
+   * all rules if there is a {@link #getListener() listener}, fire
+   * sequentially.
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: "
+          + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
   // implement RelOptPlanner
   public boolean isRegistered(RelNode rel) {
     return mapRel2Subset.get(rel) != null;
@@ -381,6 +414,29 @@ public RelSet getSet(RelNode rel) {
     return traitSet;
   }
 
+  @Override public RelOptPlannerMetrics getMetrics() {
+    int subsetCount = 0;
+    for (RelSet set : allSets) {
+      subsetCount += set.subsets.size();
+    }
+    return metrics(allSets.size(), subsetCount, mapDigestToRel.size(),
+        ruleQueue.size(),
+        root == null ? 0L : root.getCluster().getMetadataRequestCount(),
+        root == null ? 0L : root.getCluster().getMetadataComputeCount());
+  }
+
+  /** Records a call to a rule's {@code onMatch}; called by
+   * {@link VolcanoRuleCall}. */
+  void ruleAttempted(RelOptRule rule, long nanos) {
+    onRuleAttempted(rule, nanos);
+  }
+
+  /** Records a relational expression produced by a rule; called by
+   * {@link VolcanoRuleCall}. */
+  void ruleProduced(RelOptRule rule) {
+    onRuleProduction(rule);
+  }
+
   @Override public void clear() {
     super.clear();
     for (RelOptRule rule : getRules()) {
@@ -481,6 +537,7 @@ public boolean removeRule(RelOptRule rule) {
   public RelNode changeTraits(final RelNode rel, RelTraitSet toTraits) {
     assert !rel.getTraitSet().equals(toTraits);
     assert toTraits.allSimple();
+    checkNotExploring();
 
     RelSubset rel2 = ensureRegistered(rel, null);
     if (rel2.getTraitSet().equals(toTraits)) {
@@ -513,32 +570,52 @@ public RelNode findBestExp() {
     ensureRootConverters();
     registerMaterializations();
 
-    PLANNING:
-    for (VolcanoPlannerPhase phase : VolcanoPlannerPhase.values()) {
-      while (true) {
-        LOGGER.debug("PLANNER = {}; PHASE = {}; COST = {}",
-            this, phase.toString(), root.bestCost);
+    final ParallelRuleExplorer explorer =
+        parallelism > 1 && getListener() == null
+            ? new ParallelRuleExplorer(this, parallelism)
+            : null;
+    try {
+      PLANNING:
+      for (VolcanoPlannerPhase phase : VolcanoPlannerPhase.values()) {
+        while (true) {
+          LOGGER.debug("PLANNER = {}; PHASE = {}; COST = {}",
+              this, phase.toString(), root.bestCost);
 
-        VolcanoRuleMatch match = ruleQueue.popMatch(phase);
-        if (match == null) {
-          break;
-        }
+          try {
+            final List<VolcanoRuleMatch> matches;
+            if (explorer != null) {
+              matches = explorer.explore(phase);
+            } else {
+              VolcanoRuleMatch match = ruleQueue.popMatch(phase);
+              matches = match == null
+                  ? ImmutableList.of()
+                  : ImmutableList.of(match);
+            }
+            if (matches.isEmpty()) {
+              break;
+            }
+
+            for (VolcanoRuleMatch match : matches) {
+              assert match.getRule().matches(match);
+              match.onMatch();
 
-        assert match.getRule().matches(match);
-        try {
-          match.onMatch();
-        } catch (VolcanoTimeoutException e) {
-          root = canonize(root);
-          ruleQueue.phaseCompleted(phase);
-          break PLANNING;
+              // The root may have been merged with another
+              // subset. Find the new root subset.
+              root = canonize(root);
+            }
+          } catch (VolcanoTimeoutException e) {
+            root = canonize(root);
+            ruleQueue.phaseCompleted(phase);
+            break PLANNING;
+          }
         }
 
-        // The root may have been merged with another
-        // subset. Find the new root subset.
-        root = canonize(root);
+        ruleQueue.phaseCompleted(phase);
+      }
+    } finally {
+      if (explorer != null) {
+        explorer.close();
       }
-
-      ruleQueue.phaseCompleted(phase);
     }
 
     if (topDownOpt) {
@@ -618,6 +695,7 @@ public RelSubset register(
       RelNode rel,
       RelNode equivRel) {
     assert !isRegistered(rel) : "pre: isRegistered(rel)";
+    checkNotExploring();
     final RelSet set;
     if (equivRel == null) {
       set = null;
@@ -634,6 +712,7 @@ public RelSubset register(
   }
 
   public RelSubset ensureRegistered(RelNode rel, RelNode equivRel) {
+    checkNotExploring();
     RelSubset result;
     final RelSubset subset = getSubset(rel);
     if (subset != null) {
@@ -790,6 +869,7 @@ public RelSubset getSubset(
       return null;
     }
     if (createIfMissing) {
+      checkNotExploring();
       return set.getOrCreateSubset(rel.getCluster(), traits);
     }
     return set.getSubset(traits);
@@ -859,14 +939,25 @@ RelNode changeTraitsUsingConverters(
   public void setImportance(RelNode rel, double importance) {
     assert rel != null;
     if (importance == 0d) {
+      checkNotExploring();
       prunedNodes.add(rel);
     }
   }
 
   @Override public void prune(RelNode rel) {
+    checkNotExploring();
     prunedNodes.add(rel);
   }
 
+  /** Throws if a rule that is firing on a worker thread of a
+   * {@link ParallelRuleExplorer} tries to modify the planner; the rule will
+   * fire again on the planner thread. */
+  private void checkNotExploring() {
+    if (exploring) {
+      throw ParallelRuleExplorer.SequentialFiringRequired.INSTANCE;
+    }
+  }
+
   /**
    * Dumps the internal state of this VolcanoPlanner to a writer.
    *
@@ -1160,6 +1251,11 @@ private RelSubset registerImpl(
     }
 
     assert !isRegistered(rel) : "already been registered: " + rel;
+    if (rel instanceof AbstractRelNode) {
+      // Expressions created by rules firing on worker threads get their id
+      // now, in the order that they are registered.
+      ((AbstractRelNode) rel).assignId();
+    }
     if (rel.getCluster().getPlanner() != this) {
       throw new AssertionError("Relational expression " + rel
           + " belongs to a different planner than is currently being used.");
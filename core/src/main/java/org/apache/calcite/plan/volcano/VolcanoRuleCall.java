@@ -23,6 +23,7 @@
 import org.apache.calcite.plan.RelOptRuleOperandChildPolicy;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.rules.SubstitutionRule;
+import org.apache.calcite.util.Pair;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -51,6 +52,16 @@ public class VolcanoRuleCall extends RelOptRuleCall {
    */
   private List<RelNode> generatedRelList;
 
+  /**
+   * Expressions, and their equivalences, produced by this call while it was
+   * fired by a worker thread of a {@link ParallelRuleExplorer}, and not yet
+   * registered; null if the call is not being explored.
+   */
+  private List<Pair<RelNode, Map<RelNode, RelNode>>> explored;
+
+  /** Time spent firing the rule on a worker thread, in nanoseconds. */
+  private long exploredNanos;
+
   //~ Constructors -----------------------------------------------------------
 
   /**
@@ -100,6 +111,17 @@ public void transformTo(RelNode rel, Map<RelNode, RelNode> equiv,
         generatedRelList.add(rel);
       }
     }
+    if (explored != null) {
+      // We are on a worker thread; the planner thread will register rel
+      // after all rule calls of the batch have fired.
+      explored.add(Pair.of(rel, equiv));
+      return;
+    }
+    register(rel, equiv);
+  }
+
+  /** Registers an expression produced by this rule call. */
+  private void register(RelNode rel, Map<RelNode, RelNode> equiv) {
     try {
       // It's possible that rel is a subset or is already registered.
       // Is there still a point in continuing? Yes, because we might
@@ -114,6 +136,8 @@ public void transformTo(RelNode rel, Map<RelNode, RelNode> equiv,
             id, getRule(), Arrays.toString(rels), relDesc);
       }
 
+      volcanoPlanner.ruleProduced(getRule());
+
       if (volcanoPlanner.getListener() != null) {
         RelOptListener.RuleProductionEvent event =
             new RelOptListener.RuleProductionEvent(
@@ -154,6 +178,34 @@ public void transformTo(RelNode rel, Map<RelNode, RelNode> equiv,
     }
   }
 
+  /**
+   * Fires the rule on a worker thread of a {@link ParallelRuleExplorer}.
+   *
+   * <p>The expressions that the rule produces are kept, and registered by
+   * a subsequent call to {@link #onMatch()} on the planner thread.
+   *
+   * @return Whether the rule fired; false if it tried to modify the planner,
+   * in which case {@link #onMatch()} will fire it again
+   */
+  boolean explore() {
+    explored = new ArrayList<>();
+    final long start = System.nanoTime();
+    try {
+      if (canFire()) {
+        getRule().onMatch(this);
+      }
+      return true;
+    } catch (ParallelRuleExplorer.SequentialFiringRequired e) {
+      explored = null;
+      return false;
+    } catch (Exception e) {
+      throw new RuntimeException("Error while applying rule " + getRule()
+          + ", args " + Arrays.toString(rels), e);
+    } finally {
+      exploredNanos = System.nanoTime() - start;
+    }
+  }
+
   /**
    * Called when all operands have matched.
    */
@@ -161,41 +213,15 @@ protected void onMatch() {
     assert getRule().matches(this);
     volcanoPlanner.checkCancel();
     try {
-      if (volcanoPlanner.isRuleExcluded(getRule())) {
-        LOGGER.debug("Rule [{}] not fired due to exclusion filter", getRule());
+      if (!canFire()) {
         return;
       }
 
-      if (isRuleExcluded()) {
-        LOGGER.debug("Rule [{}] not fired due to exclusion hint", getRule());
+      if (explored != null) {
+        registerExplored();
         return;
       }
 
-      for (int i = 0; i < rels.length; i++) {
-        RelNode rel = rels[i];
-        RelSubset subset = volcanoPlanner.getSubset(rel);
-
-        if (subset == null) {
-          LOGGER.debug(
-              "Rule [{}] not fired because operand #{} ({}) has no subset",
-              getRule(), i, rel);
-          return;
-        }
-
-        if (subset.set.equivalentSet != null) {
-          LOGGER.debug(
-              "Rule [{}] not fired because operand #{} ({}) belongs to obsolete set",
-              getRule(), i, rel);
-          return;
-        }
-
-        if (volcanoPlanner.prunedNodes.contains(rel)) {
-          LOGGER.debug("Rule [{}] not fired because operand #{} ({}) has importance=0",
-              getRule(), i, rel);
-          return;
-        }
-      }
-
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug(
             "call#{}: Apply rule [{}] to {}",
@@ -217,9 +243,11 @@ protected void onMatch() {
       }
 
       volcanoPlanner.ruleCallStack.push(this);
+      final long start = System.nanoTime();
       try {
         getRule().onMatch(this);
       } finally {
+        volcanoPlanner.ruleAttempted(getRule(), System.nanoTime() - start);
         volcanoPlanner.ruleCallStack.pop();
       }
 
@@ -249,6 +277,62 @@ protected void onMatch() {
     }
   }
 
+  /** Returns whether the rule may fire; it may not if it is excluded, or if
+   * one of its operands has been pruned or belongs to an obsolete set. */
+  private boolean canFire() {
+    if (volcanoPlanner.isRuleExcluded(getRule())) {
+      LOGGER.debug("Rule [{}] not fired due to exclusion filter", getRule());
+      return false;
+    }
+
+    if (isRuleExcluded()) {
+      LOGGER.debug("Rule [{}] not fired due to exclusion hint", getRule());
+      return false;
+    }
+
+    for (int i = 0; i < rels.length; i++) {
+      RelNode rel = rels[i];
+      RelSubset subset = volcanoPlanner.getSubset(rel);
+
+      if (subset == null) {
+        LOGGER.debug(
+            "Rule [{}] not fired because operand #{} ({}) has no subset",
+            getRule(), i, rel);
+        return false;
+      }
+
+      if (subset.set.equivalentSet != null) {
+        LOGGER.debug(
+            "Rule [{}] not fired because operand #{} ({}) belongs to obsolete set",
+            getRule(), i, rel);
+        return false;
+      }
+
+      if (volcanoPlanner.prunedNodes.contains(rel)) {
+        LOGGER.debug("Rule [{}] not fired because operand #{} ({}) has importance=0",
+            getRule(), i, rel);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Registers the expressions produced by {@link #explore()}. Called on the
+   * planner thread, in the order in which the rule calls left the queue. */
+  private void registerExplored() {
+    final List<Pair<RelNode, Map<RelNode, RelNode>>> results = explored;
+    explored = null;
+    volcanoPlanner.ruleAttempted(getRule(), exploredNanos);
+    volcanoPlanner.ruleCallStack.push(this);
+    try {
+      for (Pair<RelNode, Map<RelNode, RelNode>> result : results) {
+        register(result.left, result.right);
+      }
+    } finally {
+      volcanoPlanner.ruleCallStack.pop();
+    }
+  }
+
   /**
    * Applies this rule, with a given relational expression in the first slot.
    */
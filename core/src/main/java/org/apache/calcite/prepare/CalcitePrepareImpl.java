@@ -16,6 +16,8 @@
  */
 package org.apache.calcite.prepare;
 
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.columnar.Columnars;
 import org.apache.calcite.adapter.enumerable.EnumerableCalc;
 import org.apache.calcite.adapter.enumerable.EnumerableConvention;
 import org.apache.calcite.adapter.enumerable.EnumerableInterpretable;
@@ -33,8 +35,10 @@
 import org.apache.calcite.jdbc.CalcitePrepare;
 import org.apache.calcite.jdbc.CalciteSchema;
 import org.apache.calcite.jdbc.CalciteSchema.LatticeEntry;
+import org.apache.calcite.linq4j.Enumerator;
 import org.apache.calcite.linq4j.Linq4j;
 import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.linq4j.QueryProvider;
 import org.apache.calcite.linq4j.Queryable;
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.tree.BinaryExpression;
@@ -54,6 +58,7 @@
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptCostFactory;
 import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelOptUtil;
@@ -63,10 +68,13 @@
 import org.apache.calcite.rel.RelCollations;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.Filter;
 import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.Sort;
 import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.externalize.RelWriterImpl;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelDataTypeField;
@@ -75,8 +83,10 @@
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexProgram;
 import org.apache.calcite.runtime.Bindable;
+import org.apache.calcite.runtime.ExecutionProfile;
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.runtime.Typed;
+import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.schema.Schemas;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.server.CalciteServerStatement;
@@ -108,21 +118,28 @@
 import org.apache.calcite.util.Util;
 
 import com.google.common.base.Supplier;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.sql.DatabaseMetaData;
 import java.sql.Types;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.calcite.util.Static.RESOURCE;
 
@@ -152,6 +169,27 @@ public class CalcitePrepareImpl implements CalcitePrepare {
    * plan. If not, enumerable convention is the default. */
   public final boolean enableBindable = Hook.ENABLE_BINDABLE.get(false);
 
+  /** Cache of prepared SQL statements. Disabled unless
+   * {@link CalciteSystemProperty#PLAN_CACHE_MAX_SIZE} is set. */
+  private static final PlanCache PLAN_CACHE =
+      new PlanCache(CalciteSystemProperty.PLAN_CACHE_MAX_SIZE.value());
+
+  /** Cache of optimized plans, keyed by query shape. Disabled unless
+   * {@link CalciteSystemProperty#PLAN_SHAPE_CACHE_MAX_SIZE} is set. */
+  private static final PlanShapeCache PLAN_SHAPE_CACHE =
+      new PlanShapeCache(
+          CalciteSystemProperty.PLAN_SHAPE_CACHE_MAX_SIZE.value());
+
+  /** Maximum number of entries in {@link #PLANNER_METRICS}. */
+  private static final int PLANNER_METRICS_SIZE = 100;
+
+  /** Planner metrics of the most recently optimized statements, oldest
+   * first. Guarded by itself. */
+  private static final Deque<Pair<Long, RelOptPlannerMetrics>>
+      PLANNER_METRICS = new ArrayDeque<>();
+
+  private static final AtomicLong PLANNER_METRICS_SEQ = new AtomicLong();
+
   private static final Set<String> SIMPLE_SQLS =
       ImmutableSet.of(
           "SELECT 1",
@@ -434,6 +472,11 @@ protected RelOptPlanner createPlanner(
     RelOptUtil.registerDefaultRules(planner,
         prepareContext.config().materializationsEnabled(),
         enableBindable);
+    if (prepareContext.config().columnar()) {
+      for (RelOptRule rule : Columnars.RULES) {
+        planner.addRule(rule);
+      }
+    }
 
     final CalcitePrepare.SparkHandler spark = prepareContext.spark();
     if (spark.enabled()) {
@@ -476,6 +519,20 @@ <T> CalciteSignature<T> prepare_(
     if (SIMPLE_SQLS.contains(query.sql)) {
       return simplePrepare(context, query.sql);
     }
+    if (query.sql != null && PLAN_CACHE.isEnabled()) {
+      return PLAN_CACHE.get(context, query.sql, elementType, maxRowCount,
+          enableBindable,
+          () -> prepareUncached(context, query, elementType, maxRowCount),
+          signature -> signature.statementType != Meta.StatementType.OTHER_DDL);
+    }
+    return prepareUncached(context, query, elementType, maxRowCount);
+  }
+
+  private <T> CalciteSignature<T> prepareUncached(
+      Context context,
+      Query<T> query,
+      Type elementType,
+      long maxRowCount) {
     final JavaTypeFactory typeFactory = context.getTypeFactory();
     CalciteCatalogReader catalogReader =
         new CalciteCatalogReader(
@@ -504,6 +561,56 @@ <T> CalciteSignature<T> prepare_(
     throw exception;
   }
 
+  /** Returns statistics about the cache of prepared SQL statements.
+   *
+   * @see CalciteSystemProperty#PLAN_CACHE_MAX_SIZE */
+  public static CacheStats planCacheStats() {
+    return PLAN_CACHE.stats();
+  }
+
+  /** Removes all statements from the cache of prepared SQL statements.
+   *
+   * <p>Statements are invalidated automatically when tables, functions or
+   * sub-schemas are explicitly added to or removed from a schema; call this
+   * method if the contents of a schema change in some other way. */
+  public static void invalidatePlanCache() {
+    PLAN_CACHE.invalidateAll();
+    PLAN_SHAPE_CACHE.invalidateAll();
+  }
+
+  /** Returns statistics about the cache of optimized plans, keyed by query
+   * shape.
+   *
+   * @see CalciteSystemProperty#PLAN_SHAPE_CACHE_MAX_SIZE */
+  public static CacheStats planShapeCacheStats() {
+    return PLAN_SHAPE_CACHE.stats();
+  }
+
+  /** Returns the cache of optimized plans, keyed by query shape, that
+   * statements prepared by this object use. */
+  PlanShapeCache planShapeCache() {
+    return PLAN_SHAPE_CACHE;
+  }
+
+  /** Returns the planner metrics of recently optimized statements, oldest
+   * first, each paired with a sequence number that identifies the
+   * statement. */
+  public static List<Pair<Long, RelOptPlannerMetrics>> recentPlannerMetrics() {
+    synchronized (PLANNER_METRICS) {
+      return ImmutableList.copyOf(PLANNER_METRICS);
+    }
+  }
+
+  private static void addPlannerMetrics(RelOptPlannerMetrics metrics) {
+    synchronized (PLANNER_METRICS) {
+      if (PLANNER_METRICS.size() == PLANNER_METRICS_SIZE) {
+        PLANNER_METRICS.removeFirst();
+      }
+      PLANNER_METRICS.addLast(
+          Pair.of(PLANNER_METRICS_SEQ.incrementAndGet(), metrics));
+    }
+  }
+
   /** Quickly prepares a simple SQL statement, circumventing the usual
    * preparation process. */
   private <T> CalciteSignature<T> simplePrepare(Context context, String sql) {
@@ -930,6 +1037,11 @@ static class CalcitePreparingStmt extends Prepare
         new LinkedHashMap<>();
     private int expansionDepth;
     private SqlValidator sqlValidator;
+    /** Key of the query in the plan shape cache, or null if the cache is not
+     * being used. */
+    private PlanCache.Key shapeKey;
+    /** Cached plan for the query's shape, or null if there was none. */
+    private PlanShapeCache.Entry shapeEntry;
 
     CalcitePreparingStmt(CalcitePrepareImpl prepare,
         Context context,
@@ -1084,35 +1196,50 @@ protected SqlValidator createSqlValidator(CatalogReader catalogReader) {
           format, detailLevel);
     }
 
+    @Override protected RelRoot optimize(RelRoot root,
+        List<Materialization> materializations,
+        List<LatticeEntry> lattices) {
+      final RelRoot optimized = super.optimize(root, materializations, lattices);
+      addPlannerMetrics(planner.getMetrics());
+      return optimized;
+    }
+
+    @Override protected RelRoot optimizeForImplementation(RelRoot root) {
+      final PlanShapeCache planShapeCache = prepare.planShapeCache();
+      if (!planShapeCache.isEnabled()) {
+        return super.optimizeForImplementation(root);
+      }
+      final int firstParameter = parameterRowType.getFieldCount();
+      final PlanShapeCache.Shape shape =
+          PlanShapeCache.parameterize(root, firstParameter);
+      shapeKey = planShapeCache.key(context, shape, prefer, resultConvention);
+      if (shapeKey == null) {
+        return super.optimizeForImplementation(root);
+      }
+      // The generated code reads the values of the literals from the data
+      // context, like the values of the statement's own parameters
+      Ord.forEach(shape.literals, (literal, i) ->
+          internalParameters.put("?" + (firstParameter + i),
+              PlanShapeCache.parameterValue(literal)));
+      shapeEntry = planShapeCache.get(shapeKey);
+      if (shapeEntry != null) {
+        return shapeEntry.root;
+      }
+      return super.optimizeForImplementation(shape.root);
+    }
+
     @Override protected PreparedResult implement(RelRoot root) {
       Hook.PLAN_BEFORE_IMPLEMENTATION.run(root);
       RelDataType resultType = root.rel.getRowType();
       boolean isDml = root.kind.belongsTo(SqlKind.DML);
       final Bindable bindable;
-      if (resultConvention == BindableConvention.INSTANCE) {
+      if (shapeEntry != null) {
+        bindable = shapeEntry.bindable;
+        shapeEntry.internalParameters.forEach(internalParameters::putIfAbsent);
+      } else if (resultConvention == BindableConvention.INSTANCE) {
         bindable = Interpreters.bindable(root.rel);
       } else {
-        EnumerableRel enumerable = (EnumerableRel) root.rel;
-        if (!root.isRefTrivial()) {
-          final List<RexNode> projects = new ArrayList<>();
-          final RexBuilder rexBuilder = enumerable.getCluster().getRexBuilder();
-          for (int field : Pair.left(root.fields)) {
-            projects.add(rexBuilder.makeInputRef(enumerable, field));
-          }
-          RexProgram program = RexProgram.create(enumerable.getRowType(),
-              projects, null, root.validatedRowType, rexBuilder);
-          enumerable = EnumerableCalc.create(enumerable, program);
-        }
-
-        try {
-          CatalogReader.THREAD_LOCAL.set(catalogReader);
-          final SqlConformance conformance = context.config().conformance();
-          internalParameters.put("_conformance", conformance);
-          bindable = EnumerableInterpretable.toBindable(internalParameters,
-              context.spark(), enumerable, prefer);
-        } finally {
-          CatalogReader.THREAD_LOCAL.remove();
-        }
+        bindable = toBindable(toEnumerable(root), false);
       }
 
       if (timingTracer != null) {
@@ -1123,6 +1250,11 @@ protected SqlValidator createSqlValidator(CatalogReader catalogReader) {
         timingTracer.traceTime("end compilation");
       }
 
+      if (shapeKey != null && shapeEntry == null) {
+        prepare.planShapeCache()
+            .put(shapeKey, root, bindable, internalParameters);
+      }
+
       return new PreparedResultImpl(
           resultType,
           parameterRowType,
@@ -1147,6 +1279,50 @@ public Type getElementType() {
       };
     }
 
+    /** Returns the enumerable plan of a query, adding a projection if the
+     * root's fields are not a trivial mapping. */
+    private EnumerableRel toEnumerable(RelRoot root) {
+      EnumerableRel enumerable = (EnumerableRel) root.rel;
+      if (!root.isRefTrivial()) {
+        final List<RexNode> projects = new ArrayList<>();
+        final RexBuilder rexBuilder = enumerable.getCluster().getRexBuilder();
+        for (int field : Pair.left(root.fields)) {
+          projects.add(rexBuilder.makeInputRef(enumerable, field));
+        }
+        RexProgram program = RexProgram.create(enumerable.getRowType(),
+            projects, null, root.validatedRowType, rexBuilder);
+        enumerable = EnumerableCalc.create(enumerable, program);
+      }
+      return enumerable;
+    }
+
+    private Bindable toBindable(EnumerableRel enumerable, boolean profile) {
+      try {
+        CatalogReader.THREAD_LOCAL.set(catalogReader);
+        final SqlConformance conformance = context.config().conformance();
+        internalParameters.put("_conformance", conformance);
+        return EnumerableInterpretable.toBindable(internalParameters,
+            context.spark(), enumerable, prefer, profile);
+      } finally {
+        CatalogReader.THREAD_LOCAL.remove();
+      }
+    }
+
+    @Override protected PreparedResult createPreparedAnalyzedExplanation(
+        RelDataType parameterRowType,
+        RelRoot root,
+        SqlExplainLevel detailLevel) {
+      if (resultConvention != EnumerableConvention.INSTANCE
+          || !(root.rel instanceof EnumerableRel)) {
+        return super.createPreparedAnalyzedExplanation(parameterRowType, root,
+            detailLevel);
+      }
+      final EnumerableRel enumerable = toEnumerable(root);
+      final Bindable bindable = toBindable(enumerable, true);
+      return new CalcitePreparedAnalyzedExplain(parameterRowType,
+          root.withRel(enumerable), detailLevel, bindable);
+    }
+
     @Override protected List<Materialization> getMaterializations() {
       final List<Prepare.Materialization> materializations =
           context.config().materializationsEnabled()
@@ -1188,6 +1364,129 @@ public Bindable getBindable(final Meta.CursorFactory cursorFactory) {
     }
   }
 
+  /** An {@code EXPLAIN ANALYZE} statement, prepared and ready to execute.
+   *
+   * <p>Each execution runs the query, discarding its rows, and returns the
+   * plan annotated with the estimated and actual row count of each
+   * operator. */
+  private static class CalcitePreparedAnalyzedExplain
+      extends CalcitePreparedExplain {
+    private final RelRoot root;
+    private final SqlExplainLevel detailLevel;
+    private final Bindable bindable;
+
+    CalcitePreparedAnalyzedExplain(
+        RelDataType parameterRowType,
+        RelRoot root,
+        SqlExplainLevel detailLevel,
+        Bindable bindable) {
+      super(null, parameterRowType, root, SqlExplainFormat.TEXT, detailLevel);
+      this.root = root;
+      this.detailLevel = detailLevel;
+      this.bindable = bindable;
+    }
+
+    @Override public Bindable getBindable(
+        final Meta.CursorFactory cursorFactory) {
+      return dataContext -> {
+        final String explanation = analyze(dataContext);
+        switch (cursorFactory.style) {
+        case ARRAY:
+          return Linq4j.singletonEnumerable(new String[] {explanation});
+        case OBJECT:
+        default:
+          return Linq4j.singletonEnumerable(explanation);
+        }
+      };
+    }
+
+    /** Executes the query, and returns its plan annotated with the row counts
+     * and timings recorded during execution. */
+    @SuppressWarnings("unchecked")
+    private String analyze(DataContext dataContext) {
+      final ExecutionProfile profile = new ExecutionProfile();
+      final DataContext profilingContext =
+          new ProfilingDataContext(dataContext, profile);
+      final long start = System.nanoTime();
+      long rowCount = 0;
+      try (Enumerator<Object> enumerator =
+               bindable.bind(profilingContext).enumerator()) {
+        while (enumerator.moveNext()) {
+          ++rowCount;
+        }
+      }
+      final long nanos = System.nanoTime() - start;
+
+      final StringWriter sw = new StringWriter();
+      final PrintWriter pw = new PrintWriter(sw);
+      root.rel.explain(new ProfilingRelWriter(pw, detailLevel, profile));
+      pw.printf(Locale.ROOT, "Rows: %d, execution time: %.3f ms%n", rowCount,
+          nanos / 1_000_000d);
+      pw.flush();
+      return sw.toString();
+    }
+  }
+
+  /** Data context that contains an {@link ExecutionProfile} in addition to
+   * the variables of an underlying data context. */
+  private static class ProfilingDataContext implements DataContext {
+    private final DataContext dataContext;
+    private final ExecutionProfile profile;
+
+    ProfilingDataContext(DataContext dataContext, ExecutionProfile profile) {
+      this.dataContext = dataContext;
+      this.profile = profile;
+    }
+
+    public SchemaPlus getRootSchema() {
+      return dataContext.getRootSchema();
+    }
+
+    public JavaTypeFactory getTypeFactory() {
+      return dataContext.getTypeFactory();
+    }
+
+    public QueryProvider getQueryProvider() {
+      return dataContext.getQueryProvider();
+    }
+
+    public Object get(String name) {
+      if (name.equals(DataContext.Variable.PROFILE.camelName)) {
+        return profile;
+      }
+      return dataContext.get(name);
+    }
+  }
+
+  /** Writer that adds to the explanation of each relational expression its
+   * estimated row count and, from an {@link ExecutionProfile}, its actual
+   * row count, number of loops and time. */
+  private static class ProfilingRelWriter extends RelWriterImpl {
+    private final ExecutionProfile profile;
+
+    ProfilingRelWriter(PrintWriter pw, SqlExplainLevel detailLevel,
+        ExecutionProfile profile) {
+      super(pw, detailLevel, false);
+      this.profile = profile;
+    }
+
+    @Override public RelWriter done(RelNode node) {
+      final RelMetadataQuery mq = node.getCluster().getMetadataQuery();
+      item("estimatedRows", mq.getRowCount(node));
+      final ExecutionProfile.OperatorStats stats = profile.get(node.getId());
+      if (stats == null) {
+        item("actualRows", "never executed");
+      } else {
+        item("actualRows", stats.getRowCount());
+        item("loops", stats.getLoopCount());
+        item("time",
+            String.format(Locale.ROOT, "%.3f ms",
+                stats.getNanos() / 1_000_000d));
+      }
+      return super.done(node);
+    }
+  }
+
   /** Translator from Java AST to {@link RexNode}. */
   interface ScalarTranslator {
     RexNode toRex(BlockStatement statement);
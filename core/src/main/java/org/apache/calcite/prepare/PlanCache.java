@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.prepare;
+
+import org.apache.calcite.config.CalciteConnectionConfig;
+import org.apache.calcite.config.CalciteConnectionConfigImpl;
+import org.apache.calcite.jdbc.CalcitePrepare;
+import org.apache.calcite.jdbc.CalciteSchema;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.runtime.Hook;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of prepared SQL statements, mapping SQL text to a ready
+ * {@link CalcitePrepare.CalciteSignature}.
+ *
+ * <p>The key consists of the SQL text (normalized by
+ * {@link #normalize(String)}), the root schema and the number of times it has
+ * been modified (see {@link CalciteSchema#getModificationCount()}), the
+ * default schema path, the type factory, the connection properties, the
+ * element type and maximum row count. Adding or removing a table, function,
+ * type, lattice or sub-schema therefore invalidates all statements prepared
+ * against the previous state of the schema; the stale entries are never
+ * returned, and are evicted in due course.
+ *
+ * <p>The root schema and type factory belong to a connection, so a statement
+ * is only shared by statements of the same connection. The key holds them via
+ * weak references, so that the cache does not keep a closed connection's
+ * schema reachable; entries whose schema has been collected can never be
+ * hit. They are evicted like any other entry, and are also removed by a sweep
+ * that runs after every {@code maxSize} statements have been added, so that
+ * the cost of sweeping is constant per statement.
+ *
+ * <p>While a hook that observes or influences planning (such as
+ * {@link Hook#PLANNER} or {@link Hook#PROGRAM}) has a handler, statements are
+ * neither looked up nor stored, because a cached plan would bypass the hook.
+ *
+ * <p>Statements that have side-effects when they are prepared, such as DDL,
+ * must not be cached.
+ */
+class PlanCache {
+  /** Hooks that do not affect planning, or that are part of the key. If any
+   * other hook has a handler, the cache is bypassed. */
+  private static final EnumSet<Hook> NON_PLANNING_HOOKS =
+      EnumSet.of(Hook.CURRENT_TIME, Hook.STANDARD_STREAMS,
+          Hook.METADATA_HANDLER_CACHE_DIRECTORY, Hook.ENABLE_BINDABLE);
+
+  private final Cache<Key, CalcitePrepare.CalciteSignature> cache;
+  private final boolean enabled;
+  private final int sweepInterval;
+  /** Number of statements added since stale keys were last removed. */
+  private final AtomicInteger putCount = new AtomicInteger();
+
+  /** Creates a PlanCache.
+   *
+   * @param maxSize Maximum number of statements; 0 disables the cache
+   */
+  PlanCache(int maxSize) {
+    this.enabled = maxSize > 0;
+    this.sweepInterval = Math.max(maxSize, 1);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(maxSize, 0))
+        .recordStats()
+        .build();
+  }
+
+  /** Returns whether the cache is enabled. */
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Returns the cached signature for a statement, or computes it.
+   *
+   * <p>If the cache is disabled, or the statement cannot be cached, just
+   * calls {@code supplier}. The result of {@code supplier} is added to the
+   * cache only if {@code cacheable} returns true for it. */
+  @SuppressWarnings("unchecked")
+  <T> CalcitePrepare.CalciteSignature<T> get(CalcitePrepare.Context context,
+      String sql, Type elementType, long maxRowCount, boolean enableBindable,
+      Supplier<CalcitePrepare.CalciteSignature<T>> supplier,
+      Predicate<CalcitePrepare.CalciteSignature<T>> cacheable) {
+    final Key key =
+        enabled ? Key.of(context, sql, elementType, maxRowCount, enableBindable)
+            : null;
+    if (key == null) {
+      return supplier.get();
+    }
+    final CalcitePrepare.CalciteSignature<T> cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    final CalcitePrepare.CalciteSignature<T> signature = supplier.get();
+    if (cacheable.test(signature)) {
+      if (putCount.incrementAndGet() % sweepInterval == 0) {
+        cache.asMap().keySet().removeIf(Key::isStale);
+      }
+      cache.put(key, signature);
+    }
+    return signature;
+  }
+
+  /** Returns statistics about hits, misses and evictions. */
+  CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Returns the number of statements in the cache. */
+  long size() {
+    return cache.size();
+  }
+
+  /** Removes all statements from the cache. */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Normalizes SQL text for use as a cache key.
+   *
+   * <p>Removes leading and trailing white space, and replaces each run of
+   * white space by a single space. Quoted literals and identifiers, and
+   * comments, are copied unchanged; a single-line comment keeps its
+   * terminating line break. */
+  static String normalize(String sql) {
+    final StringBuilder b = new StringBuilder(sql.length());
+    boolean space = false;
+    int i = 0;
+    final int n = sql.length();
+    while (i < n) {
+      final char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        space = true;
+        ++i;
+        continue;
+      }
+      if (space && b.length() > 0) {
+        b.append(' ');
+      }
+      space = false;
+      final int end;
+      if (c == '\'' || c == '"' || c == '`') {
+        end = indexAfter(sql, String.valueOf(c), i + 1);
+      } else if (c == '[') {
+        end = indexAfter(sql, "]", i + 1);
+      } else if (sql.startsWith("--", i)) {
+        end = indexAfter(sql, "\n", i + 2);
+      } else if (sql.startsWith("/*", i)) {
+        end = indexAfter(sql, "*/", i + 2);
+      } else {
+        end = i + 1;
+      }
+      b.append(sql, i, end);
+      i = end;
+    }
+    return b.toString();
+  }
+
+  /** Returns the position just after the first occurrence of {@code s} in
+   * {@code sql} at or after {@code start}, or the length of {@code sql} if
+   * there is none. */
+  private static int indexAfter(String sql, String s, int start) {
+    final int i = sql.indexOf(s, start);
+    return i < 0 ? sql.length() : i + s.length();
+  }
+
+  /** Returns whether a hook that may observe or alter planning has a
+   * handler. */
+  static boolean isPlanningHooked() {
+    for (Hook hook : Hook.values()) {
+      if (!NON_PLANNING_HOOKS.contains(hook) && hook.hasHandlers()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Key of a statement in the plan cache.
+   *
+   * <p>Also used by {@link PlanShapeCache}, whose "SQL" is a description of
+   * a parameterized plan. */
+  static class Key {
+    final WeakReference<CalciteSchema> rootSchema;
+    final long modificationCount;
+    final WeakReference<RelDataTypeFactory> typeFactory;
+    final List<String> defaultSchemaPath;
+    final ImmutableMap<String, String> properties;
+    final String sql;
+    final Type elementType;
+    final long maxRowCount;
+    final boolean enableBindable;
+    private final int hashCode;
+
+    private Key(CalciteSchema rootSchema, RelDataTypeFactory typeFactory,
+        List<String> defaultSchemaPath, ImmutableMap<String, String> properties,
+        String sql, Type elementType, long maxRowCount,
+        boolean enableBindable) {
+      this.rootSchema = new WeakReference<>(rootSchema);
+      this.modificationCount = rootSchema.getModificationCount();
+      this.typeFactory = new WeakReference<>(typeFactory);
+      this.defaultSchemaPath = defaultSchemaPath;
+      this.properties = properties;
+      this.sql = sql;
+      this.elementType = elementType;
+      this.maxRowCount = maxRowCount;
+      this.enableBindable = enableBindable;
+      this.hashCode =
+          Objects.hash(System.identityHashCode(rootSchema), modificationCount,
+              System.identityHashCode(typeFactory), defaultSchemaPath,
+              properties, sql, elementType, maxRowCount, enableBindable);
+    }
+
+    /** Creates a key, or returns null if the statement cannot be cached. */
+    static Key of(CalcitePrepare.Context context, String sql,
+        Type elementType, long maxRowCount, boolean enableBindable) {
+      final CalciteConnectionConfig config = context.config();
+      final CalciteSchema rootSchema = context.getMutableRootSchema();
+      if (sql == null
+          || rootSchema == null
+          || context.getObjectPath() != null
+          || !(config instanceof CalciteConnectionConfigImpl)
+          || isPlanningHooked()) {
+        // Views being expanded, contexts whose configuration we cannot
+        // compare, and statements planned while a hook is watching, are never
+        // cached.
+        return null;
+      }
+      return new Key(rootSchema, context.getTypeFactory(),
+          ImmutableList.copyOf(context.getDefaultSchemaPath()),
+          ((CalciteConnectionConfigImpl) config).toMap(), normalize(sql),
+          elementType, maxRowCount, enableBindable);
+    }
+
+    /** Returns whether the root schema or type factory of this key has been
+     * garbage-collected; if so, the key can never be matched again. */
+    boolean isStale() {
+      return rootSchema.get() == null || typeFactory.get() == null;
+    }
+
+    @Override public int hashCode() {
+      return hashCode;
+    }
+
+    @Override public boolean equals(Object obj) {
+      return obj == this
+          || obj instanceof Key
+          && !isStale()
+          && rootSchema.get() == ((Key) obj).rootSchema.get()
+          && modificationCount == ((Key) obj).modificationCount
+          && typeFactory.get() == ((Key) obj).typeFactory.get()
+          && defaultSchemaPath.equals(((Key) obj).defaultSchemaPath)
+          && properties.equals(((Key) obj).properties)
+          && sql.equals(((Key) obj).sql)
+          && Objects.equals(elementType, ((Key) obj).elementType)
+          && maxRowCount == ((Key) obj).maxRowCount
+          && enableBindable == ((Key) obj).enableBindable;
+    }
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.prepare;
+
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.interpreter.BindableConvention;
+import org.apache.calcite.jdbc.CalcitePrepare;
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelHomogeneousShuttle;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.runtime.Bindable;
+import org.apache.calcite.sql.SqlExplainLevel;
+import org.apache.calcite.sql.SqlKind;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache of optimized plans, keyed by the shape of the query.
+ *
+ * <p>Before a query is optimized, {@link #parameterize} replaces each literal
+ * that is compared with a column in a {@link Filter} or {@link Join} condition
+ * by a {@link org.apache.calcite.rex.RexDynamicParam}, numbered after the
+ * statement's own parameters. Queries that differ only in those literals
+ * therefore have the same shape, and can share the optimized plan and the
+ * code generated for it. The values of the literals are bound, as internal
+ * parameters, when the statement is executed.
+ *
+ * <p>The key also contains everything in a {@link PlanCache} key except the
+ * SQL text, so an entry is not re-used after the schema is explicitly
+ * modified or in a connection with different properties.
+ */
+class PlanShapeCache {
+  private final Cache<PlanCache.Key, Entry> cache;
+  private final boolean enabled;
+
+  /** Creates a PlanShapeCache.
+   *
+   * @param maxSize Maximum number of plans; 0 disables the cache
+   */
+  PlanShapeCache(int maxSize) {
+    this.enabled = maxSize > 0;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(maxSize, 0))
+        .recordStats()
+        .build();
+  }
+
+  /** Returns whether the cache is enabled. */
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Returns the key of a parameterized query, or null if it cannot be
+   * cached. */
+  PlanCache.Key key(CalcitePrepare.Context context, Shape shape,
+      EnumerableRel.Prefer prefer, Convention resultConvention) {
+    final RelRoot root = shape.root;
+    final StringBuilder b = new StringBuilder()
+        .append(RelOptUtil.toString(root.rel, SqlExplainLevel.DIGEST_ATTRIBUTES))
+        .append("kind: ").append(root.kind)
+        .append(", fields: ").append(root.fields)
+        .append(", collation: ").append(root.collation)
+        .append(", type: ").append(root.validatedRowType.getFullTypeString())
+        .append(", parameters: ");
+    for (RexLiteral literal : shape.literals) {
+      b.append(literal.getType().getFullTypeString()).append(' ');
+    }
+    b.append(", prefer: ").append(prefer)
+        .append(", convention: ").append(resultConvention);
+    return PlanCache.Key.of(context, b.toString(), null, 0,
+        resultConvention == BindableConvention.INSTANCE);
+  }
+
+  /** Returns the cached plan for a key, or null. */
+  Entry get(PlanCache.Key key) {
+    return cache.getIfPresent(key);
+  }
+
+  /** Adds a plan to the cache. */
+  void put(PlanCache.Key key, RelRoot root, Bindable bindable,
+      Map<String, Object> internalParameters) {
+    cache.put(key,
+        new Entry(root, bindable,
+            Collections.unmodifiableMap(new HashMap<>(internalParameters))));
+  }
+
+  /** Returns statistics about hits, misses and evictions. */
+  CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Returns the number of plans in the cache. */
+  long size() {
+    return cache.size();
+  }
+
+  /** Removes all plans from the cache. */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Replaces, by dynamic parameters, the literals that are compared with a
+   * non-literal expression in a filter or join condition.
+   *
+   * @param root Root of logical plan
+   * @param firstParameter Index of the first dynamic parameter to create;
+   *                       the number of parameters in the statement
+   */
+  static Shape parameterize(RelRoot root, int firstParameter) {
+    final List<RexLiteral> literals = new ArrayList<>();
+    final RelNode parameterized = root.rel.accept(new RelHomogeneousShuttle() {
+      @Override public RelNode visit(RelNode other) {
+        final RelNode rel = super.visit(other);
+        final RexBuilder rexBuilder = rel.getCluster().getRexBuilder();
+        final RexShuttle shuttle =
+            new LiteralShuttle(rexBuilder, firstParameter, literals);
+        if (rel instanceof Filter
+            && !RexUtil.SubQueryFinder.containsSubQuery((Filter) rel)) {
+          final Filter filter = (Filter) rel;
+          final RexNode condition = filter.getCondition().accept(shuttle);
+          if (condition != filter.getCondition()) {
+            return filter.copy(filter.getTraitSet(), filter.getInput(),
+                condition);
+          }
+        } else if (rel instanceof Join
+            && !RexUtil.SubQueryFinder.containsSubQuery((Join) rel)) {
+          final Join join = (Join) rel;
+          final RexNode condition = join.getCondition().accept(shuttle);
+          if (condition != join.getCondition()) {
+            return join.copy(join.getTraitSet(), condition, join.getLeft(),
+                join.getRight(), join.getJoinType(), join.isSemiJoinDone());
+          }
+        }
+        return rel;
+      }
+    });
+    return new Shape(root.withRel(parameterized), literals);
+  }
+
+  /** Returns the value of a literal as it is held in a {@code DataContext}
+   * at run time, or null if the literal cannot be replaced by a dynamic
+   * parameter. */
+  static Object parameterValue(RexLiteral literal) {
+    if (literal.isNull()) {
+      return null;
+    }
+    switch (literal.getType().getSqlTypeName()) {
+    case BOOLEAN:
+      return literal.getValueAs(Boolean.class);
+    case TINYINT:
+      return literal.getValueAs(Byte.class);
+    case SMALLINT:
+      return literal.getValueAs(Short.class);
+    case INTEGER:
+    case DATE:
+    case TIME:
+      return literal.getValueAs(Integer.class);
+    case BIGINT:
+    case TIMESTAMP:
+      return literal.getValueAs(Long.class);
+    case REAL:
+      return literal.getValueAs(Float.class);
+    case FLOAT:
+    case DOUBLE:
+      return literal.getValueAs(Double.class);
+    case DECIMAL:
+      return literal.getValueAs(BigDecimal.class);
+    case CHAR:
+    case VARCHAR:
+      return literal.getValueAs(String.class);
+    default:
+      return null;
+    }
+  }
+
+  /** Shuttle that replaces literals in comparisons by dynamic parameters. */
+  private static class LiteralShuttle extends RexShuttle {
+    private final RexBuilder rexBuilder;
+    private final int firstParameter;
+    private final List<RexLiteral> literals;
+
+    LiteralShuttle(RexBuilder rexBuilder, int firstParameter,
+        List<RexLiteral> literals) {
+      this.rexBuilder = rexBuilder;
+      this.firstParameter = firstParameter;
+      this.literals = literals;
+    }
+
+    @Override public RexNode visitCall(RexCall call) {
+      if (!call.isA(SqlKind.BINARY_COMPARISON)
+          || call.operands.size() != 2) {
+        return super.visitCall(call);
+      }
+      final RexNode left = call.operands.get(0);
+      final RexNode right = call.operands.get(1);
+      if (left instanceof RexLiteral && !(right instanceof RexLiteral)) {
+        return call.clone(call.getType(),
+            ImmutableList.of(parameter((RexLiteral) left), right));
+      }
+      if (right instanceof RexLiteral && !(left instanceof RexLiteral)) {
+        return call.clone(call.getType(),
+            ImmutableList.of(left, parameter((RexLiteral) right)));
+      }
+      return super.visitCall(call);
+    }
+
+    private RexNode parameter(RexLiteral literal) {
+      if (parameterValue(literal) == null) {
+        return literal;
+      }
+      final RelDataType type = literal.getType();
+      final int index = firstParameter + literals.size();
+      literals.add(literal);
+      return rexBuilder.makeDynamicParam(type, index);
+    }
+  }
+
+  /** A query whose literals have been replaced by dynamic parameters. */
+  static class Shape {
+    final RelRoot root;
+    /** The literals that were replaced; the literal for parameter
+     * {@code firstParameter + i} is at position {@code i}. */
+    final ImmutableList<RexLiteral> literals;
+
+    Shape(RelRoot root, List<RexLiteral> literals) {
+      this.root = root;
+      this.literals = ImmutableList.copyOf(literals);
+    }
+  }
+
+  /** Optimized plan and generated code for a query shape. */
+  static class Entry {
+    final RelRoot root;
+    final Bindable bindable;
+    /** Internal parameters (such as stashed objects) that the generated code
+     * reads from its {@code DataContext}. */
+    final Map<String, Object> internalParameters;
+
+    Entry(RelRoot root, Bindable bindable,
+        Map<String, Object> internalParameters) {
+      this.root = root;
+      this.bindable = bindable;
+      this.internalParameters = internalParameters;
+    }
+  }
+}
@@ -122,6 +122,27 @@ protected abstract PreparedResult createPreparedExplanation(
       SqlExplainFormat format,
       SqlExplainLevel detailLevel);
 
+  /**
+   * Creates the result of an {@code EXPLAIN ANALYZE} statement: a statement
+   * that, when executed, runs the query and returns its plan annotated with
+   * the actual row count and timing of each operator.
+   *
+   * <p>The default implementation does not execute the query, and returns
+   * the same as {@code EXPLAIN PLAN}.
+   *
+   * @param parameterRowType Parameter row type
+   * @param root Optimized plan
+   * @param detailLevel Detail level
+   * @return Prepared result
+   */
+  protected PreparedResult createPreparedAnalyzedExplanation(
+      RelDataType parameterRowType,
+      RelRoot root,
+      SqlExplainLevel detailLevel) {
+    return createPreparedExplanation(null, parameterRowType, root,
+        SqlExplainFormat.TEXT, detailLevel);
+  }
+
   /**
    * Optimizes a query plan.
    *
@@ -169,10 +190,25 @@ protected RelRoot optimize(RelRoot root,
       LOGGER.debug("Plan after physical tweaks: {}",
           RelOptUtil.toString(rootRel4, SqlExplainLevel.ALL_ATTRIBUTES));
     }
+    Hook.PLANNER_METRICS.run(planner.getMetrics());
 
     return root.withRel(rootRel4);
   }
 
+  /**
+   * Optimizes a query plan that is about to be implemented, as opposed to
+   * explained.
+   *
+   * <p>The default implementation calls {@link #optimize}. A sub-class may
+   * instead re-use the plan of a similar query that it prepared earlier.
+   *
+   * @param root Root of relational expression tree
+   * @return an equivalent optimized relational expression
+   */
+  protected RelRoot optimizeForImplementation(RelRoot root) {
+    return optimize(root, getMaterializations(), getLattices());
+  }
+
   protected Program getProgram() {
     // Allow a test to override the default program.
     final Holder<Program> holder = Holder.of(null);
@@ -289,12 +325,16 @@ public PreparedResult prepareSql(
       case PHYSICAL:
       default:
         root = optimize(root, getMaterializations(), getLattices());
+        if (sqlExplain.isAnalyze()) {
+          return createPreparedAnalyzedExplanation(parameterRowType, root,
+              sqlExplain.getDetailLevel());
+        }
         return createPreparedExplanation(null, parameterRowType, root,
             sqlExplain.getFormat(), sqlExplain.getDetailLevel());
       }
     }
 
-    root = optimize(root, getMaterializations(), getLattices());
+    root = optimizeForImplementation(root);
 
     if (timingTracer != null) {
       timingTracer.traceTime("end optimization");
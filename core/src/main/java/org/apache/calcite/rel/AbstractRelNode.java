@@ -37,6 +37,7 @@
 import org.apache.calcite.util.ImmutableBitSet;
 import org.apache.calcite.util.Litmus;
 import org.apache.calcite.util.Pair;
+import org.apache.calcite.util.TryThreadLocal;
 import org.apache.calcite.util.Util;
 import org.apache.calcite.util.trace.CalciteTrace;
 
@@ -57,9 +58,25 @@
 public abstract class AbstractRelNode implements RelNode {
   //~ Static fields/initializers ---------------------------------------------
 
-  /** Generator for {@link #id} values. */
+  /** Generator for {@link #getId() id} values. */
   private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
 
+  /** Generator for provisional {@link #getId() id} values, which are
+   * negative. */
+  private static final AtomicInteger NEXT_PROVISIONAL_ID = new AtomicInteger(0);
+
+  /**
+   * Whether relational expressions created on the current thread get a
+   * provisional, negative {@link #getId() id}, which {@link #assignId()}
+   * replaces when they are registered.
+   *
+   * <p>A planner that fires rules on several threads sets this on each of
+   * them, so that ids follow the order in which expressions are registered,
+   * not the order in which the threads happened to run.
+   */
+  public static final TryThreadLocal<Boolean> DEFER_IDS =
+      TryThreadLocal.of(false);
+
   private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
 
   //~ Instance fields --------------------------------------------------------
@@ -81,9 +98,10 @@ public abstract class AbstractRelNode implements RelNode {
   private final RelOptCluster cluster;
 
   /**
-   * unique id of this object -- for debugging
+   * unique id of this object -- for debugging. Not final, because
+   * {@link #assignId()} replaces a provisional id.
    */
-  protected final int id;
+  private int id;
 
   /**
    * The RelTraitSet that describes the traits of this RelNode.
@@ -100,7 +118,9 @@ public AbstractRelNode(RelOptCluster cluster, RelTraitSet traitSet) {
     assert cluster != null;
     this.cluster = cluster;
     this.traitSet = traitSet;
-    this.id = NEXT_ID.getAndIncrement();
+    this.id = DEFER_IDS.get()
+        ? NEXT_PROVISIONAL_ID.decrementAndGet()
+        : NEXT_ID.getAndIncrement();
     this.digest = getRelTypeName() + "#" + id;
     LOGGER.trace("new {}", digest);
   }
@@ -164,6 +184,14 @@ public int getId() {
     return id;
   }
 
+  /** Replaces the provisional id of this relational expression, if it has
+   * one, with the next id; see {@link #DEFER_IDS}. */
+  public final void assignId() {
+    if (id < 0) {
+      id = NEXT_ID.getAndIncrement();
+    }
+  }
+
   public RelNode getInput(int i) {
     List<RelNode> inputs = getInputs();
     return inputs.get(i);
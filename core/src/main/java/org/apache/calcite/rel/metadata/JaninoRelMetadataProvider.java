@@ -50,6 +50,7 @@
 import org.apache.calcite.rel.stream.LogicalChi;
 import org.apache.calcite.rel.stream.LogicalDelta;
 import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.util.ControlFlowException;
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.Util;
@@ -58,20 +59,30 @@
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import org.codehaus.commons.compiler.CompileException;
 import org.codehaus.commons.compiler.CompilerFactoryFactory;
 import org.codehaus.commons.compiler.ICompilerFactory;
 import org.codehaus.commons.compiler.ISimpleCompiler;
+import org.codehaus.janino.ByteArrayClassLoader;
+import org.codehaus.janino.JavaSourceClassLoader;
+import org.codehaus.janino.util.ClassFile;
+import org.codehaus.janino.util.resource.MapResourceFinder;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -267,6 +278,7 @@ private static <M extends Metadata> MetadataHandler<M> load3(
       }
       safeArgList(buff, method.e)
           .append(");\n")
+          .append("    mq.requestCount++;\n")
           .append("    final Object v = mq.map.get(r, key);\n")
           .append("    if (v != null) {\n")
           .append("      if (v == ")
@@ -285,6 +297,27 @@ private static <M extends Metadata> MetadataHandler<M> load3(
           .append(method.e.getReturnType().getName())
           .append(") v;\n")
           .append("    }\n")
+          .append("    mq.computeCount++;\n")
+          .append("    final ")
+          .append(RelMetadataCache.Key.class.getCanonicalName())
+          .append(" sharedKey = mq.sharedCache == null ? null\n")
+          .append("        : mq.sharedCache.key(r, mq, key);\n")
+          .append("    if (sharedKey != null) {\n")
+          .append("      mq.sharedCacheLookupCount++;\n")
+          .append("      final Object s = mq.sharedCache.get(sharedKey);\n")
+          .append("      if (s != null) {\n")
+          .append("        mq.sharedCacheHitCount++;\n")
+          .append("        mq.map.put(r, key, s);\n")
+          .append("        if (s == ")
+          .append(NullSentinel.class.getName())
+          .append(".INSTANCE) {\n")
+          .append("          return null;\n")
+          .append("        }\n")
+          .append("        return (")
+          .append(method.e.getReturnType().getName())
+          .append(") s;\n")
+          .append("      }\n")
+          .append("    }\n")
           .append("    mq.map.put(r, key,")
           .append(NullSentinel.class.getName())
           .append(".ACTIVE);\n")
@@ -299,6 +332,11 @@ private static <M extends Metadata> MetadataHandler<M> load3(
           .append("      mq.map.put(r, key, ")
           .append(NullSentinel.class.getName())
           .append(".mask(x));\n")
+          .append("      if (sharedKey != null) {\n")
+          .append("        mq.sharedCache.put(sharedKey, ")
+          .append(NullSentinel.class.getName())
+          .append(".mask(x));\n")
+          .append("      }\n")
           .append("      return x;\n")
           .append("    } catch (")
           .append(Exception.class.getName())
@@ -426,17 +464,6 @@ private static StringBuilder paramList(StringBuilder buff, Method method) {
   static <M extends Metadata> MetadataHandler<M> compile(String className,
       String classBody, MetadataDef<M> def,
       List<Object> argList) throws CompileException, IOException {
-    final ICompilerFactory compilerFactory;
-    try {
-      compilerFactory = CompilerFactoryFactory.getDefaultCompilerFactory();
-    } catch (Exception e) {
-      throw new IllegalStateException(
-          "Unable to instantiate java compiler", e);
-    }
-
-    final ISimpleCompiler compiler = compilerFactory.newSimpleCompiler();
-    compiler.setParentClassLoader(JaninoRexCompiler.class.getClassLoader());
-
     final String s = "public final class " + className
         + " implements " + def.handlerClass.getCanonicalName() + " {\n"
         + classBody
@@ -444,17 +471,19 @@ static <M extends Metadata> MetadataHandler<M> compile(String className,
         + "}";
 
     if (CalciteSystemProperty.DEBUG.value()) {
-      // Add line numbers to the generated janino class
-      compiler.setDebuggingInformation(true, true, true);
       System.out.println(s);
     }
 
-    compiler.cook(s);
+    final String directory =
+        Hook.METADATA_HANDLER_CACHE_DIRECTORY.get(
+            CalciteSystemProperty.METADATA_HANDLER_CACHE_DIRECTORY.value());
     final Constructor constructor;
     final Object o;
     try {
-      constructor = compiler.getClassLoader().loadClass(className)
-              .getDeclaredConstructors()[0];
+      final Class<?> clazz = directory == null
+          ? cook(className, s)
+          : load(new File(directory), className, s);
+      constructor = clazz.getDeclaredConstructors()[0];
       o = constructor.newInstance(argList.toArray());
     } catch (InstantiationException
         | IllegalAccessException
@@ -465,6 +494,94 @@ static <M extends Metadata> MetadataHandler<M> compile(String className,
     return def.handlerClass.cast(o);
   }
 
+  /** Compiles a class in memory. */
+  private static Class<?> cook(String className, String source)
+      throws CompileException, ClassNotFoundException {
+    final ICompilerFactory compilerFactory;
+    try {
+      compilerFactory = CompilerFactoryFactory.getDefaultCompilerFactory();
+    } catch (Exception e) {
+      throw new IllegalStateException(
+          "Unable to instantiate java compiler", e);
+    }
+
+    final ISimpleCompiler compiler = compilerFactory.newSimpleCompiler();
+    compiler.setParentClassLoader(JaninoRexCompiler.class.getClassLoader());
+    if (CalciteSystemProperty.DEBUG.value()) {
+      // Add line numbers to the generated janino class
+      compiler.setDebuggingInformation(true, true, true);
+    }
+    compiler.cook(source);
+    return compiler.getClassLoader().loadClass(className);
+  }
+
+  /** Loads a class from the on-disk cache, compiling it and adding it to the
+   * cache if it is not present.
+   *
+   * <p>The file name contains a digest of the source and of the Calcite
+   * version, so a file is never reused for different code. The cache is
+   * best-effort: if the file cannot be read or written, the class is
+   * compiled in memory. */
+  private static Class<?> load(File directory, String className,
+      String source) throws CompileException, ClassNotFoundException {
+    final String version =
+        Util.first(
+            JaninoRelMetadataProvider.class.getPackage()
+                .getImplementationVersion(), "");
+    final String digest =
+        Hashing.sha256()
+            .hashString(version + "\n" + source, StandardCharsets.UTF_8)
+            .toString();
+    final File file = new File(directory, className + "_" + digest + ".class");
+    final ClassLoader parent = JaninoRexCompiler.class.getClassLoader();
+    if (file.isFile()) {
+      try {
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        return new ByteArrayClassLoader(ImmutableMap.of(className, bytes),
+            parent).loadClass(className);
+      } catch (IOException | LinkageError e) {
+        // Corrupt or unreadable; fall through and re-generate it.
+      }
+    }
+
+    final JavaSourceClassLoader compiler =
+        new JavaSourceClassLoader(parent,
+            new MapResourceFinder(
+                ImmutableMap.of(ClassFile.getSourceResourceName(className),
+                    source.getBytes(StandardCharsets.UTF_8))),
+            null);
+    if (CalciteSystemProperty.DEBUG.value()) {
+      compiler.setDebuggingInfo(true, true, true);
+    }
+    final Map<String, byte[]> bytecodes;
+    try {
+      bytecodes = compiler.generateBytecodes(className);
+    } catch (ClassNotFoundException e) {
+      if (e.getCause() instanceof CompileException) {
+        throw (CompileException) e.getCause();
+      }
+      throw e;
+    }
+    if (bytecodes == null) {
+      throw new ClassNotFoundException(className);
+    }
+    if (bytecodes.size() == 1) {
+      // Write to a temporary file, then rename, so that concurrent readers
+      // never see a partial file.
+      try {
+        Files.createDirectories(directory.toPath());
+        final File tmp = File.createTempFile(className, ".tmp", directory);
+        Files.write(tmp.toPath(), bytecodes.get(className));
+        Files.move(tmp.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        // Ignore; the handler will be compiled again next time.
+      }
+    }
+    return new ByteArrayClassLoader(bytecodes, parent).loadClass(className);
+  }
+
   synchronized <M extends Metadata, H extends MetadataHandler<M>> H create(
       MetadataDef<M> def) {
     try {
@@ -16,8 +16,14 @@
  */
 package org.apache.calcite.rel.metadata;
 
+import org.apache.calcite.adapter.enumerable.EnumerableGather;
+import org.apache.calcite.adapter.enumerable.EnumerableScatter;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.Calc;
 import org.apache.calcite.rel.core.Exchange;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.core.Values;
 import org.apache.calcite.util.BuiltInMethod;
@@ -71,6 +77,15 @@ public Boolean isPhaseTransition(Exchange rel, RelMetadataQuery mq) {
     return true;
   }
 
+  public Boolean isPhaseTransition(EnumerableScatter rel,
+      RelMetadataQuery mq) {
+    return true;
+  }
+
+  public Boolean isPhaseTransition(EnumerableGather rel, RelMetadataQuery mq) {
+    return true;
+  }
+
   /** Catch-all implementation for
    * {@link BuiltInMetadata.Parallelism#splitCount()},
    * invoked using reflection.
@@ -80,4 +95,30 @@ public Boolean isPhaseTransition(Exchange rel, RelMetadataQuery mq) {
   public Integer splitCount(RelNode rel, RelMetadataQuery mq) {
     return 1;
   }
+
+  public Integer splitCount(EnumerableScatter rel, RelMetadataQuery mq) {
+    return rel.getParallelism();
+  }
+
+  public Integer splitCount(EnumerableGather rel, RelMetadataQuery mq) {
+    return 1;
+  }
+
+  /** Operators that process each row independently of the others, and
+   * partial aggregation, keep the splits of their input. */
+  public Integer splitCount(Calc rel, RelMetadataQuery mq) {
+    return mq.splitCount(rel.getInput());
+  }
+
+  public Integer splitCount(Filter rel, RelMetadataQuery mq) {
+    return mq.splitCount(rel.getInput());
+  }
+
+  public Integer splitCount(Project rel, RelMetadataQuery mq) {
+    return mq.splitCount(rel.getInput());
+  }
+
+  public Integer splitCount(Aggregate rel, RelMetadataQuery mq) {
+    return mq.splitCount(rel.getInput());
+  }
 }
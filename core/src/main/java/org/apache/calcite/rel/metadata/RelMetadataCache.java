@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.rel.metadata;
+
+import org.apache.calcite.config.CalciteSystemProperty;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTrait;
+import org.apache.calcite.plan.hep.HepRelVertex;
+import org.apache.calcite.plan.volcano.RelSubset;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.schema.Table;
+import org.apache.calcite.sql.SqlExplainLevel;
+import org.apache.calcite.util.Pair;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache of metadata values that is shared by metadata queries, and therefore
+ * by statements and planners.
+ *
+ * <p>A {@link RelMetadataQuery} caches values in
+ * {@link RelMetadataQueryBase#map}, keyed by relational expression, for the
+ * life of one planning session. This cache keys values by a structural digest
+ * of the relational expression's whole subtree, plus the metadata method,
+ * arguments and provider, so that an equivalent subtree in a later statement
+ * re-uses the value.
+ *
+ * <p>Only subtrees that have a structural digest are cached: those that
+ * contain no {@link RelSubset} and no correlation variables. (The current
+ * relational expression of a {@link HepRelVertex} is used in place of the
+ * vertex.)
+ *
+ * <p>The key includes the statistics of each table that the subtree scans,
+ * so a value is not used after a table's {@link org.apache.calcite.schema.Statistic}
+ * changes. Call {@link #invalidate(List)} if a table's data changes but its
+ * statistics do not. Keys refer to tables weakly, so the cache does not
+ * prevent a dropped table from being garbage-collected.
+ *
+ * <p>The cache is bounded by weight (the total length of the digests of its
+ * keys), and is thread-safe.
+ */
+public class RelMetadataCache {
+  /** Kinds of metadata that are cached by default. They are expensive to
+   * compute over a large subtree, and depend only on the subtree and the
+   * statistics of its tables. */
+  public static final ImmutableSet<MetadataDef> DEFAULT_DEFS =
+      ImmutableSet.of(BuiltInMetadata.DistinctRowCount.DEF,
+          BuiltInMetadata.ColumnUniqueness.DEF,
+          BuiltInMetadata.PopulationSize.DEF);
+
+  /** Cache used by new metadata queries, or null if
+   * {@link CalciteSystemProperty#METADATA_SHARED_CACHE_MAXIMUM_WEIGHT} is
+   * not positive. */
+  public static final RelMetadataCache DEFAULT =
+      CalciteSystemProperty.METADATA_SHARED_CACHE_MAXIMUM_WEIGHT.value() > 0
+          ? new RelMetadataCache(
+              CalciteSystemProperty.METADATA_SHARED_CACHE_MAXIMUM_WEIGHT.value(),
+              DEFAULT_DEFS)
+          : null;
+
+  private final Cache<Key, Object> cache;
+
+  /** The first element of the key of each cached metadata method: the
+   * {@code DEF} for a def's first method, the {@link java.lang.reflect.Method}
+   * for the others. */
+  private final ImmutableSet<Object> heads;
+
+  /** Creates a RelMetadataCache.
+   *
+   * @param maximumWeight Maximum total length of the digests of cached keys
+   * @param defs          Kinds of metadata to cache
+   */
+  public RelMetadataCache(long maximumWeight, Iterable<MetadataDef> defs) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maximumWeight)
+        .weigher((Key key, Object value) -> key.digest.length())
+        .recordStats()
+        .build();
+    final ImmutableSet.Builder<Object> heads = ImmutableSet.builder();
+    for (MetadataDef<?> def : defs) {
+      heads.add(def);
+      heads.addAll(def.methods.subList(1, def.methods.size()));
+    }
+    this.heads = heads.build();
+  }
+
+  /** Returns the key under which to share a metadata value, or null if the
+   * value cannot be shared.
+   *
+   * @param rel  Relational expression
+   * @param mq   Metadata query
+   * @param args Key of the value within {@code mq}; the first element
+   *             identifies the metadata method, the rest are its arguments
+   */
+  public Key key(RelNode rel, RelMetadataQueryBase mq, List args) {
+    if (!heads.contains(args.get(0))) {
+      return null;
+    }
+    final StringBuilder digest = new StringBuilder();
+    final List<RelOptTable> tables = new ArrayList<>();
+    if (!digest(rel, digest, tables)) {
+      return null;
+    }
+    final ImmutableList.Builder<List<String>> tableNames =
+        ImmutableList.builder();
+    final ImmutableList.Builder<List<Object>> statistics =
+        ImmutableList.builder();
+    for (RelOptTable table : tables) {
+      tableNames.add(table.getQualifiedName());
+      statistics.add(
+          Arrays.asList(new TableRef(table.unwrap(Table.class)),
+              table.getRowCount(),
+              table.getKeys(), table.getCollationList(),
+              table.getReferentialConstraints()));
+    }
+    return new Key(digest.toString(), ImmutableList.copyOf(args),
+        mq.metadataProvider, tableNames.build(), statistics.build());
+  }
+
+  /** Appends the structural digest of a subtree, and collects the tables
+   * that it scans. Returns false if the subtree has no structural digest. */
+  private static boolean digest(RelNode rel, StringBuilder digest,
+      List<RelOptTable> tables) {
+    if (rel instanceof HepRelVertex) {
+      rel = ((HepRelVertex) rel).getCurrentRel();
+    }
+    if (rel instanceof RelSubset || !rel.getVariablesSet().isEmpty()) {
+      return false;
+    }
+    if (rel.getTable() != null) {
+      tables.add(rel.getTable());
+    }
+    final DigestWriter writer = new DigestWriter(digest, tables);
+    rel.explain(writer);
+    return writer.ok;
+  }
+
+  /** Returns the value for a key, or null. */
+  public Object get(Key key) {
+    return cache.getIfPresent(key);
+  }
+
+  /** Stores a value; null values must be masked as
+   * {@link NullSentinel#INSTANCE}. */
+  public void put(Key key, Object value) {
+    cache.put(key, Objects.requireNonNull(value));
+  }
+
+  /** Removes all values for subtrees that scan a given table. */
+  public void invalidate(List<String> qualifiedName) {
+    cache.asMap().keySet()
+        .removeIf(key -> key.tableNames.contains(qualifiedName));
+  }
+
+  /** Removes all values. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Returns the number of values in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Returns statistics about the cache, including its hit rate. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Key of a value in the cache. */
+  public static final class Key {
+    final String digest;
+    final List args;
+    final JaninoRelMetadataProvider provider;
+    final ImmutableList<List<String>> tableNames;
+    final ImmutableList<List<Object>> statistics;
+    private final int hash;
+
+    private Key(String digest, List args, JaninoRelMetadataProvider provider,
+        ImmutableList<List<String>> tableNames,
+        ImmutableList<List<Object>> statistics) {
+      this.digest = digest;
+      this.args = args;
+      this.provider = provider;
+      this.tableNames = tableNames;
+      this.statistics = statistics;
+      this.hash = Objects.hash(digest, args, provider, statistics);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+
+    @Override public boolean equals(Object obj) {
+      return this == obj
+          || obj instanceof Key
+          && hash == ((Key) obj).hash
+          && digest.equals(((Key) obj).digest)
+          && args.equals(((Key) obj).args)
+          && Objects.equals(provider, ((Key) obj).provider)
+          && statistics.equals(((Key) obj).statistics);
+    }
+
+    @Override public String toString() {
+      return digest + args;
+    }
+  }
+
+  /** Weak reference to a table, equal only to a reference to the same table.
+   *
+   * <p>A key identifies the tables that it scans, so that a value is not
+   * used for a different table with the same name; but a key must not stop a
+   * dropped table, and its schema, from being garbage-collected while the key
+   * waits to be evicted. Once the table has been collected, the reference is
+   * equal only to itself, so no new key will match. */
+  private static final class TableRef extends WeakReference<Table> {
+    private final int hash;
+
+    TableRef(Table table) {
+      super(table);
+      this.hash = System.identityHashCode(table);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+
+    @Override public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof TableRef) || hash != ((TableRef) obj).hash) {
+        return false;
+      }
+      final Table table = get();
+      return table != null && table == ((TableRef) obj).get();
+    }
+  }
+
+  /** Writer that appends the digest of a relational expression, including
+   * the digests of its inputs, rather than their ids. */
+  private static class DigestWriter implements RelWriter {
+    private final StringBuilder digest;
+    private final List<RelOptTable> tables;
+    private final List<Pair<String, Object>> values = new ArrayList<>();
+    boolean ok = true;
+
+    DigestWriter(StringBuilder digest, List<RelOptTable> tables) {
+      this.digest = digest;
+      this.tables = tables;
+    }
+
+    public void explain(RelNode rel, List<Pair<String, Object>> valueList) {
+      for (Pair<String, Object> value : valueList) {
+        item(value.left, value.right);
+      }
+      done(rel);
+    }
+
+    public SqlExplainLevel getDetailLevel() {
+      return SqlExplainLevel.DIGEST_ATTRIBUTES;
+    }
+
+    public RelWriter item(String term, Object value) {
+      values.add(Pair.of(term, value));
+      return this;
+    }
+
+    public RelWriter done(RelNode node) {
+      final List<Pair<String, Object>> valuesCopy =
+          ImmutableList.copyOf(values);
+      values.clear();
+      digest.append(node.getRelTypeName());
+      for (RelTrait trait : node.getTraitSet()) {
+        digest.append('.').append(trait);
+      }
+      digest.append('(');
+      int j = 0;
+      for (Pair<String, Object> value : valuesCopy) {
+        if (j++ > 0) {
+          digest.append(',');
+        }
+        digest.append(value.left).append('=');
+        if (value.right instanceof RelNode) {
+          ok &= digest((RelNode) value.right, digest, tables);
+        } else {
+          final String s = String.valueOf(value.right);
+          if (s.contains("$cor")) {
+            ok = false;
+          }
+          digest.append(s);
+        }
+      }
+      digest.append(')');
+      return this;
+    }
+  }
+}
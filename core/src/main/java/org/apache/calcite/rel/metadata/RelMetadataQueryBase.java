@@ -66,6 +66,30 @@ public class RelMetadataQueryBase {
 
   public final JaninoRelMetadataProvider metadataProvider;
 
+  /** Number of metadata requests made through this query, including those
+   * answered from {@link #map}. Incremented by generated handlers. */
+  public long requestCount;
+
+  /** Number of metadata requests made through this query that were not in
+   * {@link #map} and had to be computed. Incremented by generated
+   * handlers. */
+  public long computeCount;
+
+  /** Cache shared with other metadata queries, or null. Consulted for
+   * requests that are not in {@link #map}. */
+  public RelMetadataCache sharedCache = RelMetadataCache.DEFAULT;
+
+  /** Number of metadata requests made through this query that were not in
+   * {@link #map} and were looked up in {@link #sharedCache}; that is, whose
+   * kind of metadata and subtree can be shared. Incremented by generated
+   * handlers. */
+  public long sharedCacheLookupCount;
+
+  /** Number of metadata requests made through this query that were not in
+   * {@link #map} but were found in {@link #sharedCache}. Incremented by
+   * generated handlers. */
+  public long sharedCacheHitCount;
+
   //~ Static fields/initializers ---------------------------------------------
 
   public static final ThreadLocal<JaninoRelMetadataProvider> THREAD_PROVIDERS =
@@ -95,6 +119,13 @@ protected static <H> H initialHandler(Class<H> handlerClass) {
     return metadataProvider.revise(class_, def);
   }
 
+  /** Returns the fraction of lookups in {@link #sharedCache} that found a
+   * value, or 0 if there were no lookups. */
+  public double getSharedCacheHitRate() {
+    return sharedCacheLookupCount == 0 ? 0d
+        : (double) sharedCacheHitCount / sharedCacheLookupCount;
+  }
+
   /**
    * Removes cached metadata values for specified RelNode.
    *
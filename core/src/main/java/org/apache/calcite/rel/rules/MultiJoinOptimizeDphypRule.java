@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.rel.rules;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.RelFactories;
+import org.apache.calcite.rel.metadata.RelMdUtil;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexPermuteInputsShuttle;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.Pair;
+import org.apache.calcite.util.mapping.Mappings;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Planner rule that finds an optimal ordering for join operators using
+ * dynamic programming.
+ *
+ * <p>It is triggered by the pattern {@link MultiJoin}, like
+ * {@link LoptOptimizeJoinRule} and {@link MultiJoinOptimizeBushyRule}, but
+ * rather than building the join tree greedily, it enumerates every pair of
+ * connected sub-graphs of the join graph, using the algorithm DPhyp from
+ * Moerkotte and Neumann, "Dynamic programming strikes back" (SIGMOD 2008),
+ * and keeps the cheapest bushy join tree for each set of inputs. It never
+ * considers cartesian products.
+ *
+ * <p>The cost of a join tree is the sum of the number of rows produced by
+ * its joins. The number of rows of an input is its
+ * {@link RelMetadataQuery#getRowCount row count}; the selectivity of an
+ * equi-join condition {@code a = b} is
+ * {@code 1 / max(ndv(a), ndv(b))}, using
+ * {@link RelMetadataQuery#getDistinctRowCount}, and of other conditions is
+ * {@link RelMdUtil#guessSelectivity}.
+ *
+ * <p>Sets of inputs are represented as bit masks, and the best plan for each
+ * set is memoized in arrays indexed by mask; hence the number of inputs is
+ * limited. If a {@code MultiJoin} has more than {@code maxFactors} inputs,
+ * contains outer joins, or has inputs that are not connected by join
+ * conditions, the rule falls back to {@link LoptOptimizeJoinRule}.
+ *
+ * <p>TODO:
+ * <ol>
+ *   <li>Join conditions that touch 3 or more factors are applied as soon as
+ *       all of their factors have been joined, but do not connect the join
+ *       graph; treat them as hyper-edges.
+ * </ol>
+ */
+public class MultiJoinOptimizeDphypRule extends RelOptRule
+    implements TransformationRule {
+  /** Largest number of inputs that can be ordered by dynamic programming. */
+  public static final int MAX_FACTORS = 20;
+
+  /** Default number of inputs above which the rule falls back to
+   * {@link LoptOptimizeJoinRule}. */
+  public static final int DEFAULT_MAX_FACTORS = 15;
+
+  public static final MultiJoinOptimizeDphypRule INSTANCE =
+      new MultiJoinOptimizeDphypRule(RelFactories.LOGICAL_BUILDER,
+          DEFAULT_MAX_FACTORS);
+
+  private final int maxFactors;
+  private final LoptOptimizeJoinRule greedyRule;
+
+  /** Creates a MultiJoinOptimizeDphypRule.
+   *
+   * @param relBuilderFactory Builder for relational expressions
+   * @param maxFactors Number of inputs above which to use
+   *                   {@link LoptOptimizeJoinRule}; at most
+   *                   {@link #MAX_FACTORS}
+   */
+  public MultiJoinOptimizeDphypRule(RelBuilderFactory relBuilderFactory,
+      int maxFactors) {
+    super(operand(MultiJoin.class, any()), relBuilderFactory, null);
+    Preconditions.checkArgument(maxFactors <= MAX_FACTORS,
+        "maxFactors must not exceed %s", MAX_FACTORS);
+    this.maxFactors = maxFactors;
+    this.greedyRule = new LoptOptimizeJoinRule(relBuilderFactory);
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final MultiJoin multiJoinRel = call.rel(0);
+    if (multiJoinRel.getInputs().size() > maxFactors
+        || multiJoinRel.isFullOuterJoin()
+        || multiJoinRel.getJoinTypes().stream()
+            .anyMatch(joinType -> joinType != JoinRelType.INNER)) {
+      greedyRule.onMatch(call);
+      return;
+    }
+
+    final RelMetadataQuery mq = call.getMetadataQuery();
+    final LoptMultiJoin multiJoin = new LoptMultiJoin(multiJoinRel);
+    final JoinGraph graph = new JoinGraph(multiJoin, mq);
+    if (!graph.solve()) {
+      // The inputs are not connected; we would need a cartesian product.
+      greedyRule.onMatch(call);
+      return;
+    }
+
+    final RelBuilder relBuilder = call.builder();
+    final Pair<RelNode, Mappings.TargetMapping> top =
+        graph.build(graph.all, relBuilder);
+    relBuilder.push(top.left)
+        .project(relBuilder.fields(top.right))
+        .filter(graph.filters);
+    if (multiJoinRel.getPostJoinFilter() != null) {
+      relBuilder.filter(multiJoinRel.getPostJoinFilter());
+    }
+    call.transformTo(relBuilder.build());
+  }
+
+  /** Returns the selectivity of a join condition. */
+  private static double selectivity(LoptMultiJoin multiJoin,
+      RelMetadataQuery mq, RexNode condition) {
+    if (condition.isA(SqlKind.EQUALS)) {
+      final List<RexNode> operands = ((RexCall) condition).getOperands();
+      if (operands.get(0) instanceof RexInputRef
+          && operands.get(1) instanceof RexInputRef) {
+        final Double ndv0 = distinctRowCount(multiJoin, mq,
+            ((RexInputRef) operands.get(0)).getIndex());
+        final Double ndv1 = distinctRowCount(multiJoin, mq,
+            ((RexInputRef) operands.get(1)).getIndex());
+        if (ndv0 != null && ndv1 != null) {
+          return 1d / Math.max(1d, Math.max(ndv0, ndv1));
+        }
+      }
+    }
+    return RelMdUtil.guessSelectivity(condition);
+  }
+
+  /** Returns the number of distinct values of a field of a
+   * {@code MultiJoin}, or null if not known. */
+  private static Double distinctRowCount(LoptMultiJoin multiJoin,
+      RelMetadataQuery mq, int field) {
+    final int factor = multiJoin.findRef(field);
+    return mq.getDistinctRowCount(multiJoin.getJoinFactor(factor),
+        ImmutableBitSet.of(field - multiJoin.getJoinStart(factor)), null);
+  }
+
+  /** Join condition that touches two or more factors. */
+  private static class Edge {
+    final RexNode condition;
+    final long factors;
+    final double selectivity;
+
+    Edge(RexNode condition, long factors, double selectivity) {
+      this.condition = condition;
+      this.factors = factors;
+      this.selectivity = selectivity;
+    }
+
+    /** Returns whether this condition can be applied when joining two sets
+     * of factors, but not within either of them. */
+    boolean joins(long left, long right) {
+      return (factors & ~(left | right)) == 0
+          && (factors & ~left) != 0
+          && (factors & ~right) != 0;
+    }
+  }
+
+  /** Join graph of a {@code MultiJoin}, and the table of the best plan for
+   * each connected set of its factors.
+   *
+   * <p>A set of factors is a bit mask; the tables are indexed by mask. */
+  private static class JoinGraph {
+    private final LoptMultiJoin multiJoin;
+    private final int n;
+    final long all;
+    private final long[] neighbors;
+    private final List<Edge> edges = new ArrayList<>();
+    /** Conditions that touch fewer than two factors, to be applied above
+     * the joins. */
+    final List<RexNode> filters = new ArrayList<>();
+
+    /** Estimated number of rows produced by each set of factors. */
+    private final double[] rowCounts;
+    /** Cost of the best plan for each set of factors; negative if there is
+     * no plan yet. */
+    private final double[] costs;
+    /** Left input of the best plan for each set of factors; the right input
+     * is the remaining factors. */
+    private final long[] lefts;
+
+    JoinGraph(LoptMultiJoin multiJoin, RelMetadataQuery mq) {
+      this.multiJoin = multiJoin;
+      this.n = multiJoin.getNumJoinFactors();
+      this.all = (1L << n) - 1;
+      this.neighbors = new long[n];
+      this.rowCounts = new double[1 << n];
+      this.costs = new double[1 << n];
+      this.lefts = new long[1 << n];
+      Arrays.fill(costs, -1d);
+
+      for (int i = 0; i < n; i++) {
+        rowCounts[1 << i] = mq.getRowCount(multiJoin.getJoinFactor(i));
+        costs[1 << i] = 0d;
+      }
+      for (RexNode condition : multiJoin.getJoinFilters()) {
+        final ImmutableBitSet factors =
+            multiJoin.createEdge(condition).factors;
+        long mask = 0;
+        for (int factor : factors) {
+          mask |= 1L << factor;
+        }
+        switch (factors.cardinality()) {
+        case 0:
+          filters.add(condition);
+          break;
+        case 1:
+          filters.add(condition);
+          rowCounts[(int) mask] *= RelMdUtil.guessSelectivity(condition);
+          break;
+        case 2:
+          final int factor0 = factors.nth(0);
+          final int factor1 = factors.nth(1);
+          neighbors[factor0] |= 1L << factor1;
+          neighbors[factor1] |= 1L << factor0;
+          // fall through
+        default:
+          edges.add(
+              new Edge(condition, mask,
+                  selectivity(multiJoin, mq, condition)));
+        }
+      }
+    }
+
+    /** Computes the best plan for every connected set of factors, and
+     * returns whether there is a plan for all factors. */
+    boolean solve() {
+      for (int i = n - 1; i >= 0; i--) {
+        final long s = 1L << i;
+        emitCsg(s);
+        enumerateCsgRec(s, (s << 1) - 1);
+      }
+      return costs[(int) all] >= 0;
+    }
+
+    /** Returns the neighbors of a set of factors, excluding those in
+     * {@code exclude}. */
+    private long neighborhood(long s, long exclude) {
+      long result = 0;
+      for (long t = s; t != 0; t &= t - 1) {
+        result |= neighbors[Long.numberOfTrailingZeros(t)];
+      }
+      return result & ~(s | exclude);
+    }
+
+    /** Extends a connected set by its neighbors not in {@code exclude},
+     * emitting each connected superset. */
+    private void enumerateCsgRec(long s1, long exclude) {
+      final long nb = neighborhood(s1, exclude);
+      // Iterate over the non-empty subsets of nb in increasing order.
+      for (long s = nb & -nb; s != 0; s = nb & (s - nb)) {
+        if (costs[(int) (s1 | s)] >= 0) {
+          emitCsg(s1 | s);
+        }
+      }
+      for (long s = nb & -nb; s != 0; s = nb & (s - nb)) {
+        enumerateCsgRec(s1 | s, exclude | nb);
+      }
+    }
+
+    /** Finds the sets that can be joined to a connected set {@code s1}. */
+    private void emitCsg(long s1) {
+      final long exclude = s1 | ((Long.lowestOneBit(s1) << 1) - 1);
+      final long nb = neighborhood(s1, exclude);
+      for (int v = 63 - Long.numberOfLeadingZeros(nb); v >= 0; v--) {
+        if ((nb & (1L << v)) != 0) {
+          final long s2 = 1L << v;
+          emitCsgCmp(s1, s2);
+          enumerateCmpRec(s1, s2, exclude | (nb & ((s2 << 1) - 1)));
+        }
+      }
+    }
+
+    /** Extends a complement {@code s2} of {@code s1}, emitting each pair. */
+    private void enumerateCmpRec(long s1, long s2, long exclude) {
+      final long nb = neighborhood(s2, exclude);
+      for (long s = nb & -nb; s != 0; s = nb & (s - nb)) {
+        if (costs[(int) (s2 | s)] >= 0) {
+          emitCsgCmp(s1, s2 | s);
+        }
+      }
+      for (long s = nb & -nb; s != 0; s = nb & (s - nb)) {
+        enumerateCmpRec(s1, s2 | s, exclude | nb);
+      }
+    }
+
+    /** Considers the plan that joins two connected, disjoint sets. */
+    private void emitCsgCmp(long s1, long s2) {
+      final int s = (int) (s1 | s2);
+      if (costs[s] < 0) {
+        double rowCount = rowCounts[(int) s1] * rowCounts[(int) s2];
+        for (Edge edge : edges) {
+          if (edge.joins(s1, s2)) {
+            rowCount *= edge.selectivity;
+          }
+        }
+        rowCounts[s] = rowCount;
+      }
+      final double cost = costs[(int) s1] + costs[(int) s2] + rowCounts[s];
+      if (costs[s] < 0 || cost < costs[s]) {
+        costs[s] = cost;
+        // As in LoptOptimizeJoinRule, put the larger input on the left.
+        lefts[s] = rowCounts[(int) s1] >= rowCounts[(int) s2] ? s1 : s2;
+      }
+    }
+
+    /** Builds the best plan for a set of factors, and returns it with a
+     * mapping from the fields of the {@code MultiJoin} to its fields. */
+    Pair<RelNode, Mappings.TargetMapping> build(long s,
+        RelBuilder relBuilder) {
+      if (Long.bitCount(s) == 1) {
+        final int factor = Long.numberOfTrailingZeros(s);
+        final RelNode rel = multiJoin.getJoinFactor(factor);
+        return Pair.of(rel,
+            Mappings.offsetSource(
+                Mappings.createIdentity(rel.getRowType().getFieldCount()),
+                multiJoin.getJoinStart(factor),
+                multiJoin.getNumTotalFields()));
+      }
+      final long leftFactors = lefts[(int) s];
+      final long rightFactors = s & ~leftFactors;
+      final Pair<RelNode, Mappings.TargetMapping> left =
+          build(leftFactors, relBuilder);
+      final Pair<RelNode, Mappings.TargetMapping> right =
+          build(rightFactors, relBuilder);
+      final Mappings.TargetMapping mapping =
+          Mappings.merge(left.right,
+              Mappings.offsetTarget(right.right,
+                  left.left.getRowType().getFieldCount()));
+      final List<RexNode> conditions = new ArrayList<>();
+      for (Edge edge : edges) {
+        if (edge.joins(leftFactors, rightFactors)) {
+          conditions.add(edge.condition);
+        }
+      }
+      final RexBuilder rexBuilder = left.left.getCluster().getRexBuilder();
+      final RexNode condition =
+          RexUtil.composeConjunction(rexBuilder, conditions)
+              .accept(new RexPermuteInputsShuttle(mapping, left.left,
+                  right.left));
+      final RelNode join = relBuilder.push(left.left)
+          .push(right.left)
+          .join(JoinRelType.INNER, condition)
+          .build();
+      return Pair.of(join, mapping);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.runtime;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row counts and timings of the operators of a statement, collected while
+ * the statement executes.
+ *
+ * <p>Code generated for {@code EXPLAIN ANALYZE} wraps the
+ * {@link Enumerable} produced by each operator in a call to
+ * {@link #profile(DataContext, int, Enumerable)}. If the
+ * {@link DataContext.Variable#PROFILE} variable holds an
+ * {@code ExecutionProfile}, the operator's enumerators count the rows they
+ * return and the time spent in {@link Enumerator#moveNext()}.
+ *
+ * <p>Times include the time spent in the operator's inputs.
+ */
+public class ExecutionProfile {
+  private final Map<Integer, OperatorStats> map = new ConcurrentHashMap<>();
+
+  /** Returns the statistics of a given operator, or null if the operator did
+   * not execute. */
+  public OperatorStats get(int id) {
+    return map.get(id);
+  }
+
+  /** Wraps an enumerable so that its enumerators record statistics for the
+   * operator with a given id. */
+  public <T> Enumerable<T> wrap(int id, final Enumerable<T> enumerable) {
+    final OperatorStats stats =
+        map.computeIfAbsent(id, k -> new OperatorStats());
+    return new AbstractEnumerable<T>() {
+      public Enumerator<T> enumerator() {
+        return new ProfilingEnumerator<>(enumerable.enumerator(), stats);
+      }
+    };
+  }
+
+  /** Wraps an enumerable if the data context contains an
+   * {@code ExecutionProfile}; otherwise returns the enumerable unchanged.
+   * Called from generated code. */
+  public static <T> Enumerable<T> profile(DataContext root, int id,
+      Enumerable<T> enumerable) {
+    final ExecutionProfile profile =
+        (ExecutionProfile) root.get(DataContext.Variable.PROFILE.camelName);
+    if (profile == null) {
+      return enumerable;
+    }
+    return profile.wrap(id, enumerable);
+  }
+
+  /** Statistics of one operator, accumulated over all of its enumerators. */
+  public static class OperatorStats {
+    private long rowCount;
+    private long loopCount;
+    private long nanos;
+
+    /** Returns the number of rows returned. */
+    public synchronized long getRowCount() {
+      return rowCount;
+    }
+
+    /** Returns the number of times the operator was started, that is, the
+     * number of enumerators created. Greater than 1 if the operator is, say,
+     * the inner input of a correlated join. */
+    public synchronized long getLoopCount() {
+      return loopCount;
+    }
+
+    /** Returns the time spent fetching rows, in nanoseconds. */
+    public synchronized long getNanos() {
+      return nanos;
+    }
+
+    synchronized void add(long loopCount, long rowCount, long nanos) {
+      this.loopCount += loopCount;
+      this.rowCount += rowCount;
+      this.nanos += nanos;
+    }
+  }
+
+  /** Enumerator that counts rows and time, and adds them to an
+   * {@link OperatorStats} when it reaches the end or is closed.
+   *
+   * @param <T> element type */
+  private static class ProfilingEnumerator<T> implements Enumerator<T> {
+    private final Enumerator<T> enumerator;
+    private final OperatorStats stats;
+    private long loopCount = 1;
+    private long rowCount;
+    private long nanos;
+
+    ProfilingEnumerator(Enumerator<T> enumerator, OperatorStats stats) {
+      this.enumerator = enumerator;
+      this.stats = stats;
+    }
+
+    public T current() {
+      return enumerator.current();
+    }
+
+    public boolean moveNext() {
+      final long start = System.nanoTime();
+      final boolean hasNext = enumerator.moveNext();
+      nanos += System.nanoTime() - start;
+      if (hasNext) {
+        ++rowCount;
+      } else {
+        flush();
+      }
+      return hasNext;
+    }
+
+    public void reset() {
+      enumerator.reset();
+      flush();
+      ++loopCount;
+    }
+
+    public void close() {
+      try {
+        enumerator.close();
+      } finally {
+        flush();
+      }
+    }
+
+    private void flush() {
+      if (loopCount > 0 || rowCount > 0 || nanos > 0) {
+        stats.add(loopCount, rowCount, nanos);
+        loopCount = 0;
+        rowCount = 0;
+        nanos = 0;
+      }
+    }
+  }
+}
@@ -51,6 +51,12 @@ public enum Hook {
    * Default false. */
   ENABLE_BINDABLE,
 
+  /** Returns the directory in which to cache the bytecode of generated
+   * metadata handlers, or null.
+   * Default is the value of
+   * {@link org.apache.calcite.config.CalciteSystemProperty#METADATA_HANDLER_CACHE_DIRECTORY}. */
+  METADATA_HANDLER_CACHE_DIRECTORY,
+
   /** Called with the SQL string and parse tree, in an array. */
   PARSE_TREE,
 
@@ -83,12 +89,18 @@ public enum Hook {
   /** Called to create a Program to optimize the statement. */
   PROGRAM,
 
+  /** Called with the {@link org.apache.calcite.plan.RelOptPlannerMetrics}
+   * of the planner after a statement has been optimized. */
+  PLANNER_METRICS,
+
   /** Called when materialization is created. */
   CREATE_MATERIALIZATION,
 
   /** Called with a query that has been generated to send to a back-end system.
    * The query might be a SQL string (for the JDBC adapter), a list of Mongo
-   * pipeline expressions (for the MongoDB adapter), et cetera. */
+   * pipeline expressions (for the MongoDB adapter), et cetera. If the JDBC
+   * adapter splits a scan into partitions, also called with the SQL of each
+   * partition. */
   QUERY_PLAN,
 
   /**
@@ -181,6 +193,12 @@ public static <V> Consumer<Holder<V>> propertyJ(final V v) {
     };
   }
 
+  /** Returns whether any handlers are registered for this Hook, either
+   * globally or for the current thread. */
+  public boolean hasHandlers() {
+    return !handlers.isEmpty() || !threadHandlers.get().isEmpty();
+  }
+
   /** Runs all handlers registered for this Hook, with the given argument. */
   public void run(Object arg) {
     for (Consumer<Object> handler : handlers) {
@@ -27,10 +27,14 @@
 import org.apache.calcite.linq4j.tree.Primitive;
 import org.apache.calcite.util.Static;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.net.URL;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -52,6 +56,11 @@
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 /**
@@ -71,6 +80,19 @@
   private Long queryStart;
   private long timeout;
   private boolean timeoutSetFailed;
+  private int fetchSize;
+  private Boolean autoCommit;
+  private String partitionColumn;
+  private String partitionBoundsSql;
+  private int parallelism = 1;
+
+  /** Executes the partitions of a parallel scan. */
+  private static final ExecutorService PARTITION_EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("jdbc-scan-%d")
+              .build());
 
   private static final Function1<ResultSet, Function0<Object>> AUTO_ROW_BUILDER_FACTORY =
       resultSet -> {
@@ -180,6 +202,41 @@ public void setTimeout(DataContext context) {
     }
   }
 
+  /** Sets the number of rows that the JDBC driver fetches per round trip;
+   * 0 leaves the driver's default. */
+  public void setFetchSize(int fetchSize) {
+    this.fetchSize = fetchSize;
+  }
+
+  /** Sets the auto-commit mode of the connection that runs the query. Some
+   * drivers, such as PostgreSQL's, only stream results (rather than read the
+   * whole result into memory) if auto-commit is off. */
+  public void setAutoCommit(boolean autoCommit) {
+    this.autoCommit = autoCommit;
+  }
+
+  /**
+   * Splits the query into {@code parallelism} queries over ranges of a
+   * column, which run concurrently on separate connections.
+   *
+   * <p>The query must be a plain scan of a single table, so that a
+   * {@code WHERE} clause can be appended to it. The range is found by
+   * running {@code boundsSql}, which must return the minimum and maximum
+   * value of the column. Only numeric, date and timestamp columns can be
+   * split; for other columns, or if the table is empty, the query runs
+   * unsplit.
+   *
+   * @param column Column name, quoted for the target database
+   * @param boundsSql Query that returns the minimum and maximum value
+   * @param parallelism Number of ranges
+   */
+  public void setPartitioning(String column, String boundsSql,
+      int parallelism) {
+    this.partitionColumn = column;
+    this.partitionBoundsSql = boundsSql;
+    this.parallelism = parallelism;
+  }
+
   /** Called from generated code that proposes to create a
    * {@code ResultSetEnumerable} over a prepared statement. */
   public static PreparedStatementEnricher createEnricher(Integer[] indexes,
@@ -193,6 +250,25 @@ public static PreparedStatementEnricher createEnricher(Integer[] indexes,
     };
   }
 
+  /** Called from generated code that proposes to create a
+   * {@code ResultSetEnumerable} over a prepared statement whose parameters
+   * are a mixture of dynamic parameters and literals that were extracted from
+   * the query.
+   *
+   * <p>A non-negative index refers to dynamic parameter {@code ?index} in the
+   * data context; a negative index {@code -1 - k} refers to
+   * {@code literals[k]}. */
+  public static PreparedStatementEnricher createEnricher(Integer[] indexes,
+      Object[] literals, DataContext context) {
+    return preparedStatement -> {
+      for (int i = 0; i < indexes.length; i++) {
+        final int index = indexes[i];
+        setDynamicParam(preparedStatement, i + 1,
+            index >= 0 ? context.get("?" + index) : literals[-1 - index]);
+      }
+    };
+  }
+
   /** Assigns a value to a dynamic parameter in a prepared statement, calling
    * the appropriate {@code setXxx} method based on the type of the value. */
   private static void setDynamicParam(PreparedStatement preparedStatement,
@@ -247,6 +323,14 @@ private static void setDynamicParam(PreparedStatement preparedStatement,
   }
 
   public Enumerator<T> enumerator() {
+    if (partitionColumn != null
+        && parallelism > 1
+        && preparedStatementEnricher == null) {
+      final List<ResultSetEnumerable<T>> partitions = partitions();
+      if (partitions != null) {
+        return new PartitionedEnumerator<>(partitions);
+      }
+    }
     if (preparedStatementEnricher == null) {
       return enumeratorBasedOnStatement();
     } else {
@@ -259,8 +343,10 @@ private Enumerator<T> enumeratorBasedOnStatement() {
     Statement statement = null;
     try {
       connection = dataSource.getConnection();
+      setAutoCommitIfNeeded(connection);
       statement = connection.createStatement();
       setTimeoutIfPossible(statement);
+      setFetchSizeIfNeeded(statement);
       if (statement.execute(sql)) {
         final ResultSet resultSet = statement.getResultSet();
         statement = null;
@@ -283,8 +369,10 @@ private Enumerator<T> enumeratorBasedOnPreparedStatement() {
     PreparedStatement preparedStatement = null;
     try {
       connection = dataSource.getConnection();
+      setAutoCommitIfNeeded(connection);
       preparedStatement = connection.prepareStatement(sql);
       setTimeoutIfPossible(preparedStatement);
+      setFetchSizeIfNeeded(preparedStatement);
       preparedStatementEnricher.enrich(preparedStatement);
       if (preparedStatement.execute()) {
         final ResultSet resultSet = preparedStatement.getResultSet();
@@ -329,6 +417,136 @@ private void setTimeoutIfPossible(Statement statement) throws SQLException {
     }
   }
 
+  private void setAutoCommitIfNeeded(Connection connection)
+      throws SQLException {
+    if (autoCommit != null && connection.getAutoCommit() != autoCommit) {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private void setFetchSizeIfNeeded(Statement statement) throws SQLException {
+    if (fetchSize != 0) {
+      statement.setFetchSize(fetchSize);
+    }
+  }
+
+  /** Splits this query into range partitions on {@link #partitionColumn},
+   * or returns null if the column's range cannot be split. */
+  private List<ResultSetEnumerable<T>> partitions() {
+    final Object min;
+    final Object max;
+    Connection connection = null;
+    Statement statement = null;
+    try {
+      connection = dataSource.getConnection();
+      statement = connection.createStatement();
+      setTimeoutIfPossible(statement);
+      try (ResultSet resultSet = statement.executeQuery(partitionBoundsSql)) {
+        if (!resultSet.next()) {
+          return null;
+        }
+        min = resultSet.getObject(1);
+        max = resultSet.getObject(2);
+      }
+    } catch (SQLException e) {
+      throw Static.RESOURCE.exceptionWhilePerformingQueryOnJdbcSubSchema(
+          partitionBoundsSql).ex(e);
+    } finally {
+      closeIfPossible(connection, statement);
+    }
+    final List<Object> cuts = cutPoints(min, max, parallelism);
+    if (cuts == null || cuts.isEmpty()) {
+      return null;
+    }
+    final String column = partitionColumn;
+    final List<ResultSetEnumerable<T>> partitions = new ArrayList<>();
+    partitions.add(partition(column + " < ?", cuts.get(0)));
+    for (int i = 1; i < cuts.size(); i++) {
+      partitions.add(
+          partition(column + " >= ? AND " + column + " < ?",
+              cuts.get(i - 1), cuts.get(i)));
+    }
+    partitions.add(partition(column + " >= ?", cuts.get(cuts.size() - 1)));
+    partitions.add(partition(column + " IS NULL"));
+    return partitions;
+  }
+
+  private ResultSetEnumerable<T> partition(String condition,
+      Object... values) {
+    final String partitionSql = sql + " WHERE " + condition;
+    Hook.QUERY_PLAN.run(partitionSql);
+    final ResultSetEnumerable<T> partition =
+        new ResultSetEnumerable<>(dataSource, partitionSql,
+            rowBuilderFactory,
+            preparedStatement -> {
+              for (int i = 0; i < values.length; i++) {
+                preparedStatement.setObject(i + 1, values[i]);
+              }
+            });
+    partition.queryStart = queryStart;
+    partition.timeout = timeout;
+    partition.fetchSize = fetchSize;
+    partition.autoCommit = autoCommit;
+    return partition;
+  }
+
+  /** Returns up to {@code n - 1} strictly increasing values that split the
+   * range [{@code min}, {@code max}] into {@code n} roughly equal ranges,
+   * or null if values of this type cannot be split. */
+  static List<Object> cutPoints(Object min, Object max, int n) {
+    if (min instanceof java.util.Date && max instanceof java.util.Date) {
+      final List<Object> cuts = new ArrayList<>();
+      for (Object cut : cutPoints(((java.util.Date) min).getTime(),
+          ((java.util.Date) max).getTime(), n)) {
+        final long millis = (Long) cut;
+        cuts.add(min instanceof Date ? new Date(millis)
+            : min instanceof Timestamp ? new Timestamp(millis)
+            : new java.util.Date(millis));
+      }
+      return cuts;
+    }
+    if (min instanceof Number && max instanceof Number) {
+      final BigDecimal lo = toBigDecimal((Number) min);
+      final BigDecimal hi = toBigDecimal((Number) max);
+      final boolean integral = lo.scale() <= 0 && hi.scale() <= 0
+          || min instanceof Long
+          || min instanceof Integer
+          || min instanceof Short
+          || min instanceof Byte;
+      final BigDecimal width = hi.subtract(lo);
+      final List<Object> cuts = new ArrayList<>();
+      BigDecimal previous = lo;
+      for (int i = 1; i < n; i++) {
+        BigDecimal cut = lo.add(
+            width.multiply(BigDecimal.valueOf(i))
+                .divide(BigDecimal.valueOf(n), MathContext.DECIMAL64));
+        if (integral) {
+          cut = cut.setScale(0, RoundingMode.CEILING);
+        }
+        if (cut.compareTo(previous) <= 0 || cut.compareTo(hi) > 0) {
+          continue;
+        }
+        previous = cut;
+        cuts.add(integral ? (Object) cut.longValueExact()
+            : min instanceof Double || min instanceof Float
+            ? (Object) cut.doubleValue()
+            : cut);
+      }
+      return cuts;
+    }
+    return null;
+  }
+
+  private static BigDecimal toBigDecimal(Number number) {
+    if (number instanceof BigDecimal) {
+      return (BigDecimal) number;
+    }
+    if (number instanceof Double || number instanceof Float) {
+      return BigDecimal.valueOf(number.doubleValue());
+    }
+    return new BigDecimal(number.toString());
+  }
+
   private void closeIfPossible(Connection connection, Statement statement) {
     if (statement != null) {
       try {
@@ -402,6 +620,91 @@ public void close() {
     }
   }
 
+  /** Enumerator that reads several partitions of a query concurrently, and
+   * returns their rows in the order that they arrive.
+   *
+   * @param <T> element type */
+  private static class PartitionedEnumerator<T> implements Enumerator<T> {
+    private static final Object END = new Object();
+    private static final Object NULL = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(1024);
+    private int remaining;
+    private T current;
+    private volatile boolean closed;
+
+    PartitionedEnumerator(List<ResultSetEnumerable<T>> partitions) {
+      this.remaining = partitions.size();
+      for (ResultSetEnumerable<T> partition : partitions) {
+        PARTITION_EXECUTOR.execute(() -> read(partition));
+      }
+    }
+
+    private void read(ResultSetEnumerable<T> partition) {
+      try (Enumerator<T> enumerator = partition.enumerator()) {
+        while (!closed && enumerator.moveNext()) {
+          final T row = enumerator.current();
+          put(row == null ? NULL : row);
+        }
+      } catch (Throwable e) {
+        put(e);
+      } finally {
+        put(END);
+      }
+    }
+
+    private void put(Object o) {
+      try {
+        while (!closed) {
+          if (queue.offer(o, 100, TimeUnit.MILLISECONDS)) {
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    public T current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      while (remaining > 0) {
+        final Object o;
+        try {
+          o = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+        if (o == END) {
+          --remaining;
+        } else if (o instanceof Throwable) {
+          close();
+          throw o instanceof RuntimeException
+              ? (RuntimeException) o
+              : new RuntimeException((Throwable) o);
+        } else {
+          //noinspection unchecked
+          current = o == NULL ? null : (T) o;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    public void reset() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      closed = true;
+      remaining = 0;
+      queue.clear();
+    }
+  }
+
   private static Function1<ResultSet, Function0<Object>>
       primitiveRowBuilderFactory(final Primitive[] primitives) {
     return resultSet -> {
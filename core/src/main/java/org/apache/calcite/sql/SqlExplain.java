@@ -23,7 +23,7 @@
 
 /**
  * A <code>SqlExplain</code> is a node of a parse tree which represents an
- * EXPLAIN PLAN statement.
+ * EXPLAIN PLAN or EXPLAIN ANALYZE statement.
  */
 public class SqlExplain extends SqlCall {
   public static final SqlSpecialOperator OPERATOR =
@@ -31,7 +31,8 @@ public class SqlExplain extends SqlCall {
         @Override public SqlCall createCall(SqlLiteral functionQualifier,
             SqlParserPos pos, SqlNode... operands) {
           return new SqlExplain(pos, operands[0], (SqlLiteral) operands[1],
-              (SqlLiteral) operands[2], (SqlLiteral) operands[3], 0);
+              (SqlLiteral) operands[2], (SqlLiteral) operands[3], 0,
+              ((SqlLiteral) operands[4]).booleanValue());
         }
       };
 
@@ -58,6 +59,7 @@ public SqlLiteral symbol(SqlParserPos pos) {
   SqlLiteral detailLevel;
   SqlLiteral depth;
   SqlLiteral format;
+  SqlLiteral analyze;
   private final int dynamicParameterCount;
 
   //~ Constructors -----------------------------------------------------------
@@ -68,12 +70,24 @@ public SqlExplain(SqlParserPos pos,
       SqlLiteral depth,
       SqlLiteral format,
       int dynamicParameterCount) {
+    this(pos, explicandum, detailLevel, depth, format, dynamicParameterCount,
+        false);
+  }
+
+  public SqlExplain(SqlParserPos pos,
+      SqlNode explicandum,
+      SqlLiteral detailLevel,
+      SqlLiteral depth,
+      SqlLiteral format,
+      int dynamicParameterCount,
+      boolean analyze) {
     super(pos);
     this.explicandum = explicandum;
     this.detailLevel = detailLevel;
     this.depth = depth;
     this.format = format;
     this.dynamicParameterCount = dynamicParameterCount;
+    this.analyze = SqlLiteral.createBoolean(analyze, SqlParserPos.ZERO);
   }
 
   //~ Methods ----------------------------------------------------------------
@@ -87,7 +101,8 @@ public SqlOperator getOperator() {
   }
 
   public List<SqlNode> getOperandList() {
-    return ImmutableNullableList.of(explicandum, detailLevel, depth, format);
+    return ImmutableNullableList.of(explicandum, detailLevel, depth, format,
+        analyze);
   }
 
   @Override public void setOperand(int i, SqlNode operand) {
@@ -104,6 +119,9 @@ public List<SqlNode> getOperandList() {
     case 3:
       format = (SqlLiteral) operand;
       break;
+    case 4:
+      analyze = (SqlLiteral) operand;
+      break;
     default:
       throw new AssertionError(i);
     }
@@ -137,6 +155,15 @@ public int getDynamicParamCount() {
     return dynamicParameterCount;
   }
 
+  /**
+   * Returns whether the statement is to be executed, and the plan displayed
+   * with the actual row count and timing of each operator
+   * ({@code EXPLAIN ANALYZE}).
+   */
+  public boolean isAnalyze() {
+    return analyze.booleanValue();
+  }
+
   /**
    * @return whether physical plan implementation should be returned
    */
@@ -176,7 +203,7 @@ public boolean isJson() {
   }
 
   @Override public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
-    writer.keyword("EXPLAIN PLAN");
+    writer.keyword(isAnalyze() ? "EXPLAIN ANALYZE" : "EXPLAIN PLAN");
     switch (getDetailLevel()) {
     case NO_ATTRIBUTES:
       writer.keyword("EXCLUDING ATTRIBUTES");
@@ -188,27 +215,29 @@ public boolean isJson() {
       writer.keyword("INCLUDING ALL ATTRIBUTES");
       break;
     }
-    switch (getDepth()) {
-    case TYPE:
-      writer.keyword("WITH TYPE");
-      break;
-    case LOGICAL:
-      writer.keyword("WITHOUT IMPLEMENTATION");
-      break;
-    case PHYSICAL:
-      writer.keyword("WITH IMPLEMENTATION");
-      break;
-    default:
-      throw new UnsupportedOperationException();
-    }
-    switch (getFormat()) {
-    case XML:
-      writer.keyword("AS XML");
-      break;
-    case JSON:
-      writer.keyword("AS JSON");
-      break;
-    default:
+    if (!isAnalyze()) {
+      switch (getDepth()) {
+      case TYPE:
+        writer.keyword("WITH TYPE");
+        break;
+      case LOGICAL:
+        writer.keyword("WITHOUT IMPLEMENTATION");
+        break;
+      case PHYSICAL:
+        writer.keyword("WITH IMPLEMENTATION");
+        break;
+      default:
+        throw new UnsupportedOperationException();
+      }
+      switch (getFormat()) {
+      case XML:
+        writer.keyword("AS XML");
+        break;
+      case JSON:
+        writer.keyword("AS JSON");
+        break;
+      default:
+      }
     }
     writer.keyword("FOR");
     writer.newlineAndIndent();
@@ -51,6 +51,7 @@
 import org.apache.calcite.rel.rules.LoptOptimizeJoinRule;
 import org.apache.calcite.rel.rules.MatchRule;
 import org.apache.calcite.rel.rules.MultiJoinOptimizeBushyRule;
+import org.apache.calcite.rel.rules.MultiJoinOptimizeDphypRule;
 import org.apache.calcite.rel.rules.ProjectMergeRule;
 import org.apache.calcite.rel.rules.SemiJoinRule;
 import org.apache.calcite.rel.rules.SortProjectTransposeRule;
@@ -197,6 +198,26 @@ public static Program of(final HepProgram hepProgram, final boolean noDag,
   public static Program heuristicJoinOrder(
       final Iterable<? extends RelOptRule> rules,
       final boolean bushy, final int minJoinCount) {
+    return joinOrder(rules,
+        bushy
+            ? MultiJoinOptimizeBushyRule.INSTANCE
+            : LoptOptimizeJoinRule.INSTANCE,
+        minJoinCount);
+  }
+
+  /** Creates a program that orders joins by dynamic programming
+   * (via {@link org.apache.calcite.rel.rules.JoinToMultiJoinRule},
+   * {@link org.apache.calcite.rel.rules.MultiJoin} and
+   * {@link org.apache.calcite.rel.rules.MultiJoinOptimizeDphypRule})
+   * if there are {@code minJoinCount} or more joins. */
+  public static Program dphypJoinOrder(
+      final Iterable<? extends RelOptRule> rules, final int minJoinCount) {
+    return joinOrder(rules, MultiJoinOptimizeDphypRule.INSTANCE,
+        minJoinCount);
+  }
+
+  private static Program joinOrder(final Iterable<? extends RelOptRule> rules,
+      final RelOptRule joinOrderRule, final int minJoinCount) {
     return (planner, rel, requiredOutputTraits, materializations, lattices) -> {
       final int joinCount = RelOptUtil.countJoins(rel);
       final Program program;
@@ -213,7 +234,7 @@ public static Program heuristicJoinOrder(
             of(hep, false, DefaultRelMetadataProvider.INSTANCE);
 
         // Create a program that contains a rule to expand a MultiJoin
-        // into heuristically ordered joins.
+        // into ordered joins.
         // We use the rule set passed in, but remove JoinCommuteRule and
         // JoinPushThroughJoinRule, because they cause exhaustive search.
         final List<RelOptRule> list = Lists.newArrayList(rules);
@@ -222,9 +243,7 @@ public static Program heuristicJoinOrder(
                 JoinAssociateRule.INSTANCE,
                 JoinPushThroughJoinRule.LEFT,
                 JoinPushThroughJoinRule.RIGHT));
-        list.add(bushy
-            ? MultiJoinOptimizeBushyRule.INSTANCE
-            : LoptOptimizeJoinRule.INSTANCE);
+        list.add(joinOrderRule);
         final Program program2 = ofRules(list);
 
         program = sequence(program1, program2);
@@ -238,6 +257,14 @@ public static Program calc(RelMetadataProvider metadataProvider) {
     return hep(RelOptRules.CALC_RULES, true, metadataProvider);
   }
 
+  /** Returns a program that executes pipelines of enumerable operators in
+   * several threads, if the
+   * {@link org.apache.calcite.config.CalciteConnectionProperty#PARALLELISM}
+   * connection property is greater than 1. */
+  public static Program parallel(RelMetadataProvider metadataProvider) {
+    return new ParallelProgram(metadataProvider);
+  }
+
   @Deprecated // to be removed before 2.0
   public static Program subquery(RelMetadataProvider metadataProvider) {
     return subQuery(metadataProvider);
@@ -295,7 +322,11 @@ public static Program standard(RelMetadataProvider metadataProvider) {
 
         // Second planner pass to do physical "tweaks". This the first time
         // that EnumerableCalcRel is introduced.
-        calc(metadataProvider));
+        calc(metadataProvider),
+
+        // Third pass, only if parallelism is enabled, to execute pipelines
+        // in several threads.
+        parallel(metadataProvider));
   }
 
   /** Program backed by a {@link RuleSet}. */
@@ -373,6 +404,35 @@ public RelNode run(RelOptPlanner planner, RelNode rel,
     }
   }
 
+  /** Program that executes pipelines of enumerable operators in several
+   * threads, if parallelism is enabled.
+   *
+   * @see EnumerableRules#ENUMERABLE_GATHER_RULE */
+  private static class ParallelProgram implements Program {
+    private final Program program;
+
+    ParallelProgram(RelMetadataProvider metadataProvider) {
+      this.program =
+          hep(
+              ImmutableList.of(EnumerableRules.ENUMERABLE_GATHER_RULE,
+                  EnumerableRules.ENUMERABLE_AGGREGATE_GATHER_TRANSPOSE_RULE),
+              true, metadataProvider);
+    }
+
+    public RelNode run(RelOptPlanner planner, RelNode rel,
+        RelTraitSet requiredOutputTraits,
+        List<RelOptMaterialization> materializations,
+        List<RelOptLattice> lattices) {
+      final CalciteConnectionConfig config =
+          planner.getContext().unwrap(CalciteConnectionConfig.class);
+      if (config != null && config.parallelism() > 1) {
+        return program.run(planner, rel, requiredOutputTraits,
+            materializations, lattices);
+      }
+      return rel;
+    }
+  }
+
   /** Program that trims fields. */
   private static class TrimFieldsProgram implements Program {
     public RelNode run(RelOptPlanner planner, RelNode rel,
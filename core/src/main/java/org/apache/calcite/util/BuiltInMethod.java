@@ -17,6 +17,8 @@
 package org.apache.calcite.util;
 
 import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.columnar.ColumnarRel;
+import org.apache.calcite.adapter.columnar.Columnars;
 import org.apache.calcite.adapter.enumerable.AggregateLambdaFactory;
 import org.apache.calcite.adapter.enumerable.BasicAggregateLambdaFactory;
 import org.apache.calcite.adapter.enumerable.BasicLazyAccumulator;
@@ -46,6 +48,7 @@
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.function.Function2;
 import org.apache.calcite.linq4j.function.Functions;
+import org.apache.calcite.linq4j.function.LongFunction1;
 import org.apache.calcite.linq4j.function.Predicate1;
 import org.apache.calcite.linq4j.function.Predicate2;
 import org.apache.calcite.linq4j.tree.FunctionExpression;
@@ -82,6 +85,7 @@
 import org.apache.calcite.runtime.Bindable;
 import org.apache.calcite.runtime.CompressionFunctions;
 import org.apache.calcite.runtime.Enumerables;
+import org.apache.calcite.runtime.ExecutionProfile;
 import org.apache.calcite.runtime.FlatLists;
 import org.apache.calcite.runtime.JsonFunctions;
 import org.apache.calcite.runtime.Matcher;
@@ -162,6 +166,12 @@ public enum BuiltInMethod {
   ROW_AS_COPY(Row.class, "asCopy", Object[].class),
   RESULT_SET_ENUMERABLE_SET_TIMEOUT(ResultSetEnumerable.class, "setTimeout",
       DataContext.class),
+  RESULT_SET_ENUMERABLE_SET_FETCH_SIZE(ResultSetEnumerable.class,
+      "setFetchSize", int.class),
+  RESULT_SET_ENUMERABLE_SET_AUTO_COMMIT(ResultSetEnumerable.class,
+      "setAutoCommit", boolean.class),
+  RESULT_SET_ENUMERABLE_SET_PARTITIONING(ResultSetEnumerable.class,
+      "setPartitioning", String.class, String.class, int.class),
   RESULT_SET_ENUMERABLE_OF(ResultSetEnumerable.class, "of", DataSource.class,
       String.class, Function1.class),
   RESULT_SET_ENUMERABLE_OF_PREPARED(ResultSetEnumerable.class, "of",
@@ -169,10 +179,22 @@ public enum BuiltInMethod {
       ResultSetEnumerable.PreparedStatementEnricher.class),
   CREATE_ENRICHER(ResultSetEnumerable.class, "createEnricher", Integer[].class,
       DataContext.class),
+  CREATE_ENRICHER_WITH_LITERALS(ResultSetEnumerable.class, "createEnricher",
+      Integer[].class, Object[].class, DataContext.class),
   HASH_JOIN(ExtendedEnumerable.class, "hashJoin", Enumerable.class,
       Function1.class,
       Function1.class, Function2.class, EqualityComparer.class,
       boolean.class, boolean.class, Predicate2.class),
+  LONG_HASH_JOIN(EnumerableDefaults.class, "longHashJoin", Enumerable.class,
+      Enumerable.class, LongFunction1.class, Predicate1.class,
+      LongFunction1.class, Predicate1.class, Function2.class, boolean.class,
+      boolean.class),
+  GATHER(EnumerableDefaults.class, "gather", Enumerable.class,
+      Function1.class, int.class),
+  PARTITIONED_HASH_JOIN(EnumerableDefaults.class, "partitionedHashJoin",
+      Enumerable.class, Enumerable.class, Function1.class, Function1.class,
+      Function2.class, EqualityComparer.class, JoinType.class,
+      Predicate2.class, int.class),
   MATCH(Enumerables.class, "match", Enumerable.class, Function1.class,
       Matcher.class, Enumerables.Emitter.class, int.class, int.class),
   PATTERN_BUILDER(Utilities.class, "patternBuilder"),
@@ -191,7 +213,11 @@ public enum BuiltInMethod {
   MERGE_JOIN(EnumerableDefaults.class, "mergeJoin", Enumerable.class,
       Enumerable.class, Function1.class, Function1.class, Predicate2.class, Function2.class,
       JoinType.class, Comparator.class),
+  COLUMNAR_TO_ROWS(Columnars.class, "toRows", DataContext.class,
+      ColumnarRel.class, Enumerable[].class),
   SLICE0(Enumerables.class, "slice0", Enumerable.class),
+  PROFILE(ExecutionProfile.class, "profile", DataContext.class, int.class,
+      Enumerable.class),
   SEMI_JOIN(EnumerableDefaults.class, "semiJoin", Enumerable.class,
       Enumerable.class, Function1.class, Function1.class,
       EqualityComparer.class, Predicate2.class),
@@ -215,6 +241,12 @@ public enum BuiltInMethod {
   GROUP_BY(ExtendedEnumerable.class, "groupBy", Function1.class),
   GROUP_BY2(ExtendedEnumerable.class, "groupBy", Function1.class,
       Function0.class, Function2.class, Function2.class),
+  GROUP_BY_LONG(EnumerableDefaults.class, "groupByLong", Enumerable.class,
+      Function1.class, LongFunction1.class, Predicate1.class, Function0.class,
+      Function2.class, Function2.class),
+  GROUP_BY_WITH_SPILL(EnumerableDefaults.class, "groupByWithSpill",
+      Enumerable.class, Function1.class, Function0.class, Function2.class,
+      Function2.class, EqualityComparer.class, int.class),
   GROUP_BY_MULTIPLE(EnumerableDefaults.class, "groupByMultiple",
       Enumerable.class, List.class, Function0.class, Function2.class,
       Function2.class),
@@ -222,6 +254,11 @@ public enum BuiltInMethod {
       Function2.class, Function1.class),
   ORDER_BY(ExtendedEnumerable.class, "orderBy", Function1.class,
       Comparator.class),
+  ORDER_BY_WITH_OFFSET_AND_FETCH(EnumerableDefaults.class, "orderBy",
+      Enumerable.class, Function1.class, Comparator.class, int.class,
+      int.class),
+  ORDER_BY_WITH_SPILL(EnumerableDefaults.class, "orderByWithSpill",
+      Enumerable.class, Function1.class, Comparator.class, int.class),
   UNION(ExtendedEnumerable.class, "union", Enumerable.class),
   CONCAT(ExtendedEnumerable.class, "concat", Enumerable.class),
   REPEAT_UNION(EnumerableDefaults.class, "repeatUnion", Enumerable.class,
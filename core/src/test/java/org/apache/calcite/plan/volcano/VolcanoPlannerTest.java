@@ -17,12 +17,15 @@
 package org.apache.calcite.plan.volcano;
 
 import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableHashJoin;
+import org.apache.calcite.adapter.enumerable.EnumerableProject;
 import org.apache.calcite.adapter.enumerable.EnumerableRules;
 import org.apache.calcite.adapter.enumerable.EnumerableUnion;
 import org.apache.calcite.plan.Convention;
 import org.apache.calcite.plan.ConventionTraitDef;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptListener;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
 import org.apache.calcite.plan.RelOptUtil;
@@ -35,16 +38,29 @@
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.core.RelFactories;
 import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.rules.JoinCommuteRule;
+import org.apache.calcite.rel.rules.JoinPushThroughJoinRule;
 import org.apache.calcite.rel.rules.ProjectRemoveRule;
+import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.test.CalciteAssert;
+import org.apache.calcite.tools.FrameworkConfig;
+import org.apache.calcite.tools.Frameworks;
 import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.util.Pair;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.apache.calcite.plan.volcano.PlannerTests.AssertOperandsDifferentRule;
 import static org.apache.calcite.plan.volcano.PlannerTests.GoodSingleRule;
@@ -62,6 +78,7 @@
 import static org.apache.calcite.test.Matchers.isLinux;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -126,6 +143,136 @@ class VolcanoPlannerTest {
     assertTrue(result instanceof PhysSingleRel);
   }
 
+  /** Tests the metrics of a planner: rule attempts and productions, and the
+   * size of the memo. */
+  @Test void testMetrics() {
+    VolcanoPlanner planner = new VolcanoPlanner();
+    planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+
+    final PhysLeafRule leafRule = new PhysLeafRule();
+    final GoodSingleRule singleRule = new GoodSingleRule();
+    planner.addRule(leafRule);
+    planner.addRule(singleRule);
+
+    RelOptCluster cluster = newCluster(planner);
+    NoneSingleRel singleRel =
+        new NoneSingleRel(cluster, new NoneLeafRel(cluster, "a"));
+    planner.setRoot(
+        planner.changeTraits(singleRel,
+            cluster.traitSetOf(PHYS_CALLING_CONVENTION)));
+    planner.chooseDelegate().findBestExp();
+
+    final RelOptPlannerMetrics metrics = planner.getMetrics();
+    // One set for the leaf and one for the single; each has a NONE and a
+    // PHYS subset, containing one expression each
+    assertThat(metrics.setCount, is(2));
+    assertThat(metrics.subsetCount, is(4));
+    assertThat(metrics.relCount, is(4));
+    assertThat(metrics.ruleQueueSize, is(0));
+    assertThat(metrics.ruleMetrics.size(), is(2));
+    for (RelOptRule rule : Arrays.asList(leafRule, singleRule)) {
+      final RelOptPlannerMetrics.RuleMetrics ruleMetrics =
+          metrics.rule(rule.toString());
+      assertThat(ruleMetrics.attemptCount, is(1L));
+      assertThat(ruleMetrics.productionCount, is(1L));
+      assertTrue(ruleMetrics.maxNanos <= ruleMetrics.totalNanos);
+    }
+    assertThat(metrics.attemptCount(), is(2L));
+
+    planner.clear();
+    assertThat(planner.getMetrics().setCount, is(0));
+    assertThat(planner.getMetrics().ruleMetrics.size(), is(0));
+  }
+
+  /**
+   * Tests that firing rule matches on several threads produces the same plan
+   * as firing them sequentially, and that it is reproducible: every run
+   * registers the same expressions in the same order. Reordering a four-way
+   * join with {@link JoinCommuteRule} and {@link JoinPushThroughJoinRule}
+   * creates many expressions, and requests metadata, on the worker threads;
+   * {@link JoinCommuteRule} registers an expression itself, so it fires again
+   * on the planner thread.
+   */
+  @Test void testParallelism() {
+    final String plan = RelOptUtil.toString(reorderJoins(1).right);
+    String dump = null;
+    for (int i = 0; i < 3; i++) {
+      final Pair<VolcanoPlanner, RelNode> pair = reorderJoins(4);
+      assertThat(RelOptUtil.toString(pair.right), equalTo(plan));
+      final StringWriter sw = new StringWriter();
+      final PrintWriter pw = new PrintWriter(sw);
+      Dumpers.dumpSets(pair.left, pw);
+      pw.flush();
+      final String dump2 = normalizeIds(sw.toString());
+      if (dump != null) {
+        assertThat(dump2, equalTo(dump));
+      }
+      dump = dump2;
+    }
+  }
+
+  /** Optimizes a four-way join, firing rules with a given parallelism, and
+   * returns the planner and the best plan. */
+  private static Pair<VolcanoPlanner, RelNode> reorderJoins(int parallelism) {
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    final FrameworkConfig config = Frameworks.newConfigBuilder()
+        .defaultSchema(
+            CalciteAssert.addSchema(rootSchema, CalciteAssert.SchemaSpec.HR))
+        .build();
+    final RelBuilder b = RelBuilder.create(config);
+    final RelNode rel = b.scan("emps")
+        .scan("depts")
+        .join(JoinRelType.INNER, "deptno")
+        .scan("dependents")
+        .join(JoinRelType.INNER,
+            b.equals(b.field(2, 0, "empid"), b.field(2, 1, "empid")))
+        .scan("locations")
+        .join(JoinRelType.INNER,
+            b.equals(b.field(2, 0, 0), b.field(2, 1, "empid")))
+        .build();
+
+    final VolcanoPlanner planner =
+        (VolcanoPlanner) rel.getCluster().getPlanner();
+    planner.clear();
+    planner.setParallelism(parallelism);
+    planner.addRule(JoinCommuteRule.INSTANCE);
+    planner.addRule(JoinPushThroughJoinRule.LEFT);
+    planner.addRule(JoinPushThroughJoinRule.RIGHT);
+    planner.addRule(EnumerableRules.ENUMERABLE_JOIN_RULE);
+    planner.addRule(EnumerableRules.ENUMERABLE_PROJECT_RULE);
+    planner.addRule(EnumerableRules.ENUMERABLE_TABLE_SCAN_RULE);
+    planner.setRoot(
+        planner.changeTraits(rel,
+            rel.getTraitSet().replace(EnumerableConvention.INSTANCE)));
+    final RelNode result = planner.findBestExp();
+    assertTrue(result instanceof EnumerableProject
+        || result instanceof EnumerableHashJoin);
+    return Pair.of(planner, result);
+  }
+
+  /** Replaces each relational expression id in a planner dump with its rank
+   * among the ids in the dump. Ids are allocated in registration order, but
+   * other tests may allocate ids at the same time, so only their order is
+   * reproducible. */
+  private static String normalizeIds(String dump) {
+    final Pattern pattern = Pattern.compile("rel#([0-9]+)");
+    final SortedSet<Integer> ids = new TreeSet<>();
+    final Matcher m = pattern.matcher(dump);
+    while (m.find()) {
+      ids.add(Integer.valueOf(m.group(1)));
+    }
+    final List<Integer> idList = new ArrayList<>(ids);
+    final StringBuffer sb = new StringBuffer();
+    m.reset();
+    while (m.find()) {
+      m.appendReplacement(sb,
+          "rel#" + Collections.binarySearch(idList,
+              Integer.valueOf(m.group(1))));
+    }
+    m.appendTail(sb);
+    return sb.toString();
+  }
+
   /** Test case for
    * <a href="https://issues.apache.org/jira/browse/CALCITE-3118">[CALCITE-3118]
    * VolcanoRuleCall should look at RelSubset rather than RelSet
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.prepare;
+
+import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.jdbc.CalcitePrepare;
+import org.apache.calcite.runtime.Hook;
+import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.impl.AbstractSchema;
+import org.apache.calcite.test.JdbcTest;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit test for {@link PlanCache}.
+ */
+class PlanCacheTest {
+  @Test void testNormalize() {
+    assertThat(PlanCache.normalize("  select *\n\tfrom  t "),
+        is("select * from t"));
+    assertThat(PlanCache.normalize("select 'a  b', \"x  y\" from t"),
+        is("select 'a  b', \"x  y\" from t"));
+    assertThat(PlanCache.normalize("select 'it''s  ok'  from t"),
+        is("select 'it''s  ok' from t"));
+    assertThat(PlanCache.normalize("select a -- a  comment\n  from t"),
+        is("select a -- a  comment\n from t"));
+    assertThat(PlanCache.normalize("select /* x\n  y */  a from t"),
+        is("select /* x\n  y */ a from t"));
+  }
+
+  @Test void testHitMissAndInvalidation() throws Exception {
+    try (Connection connection = DriverManager.getConnection("jdbc:calcite:")) {
+      final CalciteConnection calciteConnection =
+          connection.unwrap(CalciteConnection.class);
+      final SchemaPlus rootSchema = calciteConnection.getRootSchema();
+      rootSchema.add("hr", new ReflectiveSchema(new JdbcTest.HrSchema()));
+
+      final PlanCache cache = new PlanCache(10);
+      final CalcitePrepareImpl prepare = new CalcitePrepareImpl();
+      final AtomicInteger prepareCount = new AtomicInteger();
+      final String sql = "select \"name\" from \"hr\".\"emps\"";
+      final CalcitePrepare.Context context =
+          calciteConnection.createPrepareContext();
+      final CalcitePrepare.CalciteSignature<Object> signature =
+          prepare(cache, prepare, context, sql, prepareCount);
+      assertThat(prepareCount.get(), is(1));
+
+      // Same statement, different white space: hit
+      final CalcitePrepare.CalciteSignature<Object> signature2 =
+          prepare(cache, prepare, calciteConnection.createPrepareContext(),
+              sql.replace(" ", "\n  "), prepareCount);
+      assertThat(prepareCount.get(), is(1));
+      assertThat(signature2, sameInstance(signature));
+      assertThat(cache.stats().hitCount(), is(1L));
+      assertThat(cache.stats().missCount(), is(1L));
+
+      // Adding a schema invalidates the statement
+      rootSchema.add("empty", new AbstractSchema());
+      final CalcitePrepare.CalciteSignature<Object> signature3 =
+          prepare(cache, prepare, calciteConnection.createPrepareContext(),
+              sql, prepareCount);
+      assertThat(prepareCount.get(), is(2));
+      assertThat(signature3, not(sameInstance(signature)));
+      assertThat(cache.stats().missCount(), is(2L));
+
+      cache.invalidateAll();
+      assertThat(cache.size(), is(0L));
+    }
+  }
+
+  /** Tests that statements are not cached while a planning hook is
+   * registered, because a cached plan would not call the hook. */
+  @Test void testHookBypassesCache() throws Exception {
+    try (Connection connection = DriverManager.getConnection("jdbc:calcite:")) {
+      final CalciteConnection calciteConnection =
+          connection.unwrap(CalciteConnection.class);
+      calciteConnection.getRootSchema()
+          .add("hr", new ReflectiveSchema(new JdbcTest.HrSchema()));
+
+      final PlanCache cache = new PlanCache(10);
+      final CalcitePrepareImpl prepare = new CalcitePrepareImpl();
+      final AtomicInteger prepareCount = new AtomicInteger();
+      final AtomicInteger plannerCount = new AtomicInteger();
+      final String sql = "select \"name\" from \"hr\".\"emps\"";
+      try (Hook.Closeable ignore =
+               Hook.PLANNER.addThread(planner -> plannerCount.incrementAndGet())) {
+        prepare(cache, prepare, calciteConnection.createPrepareContext(), sql,
+            prepareCount);
+        prepare(cache, prepare, calciteConnection.createPrepareContext(), sql,
+            prepareCount);
+      }
+      assertThat(prepareCount.get(), is(2));
+      assertThat(plannerCount.get(), is(2));
+      assertThat(cache.size(), is(0L));
+
+      // Without the hook, the second statement is a hit
+      prepare(cache, prepare, calciteConnection.createPrepareContext(), sql,
+          prepareCount);
+      prepare(cache, prepare, calciteConnection.createPrepareContext(), sql,
+          prepareCount);
+      assertThat(prepareCount.get(), is(3));
+      assertThat(cache.stats().hitCount(), is(1L));
+    }
+  }
+
+  private static CalcitePrepare.CalciteSignature<Object> prepare(
+      PlanCache cache, CalcitePrepareImpl prepare,
+      CalcitePrepare.Context context, String sql, AtomicInteger prepareCount) {
+    return cache.get(context, sql, Object[].class, -1, false,
+        () -> {
+          prepareCount.incrementAndGet();
+          return prepare.prepareSql(context, CalcitePrepare.Query.of(sql),
+              Object[].class, -1);
+        },
+        signature -> true);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.prepare;
+
+import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.jdbc.CalcitePrepare;
+import org.apache.calcite.jdbc.Driver;
+import org.apache.calcite.linq4j.function.Function0;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.test.JdbcTest;
+import org.apache.calcite.test.RelBuilderTest;
+import org.apache.calcite.tools.RelBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit test for {@link PlanShapeCache}.
+ */
+class PlanShapeCacheTest {
+  /** Builds a query that finds the employees in a given department with a
+   * given job, and whose salary is 1000 more than their commission. */
+  private static RelRoot query(int deptno, String job) {
+    final RelBuilder b = RelBuilder.create(RelBuilderTest.config().build());
+    final RelNode rel = b.scan("EMP")
+        .filter(
+            b.and(b.equals(b.field("DEPTNO"), b.literal(deptno)),
+                b.equals(b.literal(job), b.field("JOB")),
+                b.equals(b.field("SAL"),
+                    b.call(SqlStdOperatorTable.PLUS, b.field("COMM"),
+                        b.literal(1000)))))
+        .project(b.field("ENAME"), b.alias(b.literal(deptno), "D"))
+        .build();
+    return RelRoot.of(rel, SqlKind.SELECT);
+  }
+
+  @Test void testParameterize() {
+    final PlanShapeCache.Shape shape1 =
+        PlanShapeCache.parameterize(query(10, "CLERK"), 2);
+    final PlanShapeCache.Shape shape2 =
+        PlanShapeCache.parameterize(query(20, "CLERK"), 2);
+    final PlanShapeCache.Shape shape3 =
+        PlanShapeCache.parameterize(query(20, "ANALYST"), 2);
+
+    // Literals compared with an expression are replaced, numbered after the
+    // statement's own parameters; literals elsewhere are not
+    final String expected = ""
+        + "LogicalProject(ENAME=[$1], D=[20])\n"
+        + "  LogicalFilter(condition=[AND(=($7, ?2), =(?3, $2), "
+        + "=($5, +($6, 1000)))])\n"
+        + "    LogicalTableScan(table=[[scott, EMP]])\n";
+    assertThat(RelOptUtil.toString(shape2.root.rel), is(expected));
+    assertThat(RelOptUtil.toString(shape3.root.rel), is(expected));
+    assertThat(RelOptUtil.toString(shape1.root.rel),
+        is(expected.replace("D=[20]", "D=[10]")));
+
+    assertThat(shape2.literals.size(), is(2));
+    assertThat(PlanShapeCache.parameterValue(shape2.literals.get(0)),
+        is((Object) 20));
+    assertThat(PlanShapeCache.parameterValue(shape3.literals.get(1)),
+        is((Object) "ANALYST"));
+  }
+
+  /** Runs queries that differ only in literals through JDBC, and checks that
+   * the second and third re-use the plan of the first but return their own
+   * rows. */
+  @Test void testCachedPlanReturnsRowsOfEachQuery() throws SQLException {
+    final ShapeCacheDriver driver = new ShapeCacheDriver();
+    try (Connection connection =
+             driver.connect("jdbc:calcite:", new Properties())) {
+      connection.unwrap(CalciteConnection.class).getRootSchema()
+          .add("hr", new ReflectiveSchema(new JdbcTest.HrSchema()));
+
+      assertThat(names(connection, 10, 8000), is("[Bill, Theodore]"));
+      assertThat(driver.cache.stats().missCount(), is(1L));
+      assertThat(driver.cache.stats().hitCount(), is(0L));
+      assertThat(driver.cache.size(), is(1L));
+
+      assertThat(names(connection, 20, 5000), is("[Eric]"));
+      assertThat(driver.cache.stats().hitCount(), is(1L));
+
+      assertThat(names(connection, 10, 10500), is("[Theodore]"));
+      assertThat(driver.cache.stats().hitCount(), is(2L));
+      assertThat(driver.cache.size(), is(1L));
+    }
+  }
+
+  /** Returns the sorted names of the employees in a given department whose
+   * salary exceeds a given value. */
+  private static String names(Connection connection, int deptno, int salary)
+      throws SQLException {
+    final String sql = "select \"name\" from \"hr\".\"emps\"\n"
+        + "where \"deptno\" = " + deptno + " and \"salary\" > " + salary;
+    final List<String> names = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery(sql)) {
+      while (resultSet.next()) {
+        names.add(resultSet.getString(1));
+      }
+    }
+    Collections.sort(names);
+    return names.toString();
+  }
+
+  @Test void testParameterValue() {
+    final RelBuilder b = RelBuilder.create(RelBuilderTest.config().build());
+    assertThat(PlanShapeCache.parameterValue((RexLiteral) b.literal(true)),
+        is((Object) true));
+    assertThat(PlanShapeCache.parameterValue((RexLiteral) b.literal(null)),
+        is((Object) null));
+  }
+
+  /** Driver whose statements use their own plan shape cache, so that the
+   * test does not depend on a system property. */
+  private static class ShapeCacheDriver extends Driver {
+    final PlanShapeCache cache = new PlanShapeCache(10);
+
+    @Override protected Function0<CalcitePrepare> createPrepareFactory() {
+      return () -> new CalcitePrepareImpl() {
+        @Override PlanShapeCache planShapeCache() {
+          return cache;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.apache.calcite.runtime.ResultSetEnumerable.cutPoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests {@link ResultSetEnumerable#cutPoints(Object, Object, int)}.
+ */
+class ResultSetEnumerableTest {
+  @Test void testCutPointsIntegral() {
+    assertThat(cutPoints(1, 10, 3), is(Arrays.<Object>asList(4L, 7L)));
+    assertThat(cutPoints((short) 7369, (short) 7934, 3),
+        is(Arrays.<Object>asList(7558L, 7746L)));
+    assertThat(cutPoints(-10L, 10L, 2),
+        is(Collections.<Object>singletonList(0L)));
+  }
+
+  /** Tests that an integral range narrower than the number of partitions
+   * yields fewer, but still strictly increasing, cut points. */
+  @Test void testCutPointsNarrowIntegral() {
+    assertThat(cutPoints(1, 2, 4), is(Collections.<Object>singletonList(2L)));
+  }
+
+  @Test void testCutPointsDecimal() {
+    assertThat(
+        cutPoints(new BigDecimal("0.00"), new BigDecimal("1400.00"), 4),
+        is(
+            Arrays.<Object>asList(new BigDecimal("350.00"),
+                new BigDecimal("700.00"), new BigDecimal("1050.00"))));
+  }
+
+  @Test void testCutPointsDouble() {
+    assertThat(cutPoints(0D, 1D, 4),
+        is(Arrays.<Object>asList(0.25D, 0.5D, 0.75D)));
+  }
+
+  @Test void testCutPointsDate() {
+    final long day = 86_400_000L;
+    assertThat(cutPoints(new Date(0L), new Date(3 * day), 3),
+        is(Arrays.<Object>asList(new Date(day), new Date(2 * day))));
+  }
+
+  /** Tests that a range with a single value has no cut points, so the scan
+   * is not split. */
+  @Test void testCutPointsSingleValue() {
+    assertThat(cutPoints(5, 5, 3), is(Collections.<Object>emptyList()));
+    assertThat(cutPoints(new BigDecimal("1.5"), new BigDecimal("1.5"), 3),
+        is(Collections.<Object>emptyList()));
+    assertThat(cutPoints(new Date(0L), new Date(0L), 3),
+        is(Collections.<Object>emptyList()));
+  }
+
+  @Test void testCutPointsUnsupportedType() {
+    assertThat(cutPoints("a", "z", 3), is(nullValue()));
+  }
+}
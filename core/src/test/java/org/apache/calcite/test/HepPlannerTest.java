@@ -18,6 +18,7 @@
 
 import org.apache.calcite.plan.RelOptListener;
 import org.apache.calcite.plan.RelOptMaterialization;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.plan.hep.HepMatchOrder;
 import org.apache.calcite.plan.hep.HepPlanner;
 import org.apache.calcite.plan.hep.HepProgram;
@@ -42,6 +43,7 @@
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * HepPlannerTest is a unit test for {@link HepPlanner}. See
@@ -311,6 +313,32 @@ private void assertIncludesExactlyOnce(String message, String digest, String sub
     assertThat(applyTimes2, is(87L));
   }
 
+  /** Tests that the planner's metrics agree with the number of rule
+   * attempts seen by a listener. */
+  @Test void testMetrics() {
+    final HepProgramBuilder programBuilder = HepProgram.builder();
+    programBuilder.addMatchOrder(HepMatchOrder.DEPTH_FIRST);
+    programBuilder.addRuleInstance(ReduceExpressionsRule.FILTER_INSTANCE);
+    programBuilder.addRuleInstance(ReduceExpressionsRule.PROJECT_INSTANCE);
+
+    final HepTestListener listener = new HepTestListener(0);
+    final HepPlanner planner = new HepPlanner(programBuilder.build());
+    planner.addListener(listener);
+    planner.setRoot(tester.convertSqlToRel(COMPLEX_UNION_TREE).rel);
+    planner.findBestExp();
+
+    final RelOptPlannerMetrics metrics = planner.getMetrics();
+    assertThat(metrics.attemptCount(), is(listener.getApplyTimes()));
+    assertThat(metrics.ruleMetrics.size(), is(2));
+    for (RelOptPlannerMetrics.RuleMetrics ruleMetrics : metrics.ruleMetrics) {
+      assertTrue(ruleMetrics.maxNanos <= ruleMetrics.totalNanos);
+    }
+    assertTrue(metrics.relCount > 0);
+
+    planner.clear();
+    assertThat(planner.getMetrics().ruleMetrics.size(), is(0));
+  }
+
   @Test void testMaterialization() throws Exception {
     HepPlanner planner = new HepPlanner(HepProgram.builder().build());
     RelNode tableRel = tester.convertSqlToRel("select * from dept").rel;
@@ -17,6 +17,7 @@
 package org.apache.calcite.test;
 
 import org.apache.calcite.config.Lex;
+import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.test.CalciteAssert.AssertThat;
 import org.apache.calcite.test.CalciteAssert.DatabaseInstance;
 import org.apache.calcite.util.TestUtil;
@@ -29,11 +30,15 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -47,6 +52,19 @@ class JdbcAdapterTest {
    * same time. */
   private static final ReentrantLock LOCK = new ReentrantLock();
 
+  /** Model of the SCOTT schema with a prepared-statement cache, and therefore
+   * with literals sent as parameters. */
+  private static final String STATEMENT_CACHE_MODEL = "{\n"
+      + "  version: '1.0',\n"
+      + "  defaultSchema: 'SCOTT',\n"
+      + "  schemas: [\n"
+      + JdbcTest.SCOTT_SCHEMA.replace("jdbcSchema: ",
+          "poolMaxTotal: 4,\n"
+          + "       statementCacheSize: 10,\n"
+          + "       jdbcSchema: ")
+      + "  ]\n"
+      + "}";
+
   /** VALUES is not pushed down, currently. */
   @Test void testValuesPlan() {
     final String sql = "select * from \"days\", (values 1, 2) as t(c)";
@@ -84,6 +102,70 @@ class JdbcAdapterTest {
             + "FROM \"foodmart\".\"sales_fact_1998\"");
   }
 
+  /** Tests that a scan of a table with a partition column is split into
+   * range queries; EMPNO is a SMALLINT, HIREDATE a DATE, and COMM a
+   * nullable DECIMAL. */
+  @Test void testParallelRangeScan() {
+    for (String column : new String[] {"EMPNO", "HIREDATE", "COMM"}) {
+      final String model = "{\n"
+          + "  version: '1.0',\n"
+          + "  defaultSchema: 'SCOTT',\n"
+          + "  schemas: [\n"
+          + JdbcTest.SCOTT_SCHEMA.replace("jdbcSchema: ",
+              "fetchSize: 5,\n"
+              + "       parallelism: 3,\n"
+              + "       partitionColumns: {EMP: '" + column + "'},\n"
+              + "       jdbcSchema: ")
+          + "  ]\n"
+          + "}";
+      final List<String> sqls = new ArrayList<>();
+      CalciteAssert.model(model)
+          .query("select * from emp")
+          .explainContains("PLAN=JdbcToEnumerableConverter\n"
+              + "  JdbcTableScan(table=[[SCOTT, EMP]])")
+          .withHook(Hook.QUERY_PLAN, (Consumer<String>) sqls::add)
+          .returnsCount(14);
+      final String c = "\"" + column + "\"";
+      final String scan = "SELECT *\nFROM \"SCOTT\".\"EMP\" WHERE ";
+      assertThat(sqls,
+          hasItems(scan + c + " < ?",
+              scan + c + " >= ? AND " + c + " < ?",
+              scan + c + " >= ?",
+              scan + c + " IS NULL"));
+    }
+  }
+
+  /** Tests that, with a statement cache, a literal in a pushed-down filter
+   * is sent as a parameter of a prepared statement. */
+  @Test void testParameterizeLiterals() {
+    for (int i = 0; i < 2; i++) {
+      CalciteAssert.model(STATEMENT_CACHE_MODEL)
+          .query("select ename from emp where empno = 7369")
+          .enable(CalciteAssert.DB == DatabaseInstance.HSQLDB)
+          .returns("ENAME=SMITH\n")
+          .planHasSql("SELECT \"ENAME\"\n"
+              + "FROM \"SCOTT\".\"EMP\"\n"
+              + "WHERE \"EMPNO\" = ?");
+    }
+  }
+
+  /** Tests that parameterized literals and the query's own dynamic
+   * parameters are bound to the right positions of the prepared
+   * statement. */
+  @Test void testParameterizeLiteralsWithDynamicParam() {
+    CalciteAssert.model(STATEMENT_CACHE_MODEL)
+        .query("select ename from emp where empno > 7600 and deptno = ?")
+        .consumesPreparedStatement(p -> p.setInt(1, 30))
+        .enable(CalciteAssert.DB == DatabaseInstance.HSQLDB)
+        .returnsUnordered("ENAME=MARTIN",
+            "ENAME=BLAKE",
+            "ENAME=TURNER",
+            "ENAME=JAMES")
+        .planHasSql("SELECT \"ENAME\"\n"
+            + "FROM \"SCOTT\".\"EMP\"\n"
+            + "WHERE \"EMPNO\" > ? AND \"DEPTNO\" = ?");
+  }
+
   /**
    * Test case for
    * <a href="https://issues.apache.org/jira/browse/CALCITE-3115">[CALCITE-3115]
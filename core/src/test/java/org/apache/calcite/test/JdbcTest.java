@@ -48,6 +48,7 @@
 import org.apache.calcite.linq4j.function.Function0;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptPlannerMetrics;
 import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.prepare.CalcitePrepareImpl;
@@ -3268,6 +3269,39 @@ public void checkOrderBy(final boolean desc,
             "deptno=10; commission=250; S=11500.0");
   }
 
+  /** Tests GROUP BY a nullable INTEGER column, with
+   * {@link CalciteConnectionProperty#PRIMITIVE_HASH_KEYS}, so that the
+   * aggregate holds its keys as primitive values. */
+  @Test void testGroupByPrimitiveNullableKey() {
+    CalciteAssert.hr()
+        .with(CalciteConnectionProperty.PRIMITIVE_HASH_KEYS, true)
+        .query("select \"commission\", count(*) as c, sum(\"salary\") as s\n"
+            + "from \"hr\".\"emps\"\n"
+            + "group by \"commission\"")
+        .planContains("groupByLong(")
+        .returnsUnordered(
+            "commission=null; C=1; S=7000.0",
+            "commission=500; C=1; S=8000.0",
+            "commission=1000; C=1; S=10000.0",
+            "commission=250; C=1; S=11500.0");
+  }
+
+  /** As {@link #testGroupByPrimitiveNullableKey()}, but the key is a
+   * DATE. */
+  @Test void testGroupByPrimitiveDateKey() {
+    CalciteAssert.hr()
+        .with(CalciteConnectionProperty.PRIMITIVE_HASH_KEYS, true)
+        .query("select d, count(*) as c\n"
+            + "from (values (date '2020-01-01'), (date '2020-01-02'),\n"
+            + "  (date '2020-01-01'), (cast(null as date))) as t(d)\n"
+            + "group by d")
+        .planContains("groupByLong(")
+        .returnsUnordered(
+            "D=null; C=1",
+            "D=2020-01-01; C=2",
+            "D=2020-01-02; C=1");
+  }
+
   @Test void testGroupingSets() {
     CalciteAssert.hr()
         .query("select \"deptno\", count(*) as c, sum(\"salary\") as s\n"
@@ -5082,6 +5116,53 @@ private CalciteAssert.AssertQuery withEmpDept(String sql) {
         .returns("C=3\n");
   }
 
+  /** Tests {@link Hook#PLANNER_METRICS}, and that the PLANNER_METRICS table
+   * in the metadata schema contains the metrics that it received. */
+  @Test void testMetaPlannerMetrics() {
+    final List<RelOptPlannerMetrics> list = new ArrayList<>();
+    try (Hook.Closeable ignored =
+             Hook.PLANNER_METRICS.<RelOptPlannerMetrics>addThread(list::add)) {
+      CalciteAssert.that()
+          .with(CalciteAssert.Config.REGULAR_PLUS_METADATA)
+          .query("select \"name\" from \"hr\".\"emps\"\n"
+              + "where \"deptno\" = 20")
+          .returns("name=Eric\n");
+    }
+    assertThat(list.size(), is(1));
+    final RelOptPlannerMetrics metrics = list.get(0);
+    assertTrue(metrics.setCount > 0);
+    assertTrue(metrics.subsetCount >= metrics.setCount);
+    assertTrue(metrics.relCount >= metrics.setCount);
+    assertTrue(metrics.metadataRequestCount > 0);
+    final RelOptPlannerMetrics.RuleMetrics filterMetrics =
+        metrics.rule("EnumerableFilterRule");
+    assertThat(filterMetrics, notNullValue());
+    assertTrue(filterMetrics.attemptCount > 0);
+    assertTrue(filterMetrics.productionCount > 0);
+    assertTrue(filterMetrics.maxNanos <= filterMetrics.totalNanos);
+
+    // Other statements may have been optimized since, so look for the row
+    // by its values rather than by its position
+    CalciteAssert.that()
+        .with(CalciteAssert.Config.REGULAR_PLUS_METADATA)
+        .query("select \"attemptCount\", \"productionCount\",\n"
+            + "  \"setCount\", \"subsetCount\", \"relCount\"\n"
+            + "from \"metadata\".PLANNER_METRICS\n"
+            + "where \"rule\" = 'EnumerableFilterRule'\n"
+            + "and \"setCount\" = " + metrics.setCount + "\n"
+            + "and \"subsetCount\" = " + metrics.subsetCount + "\n"
+            + "and \"relCount\" = " + metrics.relCount + "\n"
+            + "and \"metadataRequestCount\" = "
+            + metrics.metadataRequestCount)
+        .returns(
+            CalciteAssert.checkResultContains("attemptCount="
+                + filterMetrics.attemptCount
+                + "; productionCount=" + filterMetrics.productionCount
+                + "; setCount=" + metrics.setCount
+                + "; subsetCount=" + metrics.subsetCount
+                + "; relCount=" + metrics.relCount));
+  }
+
   /** Tests that {@link java.sql.Statement#setMaxRows(int)} is honored. */
   @Test void testSetMaxRows() throws Exception {
     CalciteAssert.hr()
@@ -5882,6 +5963,20 @@ public CalciteConnection createConnection() throws SQLException {
             + "EXPR$1 CHAR(2) NOT NULL\n");
   }
 
+  /** Tests {@code EXPLAIN ANALYZE}, which executes the query and shows the
+   * actual number of rows returned by each operator. */
+  @Test void testExplainAnalyze() {
+    CalciteAssert.hr()
+        .query("explain analyze for\n"
+            + "select \"name\" from \"hr\".\"emps\" where \"deptno\" = 10")
+        .returns(
+            CalciteAssert.checkResultContains("EnumerableCalc(",
+                "EnumerableTableScan(table=[[hr, emps]], estimatedRows=[",
+                "actualRows=[3], loops=[1], time=[",
+                "actualRows=[4], loops=[1], time=[",
+                "Rows: 3, execution time: "));
+  }
+
   /** Test case for bug where if two tables have different element classes
    * but those classes have identical fields, Calcite would generate code to use
    * the wrong element class; a {@link ClassCastException} would ensue. */
@@ -17,7 +17,10 @@
 package org.apache.calcite.test;
 
 import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.jdbc.CalciteSchema;
 import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.materialize.MaterializationKey;
 import org.apache.calcite.materialize.MaterializationService;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptPredicateList;
@@ -41,8 +44,12 @@
 import org.apache.calcite.rex.RexUtil;
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.schema.QueryableTable;
+import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.schema.TranslatableTable;
+import org.apache.calcite.schema.impl.AbstractSchema;
+import org.apache.calcite.schema.impl.ListTransientTable;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.test.JdbcTest.Department;
 import org.apache.calcite.test.JdbcTest.Dependent;
 import org.apache.calcite.test.JdbcTest.Employee;
@@ -64,10 +71,15 @@
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -210,6 +222,61 @@ private static Sql sql(String materialize, String query) {
     }
   }
 
+  /** Tests that an aggregate materialization is maintained incrementally
+   * when rows are appended to the table that it reads, and that it is not
+   * used while it is stale. */
+  @Test void testIncrementalRefresh() throws Exception {
+    try (IncrementalFixture f = new IncrementalFixture()) {
+      final String sql = "select \"deptno\", count(*) as \"c\",\n"
+          + "  sum(\"sal\") as \"s\", min(\"sal\") as \"lo\",\n"
+          + "  max(\"sal\") as \"hi\"\n"
+          + "from \"emps\"\n"
+          + "group by \"deptno\"";
+      final MaterializationKey key = f.define(sql, "m0");
+      final String query = "select * from \"s\".\"m0\" order by \"deptno\"";
+      assertThat(f.query(query),
+          is("deptno=10; c=2; s=300; lo=100; hi=200\n"
+              + "deptno=20; c=1; s=50; lo=50; hi=50\n"));
+
+      f.append(new Object[] {20, 500}, new Object[] {30, 7});
+      assertThat(f.service.checkValid(key) != null, is(true));
+      assertThat(f.query(query),
+          is("deptno=10; c=2; s=300; lo=100; hi=200\n"
+              + "deptno=20; c=2; s=550; lo=50; hi=500\n"
+              + "deptno=30; c=1; s=7; lo=7; hi=7\n"));
+
+      f.rows.clear();
+      f.service.markStale(CalciteSchema.from(f.rootSchema), f.path);
+      assertNull(f.service.checkValid(key));
+      assertTrue(f.service.refresh(key));
+      assertThat(f.query(query), is(""));
+    }
+  }
+
+  /** Tests that a materialization that groups by a column that it does not
+   * project is re-populated, rather than merged, when rows are appended;
+   * merging on the projected grouping columns (there are none) would
+   * combine every group into one row. */
+  @Test void testIncrementalRefreshUnprojectedGroupKey() throws Exception {
+    try (IncrementalFixture f = new IncrementalFixture()) {
+      final String sql = "select count(*) as \"c\", sum(\"sal\") as \"s\"\n"
+          + "from \"emps\"\n"
+          + "group by \"deptno\"";
+      final MaterializationKey key = f.define(sql, "m1");
+      final String query = "select * from \"s\".\"m1\" order by \"s\"";
+      assertThat(f.query(query),
+          is("c=1; s=50\n"
+              + "c=2; s=300\n"));
+
+      f.append(new Object[] {20, 500}, new Object[] {30, 7});
+      assertThat(f.service.checkValid(key) != null, is(true));
+      assertThat(f.query(query),
+          is("c=1; s=7\n"
+              + "c=2; s=300\n"
+              + "c=2; s=550\n"));
+    }
+  }
+
   /** Checks that a given query can use a materialized view with a given
    * definition. */
   static CalciteAssert.AssertQuery checkThatMaterialize_(String materialize,
@@ -3123,6 +3190,63 @@ public TranslatableTable matview() {
     }
   }
 
+  /** Fixture for tests of incremental refresh. Opens a connection whose
+   * schema "s" contains a modifiable table "emps" (deptno, sal) with three
+   * rows. */
+  private static class IncrementalFixture implements AutoCloseable {
+    final MaterializationService service;
+    final Connection connection;
+    final SchemaPlus rootSchema;
+    final SchemaPlus s;
+    final Collection<Object[]> rows;
+    final List<String> path = ImmutableList.of("s", "emps");
+
+    @SuppressWarnings("unchecked")
+    IncrementalFixture() throws SQLException {
+      MaterializationService.setThreadLocal();
+      service = MaterializationService.instance();
+      connection = DriverManager.getConnection("jdbc:calcite:");
+      final CalciteConnection calciteConnection =
+          connection.unwrap(CalciteConnection.class);
+      rootSchema = calciteConnection.getRootSchema();
+      s = rootSchema.add("s", new AbstractSchema());
+      final ListTransientTable emps =
+          new ListTransientTable("emps",
+              calciteConnection.getTypeFactory().builder()
+                  .add("deptno", SqlTypeName.INTEGER)
+                  .add("sal", SqlTypeName.INTEGER)
+                  .build());
+      s.add("emps", emps);
+      rows = emps.getModifiableCollection();
+      rows.add(new Object[] {10, 100});
+      rows.add(new Object[] {10, 200});
+      rows.add(new Object[] {20, 50});
+    }
+
+    /** Defines a materialization, in schema "s", of a query on "emps". */
+    MaterializationKey define(String sql, String name) {
+      return service.defineMaterialization(CalciteSchema.from(s), null, sql,
+          ImmutableList.of("s"), name, true, false);
+    }
+
+    /** Appends rows to "emps" and refreshes its materializations. */
+    void append(Object[]... delta) {
+      final List<Object[]> list = Arrays.asList(delta);
+      rows.addAll(list);
+      service.refresh(CalciteSchema.from(rootSchema), path, list);
+    }
+
+    String query(String sql) throws SQLException {
+      try (Statement statement = connection.createStatement()) {
+        return CalciteAssert.toString(statement.executeQuery(sql));
+      }
+    }
+
+    public void close() throws SQLException {
+      connection.close();
+    }
+  }
+
   /** Fluent class that contains information necessary to run a test. */
   public interface Sql {
     default void ok() {
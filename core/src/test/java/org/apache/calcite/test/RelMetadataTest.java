@@ -75,6 +75,7 @@
 import org.apache.calcite.rel.metadata.RelMdCollation;
 import org.apache.calcite.rel.metadata.RelMdColumnUniqueness;
 import org.apache.calcite.rel.metadata.RelMdUtil;
+import org.apache.calcite.rel.metadata.RelMetadataCache;
 import org.apache.calcite.rel.metadata.RelMetadataProvider;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.rules.ProjectToCalcRule;
@@ -89,6 +90,7 @@
 import org.apache.calcite.rex.RexProgram;
 import org.apache.calcite.rex.RexTableInputRef;
 import org.apache.calcite.rex.RexTableInputRef.RelTableRef;
+import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.runtime.SqlFunctions;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlOperator;
@@ -120,8 +122,11 @@
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -899,6 +904,68 @@ private void checkRelSelectivity(
     }
   }
 
+  /** Tests that generated metadata handlers are written to the on-disk cache,
+   * and that a provider that has not seen them loads them from there rather
+   * than compiling them again. */
+  @Test void testMetadataHandlerDiskCache() throws IOException {
+    final File directory =
+        Files.createTempDirectory("calcite-metadata-handlers").toFile();
+    try (Hook.Closeable ignored =
+             Hook.METADATA_HANDLER_CACHE_DIRECTORY.addThread(
+                 Hook.propertyJ(directory.getPath()))) {
+      final RelNode rel = convertSql("select * from emp");
+      final RelMetadataProvider metadataProvider =
+          rel.getCluster().getMetadataProvider();
+      final RelOptPlanner planner = rel.getCluster().getPlanner();
+      final Map<String, Long> files = new HashMap<>();
+      for (int i = 0; i < 2; i++) {
+        RelMetadataQuery.THREAD_PROVIDERS.set(
+            JaninoRelMetadataProvider.of(
+                new CachingRelMetadataProvider(metadataProvider, planner)));
+        final RelMetadataQuery mq = RelMetadataQuery.instance();
+        assertThat(mq.getRowCount(rel), within(14d, 0.1d));
+        final Map<String, Long> files2 = new HashMap<>();
+        for (File file : directory.listFiles()) {
+          files2.put(file.getName(), file.lastModified());
+        }
+        assertThat(files2.isEmpty(), is(false));
+        if (i > 0) {
+          // Handlers were loaded, not re-generated and re-written.
+          assertThat(files2, is(files));
+        }
+        files.putAll(files2);
+      }
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  /** Tests that a metadata value computed for one statement is found in the
+   * shared cache by a later statement with the same subtree, and is removed
+   * when its table is invalidated. */
+  @Test void testSharedMetadataCache() {
+    final RelMetadataCache cache =
+        new RelMetadataCache(100_000, RelMetadataCache.DEFAULT_DEFS);
+    final ImmutableBitSet groupKey = ImmutableBitSet.of(0);
+    for (int i = 0; i < 2; i++) {
+      final RelNode rel = convertSql("select * from emp where deptno = 10");
+      final RelMetadataQuery mq = rel.getCluster().getMetadataQuery();
+      mq.sharedCache = cache;
+      final Double result = mq.getDistinctRowCount(rel, groupKey, null);
+      assertThat(result, notNullValue());
+      assertThat(mq.sharedCacheHitCount, is(i == 0 ? 0L : 1L));
+      assertThat(mq.sharedCacheLookupCount > 0, is(true));
+      assertThat(mq.getSharedCacheHitRate(), is(i == 0 ? 0D : 1D));
+    }
+    assertThat(cache.stats().hitCount(), is(1L));
+    assertThat(cache.size() > 0, is(true));
+    cache.invalidate(EMP_QNAME);
+    assertThat(cache.size(), is(0L));
+  }
+
   @Test void testDistinctRowCountTable() {
     // no unique key information is available so return null
     RelNode rel = convertSql("select * from emp where deptno = 10");
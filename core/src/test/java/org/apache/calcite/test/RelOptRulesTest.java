@@ -94,6 +94,7 @@
 import org.apache.calcite.rel.rules.JoinPushExpressionsRule;
 import org.apache.calcite.rel.rules.JoinPushTransitivePredicatesRule;
 import org.apache.calcite.rel.rules.JoinToMultiJoinRule;
+import org.apache.calcite.rel.rules.MultiJoinOptimizeDphypRule;
 import org.apache.calcite.rel.rules.JoinUnionTransposeRule;
 import org.apache.calcite.rel.rules.ProjectCorrelateTransposeRule;
 import org.apache.calcite.rel.rules.ProjectFilterTransposeRule;
@@ -2412,6 +2413,22 @@ private void basePushFilterPastAggWithGroupingSets(boolean unchanged)
     sql(sql).with(program).check();
   }
 
+  /** Tests that {@link MultiJoinOptimizeDphypRule} first joins EMP to DEPT,
+   * estimated at 8.4 rows, rather than EMP to EMP_ADDRESS, estimated at 14
+   * rows; and that it puts the larger input of each join on the left. */
+  @Test void testMultiJoinOptimizeDphyp() {
+    final String sql = "select e.ename, d.name, a.empno\n"
+        + "from emp e\n"
+        + "join dept d on e.deptno = d.deptno\n"
+        + "join emp_address a on e.empno = a.empno";
+    final HepProgram program = new HepProgramBuilder()
+        .addMatchOrder(HepMatchOrder.BOTTOM_UP)
+        .addRuleInstance(JoinToMultiJoinRule.INSTANCE)
+        .addRuleInstance(MultiJoinOptimizeDphypRule.INSTANCE)
+        .build();
+    sql(sql).with(program).check();
+  }
+
   @Test void testManyFiltersOnTopOfMultiJoinShouldCollapse() throws Exception {
     HepProgram program = new HepProgramBuilder()
         .addMatchOrder(HepMatchOrder.BOTTOM_UP)
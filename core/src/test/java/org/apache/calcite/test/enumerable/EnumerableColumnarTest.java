@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test.enumerable;
+
+import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.config.Lex;
+import org.apache.calcite.test.CalciteAssert;
+import org.apache.calcite.test.JdbcTest;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for
+ * {@link org.apache.calcite.adapter.columnar.ColumnarConvention}.
+ */
+class EnumerableColumnarTest {
+
+  @Test void filter() {
+    tester(true)
+        .query("select empid, name from s.emps\n"
+            + "where deptno = 10 and salary > 8000")
+        .explainContains("ColumnarFilter")
+        .returnsUnordered("empid=100; name=Bill",
+            "empid=110; name=Theodore");
+  }
+
+  @Test void filterWithNulls() {
+    tester(true)
+        .query("select empid, commission + 1 as c from s.emps\n"
+            + "where commission is null or commission < 600")
+        .returnsUnordered("empid=200; c=501",
+            "empid=150; c=null",
+            "empid=110; c=251");
+  }
+
+  /** The filter sets a selection vector rather than copying rows, so the
+   * project sees the rows that were filtered out; dividing by zero in those
+   * rows must not fail. */
+  @Test void filterThenDivide() {
+    tester(true)
+        .query("select empid, 1000 / (deptno - 20) as q from s.emps\n"
+            + "where deptno <> 20")
+        .explainContains("ColumnarFilter")
+        .returnsUnordered("empid=100; q=-100",
+            "empid=150; q=-100",
+            "empid=110; q=-100");
+  }
+
+  @Test void filterThenAggregate() {
+    tester(true)
+        .query("select deptno, count(*) as c, sum(empid) as s\n"
+            + "from s.emps\n"
+            + "where empid > 100\n"
+            + "group by deptno")
+        .explainContains("ColumnarFilter")
+        .returnsUnordered("deptno=10; c=2; s=260",
+            "deptno=20; c=1; s=200");
+  }
+
+  @Test void aggregate() {
+    tester(true)
+        .query("select deptno, count(*) as c, sum(empid) as s,\n"
+            + "  max(commission) as m\n"
+            + "from s.emps\n"
+            + "group by deptno")
+        .explainContains("ColumnarAggregate")
+        .returnsUnordered("deptno=10; c=3; s=360; m=1000",
+            "deptno=20; c=1; s=200; m=500");
+  }
+
+  @Test void join() {
+    tester(true)
+        .query("select e.name, d.name as dname\n"
+            + "from s.emps e\n"
+            + "join s.depts d on e.deptno = d.deptno")
+        .explainContains("ColumnarHashJoin")
+        .returnsUnordered("name=Bill; dname=Sales",
+            "name=Sebastian; dname=Sales",
+            "name=Theodore; dname=Sales");
+  }
+
+  @Test void leftJoin() {
+    tester(true)
+        .query("select e.name, d.name as dname\n"
+            + "from s.emps e\n"
+            + "left join s.depts d on e.deptno = d.deptno")
+        .returnsUnordered("name=Bill; dname=Sales",
+            "name=Eric; dname=null",
+            "name=Sebastian; dname=Sales",
+            "name=Theodore; dname=Sales");
+  }
+
+  /** Reads batches from the {@link org.apache.calcite.adapter.clone.ArrayTable}
+   * tables of a clone schema, rather than converting rows. */
+  @Test void cloneSchemaAggregate() {
+    cloneTester()
+        .query("select deptno, count(*) as c, max(empno) as m\n"
+            + "from scott.emp\n"
+            + "where empno > 7700\n"
+            + "group by deptno")
+        .explainContains("ColumnarTableScan")
+        .returnsUnordered("DEPTNO=10; C=3; M=7934",
+            "DEPTNO=20; C=3; M=7902",
+            "DEPTNO=30; C=2; M=7900");
+  }
+
+  @Test void cloneSchemaJoin() {
+    cloneTester()
+        .query("select e.ename, d.dname\n"
+            + "from scott.emp e\n"
+            + "join scott.dept d on e.deptno = d.deptno\n"
+            + "where e.empno > 7900")
+        .explainContains("ColumnarTableScan")
+        .returnsUnordered("ENAME=FORD; DNAME=RESEARCH",
+            "ENAME=MILLER; DNAME=ACCOUNTING");
+  }
+
+  /** Columnar operators are used only if the "columnar" connection property
+   * is set. */
+  @Test void disabledByDefault() {
+    tester(false)
+        .query("select empid from s.emps where deptno = 20")
+        .explainMatches("", CalciteAssert.checkResultContains(
+            "Columnar", 0))
+        .returnsUnordered("empid=200");
+  }
+
+  private CalciteAssert.AssertThat tester(boolean columnar) {
+    return CalciteAssert.that()
+        .with(CalciteConnectionProperty.LEX, Lex.JAVA)
+        .with(CalciteConnectionProperty.COLUMNAR, columnar)
+        .withSchema("s", new ReflectiveSchema(new JdbcTest.HrSchema()));
+  }
+
+  private CalciteAssert.AssertThat cloneTester() {
+    return CalciteAssert.that()
+        .with(CalciteConnectionProperty.COLUMNAR, true)
+        .with(CalciteAssert.SchemaSpec.SCOTT);
+  }
+}
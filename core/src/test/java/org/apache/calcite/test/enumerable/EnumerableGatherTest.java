@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test.enumerable;
+
+import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.config.Lex;
+import org.apache.calcite.test.CalciteAssert;
+import org.apache.calcite.test.JdbcTest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+
+/**
+ * Tests for {@link org.apache.calcite.adapter.enumerable.EnumerableGather}
+ * and {@link org.apache.calcite.adapter.enumerable.EnumerableScatter}, which
+ * are used when {@link CalciteConnectionProperty#PARALLELISM} is set.
+ */
+class EnumerableGatherTest {
+
+  @Test void filterInParallel() {
+    tester(4)
+        .query("select empid, name from s.emps where deptno = 10")
+        .explainContains("EnumerableGather")
+        .explainContains("EnumerableScatter(parallelism=[4])")
+        .returnsUnordered("empid=100; name=Bill",
+            "empid=110; name=Theodore",
+            "empid=150; name=Sebastian");
+  }
+
+  @Test void aggregateInParallel() {
+    tester(4)
+        .query("select deptno, count(*) as c, sum(salary) as s,\n"
+            + "  min(empid) as m\n"
+            + "from s.emps group by deptno")
+        .explainContains("EnumerableScatter(parallelism=[4])")
+        .returnsUnordered("deptno=10; c=3; s=28500.0; m=100",
+            "deptno=20; c=1; s=8000.0; m=200");
+  }
+
+  /** Threads that read no rows still produce a partial aggregate, which must
+   * not change the result. */
+  @Test void aggregateWithoutGroupByInParallel() {
+    tester(8)
+        .query("select count(*) as c, max(salary) as m from s.emps")
+        .returnsUnordered("c=4; m=11500.0");
+  }
+
+  /** A calc that calls a non-deterministic function is not evaluated in
+   * several threads, because the function may not be thread-safe. */
+  @Test void nonDeterministicCalcIsNotParallel() {
+    tester(4)
+        .query("select empid, rand() as r from s.emps where deptno = 10")
+        .explainHookMatches(not(containsString("EnumerableScatter")))
+        .returnsCount(3);
+  }
+
+  private CalciteAssert.AssertThat tester(int parallelism) {
+    return CalciteAssert.that()
+        .with(CalciteConnectionProperty.LEX, Lex.JAVA)
+        .with(CalciteConnectionProperty.PARALLELISM, parallelism)
+        .withSchema("s", new ReflectiveSchema(new JdbcTest.HrSchema()));
+  }
+}
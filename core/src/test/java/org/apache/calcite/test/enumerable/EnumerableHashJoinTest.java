@@ -198,6 +198,43 @@ class EnumerableHashJoinTest {
             "name=Sebastian; salary=7000.0");
   }
 
+  /** Tests a join on a nullable INTEGER column, with
+   * {@link CalciteConnectionProperty#PRIMITIVE_HASH_KEYS}; rows whose key
+   * is null do not match. */
+  @Test void innerJoinOnPrimitiveNullableKey() {
+    tester(false, new JdbcTest.HrSchema())
+        .with(CalciteConnectionProperty.PRIMITIVE_HASH_KEYS, true)
+        .query("select e1.empid, e2.empid as empid2\n"
+            + "from emps e1\n"
+            + "join emps e2 on e1.commission = e2.commission")
+        .withHook(Hook.PLANNER, (Consumer<RelOptPlanner>) planner ->
+            planner.removeRule(EnumerableRules.ENUMERABLE_MERGE_JOIN_RULE))
+        .planContains("longHashJoin(")
+        .returnsUnordered(
+            "empid=100; empid2=100",
+            "empid=110; empid2=110",
+            "empid=200; empid2=200");
+  }
+
+  /** As {@link #innerJoinOnPrimitiveNullableKey()}, but the key is a DATE
+   * and the join is a left join. */
+  @Test void leftJoinOnPrimitiveDateKey() {
+    tester(false, new JdbcTest.HrSchema())
+        .with(CalciteConnectionProperty.PRIMITIVE_HASH_KEYS, true)
+        .query("select t.x, u.y\n"
+            + "from (values (date '2020-01-01', 1), (date '2020-01-02', 2),\n"
+            + "  (cast(null as date), 3)) as t(d, x)\n"
+            + "left join (values (date '2020-01-01', 'a'),\n"
+            + "  (cast(null as date), 'b')) as u(d, y) on t.d = u.d")
+        .withHook(Hook.PLANNER, (Consumer<RelOptPlanner>) planner ->
+            planner.removeRule(EnumerableRules.ENUMERABLE_MERGE_JOIN_RULE))
+        .planContains("longHashJoin(")
+        .returnsUnordered(
+            "x=1; y=a",
+            "x=2; y=null",
+            "x=3; y=null");
+  }
+
   private CalciteAssert.AssertThat tester(boolean forceDecorrelate,
       Object schema) {
     return CalciteAssert.that()
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test.enumerable;
+
+import org.apache.calcite.adapter.enumerable.EnumerableRules;
+import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.config.Lex;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.runtime.Hook;
+import org.apache.calcite.test.CalciteAssert;
+import org.apache.calcite.test.JdbcTest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+/**
+ * Unit test for
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableLimitSort}.
+ */
+class EnumerableLimitSortTest {
+
+  @Test void limitSort() {
+    tester()
+        .query("select empid, name from s.emps\n"
+            + "order by salary desc limit 2")
+        .withHook(Hook.PLANNER, (Consumer<RelOptPlanner>) planner ->
+            planner.addRule(EnumerableRules.ENUMERABLE_LIMIT_SORT_RULE))
+        .explainContains("EnumerableLimitSort(sort0=")
+        .returnsOrdered("empid=110; name=Theodore",
+            "empid=100; name=Bill");
+  }
+
+  @Test void limitSortWithOffset() {
+    tester()
+        .query("select empid from s.emps\n"
+            + "order by deptno, empid limit 2 offset 1")
+        .withHook(Hook.PLANNER, (Consumer<RelOptPlanner>) planner ->
+            planner.addRule(EnumerableRules.ENUMERABLE_LIMIT_SORT_RULE))
+        .explainContains("offset=[1], fetch=[2])")
+        .returnsOrdered("empid=110",
+            "empid=150");
+  }
+
+  @Test void limitSortOffsetBeyondInput() {
+    tester()
+        .query("select empid from s.emps\n"
+            + "order by empid limit 3 offset 10")
+        .withHook(Hook.PLANNER, (Consumer<RelOptPlanner>) planner ->
+            planner.addRule(EnumerableRules.ENUMERABLE_LIMIT_SORT_RULE))
+        .returnsOrdered();
+  }
+
+  private CalciteAssert.AssertThat tester() {
+    return CalciteAssert.that()
+        .with(CalciteConnectionProperty.LEX, Lex.JAVA)
+        .with(CalciteConnectionProperty.FORCE_DECORRELATE, false)
+        .withSchema("s", new ReflectiveSchema(new JdbcTest.HrSchema()));
+  }
+}
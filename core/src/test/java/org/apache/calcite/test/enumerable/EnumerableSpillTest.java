@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test.enumerable;
+
+import org.apache.calcite.adapter.java.ReflectiveSchema;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.config.Lex;
+import org.apache.calcite.linq4j.Spiller;
+import org.apache.calcite.test.CalciteAssert;
+import org.apache.calcite.test.JdbcTest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests for
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableSort},
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableAggregate} and
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableHashJoin} when
+ * {@link CalciteConnectionProperty#SPILL_THRESHOLD} is set.
+ */
+class EnumerableSpillTest {
+
+  @Test void sortSpills() {
+    final long spillCount = Spiller.spillCount();
+    tester(1)
+        .query("select empid from s.emps order by salary")
+        .explainContains("spillThreshold=[1]")
+        .returnsOrdered("empid=150",
+            "empid=200",
+            "empid=100",
+            "empid=110");
+    assertThat(Spiller.spillCount() > spillCount, is(true));
+  }
+
+  @Test void aggregateSpills() {
+    final long spillCount = Spiller.spillCount();
+    tester(1)
+        .query("select deptno, count(*) as c, sum(salary) as s\n"
+            + "from s.emps group by deptno")
+        .explainContains("spillThreshold=[1]")
+        .returnsUnordered("deptno=10; c=3; s=28500.0",
+            "deptno=20; c=1; s=8000.0");
+    assertThat(Spiller.spillCount() > spillCount, is(true));
+  }
+
+  @Test void hashJoinSpills() {
+    final long spillCount = Spiller.spillCount();
+    tester(1)
+        .query("select e.empid, d.deptno\n"
+            + "from s.depts as d left join s.emps as e on d.deptno = e.deptno")
+        .explainContains("spillThreshold=[1]")
+        .returnsUnordered("empid=100; deptno=10",
+            "empid=110; deptno=10",
+            "empid=150; deptno=10",
+            "empid=null; deptno=30",
+            "empid=null; deptno=40");
+    assertThat(Spiller.spillCount() > spillCount, is(true));
+  }
+
+  private CalciteAssert.AssertThat tester(int spillThreshold) {
+    return CalciteAssert.that()
+        .with(CalciteConnectionProperty.LEX, Lex.JAVA)
+        .with(CalciteConnectionProperty.SPILL_THRESHOLD, spillThreshold)
+        .withSchema("s", new ReflectiveSchema(new JdbcTest.HrSchema()));
+  }
+}
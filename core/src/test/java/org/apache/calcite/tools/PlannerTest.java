@@ -28,6 +28,7 @@
 import org.apache.calcite.config.Lex;
 import org.apache.calcite.plan.ConventionTraitDef;
 import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptPredicateList;
 import org.apache.calcite.plan.RelOptRule;
@@ -103,11 +104,13 @@
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -932,8 +935,53 @@ public void onMatch(RelOptRuleCall call) {
     checkJoinNWay(60); // takes about 15s
   }
 
+  /** Plans a 12-way join by dynamic programming, and a 20-way join, for
+   * which {@link org.apache.calcite.rel.rules.MultiJoinOptimizeDphypRule}
+   * falls back to {@link org.apache.calcite.rel.rules.LoptOptimizeJoinRule}.
+   * Neither plan contains a cartesian product.
+   *
+   * <p>Every join in the chain multiplies the row count, so the best plan
+   * joins short chains and then joins their results; the 12-way plan found
+   * by dynamic programming is cheaper than the greedy plan. The 20-way plan
+   * is the greedy plan. */
+  @Test void testPlanNWayJoinDphyp() throws Exception {
+    for (int n : new int[] {12, 20}) {
+      final RelNode dphyp =
+          planJoinNWay(n, Programs.dphypJoinOrder(Programs.RULE_SET, 6));
+      final String plan = toString(dphyp);
+      assertThat(plan, containsString("joinType=[inner]"));
+      assertThat(plan, not(containsString("condition=[true]")));
+
+      final RelNode greedy =
+          planJoinNWay(n,
+              Programs.heuristicJoinOrder(Programs.RULE_SET, false, 6));
+      final RelOptCost dphypCost = cumulativeCost(dphyp);
+      final RelOptCost greedyCost = cumulativeCost(greedy);
+      if (n == 12) {
+        assertTrue(dphypCost.isLt(greedyCost),
+            () -> dphypCost + " should be less than " + greedyCost);
+      } else {
+        assertThat(plan, is(toString(greedy)));
+      }
+    }
+  }
+
+  private static RelOptCost cumulativeCost(RelNode rel) {
+    return rel.getCluster().getMetadataQuery().getCumulativeCost(rel);
+  }
+
   /** Test that plans a query with a large number of joins. */
   private void checkJoinNWay(int n) throws Exception {
+    assertThat(
+        toString(
+            planJoinNWay(n,
+                Programs.heuristicJoinOrder(Programs.RULE_SET, false, 6))),
+        containsString(
+            "EnumerableMergeJoin(condition=[=($0, $5)], joinType=[inner])"));
+  }
+
+  /** Plans a chain of {@code n} joins with a given program. */
+  private RelNode planJoinNWay(int n, Program program) throws Exception {
     // Here the times before and after enabling LoptOptimizeJoinRule.
     //
     // Note the jump between N=6 and N=7; LoptOptimizeJoinRule is disabled if
@@ -958,18 +1006,14 @@ private void checkJoinNWay(int n) throws Exception {
       buf.append("\njoin \"depts\" as d").append(i);
       buf.append("\non d").append(i).append(".\"deptno\" = d").append(i - 1).append(".\"deptno\"");
     }
-    Planner planner = getPlanner(null,
-        Programs.heuristicJoinOrder(Programs.RULE_SET, false, 6));
+    Planner planner = getPlanner(null, program);
     SqlNode parse = planner.parse(buf.toString());
 
     SqlNode validate = planner.validate(parse);
     RelNode convert = planner.rel(validate).project();
     RelTraitSet traitSet = convert.getTraitSet()
         .replace(EnumerableConvention.INSTANCE);
-    RelNode transform = planner.transform(0, traitSet, convert);
-    assertThat(toString(transform),
-        containsString(
-            "EnumerableMergeJoin(condition=[=($0, $5)], joinType=[inner])"));
+    return planner.transform(0, traitSet, convert);
   }
 
   /** Test case for
@@ -55,6 +55,21 @@ public class ElasticsearchSchema extends AbstractSchema {
    */
   private final int fetchSize;
 
+  /**
+   * How long to keep a scroll context alive between two requests.
+   */
+  private final String scrollKeepAlive;
+
+  /**
+   * Number of slices in which to split a scroll.
+   */
+  private final int scrollSlices;
+
+  /**
+   * Number of pages to fetch ahead of the consumer.
+   */
+  private final int prefetch;
+
   /**
    * Allows schema to be instantiated from existing elastic search client.
    *
@@ -69,12 +84,38 @@ public ElasticsearchSchema(RestClient client, ObjectMapper mapper, String index)
   @VisibleForTesting
   ElasticsearchSchema(RestClient client, ObjectMapper mapper,
                       String index, int fetchSize) {
+    this(client, mapper, index, fetchSize,
+        ElasticsearchTransport.DEFAULT_SCROLL_KEEP_ALIVE, 1, 0);
+  }
+
+  /**
+   * Creates a schema with explicit scrolling settings.
+   *
+   * @param client existing client instance
+   * @param mapper mapper for JSON (de)serialization
+   * @param index name of ES index, or null for all indices
+   * @param fetchSize number of documents per scroll page
+   * @param scrollKeepAlive how long to keep a scroll context alive, e.g. {@code 1m}
+   * @param scrollSlices number of slices to scroll concurrently
+   * @param prefetch number of pages to fetch ahead of the consumer, per slice
+   */
+  ElasticsearchSchema(RestClient client, ObjectMapper mapper,
+                      String index, int fetchSize, String scrollKeepAlive,
+                      int scrollSlices, int prefetch) {
     super();
     this.client = Objects.requireNonNull(client, "client");
     this.mapper = Objects.requireNonNull(mapper, "mapper");
     Preconditions.checkArgument(fetchSize > 0,
         "invalid fetch size. Expected %s > 0", fetchSize);
+    Preconditions.checkArgument(scrollSlices > 0,
+        "invalid number of slices. Expected %s > 0", scrollSlices);
+    Preconditions.checkArgument(prefetch >= 0,
+        "invalid prefetch. Expected %s >= 0", prefetch);
     this.fetchSize = fetchSize;
+    this.scrollKeepAlive =
+        Objects.requireNonNull(scrollKeepAlive, "scrollKeepAlive");
+    this.scrollSlices = scrollSlices;
+    this.prefetch = prefetch;
 
     if (index == null) {
       try {
@@ -95,7 +136,7 @@ private Map<String, Table> createTables(Iterable<String> indices) {
     final ImmutableMap.Builder<String, Table> builder = ImmutableMap.builder();
     for (String index : indices) {
       final ElasticsearchTransport transport = new ElasticsearchTransport(client, mapper,
-          index, fetchSize);
+          index, fetchSize, scrollKeepAlive, scrollSlices, prefetch);
       builder.put(index, new ElasticsearchTable(transport));
     }
     return builder.build();
@@ -90,13 +90,34 @@ public ElasticsearchSchemaFactory() {
       // create client
       final RestClient client = connect(hosts, pathPrefix);
       final String index = (String) map.get("index");
-
-      return new ElasticsearchSchema(client, new ObjectMapper(), index);
+      final int fetchSize = intOperand(map, "fetchSize",
+          ElasticsearchTransport.DEFAULT_FETCH_SIZE);
+      final String keepAlive = map.containsKey("keepAlive")
+          ? map.get("keepAlive").toString()
+          : ElasticsearchTransport.DEFAULT_SCROLL_KEEP_ALIVE;
+      final int slices = intOperand(map, "slices", 1);
+      final int prefetch = intOperand(map, "prefetch", 0);
+
+      return new ElasticsearchSchema(client, new ObjectMapper(), index,
+          fetchSize, keepAlive, slices, prefetch);
     } catch (IOException e) {
       throw new RuntimeException("Cannot parse values from json", e);
     }
   }
 
+  /**
+   * Reads an integer operand, which may be given as a number or a string.
+   */
+  private static int intOperand(Map map, String name, int defaultValue) {
+    final Object value = map.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    return value instanceof Number
+        ? ((Number) value).intValue()
+        : Integer.parseInt(value.toString());
+  }
+
   /**
    * Builds elastic rest client from user configuration
    * @param hosts list of ES HTTP Hosts to connect to
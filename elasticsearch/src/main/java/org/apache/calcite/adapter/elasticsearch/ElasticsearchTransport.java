@@ -66,6 +66,8 @@ final class ElasticsearchTransport {
 
   static final int DEFAULT_FETCH_SIZE = 5196;
 
+  static final String DEFAULT_SCROLL_KEEP_ALIVE = "1m";
+
   private final ObjectMapper mapper;
   private final RestClient restClient;
 
@@ -81,14 +83,47 @@ final class ElasticsearchTransport {
    */
   final int fetchSize;
 
+  /**
+   * How long elastic keeps a scroll context alive between two requests,
+   * for example {@code 1m}
+   */
+  final String scrollKeepAlive;
+
+  /**
+   * Number of slices in which to split a scroll, each read concurrently;
+   * 1 means a single (unsliced) scroll
+   */
+  final int scrollSlices;
+
+  /**
+   * Number of pages to fetch ahead of the consumer, per slice;
+   * 0 means fetch each page only when the previous one is consumed
+   */
+  final int prefetch;
+
   ElasticsearchTransport(final RestClient restClient,
                          final ObjectMapper mapper,
                          final String indexName,
                          final int fetchSize) {
+    this(restClient, mapper, indexName, fetchSize, DEFAULT_SCROLL_KEEP_ALIVE,
+        1, 0);
+  }
+
+  ElasticsearchTransport(final RestClient restClient,
+                         final ObjectMapper mapper,
+                         final String indexName,
+                         final int fetchSize,
+                         final String scrollKeepAlive,
+                         final int scrollSlices,
+                         final int prefetch) {
     this.mapper = Objects.requireNonNull(mapper, "mapper");
     this.restClient = Objects.requireNonNull(restClient, "restClient");
     this.indexName = Objects.requireNonNull(indexName, "indexName");
     this.fetchSize = fetchSize;
+    this.scrollKeepAlive =
+        Objects.requireNonNull(scrollKeepAlive, "scrollKeepAlive");
+    this.scrollSlices = scrollSlices;
+    this.prefetch = prefetch;
     this.version = version(); // cache version
     this.mapping = fetchAndCreateMapping(); // cache mapping
   }
@@ -148,7 +183,7 @@ Function<String, ElasticsearchJson.Result> scroll() {
       // fetch next scroll
       final HttpPost request = new HttpPost(URI.create("/_search/scroll"));
       final ObjectNode payload = mapper.createObjectNode()
-          .put("scroll", "1m")
+          .put("scroll", scrollKeepAlive)
           .put("scroll_id", scrollId);
 
       try {
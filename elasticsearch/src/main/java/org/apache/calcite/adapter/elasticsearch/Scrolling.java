@@ -20,10 +20,22 @@
 import com.google.common.base.Preconditions;
 import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -31,10 +43,22 @@
  * <a href="https://www.elastic.co/guide/en/elasticsearch/reference/current/search-request-scroll.html">Elastic Scrolling API</a>
  * to optimally consume large search results.
  *
+ * <p>If the transport has a positive {@link ElasticsearchTransport#prefetch}
+ * or more than one {@link ElasticsearchTransport#scrollSlices slice}, pages
+ * are fetched on background threads: each slice of a
+ * <a href="https://www.elastic.co/guide/en/elasticsearch/reference/current/search-request-scroll.html#sliced-scroll">sliced scroll</a>
+ * is read by its own thread, which requests the next page while the consumer
+ * reads the current one. Pages from different slices are returned in the
+ * order they arrive, so slicing is not used for sorted queries.
+ *
  * <p>This class is <strong>not thread safe</strong>.
  */
 class Scrolling {
 
+  /** Interval at which a blocked background fetch checks whether the
+   * consumer has closed the iterator. */
+  private static final long POLL_MILLIS = 100;
+
   private final ElasticsearchTransport transport;
   private final int fetchSize;
 
@@ -60,12 +84,25 @@ Iterator<ElasticsearchJson.SearchHit> query(ObjectNode query) {
     }
 
     query.put("size", fetchSize);
-    final ElasticsearchJson.Result first = transport
-        .search(Collections.singletonMap("scroll", "1m")).apply(query);
-
-    AutoClosingIterator iterator = new AutoClosingIterator(
-        new SequentialIterator(first, transport, limit),
-        scrollId -> transport.closeScroll(Collections.singleton(scrollId)));
+    final int slices = slices(query);
+    final Iterator<ElasticsearchJson.Result> iterator;
+    if (slices == 1 && transport.prefetch == 0) {
+      final ElasticsearchJson.Result first =
+          transport.search(scrollParams()).apply(query);
+      iterator = new AutoClosingIterator(
+          new SequentialIterator(first, transport, limit),
+          scrollId -> transport.closeScroll(Collections.singleton(scrollId)));
+    } else {
+      final List<ObjectNode> queries = new ArrayList<>();
+      for (int i = 0; i < slices; i++) {
+        final ObjectNode slice = query.deepCopy();
+        if (slices > 1) {
+          slice.putObject("slice").put("id", i).put("max", slices);
+        }
+        queries.add(slice);
+      }
+      iterator = new PrefetchingIterator(queries, limit);
+    }
 
     Iterator<ElasticsearchJson.SearchHit> result = flatten(iterator);
     // apply limit
@@ -73,7 +110,26 @@ Iterator<ElasticsearchJson.SearchHit> query(ObjectNode query) {
       result = Iterators.limit(result, (int) limit);
     }
 
-    return result;
+    // release scroll(s) when the caller closes the iterator early
+    return new ClosingIterator<>(result, (AutoCloseable) iterator);
+  }
+
+  private Map<String, String> scrollParams() {
+    return Collections.singletonMap("scroll", transport.scrollKeepAlive);
+  }
+
+  /**
+   * Returns the number of slices to scroll. Sliced scroll requires elastic 5
+   * or later, and is not used for sorted queries, because slices are merged
+   * in arrival order.
+   */
+  private int slices(ObjectNode query) {
+    if (transport.scrollSlices <= 1
+        || query.has("sort")
+        || transport.version == ElasticsearchVersion.ES2) {
+      return 1;
+    }
+    return transport.scrollSlices;
   }
 
   /**
@@ -133,6 +189,174 @@ private AutoClosingIterator(
     }
   }
 
+  /**
+   * Iterator that delegates to another iterator, and closes a resource when it
+   * is closed.
+   *
+   * @param <E> element type
+   */
+  private static class ClosingIterator<E> implements Iterator<E>, AutoCloseable {
+    private final Iterator<E> delegate;
+    private final AutoCloseable closeable;
+
+    private ClosingIterator(Iterator<E> delegate, AutoCloseable closeable) {
+      this.delegate = delegate;
+      this.closeable = closeable;
+    }
+
+    @Override public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override public E next() {
+      return delegate.next();
+    }
+
+    @Override public void close() throws Exception {
+      closeable.close();
+    }
+  }
+
+  /**
+   * Iterator over the pages of one or more scroll slices, each of which is
+   * fetched by a background thread. A thread requests the next page of its
+   * slice as soon as it has handed over the previous one, keeping up to
+   * {@link ElasticsearchTransport#prefetch} pages per slice (at least one)
+   * ready for the consumer.
+   */
+  private class PrefetchingIterator
+      implements Iterator<ElasticsearchJson.Result>, AutoCloseable {
+    /** Marks the end of a slice. */
+    private final Object end = new Object();
+    private final BlockingQueue<Object> queue;
+    private final ExecutorService executor;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final int slices;
+    private int finished;
+    private ElasticsearchJson.Result next;
+    private volatile boolean closed;
+
+    private PrefetchingIterator(List<ObjectNode> queries, long limit) {
+      this.slices = queries.size();
+      this.queue =
+          new ArrayBlockingQueue<>(slices * Math.max(1, transport.prefetch));
+      this.executor = Executors.newFixedThreadPool(slices,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("elasticsearch-scroll-%d")
+              .build());
+      for (ObjectNode query : queries) {
+        futures.add(executor.submit(() -> fetch(query, limit)));
+      }
+    }
+
+    /** Fetches the pages of one slice, until all are fetched, the limit is
+     * reached, or the iterator is closed; then closes the slice's scroll. */
+    private void fetch(ObjectNode query, long limit) {
+      String scrollId = null;
+      try {
+        ElasticsearchJson.Result page = transport.search(scrollParams()).apply(query);
+        long count = 0;
+        for (;;) {
+          scrollId = page.scrollId().orElse(scrollId);
+          final int hits = page.searchHits().hits().size();
+          if (hits == 0 || !offer(page)) {
+            break;
+          }
+          count += hits;
+          if (count >= limit) {
+            break;
+          }
+          if (scrollId == null) {
+            throw new IllegalStateException("scrollId has to be present");
+          }
+          page = transport.scroll().apply(scrollId);
+        }
+      } catch (RuntimeException | Error e) {
+        offer(e);
+      } finally {
+        if (scrollId != null) {
+          transport.closeScroll(Collections.singleton(scrollId));
+        }
+        offer(end);
+      }
+    }
+
+    /** Hands an element to the consumer, waiting for space; returns false if
+     * the iterator was closed meanwhile. */
+    private boolean offer(Object o) {
+      try {
+        while (!closed) {
+          if (queue.offer(o, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        }
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    @Override public boolean hasNext() {
+      while (next == null && finished < slices) {
+        final Object o;
+        try {
+          o = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+        if (o == end) {
+          ++finished;
+        } else if (o instanceof ElasticsearchJson.Result) {
+          next = (ElasticsearchJson.Result) o;
+        } else {
+          close();
+          if (o instanceof Error) {
+            throw (Error) o;
+          }
+          throw (RuntimeException) o;
+        }
+      }
+      if (next == null) {
+        close();
+        return false;
+      }
+      return true;
+    }
+
+    @Override public ElasticsearchJson.Result next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final ElasticsearchJson.Result result = next;
+      next = null;
+      return result;
+    }
+
+    /** Stops the background threads, and waits until they have closed their
+     * scrolls. */
+    @Override public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      queue.clear();
+      try {
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // fetch reports its own failures through the queue
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
   /**
    * Iterator which consumes current {@code scrollId} until full search result is fetched
    * or {@code limit} is reached.
@@ -66,12 +66,17 @@ public static void setupInstance() throws Exception {
   }
 
   private CalciteAssert.ConnectionFactory newConnectionFactory(int fetchSize) {
+    return newConnectionFactory(fetchSize, 1, 0);
+  }
+
+  private CalciteAssert.ConnectionFactory newConnectionFactory(int fetchSize,
+      int slices, int prefetch) {
     return new CalciteAssert.ConnectionFactory() {
       @Override public Connection createConnection() throws SQLException {
         final Connection connection = DriverManager.getConnection("jdbc:calcite:");
         final SchemaPlus root = connection.unwrap(CalciteConnection.class).getRootSchema();
         ElasticsearchSchema schema = new ElasticsearchSchema(NODE.restClient(), NODE.mapper(),
-            NAME, fetchSize);
+            NAME, fetchSize, "1m", slices, prefetch);
         root.add("elastic", schema);
         return connection;
       }
@@ -95,6 +100,36 @@ private CalciteAssert.ConnectionFactory newConnectionFactory(int fetchSize) {
     }
   }
 
+  /**
+   * Reads pages on background threads, ahead of the consumer, optionally
+   * splitting the scroll into several slices.
+   */
+  @Test void prefetchingAndSlicedScrolling() {
+    final String[] expected = IntStream.range(0, SIZE).mapToObj(i -> "V=" + i)
+        .toArray(String[]::new);
+    final String query = String.format(Locale.ROOT, "select _MAP['value'] as v from "
+        + "\"elastic\".\"%s\"", NAME);
+
+    for (int slices: Arrays.asList(1, 2, 3)) {
+      for (int prefetch: Arrays.asList(0, 1, 4)) {
+        for (int fetchSize: Arrays.asList(1, 3, SIZE)) {
+          CalciteAssert.that()
+              .with(newConnectionFactory(fetchSize, slices, prefetch))
+              .query(query)
+              .returnsUnordered(expected);
+        }
+      }
+    }
+
+    // limit is applied across slices
+    final String limitQuery = String.format(Locale.ROOT, "select _MAP['value'] as v from "
+        + "\"elastic\".\"%s\" limit 4", NAME);
+    CalciteAssert.that()
+        .with(newConnectionFactory(2, 2, 1))
+        .query(limitQuery)
+        .returnsCount(4);
+  }
+
   /**
    * Ensures there are no pending scroll contexts in elastic search cluster.
    * Queries {@code /_nodes/stats/indices/search} endpoint.
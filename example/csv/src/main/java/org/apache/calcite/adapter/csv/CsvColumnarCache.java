@@ -0,0 +1,680 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.csv;
+
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.util.Source;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Persistent columnar copy of a CSV file.
+ *
+ * <p>The first time a table is scanned, its file is converted into a
+ * compressed, typed, columnar file in a cache directory. Later scans, in this
+ * JVM or in another, memory-map that file rather than parsing CSV, for as long
+ * as the length and last-modified time of the source file are unchanged. A
+ * scan reads only the columns it projects or filters on.
+ *
+ * <p>The cache file records the number of rows, which becomes the table's
+ * row count statistic, and the minimum and maximum value of each column,
+ * which allow a scan to return nothing, without reading any data, if an
+ * equality filter is out of range.
+ *
+ * <p>The file consists of a header followed by one section per column. Each
+ * section is deflated separately, and holds for each row a presence byte and,
+ * if the value is not null, the value: integral values (including booleans,
+ * dates and times) as zig-zag variable-length integers, floating-point values
+ * as 8 bytes, and strings as a length followed by UTF-8 bytes.
+ *
+ * <p>A cache file is written to a temporary file and then renamed, so
+ * concurrent readers never see a partial file.
+ */
+class CsvColumnarCache {
+  private static final int MAGIC = 0x43434f4c; // "CCOL"
+  private static final int VERSION = 1;
+
+  /** Largest region of the cache file that is mapped at one time. */
+  private static final long WINDOW_SIZE = 64L << 20;
+
+  private final Source source;
+  private final File sourceFile;
+  private final File cacheFile;
+  private volatile Header header;
+
+  private CsvColumnarCache(Source source, File sourceFile, File cacheFile) {
+    this.source = source;
+    this.sourceFile = sourceFile;
+    this.cacheFile = cacheFile;
+  }
+
+  /** Creates a cache for a source in a given directory, or returns null if
+   * the directory is null or the source is not a local file. */
+  static CsvColumnarCache of(File directory, Source source) {
+    if (directory == null || !source.protocol().equals("file")) {
+      return null;
+    }
+    final File file = source.file().getAbsoluteFile();
+    final String name = file.getName() + "-"
+        + Integer.toHexString(file.getPath().hashCode()) + ".ccol";
+    return new CsvColumnarCache(source, file, new File(directory, name));
+  }
+
+  /** Returns the number of rows in the source file, or null if the cache file
+   * does not exist or is out of date. Does not convert the source file. */
+  Double getRowCount() {
+    final Header h = validHeader();
+    return h == null ? null : (double) h.rowCount;
+  }
+
+  /** Returns an enumerator over the rows of the source file, converting it
+   * first if the cache file does not exist or is out of date.
+   *
+   * @param fieldTypes   Types of all fields in the source file
+   * @param fields       Ordinals of the fields to return
+   * @param filterValues For each field, the value it must equal, or null
+   * @param cancelFlag   Flag that is set when the query is canceled
+   * @param single       Whether to return a value, rather than an array, if
+   *                     there is one field
+   * @param <E>          Row type
+   */
+  <E> Enumerator<E> enumerator(List<CsvFieldType> fieldTypes, int[] fields,
+      String[] filterValues, AtomicBoolean cancelFlag, boolean single) {
+    final Header h = build(fieldTypes);
+    final Object[] filters = new Object[h.columns.size()];
+    if (filterValues != null) {
+      for (int i = 0; i < filterValues.length; i++) {
+        if (filterValues[i] != null) {
+          final ColumnInfo column = h.columns.get(i);
+          Object value;
+          try {
+            value = CsvEnumerator.convert(column.type, filterValues[i]);
+          } catch (RuntimeException e) {
+            value = null;
+          }
+          if (value == null || !column.mayContain(value)) {
+            return Linq4j.emptyEnumerator();
+          }
+          filters[i] = value;
+        }
+      }
+    }
+    return new ColumnarEnumerator<>(h, fields, filters, cancelFlag,
+        single && fields.length == 1);
+  }
+
+  /** Returns the header of the cache file if it is up to date, otherwise
+   * null. */
+  private Header validHeader() {
+    final String path = sourceFile.getPath();
+    final long length = sourceFile.length();
+    final long modified = sourceFile.lastModified();
+    Header h = header;
+    if (h != null && h.matches(path, length, modified)) {
+      return h;
+    }
+    h = readHeader();
+    if (h != null && h.matches(path, length, modified)) {
+      header = h;
+      return h;
+    }
+    return null;
+  }
+
+  /** Reads the header of the cache file; returns null if the file does not
+   * exist or is not a valid cache file. */
+  private Header readHeader() {
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+    try (FileChannel channel =
+             FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ);
+         DataInputStream in =
+             new DataInputStream(
+                 new MappedInputStream(channel, 0, channel.size()))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      final int headerLength = in.readInt();
+      final String path = in.readUTF();
+      final long length = in.readLong();
+      final long modified = in.readLong();
+      final long rowCount = in.readLong();
+      final int columnCount = in.readInt();
+      final List<ColumnInfo> columns = new ArrayList<>();
+      for (int i = 0; i < columnCount; i++) {
+        final int ordinal = in.readByte();
+        final CsvFieldType type =
+            ordinal < 0 ? null : CsvFieldType.values()[ordinal];
+        final Comparable min;
+        final Comparable max;
+        if (in.readBoolean()) {
+          min = (Comparable) readValue(in, type);
+          max = (Comparable) readValue(in, type);
+        } else {
+          min = max = null;
+        }
+        final long offset = in.readLong();
+        final long sectionLength = in.readLong();
+        columns.add(new ColumnInfo(type, min, max, offset, sectionLength));
+      }
+      return new Header(path, length, modified, rowCount, columns,
+          12L + headerLength);
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** Returns the header of the cache file, first converting the source file
+   * if the cache file does not exist or is out of date. */
+  private synchronized Header build(List<CsvFieldType> fieldTypes) {
+    final Header h = validHeader();
+    if (h != null) {
+      return h;
+    }
+    // Read the length and modified time before reading the file. If the file
+    // changes while it is being converted, the cache file will be out of date
+    // and will be rebuilt by the next scan.
+    final String path = sourceFile.getPath();
+    final long length = sourceFile.length();
+    final long modified = sourceFile.lastModified();
+    final File directory = cacheFile.getParentFile();
+    final int columnCount = fieldTypes.size();
+    final File[] sections = new File[columnCount];
+    final ColumnWriter[] writers = new ColumnWriter[columnCount];
+    File tempFile = null;
+    try {
+      Files.createDirectories(directory.toPath());
+      for (int i = 0; i < columnCount; i++) {
+        sections[i] = File.createTempFile(cacheFile.getName(), ".tmp",
+            directory);
+        writers[i] = new ColumnWriter(fieldTypes.get(i), sections[i]);
+      }
+      long rowCount = 0;
+      try (CsvEnumerator<Object[]> enumerator =
+               new CsvEnumerator<>(source, new AtomicBoolean(), false, null,
+                   new CsvEnumerator.ArrayRowConverter(fieldTypes,
+                       CsvEnumerator.identityList(columnCount)))) {
+        while (enumerator.moveNext()) {
+          final Object[] row = enumerator.current();
+          for (int i = 0; i < columnCount; i++) {
+            writers[i].add(row[i]);
+          }
+          ++rowCount;
+        }
+      }
+      for (ColumnWriter writer : writers) {
+        writer.close();
+      }
+
+      final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(headerBytes);
+      out.writeUTF(path);
+      out.writeLong(length);
+      out.writeLong(modified);
+      out.writeLong(rowCount);
+      out.writeInt(columnCount);
+      long offset = 0;
+      for (int i = 0; i < columnCount; i++) {
+        final ColumnWriter writer = writers[i];
+        out.writeByte(writer.type == null ? -1 : writer.type.ordinal());
+        out.writeBoolean(writer.min != null);
+        if (writer.min != null) {
+          writeValue(out, writer.type, writer.min);
+          writeValue(out, writer.type, writer.max);
+        }
+        out.writeLong(offset);
+        out.writeLong(sections[i].length());
+        offset += sections[i].length();
+      }
+      out.flush();
+
+      tempFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+      try (DataOutputStream file =
+               new DataOutputStream(
+                   new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeInt(headerBytes.size());
+        headerBytes.writeTo(file);
+        for (File section : sections) {
+          Files.copy(section.toPath(), file);
+        }
+      }
+      try {
+        Files.move(tempFile.toPath(), cacheFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), cacheFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error caching " + sourceFile
+          + " in " + cacheFile, e);
+    } finally {
+      for (int i = 0; i < columnCount; i++) {
+        if (writers[i] != null) {
+          writers[i].closeQuietly();
+        }
+        if (sections[i] != null) {
+          //noinspection ResultOfMethodCallIgnored
+          sections[i].delete();
+        }
+      }
+      if (tempFile != null) {
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+      }
+    }
+    final Header h2 = readHeader();
+    if (h2 == null) {
+      throw new IllegalStateException("Error reading " + cacheFile);
+    }
+    header = h2;
+    return h2;
+  }
+
+  /** Writes a non-null value. */
+  private static void writeValue(DataOutput out, CsvFieldType type,
+      Object value) throws IOException {
+    switch (kind(type)) {
+    case LONG:
+      writeVarLong(out,
+          value instanceof Boolean
+              ? ((Boolean) value ? 1L : 0L)
+              : ((Number) value).longValue());
+      break;
+    case DOUBLE:
+      out.writeDouble(((Number) value).doubleValue());
+      break;
+    default:
+      final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+      writeVarLong(out, bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /** Reads a non-null value, as the Java type that
+   * {@link CsvEnumerator#convert(CsvFieldType, String)} would produce. */
+  private static Object readValue(DataInput in, CsvFieldType type)
+      throws IOException {
+    switch (kind(type)) {
+    case LONG:
+      final long v = readVarLong(in);
+      switch (type) {
+      case BOOLEAN:
+        return v != 0L;
+      case BYTE:
+        return (byte) v;
+      case SHORT:
+        return (short) v;
+      case LONG:
+      case TIMESTAMP:
+        return v;
+      default:
+        return (int) v;
+      }
+    case DOUBLE:
+      final double d = in.readDouble();
+      return type == CsvFieldType.FLOAT ? (Object) (float) d : (Object) d;
+    default:
+      final byte[] bytes = new byte[(int) readVarLong(in)];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void writeVarLong(DataOutput out, long value)
+      throws IOException {
+    long v = (value << 1) ^ (value >> 63);
+    while ((v & ~0x7FL) != 0) {
+      out.writeByte((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.writeByte((int) v);
+  }
+
+  private static long readVarLong(DataInput in) throws IOException {
+    long v = 0;
+    for (int shift = 0;; shift += 7) {
+      final int b = in.readUnsignedByte();
+      v |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (v >>> 1) ^ -(v & 1);
+      }
+    }
+  }
+
+  private static Kind kind(CsvFieldType type) {
+    if (type == null) {
+      return Kind.STRING;
+    }
+    switch (type) {
+    case BOOLEAN:
+    case BYTE:
+    case SHORT:
+    case INT:
+    case LONG:
+    case DATE:
+    case TIME:
+    case TIMESTAMP:
+      return Kind.LONG;
+    case FLOAT:
+    case DOUBLE:
+      return Kind.DOUBLE;
+    default:
+      return Kind.STRING;
+    }
+  }
+
+  /** How values of a column are encoded. */
+  private enum Kind {
+    LONG, DOUBLE, STRING
+  }
+
+  /** Header of a cache file. */
+  private static class Header {
+    final String path;
+    final long length;
+    final long modified;
+    final long rowCount;
+    final List<ColumnInfo> columns;
+    /** Offset in the cache file of the first column's section. */
+    final long dataStart;
+
+    Header(String path, long length, long modified, long rowCount,
+        List<ColumnInfo> columns, long dataStart) {
+      this.path = path;
+      this.length = length;
+      this.modified = modified;
+      this.rowCount = rowCount;
+      this.columns = columns;
+      this.dataStart = dataStart;
+    }
+
+    boolean matches(String path, long length, long modified) {
+      return this.path.equals(path)
+          && this.length == length
+          && this.modified == modified;
+    }
+  }
+
+  /** Type, statistics and location of a column in a cache file. */
+  private static class ColumnInfo {
+    final CsvFieldType type;
+    final Comparable min;
+    final Comparable max;
+    final long offset;
+    final long length;
+
+    ColumnInfo(CsvFieldType type, Comparable min, Comparable max,
+        long offset, long length) {
+      this.type = type;
+      this.min = min;
+      this.max = max;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** Returns whether a non-null value is between the minimum and maximum
+     * values of this column. */
+    @SuppressWarnings("unchecked")
+    boolean mayContain(Object value) {
+      return min != null
+          && min.compareTo(value) <= 0
+          && max.compareTo(value) >= 0;
+    }
+  }
+
+  /** Writes the section of one column to a temporary file, and computes the
+   * column's statistics. */
+  private static class ColumnWriter {
+    final CsvFieldType type;
+    final DataOutputStream out;
+    Comparable min;
+    Comparable max;
+    private boolean closed;
+
+    ColumnWriter(CsvFieldType type, File file) throws IOException {
+      this.type = type;
+      this.out =
+          new DataOutputStream(
+              new BufferedOutputStream(
+                  new DeflaterOutputStream(new FileOutputStream(file))));
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(Object value) throws IOException {
+      if (value == null) {
+        out.writeByte(0);
+        return;
+      }
+      out.writeByte(1);
+      writeValue(out, type, value);
+      final Comparable c = (Comparable) value;
+      if (min == null || c.compareTo(min) < 0) {
+        min = c;
+      }
+      if (max == null || c.compareTo(max) > 0) {
+        max = c;
+      }
+    }
+
+    void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        out.close();
+      }
+    }
+
+    void closeQuietly() {
+      try {
+        close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  /** Input stream over a region of a file, which it memory-maps a window at
+   * a time. */
+  private static class MappedInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private ByteBuffer buffer;
+
+    MappedInputStream(FileChannel channel, long start, long length) {
+      this.channel = channel;
+      this.position = start;
+      this.end = start + length;
+    }
+
+    private boolean ensure() throws IOException {
+      if (buffer != null && buffer.hasRemaining()) {
+        return true;
+      }
+      if (position >= end) {
+        return false;
+      }
+      final long size = Math.min(WINDOW_SIZE, end - position);
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      position += size;
+      return true;
+    }
+
+    @Override public int read() throws IOException {
+      return ensure() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensure()) {
+        return -1;
+      }
+      final int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+  }
+
+  /** Enumerator that reads rows from a cache file.
+   *
+   * @param <E> Row type */
+  private class ColumnarEnumerator<E> implements Enumerator<E> {
+    private final Header header;
+    private final int[] fields;
+    private final Object[] filters;
+    private final AtomicBoolean cancelFlag;
+    private final boolean single;
+    private final FileChannel channel;
+    /** Input for each column that is projected or filtered, otherwise
+     * null. */
+    private final DataInputStream[] inputs;
+    private final Object[] values;
+    private long row;
+    private E current;
+
+    ColumnarEnumerator(Header header, int[] fields, Object[] filters,
+        AtomicBoolean cancelFlag, boolean single) {
+      this.header = header;
+      this.fields = fields;
+      this.filters = filters;
+      this.cancelFlag = cancelFlag;
+      this.single = single;
+      final int columnCount = header.columns.size();
+      this.inputs = new DataInputStream[columnCount];
+      this.values = new Object[columnCount];
+      try {
+        this.channel =
+            FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ);
+        for (int i = 0; i < columnCount; i++) {
+          if (filters[i] != null) {
+            inputs[i] = open(i);
+          }
+        }
+        for (int field : fields) {
+          if (inputs[field] == null) {
+            inputs[field] = open(field);
+          }
+        }
+      } catch (IOException e) {
+        close();
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private DataInputStream open(int i) {
+      final ColumnInfo column = header.columns.get(i);
+      final InputStream in =
+          new MappedInputStream(channel, header.dataStart + column.offset,
+              column.length);
+      return new DataInputStream(
+          new BufferedInputStream(new InflaterInputStream(in)));
+    }
+
+    public E current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      try {
+      outer:
+        for (;;) {
+          if (cancelFlag.get() || row >= header.rowCount) {
+            current = null;
+            return false;
+          }
+          ++row;
+          for (int i = 0; i < inputs.length; i++) {
+            final DataInputStream in = inputs[i];
+            if (in != null) {
+              values[i] = in.readByte() == 0
+                  ? null
+                  : readValue(in, header.columns.get(i).type);
+            }
+          }
+          for (int i = 0; i < filters.length; i++) {
+            if (filters[i] != null && !filters[i].equals(values[i])) {
+              continue outer;
+            }
+          }
+          if (single) {
+            //noinspection unchecked
+            current = (E) values[fields[0]];
+          } else {
+            final Object[] objects = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+              objects[i] = values[fields[i]];
+            }
+            //noinspection unchecked
+            current = (E) objects;
+          }
+          return true;
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    public void reset() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      try {
+        for (DataInputStream input : inputs) {
+          if (input != null) {
+            input.close();
+          }
+        }
+        if (channel != null) {
+          channel.close();
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Error closing cache file", e);
+      }
+    }
+  }
+}
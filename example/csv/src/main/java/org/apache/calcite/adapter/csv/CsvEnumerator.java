@@ -230,6 +230,84 @@ static int[] identityList(int n) {
     return integers;
   }
 
+  /** Converts a field value, read as a string, to the Java value that
+   * represents it in a row of the given type. */
+  static Object convert(CsvFieldType fieldType, String string) {
+    if (fieldType == null) {
+      return string;
+    }
+    switch (fieldType) {
+    case BOOLEAN:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Boolean.parseBoolean(string);
+    case BYTE:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Byte.parseByte(string);
+    case SHORT:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Short.parseShort(string);
+    case INT:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Integer.parseInt(string);
+    case LONG:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Long.parseLong(string);
+    case FLOAT:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Float.parseFloat(string);
+    case DOUBLE:
+      if (string.length() == 0) {
+        return null;
+      }
+      return Double.parseDouble(string);
+    case DATE:
+      if (string.length() == 0) {
+        return null;
+      }
+      try {
+        Date date = TIME_FORMAT_DATE.parse(string);
+        return (int) (date.getTime() / DateTimeUtils.MILLIS_PER_DAY);
+      } catch (ParseException e) {
+        return null;
+      }
+    case TIME:
+      if (string.length() == 0) {
+        return null;
+      }
+      try {
+        Date date = TIME_FORMAT_TIME.parse(string);
+        return (int) date.getTime();
+      } catch (ParseException e) {
+        return null;
+      }
+    case TIMESTAMP:
+      if (string.length() == 0) {
+        return null;
+      }
+      try {
+        Date date = TIME_FORMAT_TIMESTAMP.parse(string);
+        return date.getTime();
+      } catch (ParseException e) {
+        return null;
+      }
+    case STRING:
+    default:
+      return string;
+    }
+  }
+
   /** Row converter.
    *
    * @param <E> element type */
@@ -237,79 +315,7 @@ static int[] identityList(int n) {
     abstract E convertRow(String[] rows);
 
     protected Object convert(CsvFieldType fieldType, String string) {
-      if (fieldType == null) {
-        return string;
-      }
-      switch (fieldType) {
-      case BOOLEAN:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Boolean.parseBoolean(string);
-      case BYTE:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Byte.parseByte(string);
-      case SHORT:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Short.parseShort(string);
-      case INT:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Integer.parseInt(string);
-      case LONG:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Long.parseLong(string);
-      case FLOAT:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Float.parseFloat(string);
-      case DOUBLE:
-        if (string.length() == 0) {
-          return null;
-        }
-        return Double.parseDouble(string);
-      case DATE:
-        if (string.length() == 0) {
-          return null;
-        }
-        try {
-          Date date = TIME_FORMAT_DATE.parse(string);
-          return (int) (date.getTime() / DateTimeUtils.MILLIS_PER_DAY);
-        } catch (ParseException e) {
-          return null;
-        }
-      case TIME:
-        if (string.length() == 0) {
-          return null;
-        }
-        try {
-          Date date = TIME_FORMAT_TIME.parse(string);
-          return (int) date.getTime();
-        } catch (ParseException e) {
-          return null;
-        }
-      case TIMESTAMP:
-        if (string.length() == 0) {
-          return null;
-        }
-        try {
-          Date date = TIME_FORMAT_TIMESTAMP.parse(string);
-          return date.getTime();
-        } catch (ParseException e) {
-          return null;
-        }
-      case STRING:
-      default:
-        return string;
-      }
+      return CsvEnumerator.convert(fieldType, string);
     }
   }
 
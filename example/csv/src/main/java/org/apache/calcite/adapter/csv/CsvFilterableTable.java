@@ -29,6 +29,7 @@
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.util.Source;
 
+import java.io.File;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -45,6 +46,13 @@ public CsvFilterableTable(Source source, RelProtoDataType protoRowType) {
     super(source, protoRowType);
   }
 
+  /** Creates a CsvFilterableTable that caches a columnar copy of its file
+   * in a given directory, or is not cached if the directory is null. */
+  public CsvFilterableTable(Source source, RelProtoDataType protoRowType,
+      File cacheDirectory) {
+    super(source, protoRowType, cacheDirectory);
+  }
+
   public String toString() {
     return "CsvFilterableTable";
   }
@@ -57,6 +65,10 @@ public Enumerable<Object[]> scan(DataContext root, List<RexNode> filters) {
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
     return new AbstractEnumerable<Object[]>() {
       public Enumerator<Object[]> enumerator() {
+        if (cache != null) {
+          return cache.enumerator(fieldTypes, fields, filterValues,
+              cancelFlag, false);
+        }
         return new CsvEnumerator<>(source, cancelFlag, false, filterValues,
             new CsvEnumerator.ArrayRowConverter(fieldTypes, fields));
       }
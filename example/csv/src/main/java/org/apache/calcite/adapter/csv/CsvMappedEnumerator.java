@@ -0,0 +1,662 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.csv;
+
+import org.apache.calcite.linq4j.Enumerator;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Enumerator that reads a CSV file by memory-mapping it, splitting it at
+ * line boundaries into chunks, and parsing several chunks in parallel.
+ *
+ * <p>Each chunk is parsed into columns, one per projected field. Other fields
+ * are skipped without being decoded. Numeric and boolean values are parsed
+ * directly from the mapped bytes into primitive arrays, without creating an
+ * intermediate {@link String}; other values are converted as in
+ * {@link CsvEnumerator#convert(CsvFieldType, String)}.
+ *
+ * <p>Rows are returned in file order. At most {@code parallelism} chunks are
+ * being parsed or waiting to be consumed at any time, so memory use does not
+ * grow with the size of the file.
+ *
+ * <p>A line break always ends a row, so a quoted value must not contain a
+ * line break. Use {@link CsvEnumerator} for such files.
+ *
+ * @param <E> Row type; {@code Object[]}, or the value of the field if only one
+ * field is projected
+ */
+class CsvMappedEnumerator<E> implements Enumerator<E> {
+  /** Maximum number of bytes in a chunk. */
+  static final long MAX_CHUNK_SIZE = 64L << 20;
+
+  /** Powers of ten that are exactly representable as a {@code double}. */
+  private static final double[] DOUBLE_POWERS = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** Powers of ten that are exactly representable as a {@code float}. */
+  private static final float[] FLOAT_POWERS = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+
+  private final FileChannel channel;
+  private final AtomicBoolean cancelFlag;
+  private final CsvFieldType[] fieldTypes;
+  private final int[] fields;
+  private final int parallelism;
+  private final long[] boundaries;
+  private final ExecutorService executor;
+  private final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+  private int nextChunk;
+  private Chunk chunk;
+  private int row;
+  private E current;
+
+  CsvMappedEnumerator(File file, AtomicBoolean cancelFlag,
+      List<CsvFieldType> fieldTypes, int[] fields, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: "
+          + parallelism);
+    }
+    this.cancelFlag = cancelFlag;
+    this.fieldTypes = new CsvFieldType[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      this.fieldTypes[i] = fieldTypes.get(fields[i]);
+    }
+    this.fields = fields;
+    this.parallelism = parallelism;
+    try {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      this.boundaries = split(channel, parallelism);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.executor =
+        Executors.newFixedThreadPool(parallelism,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("csv-scan-%d")
+                .build());
+  }
+
+  /** Returns the offsets at which chunks start, followed by the length of the
+   * file. The first chunk starts after the header line; every other chunk
+   * starts at the beginning of a line. */
+  private static long[] split(FileChannel channel, int parallelism)
+      throws IOException {
+    final long size = channel.size();
+    final long start = nextLine(channel, 1);
+    final long chunkSize =
+        Math.max(1L,
+            Math.min(MAX_CHUNK_SIZE,
+                (size - start + parallelism * 4L - 1) / (parallelism * 4L)));
+    final List<Long> list = new ArrayList<>();
+    list.add(start);
+    for (long offset = start + chunkSize; offset < size; offset += chunkSize) {
+      final long boundary = nextLine(channel, offset);
+      if (boundary > list.get(list.size() - 1) && boundary < size) {
+        list.add(boundary);
+        offset = Math.max(offset, boundary);
+      }
+    }
+    list.add(Math.max(start, size));
+    final long[] boundaries = new long[list.size()];
+    for (int i = 0; i < boundaries.length; i++) {
+      boundaries[i] = list.get(i);
+    }
+    return boundaries;
+  }
+
+  /** Returns the offset of the first line that starts at or after a given
+   * offset, or the size of the file if there is no such line. */
+  private static long nextLine(FileChannel channel, long offset)
+      throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(8192);
+    long position = offset - 1;
+    for (;;) {
+      buffer.clear();
+      final int n = channel.read(buffer, position);
+      if (n <= 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < n; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += n;
+    }
+  }
+
+  public E current() {
+    return current;
+  }
+
+  public boolean moveNext() {
+    for (;;) {
+      if (cancelFlag.get()) {
+        return false;
+      }
+      if (chunk != null && ++row < chunk.rowCount) {
+        //noinspection unchecked
+        current = (E) chunk.row(row);
+        return true;
+      }
+      chunk = nextChunk();
+      row = -1;
+      if (chunk == null) {
+        current = null;
+        return false;
+      }
+    }
+  }
+
+  /** Returns the next parsed chunk, waiting for it if necessary, or null if
+   * there are no more chunks. Keeps up to {@link #parallelism} chunks in
+   * flight. */
+  private Chunk nextChunk() {
+    submit();
+    final Future<Chunk> future = pending.poll();
+    if (future == null) {
+      return null;
+    }
+    try {
+      final Chunk c = future.get();
+      submit();
+      return c;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private void submit() {
+    while (pending.size() < parallelism
+        && nextChunk < boundaries.length - 1) {
+      final long start = boundaries[nextChunk];
+      final long end = boundaries[nextChunk + 1];
+      pending.add(executor.submit(() -> parse(start, end)));
+      ++nextChunk;
+    }
+  }
+
+  public void reset() {
+    throw new UnsupportedOperationException();
+  }
+
+  public void close() {
+    for (Future<Chunk> future : pending) {
+      future.cancel(true);
+    }
+    pending.clear();
+    executor.shutdownNow();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Error closing CSV file", e);
+    }
+  }
+
+  /** Parses the lines between two offsets of the file. */
+  private Chunk parse(long start, long end) throws IOException {
+    final long length = end - start;
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalStateException("line too long in CSV file; "
+          + "offset " + start + ", length " + length);
+    }
+    final ByteBuffer buffer =
+        channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    final int limit = buffer.limit();
+
+    // For each field in a line, the column that receives it, or -1.
+    int maxField = -1;
+    for (int field : fields) {
+      maxField = Math.max(maxField, field);
+    }
+    final int[] slots = new int[maxField + 1];
+    Arrays.fill(slots, -1);
+    final Column[] columns = new Column[fields.length];
+    final int capacity = Math.max(16, limit / 64);
+    for (int i = 0; i < fields.length; i++) {
+      slots[fields[i]] = i;
+      columns[i] = new Column(fieldTypes[i], capacity);
+    }
+
+    final Parser parser = new Parser(buffer);
+    int rowCount = 0;
+    int pos = 0;
+    while (pos < limit) {
+      if (buffer.get(pos) == '\n') {
+        ++pos; // skip blank line
+        continue;
+      }
+      if (buffer.get(pos) == '\r'
+          && pos + 1 < limit && buffer.get(pos + 1) == '\n') {
+        pos += 2;
+        continue;
+      }
+      int field = 0;
+      for (;;) {
+        pos = parser.field(pos, limit);
+        if (field <= maxField && slots[field] >= 0) {
+          columns[slots[field]].set(rowCount, parser);
+        }
+        ++field;
+        if (pos >= limit || buffer.get(pos) == '\n') {
+          ++pos;
+          break;
+        }
+        ++pos; // skip ','
+        if (field > maxField) {
+          // Skip the remaining fields without parsing them.
+          while (pos < limit && buffer.get(pos) != '\n') {
+            ++pos;
+          }
+          ++pos;
+          break;
+        }
+      }
+      // A short line has null values for its missing fields.
+      for (int f = field; f <= maxField; f++) {
+        if (slots[f] >= 0) {
+          columns[slots[f]].setNull(rowCount);
+        }
+      }
+      ++rowCount;
+    }
+    return new Chunk(columns, rowCount);
+  }
+
+  /** Unescapes a field value, as opencsv would. */
+  private static String unescape(String s, boolean quoted) {
+    final StringBuilder b = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      if (i + 1 < s.length()) {
+        final char next = s.charAt(i + 1);
+        if (c == '\\' && (next == '"' || next == '\\')
+            || quoted && c == '"' && next == '"') {
+          b.append(next);
+          ++i;
+          continue;
+        }
+      }
+      b.append(c);
+    }
+    return b.toString();
+  }
+
+  /** Locates fields within a mapped chunk, and decodes them. */
+  private static class Parser {
+    final ByteBuffer buffer;
+    byte[] bytes = new byte[64];
+
+    /** Start (inclusive) of the most recent field, sans quotes. */
+    int start;
+    /** End (exclusive) of the most recent field, sans quotes. */
+    int end;
+    /** Whether the most recent field was quoted. */
+    boolean quoted;
+    /** Whether the most recent field contains escape sequences. */
+    boolean escaped;
+
+    Parser(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /** Scans the field that starts at {@code pos}, and returns the position
+     * of the ',' or '\n' that ends it, or {@code limit}. */
+    int field(int pos, int limit) {
+      escaped = false;
+      quoted = pos < limit && buffer.get(pos) == '"';
+      if (quoted) {
+        start = ++pos;
+        while (pos < limit) {
+          final byte b = buffer.get(pos);
+          if (b == '"') {
+            if (pos + 1 < limit && buffer.get(pos + 1) == '"') {
+              escaped = true;
+              pos += 2;
+              continue;
+            }
+            break;
+          }
+          if (b == '\\' && pos + 1 < limit && escapable(buffer.get(pos + 1))) {
+            escaped = true;
+            pos += 2;
+            continue;
+          }
+          ++pos;
+        }
+        end = Math.min(pos, limit);
+        while (pos < limit && buffer.get(pos) != ','
+            && buffer.get(pos) != '\n') {
+          ++pos;
+        }
+        return pos;
+      }
+      start = pos;
+      while (pos < limit) {
+        final byte b = buffer.get(pos);
+        if (b == ',' || b == '\n') {
+          break;
+        }
+        if (b == '\\' && pos + 1 < limit && escapable(buffer.get(pos + 1))) {
+          escaped = true;
+          ++pos;
+        }
+        ++pos;
+      }
+      end = pos;
+      if (end > start && buffer.get(end - 1) == '\r') {
+        --end;
+      }
+      return pos;
+    }
+
+    private static boolean escapable(byte b) {
+      return b == '"' || b == '\\';
+    }
+
+    boolean isEmpty() {
+      return start == end;
+    }
+
+    /** Decodes the most recent field as a string. */
+    String string() {
+      final int length = end - start;
+      if (bytes.length < length) {
+        bytes = new byte[Math.max(length, bytes.length * 2)];
+      }
+      for (int i = 0; i < length; i++) {
+        bytes[i] = buffer.get(start + i);
+      }
+      final String s = new String(bytes, 0, length, StandardCharsets.UTF_8);
+      return escaped ? unescape(s, quoted) : s;
+    }
+
+    /** Returns whether the most recent field equals "true", ignoring case,
+     * as {@link Boolean#parseBoolean(String)} does. */
+    boolean parseBoolean() {
+      if (end - start != 4 || escaped) {
+        return Boolean.parseBoolean(string());
+      }
+      return (buffer.get(start) | 0x20) == 't'
+          && (buffer.get(start + 1) | 0x20) == 'r'
+          && (buffer.get(start + 2) | 0x20) == 'u'
+          && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    /** Parses the most recent field as an integer, falling back to
+     * {@link CsvEnumerator#convert(CsvFieldType, String)} (which throws if the
+     * value is invalid) if it is not a plain decimal number in range. */
+    long parseLong(CsvFieldType type, long min, long max) {
+      int pos = start;
+      final boolean negative = buffer.get(pos) == '-';
+      if (negative || buffer.get(pos) == '+') {
+        ++pos;
+      }
+      if (!escaped && pos < end && end - pos <= 18) {
+        long value = 0;
+        for (; pos < end; pos++) {
+          final int digit = buffer.get(pos) - '0';
+          if (digit < 0 || digit > 9) {
+            break;
+          }
+          value = value * 10 + digit;
+        }
+        if (pos == end) {
+          value = negative ? -value : value;
+          if (value >= min && value <= max) {
+            return value;
+          }
+        }
+      }
+      return ((Number) CsvEnumerator.convert(type, string())).longValue();
+    }
+
+    /** Parses the most recent field as a floating-point number. Uses the
+     * fast path when the value has few enough digits and no exponent that a
+     * single, correctly rounded division yields the exact result; otherwise
+     * falls back to {@link CsvEnumerator#convert(CsvFieldType, String)}. */
+    double parseDouble(CsvFieldType type) {
+      int pos = start;
+      final boolean negative = buffer.get(pos) == '-';
+      if (negative || buffer.get(pos) == '+') {
+        ++pos;
+      }
+      long mantissa = 0;
+      int digits = 0;
+      int scale = -1;
+      boolean valid = !escaped && pos < end;
+      for (; valid && pos < end; pos++) {
+        final byte b = buffer.get(pos);
+        if (b == '.' && scale < 0) {
+          scale = 0;
+          continue;
+        }
+        final int digit = b - '0';
+        if (digit < 0 || digit > 9 || ++digits > 18) {
+          valid = false;
+          break;
+        }
+        mantissa = mantissa * 10 + digit;
+        if (scale >= 0) {
+          ++scale;
+        }
+      }
+      scale = Math.max(scale, 0);
+      if (valid && digits > 0) {
+        if (type == CsvFieldType.FLOAT) {
+          if (mantissa < 1 << 24 && scale < FLOAT_POWERS.length) {
+            final float f = mantissa / FLOAT_POWERS[scale];
+            return negative ? -f : f;
+          }
+        } else if (mantissa < 1L << 53 && scale < DOUBLE_POWERS.length) {
+          final double d = mantissa / DOUBLE_POWERS[scale];
+          return negative ? -d : d;
+        }
+      }
+      return ((Number) CsvEnumerator.convert(type, string())).doubleValue();
+    }
+  }
+
+  /** Values of one projected field in a chunk. Integral and boolean values
+   * are stored in a {@code long} array, floating-point values in a
+   * {@code double} array, and other values as objects. */
+  private static class Column {
+    final CsvFieldType type;
+    final BitSet nulls = new BitSet();
+    long[] longs;
+    double[] doubles;
+    Object[] objects;
+
+    Column(CsvFieldType type, int capacity) {
+      this.type = type;
+      switch (kind(type)) {
+      case LONG:
+        longs = new long[capacity];
+        break;
+      case DOUBLE:
+        doubles = new double[capacity];
+        break;
+      default:
+        objects = new Object[capacity];
+      }
+    }
+
+    private static Kind kind(CsvFieldType type) {
+      if (type == null) {
+        return Kind.OBJECT;
+      }
+      switch (type) {
+      case BOOLEAN:
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+        return Kind.LONG;
+      case FLOAT:
+      case DOUBLE:
+        return Kind.DOUBLE;
+      default:
+        return Kind.OBJECT;
+      }
+    }
+
+    void setNull(int row) {
+      ensureCapacity(row);
+      nulls.set(row);
+    }
+
+    void set(int row, Parser parser) {
+      ensureCapacity(row);
+      if (type == null) {
+        objects[row] = parser.string();
+        return;
+      }
+      switch (type) {
+      case STRING:
+      case CHAR:
+        objects[row] = parser.string();
+        return;
+      default:
+        if (parser.isEmpty()) {
+          nulls.set(row);
+          return;
+        }
+      }
+      switch (type) {
+      case BOOLEAN:
+        longs[row] = parser.parseBoolean() ? 1L : 0L;
+        break;
+      case BYTE:
+        longs[row] = parser.parseLong(type, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        break;
+      case SHORT:
+        longs[row] = parser.parseLong(type, Short.MIN_VALUE, Short.MAX_VALUE);
+        break;
+      case INT:
+        longs[row] =
+            parser.parseLong(type, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        break;
+      case LONG:
+        longs[row] = parser.parseLong(type, Long.MIN_VALUE, Long.MAX_VALUE);
+        break;
+      case FLOAT:
+      case DOUBLE:
+        doubles[row] = parser.parseDouble(type);
+        break;
+      default:
+        final Object o = CsvEnumerator.convert(type, parser.string());
+        if (o == null) {
+          nulls.set(row);
+        }
+        objects[row] = o;
+      }
+    }
+
+    private void ensureCapacity(int row) {
+      if (longs != null && row >= longs.length) {
+        longs = Arrays.copyOf(longs, longs.length * 2);
+      } else if (doubles != null && row >= doubles.length) {
+        doubles = Arrays.copyOf(doubles, doubles.length * 2);
+      } else if (objects != null && row >= objects.length) {
+        objects = Arrays.copyOf(objects, objects.length * 2);
+      }
+    }
+
+    Object get(int row) {
+      if (nulls.get(row)) {
+        return null;
+      }
+      if (type == null) {
+        return objects[row];
+      }
+      switch (type) {
+      case BOOLEAN:
+        return longs[row] != 0L;
+      case BYTE:
+        return (byte) longs[row];
+      case SHORT:
+        return (short) longs[row];
+      case INT:
+        return (int) longs[row];
+      case LONG:
+        return longs[row];
+      case FLOAT:
+        return (float) doubles[row];
+      case DOUBLE:
+        return doubles[row];
+      default:
+        return objects[row];
+      }
+    }
+
+    /** How a column stores its values. */
+    private enum Kind {
+      LONG, DOUBLE, OBJECT
+    }
+  }
+
+  /** The rows of a chunk, stored as columns. */
+  private static class Chunk {
+    final Column[] columns;
+    final int rowCount;
+
+    Chunk(Column[] columns, int rowCount) {
+      this.columns = columns;
+      this.rowCount = rowCount;
+    }
+
+    Object row(int row) {
+      if (columns.length == 1) {
+        return columns[0].get(row);
+      }
+      final Object[] values = new Object[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        values[i] = columns[i].get(row);
+      }
+      return values;
+    }
+  }
+}
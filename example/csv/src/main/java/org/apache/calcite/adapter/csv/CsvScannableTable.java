@@ -24,6 +24,7 @@
 import org.apache.calcite.schema.ScannableTable;
 import org.apache.calcite.util.Source;
 
+import java.io.File;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -40,6 +41,12 @@ public class CsvScannableTable extends CsvTable
     super(source, protoRowType);
   }
 
+  /** Creates a CsvScannableTable that caches a columnar copy of its file. */
+  CsvScannableTable(Source source, RelProtoDataType protoRowType,
+      File cacheDirectory) {
+    super(source, protoRowType, cacheDirectory);
+  }
+
   public String toString() {
     return "CsvScannableTable";
   }
@@ -50,6 +57,10 @@ public Enumerable<Object[]> scan(DataContext root) {
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
     return new AbstractEnumerable<Object[]>() {
       public Enumerator<Object[]> enumerator() {
+        if (cache != null) {
+          return cache.enumerator(fieldTypes, fields, null, cancelFlag,
+              false);
+        }
         return new CsvEnumerator<>(source, cancelFlag, false, null,
             new CsvEnumerator.ArrayRowConverter(fieldTypes, fields));
       }
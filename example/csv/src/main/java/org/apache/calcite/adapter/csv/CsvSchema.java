@@ -33,6 +33,8 @@
 public class CsvSchema extends AbstractSchema {
   private final File directoryFile;
   private final CsvTable.Flavor flavor;
+  private final int parallelism;
+  private final File cacheDirectory;
   private Map<String, Table> tableMap;
 
   /**
@@ -43,9 +45,42 @@ public class CsvSchema extends AbstractSchema {
    *                   query optimization
    */
   public CsvSchema(File directoryFile, CsvTable.Flavor flavor) {
+    this(directoryFile, flavor, 1);
+  }
+
+  /**
+   * Creates a CSV schema whose translatable tables read their files with a
+   * given degree of parallelism.
+   *
+   * @param directoryFile Directory that holds {@code .csv} files
+   * @param flavor     Whether to instantiate flavor tables that undergo
+   *                   query optimization
+   * @param parallelism Number of threads that parse each file; if greater
+   *                   than 1, translatable tables memory-map their files
+   */
+  public CsvSchema(File directoryFile, CsvTable.Flavor flavor,
+      int parallelism) {
+    this(directoryFile, flavor, parallelism, null);
+  }
+
+  /**
+   * Creates a CSV schema whose tables cache a columnar copy of their files.
+   *
+   * @param directoryFile Directory that holds {@code .csv} files
+   * @param flavor     Whether to instantiate flavor tables that undergo
+   *                   query optimization
+   * @param parallelism Number of threads that parse each file; if greater
+   *                   than 1, translatable tables memory-map their files
+   * @param cacheDirectory Directory in which to cache a columnar copy of each
+   *                   file, or null to read the files directly
+   */
+  public CsvSchema(File directoryFile, CsvTable.Flavor flavor,
+      int parallelism, File cacheDirectory) {
     super();
     this.directoryFile = directoryFile;
     this.flavor = flavor;
+    this.parallelism = parallelism;
+    this.cacheDirectory = cacheDirectory;
   }
 
   /** Looks for a suffix on a string and returns
@@ -108,11 +143,12 @@ private Map<String, Table> createTableMap() {
   private Table createTable(Source source) {
     switch (flavor) {
     case TRANSLATABLE:
-      return new CsvTranslatableTable(source, null);
+      return new CsvTranslatableTable(source, null, parallelism,
+          cacheDirectory);
     case SCANNABLE:
-      return new CsvScannableTable(source, null);
+      return new CsvScannableTable(source, null, cacheDirectory);
     case FILTERABLE:
-      return new CsvFilterableTable(source, null);
+      return new CsvFilterableTable(source, null, cacheDirectory);
     default:
       throw new AssertionError("Unknown flavor " + this.flavor);
     }
@@ -59,6 +59,16 @@ public Schema create(SchemaPlus parentSchema, String name,
     } else {
       flavor = CsvTable.Flavor.valueOf(flavorName.toUpperCase(Locale.ROOT));
     }
-    return new CsvSchema(directoryFile, flavor);
+    final Number parallelism = (Number) operand.get("parallelism");
+    final String cacheDirectory = (String) operand.get("cacheDirectory");
+    File cacheDirectoryFile = null;
+    if (cacheDirectory != null) {
+      cacheDirectoryFile = new File(cacheDirectory);
+      if (base != null && !cacheDirectoryFile.isAbsolute()) {
+        cacheDirectoryFile = new File(base, cacheDirectory);
+      }
+    }
+    return new CsvSchema(directoryFile, flavor,
+        parallelism == null ? 1 : parallelism.intValue(), cacheDirectoryFile);
   }
 }
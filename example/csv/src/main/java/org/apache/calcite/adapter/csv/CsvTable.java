@@ -20,9 +20,14 @@
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelProtoDataType;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.calcite.util.Source;
 
+import com.google.common.collect.ImmutableList;
+
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,13 +37,33 @@
 public abstract class CsvTable extends AbstractTable {
   protected final Source source;
   protected final RelProtoDataType protoRowType;
+  /** Columnar copy of the file, or null if the table is not cached. */
+  final CsvColumnarCache cache;
   private RelDataType rowType;
   private List<CsvFieldType> fieldTypes;
 
   /** Creates a CsvTable. */
   CsvTable(Source source, RelProtoDataType protoRowType) {
+    this(source, protoRowType, null);
+  }
+
+  /** Creates a CsvTable that caches a columnar copy of its file in a given
+   * directory, or is not cached if the directory is null. */
+  CsvTable(Source source, RelProtoDataType protoRowType,
+      File cacheDirectory) {
     this.source = source;
     this.protoRowType = protoRowType;
+    this.cache = CsvColumnarCache.of(cacheDirectory, source);
+  }
+
+  @Override public Statistic getStatistic() {
+    if (cache != null) {
+      final Double rowCount = cache.getRowCount();
+      if (rowCount != null) {
+        return Statistics.of(rowCount, ImmutableList.of());
+      }
+    }
+    return super.getStatistic();
   }
 
   public RelDataType getRowType(RelDataTypeFactory typeFactory) {
@@ -32,7 +32,9 @@
 import org.apache.calcite.schema.TranslatableTable;
 import org.apache.calcite.util.Source;
 
+import java.io.File;
 import java.lang.reflect.Type;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -40,9 +42,28 @@
  */
 public class CsvTranslatableTable extends CsvTable
     implements QueryableTable, TranslatableTable {
+  /** Number of threads that parse a memory-mapped file; if 1, the file is
+   * read sequentially by {@link CsvEnumerator}. */
+  private final int parallelism;
+
   /** Creates a CsvTable. */
   CsvTranslatableTable(Source source, RelProtoDataType protoRowType) {
-    super(source, protoRowType);
+    this(source, protoRowType, 1);
+  }
+
+  /** Creates a CsvTable that reads with a given degree of parallelism. */
+  CsvTranslatableTable(Source source, RelProtoDataType protoRowType,
+      int parallelism) {
+    this(source, protoRowType, parallelism, null);
+  }
+
+  /** Creates a CsvTable that reads with a given degree of parallelism, and
+   * caches a columnar copy of its file in a given directory, or is not cached
+   * if the directory is null. */
+  CsvTranslatableTable(Source source, RelProtoDataType protoRowType,
+      int parallelism, File cacheDirectory) {
+    super(source, protoRowType, cacheDirectory);
+    this.parallelism = parallelism;
   }
 
   public String toString() {
@@ -55,17 +76,43 @@ public String toString() {
   public Enumerable<Object> project(final DataContext root,
       final int[] fields) {
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+    final List<CsvFieldType> fieldTypes = getFieldTypes(root.getTypeFactory());
+    if (cache != null) {
+      return new AbstractEnumerable<Object>() {
+        public Enumerator<Object> enumerator() {
+          return cache.enumerator(fieldTypes, fields, null, cancelFlag, true);
+        }
+      };
+    }
+    if (isMappable()) {
+      final File file = source.file();
+      return new AbstractEnumerable<Object>() {
+        public Enumerator<Object> enumerator() {
+          return new CsvMappedEnumerator<>(file, cancelFlag, fieldTypes,
+              fields, parallelism);
+        }
+      };
+    }
     return new AbstractEnumerable<Object>() {
       public Enumerator<Object> enumerator() {
         return new CsvEnumerator<>(
             source,
             cancelFlag,
-            getFieldTypes(root.getTypeFactory()),
+            fieldTypes,
             fields);
       }
     };
   }
 
+  /** Returns whether this table is read by memory-mapping its file and
+   * parsing it in parallel. That requires parallelism greater than 1 and an
+   * uncompressed local file. */
+  private boolean isMappable() {
+    return parallelism > 1
+        && source.protocol().equals("file")
+        && !source.path().endsWith(".gz");
+  }
+
   public Expression getExpression(SchemaPlus schema, String tableName,
       Class clazz) {
     return Schemas.tableExpression(schema, getElementType(), tableName, clazz);
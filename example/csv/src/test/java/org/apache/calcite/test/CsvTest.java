@@ -260,6 +260,41 @@ private static StringBuilder escapeString(StringBuilder buf, String s) {
     sql("smart", sql).returns(expected).ok();
   }
 
+  /** Tests a translatable table that memory-maps its file and parses it in
+   * parallel. The file is small, so it is split into chunks of one or two
+   * lines; rows must still be returned in file order. */
+  @Test void testParallelScan() throws SQLException {
+    sql("parallel", "select * from LONG_EMPS")
+        .returns("EMPNO=100; NAME=Fred; DEPTNO=10; GENDER=; CITY=; EMPID=30; "
+                + "AGE=25; SLACKER=true; MANAGER=false; JOINEDAT=1996-08-03",
+            "EMPNO=110; NAME=Eric; DEPTNO=20; GENDER=M; CITY=San Francisco; "
+                + "EMPID=3; AGE=80; SLACKER=null; MANAGER=false; "
+                + "JOINEDAT=2001-01-01",
+            "EMPNO=110; NAME=John; DEPTNO=40; GENDER=M; CITY=Vancouver; "
+                + "EMPID=2; AGE=null; SLACKER=false; MANAGER=true; "
+                + "JOINEDAT=2002-05-03",
+            "EMPNO=120; NAME=Wilma; DEPTNO=20; GENDER=F; CITY=; EMPID=1; "
+                + "AGE=5; SLACKER=null; MANAGER=true; JOINEDAT=2005-09-07",
+            "EMPNO=130; NAME=Alice; DEPTNO=40; GENDER=F; CITY=Vancouver; "
+                + "EMPID=2; AGE=null; SLACKER=false; MANAGER=true; "
+                + "JOINEDAT=2007-01-01")
+        .ok();
+    sql("parallel", "explain plan for select name, empno from LONG_EMPS")
+        .returns("PLAN=CsvTableScan(table=[[BUG, LONG_EMPS]], "
+            + "fields=[[1, 0]])\n")
+        .ok();
+    sql("parallel", "select name, empno from LONG_EMPS")
+        .returns("NAME=Fred; EMPNO=100",
+            "NAME=Eric; EMPNO=110",
+            "NAME=John; EMPNO=110",
+            "NAME=Wilma; EMPNO=120",
+            "NAME=Alice; EMPNO=130")
+        .ok();
+    sql("parallel", "select sum(age) as s from LONG_EMPS")
+        .returns("S=110")
+        .ok();
+  }
+
   @Test void testPushDownProjectAggregateNested() throws SQLException {
     final String sql = "explain plan for\n"
         + "select gender, max(qty)\n"
@@ -299,6 +334,65 @@ private static StringBuilder escapeString(StringBuilder buf, String s) {
         .returns("EMPNO=130; GENDER=F; NAME=Alice").ok();
   }
 
+  /** Tests a schema that caches a columnar copy of each file. The first scan
+   * creates the cache file, which then provides the table's row count and
+   * serves later scans. */
+  @Test void testColumnarCache() throws Exception {
+    final File cacheDirectory =
+        java.nio.file.Files.createTempDirectory("csv-cache").toFile();
+    final Properties info = new Properties();
+    info.put("model",
+        "inline:"
+            + "{\n"
+            + "  version: '1.0',\n"
+            + "  defaultSchema: 'SALES',\n"
+            + "  schemas: [\n"
+            + "    {\n"
+            + "      type: 'custom',\n"
+            + "      name: 'SALES',\n"
+            + "      factory: 'org.apache.calcite.adapter.csv.CsvSchemaFactory',\n"
+            + "      operand: {\n"
+            + "        directory: " + escapeString(resourcePath("sales")) + ",\n"
+            + "        flavor: 'FILTERABLE',\n"
+            + "        cacheDirectory: "
+            + escapeString(cacheDirectory.getAbsolutePath()) + "\n"
+            + "      }\n"
+            + "    }\n"
+            + "  ]\n"
+            + "}");
+    final String sql = "select empno, name from EMPS where deptno = 40";
+    try {
+      for (int i = 0; i < 2; i++) {
+        try (Connection connection =
+                 DriverManager.getConnection("jdbc:calcite:", info);
+             Statement statement = connection.createStatement()) {
+          final Schema schema = connection.unwrap(CalciteConnection.class)
+              .getRootSchema().getSubSchema("SALES");
+          assertThat(schema.getTable("EMPS").getStatistic().getRowCount(),
+              is(i == 0 ? null : 5D));
+          final List<String> lines = new ArrayList<>();
+          collect(lines, statement.executeQuery(sql));
+          assertThat(lines,
+              is(Arrays.asList("EMPNO=110; NAME=John", "EMPNO=130; NAME=Alice")));
+          assertThat(schema.getTable("EMPS").getStatistic().getRowCount(),
+              is(5D));
+          assertThat(cacheDirectory.list().length, is(1));
+
+          // No employee is in department 99, which is beyond the range of
+          // DEPTNO values recorded in the cache file.
+          final ResultSet resultSet = statement.executeQuery(
+              "select * from EMPS where deptno = 99");
+          assertThat(resultSet.next(), is(false));
+        }
+      }
+    } finally {
+      for (File file : cacheDirectory.listFiles()) {
+        file.delete();
+      }
+      cacheDirectory.delete();
+    }
+  }
+
   /** Filter that can be slightly handled by CsvFilterableTable. */
   @Test void testFilterableWhere3() throws SQLException {
     final String sql = "select empno, gender, name from EMPS\n"
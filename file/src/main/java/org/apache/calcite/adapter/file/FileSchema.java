@@ -40,6 +40,7 @@
 class FileSchema extends AbstractSchema {
   private final ImmutableList<Map<String, Object>> tables;
   private final File baseDirectory;
+  private final File cacheDirectory;
 
   /**
    * Creates an HTML tables schema.
@@ -48,11 +49,14 @@ class FileSchema extends AbstractSchema {
    * @param name          Schema name
    * @param baseDirectory Base directory to look for relative files, or null
    * @param tables        List containing HTML table identifiers
+   * @param cacheDirectory Directory in which to cache a columnar copy of each
+   *                      CSV file, or null
    */
   FileSchema(SchemaPlus parentSchema, String name, File baseDirectory,
-      List<Map<String, Object>> tables) {
+      List<Map<String, Object>> tables, File cacheDirectory) {
     this.tables = ImmutableList.copyOf(tables);
     this.baseDirectory = baseDirectory;
+    this.cacheDirectory = cacheDirectory;
   }
 
   /**
@@ -145,7 +149,7 @@ private boolean addTable(ImmutableMap.Builder<String, Table> builder,
     }
     final Source sourceSansCsv = sourceSansGz.trimOrNull(".csv");
     if (sourceSansCsv != null) {
-      final Table table = new CsvFilterableTable(source, null);
+      final Table table = new CsvFilterableTable(source, null, cacheDirectory);
       builder.put(Util.first(tableName, sourceSansCsv.path()), table);
       return true;
     }
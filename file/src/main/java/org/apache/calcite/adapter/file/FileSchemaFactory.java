@@ -51,6 +51,15 @@ public Schema create(SchemaPlus parentSchema, String name,
         directoryFile = new File(baseDirectory, directory);
       }
     }
-    return new FileSchema(parentSchema, name, directoryFile, tables);
+    File cacheDirectoryFile = null;
+    final String cacheDirectory = (String) operand.get("cacheDirectory");
+    if (cacheDirectory != null) {
+      cacheDirectoryFile = new File(cacheDirectory);
+      if (baseDirectory != null && !cacheDirectoryFile.isAbsolute()) {
+        cacheDirectoryFile = new File(baseDirectory, cacheDirectory);
+      }
+    }
+    return new FileSchema(parentSchema, name, directoryFile, tables,
+        cacheDirectoryFile);
   }
 }
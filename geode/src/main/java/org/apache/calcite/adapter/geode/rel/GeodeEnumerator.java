@@ -52,10 +52,22 @@ class GeodeEnumerator implements Enumerator<Object> {
    * @param protoRowType The type of resulting rows
    */
   GeodeEnumerator(SelectResults results, RelProtoDataType protoRowType) {
-    if (results == null) {
+    this(results == null ? null : results.iterator(), protoRowType);
+  }
+
+  /**
+   * Creates a GeodeEnumerator that reads rows as they arrive.
+   *
+   * @param iterator     Iterator over Geode results; if it is
+   *                     {@link AutoCloseable}, it is closed with the
+   *                     enumerator
+   * @param protoRowType The type of resulting rows
+   */
+  GeodeEnumerator(Iterator iterator, RelProtoDataType protoRowType) {
+    if (iterator == null) {
       LOGGER.warn("Null OQL results!");
     }
-    this.iterator = (results == null) ? Collections.emptyIterator() : results.iterator();
+    this.iterator = (iterator == null) ? Collections.emptyIterator() : iterator;
     this.current = null;
 
     final RelDataTypeFactory typeFactory =
@@ -86,6 +98,12 @@ class GeodeEnumerator implements Enumerator<Object> {
   }
 
   @Override public void close() {
-    // Nothing to do here
+    if (iterator instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) iterator).close();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
   }
 }
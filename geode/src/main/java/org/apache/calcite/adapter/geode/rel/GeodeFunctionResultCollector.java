@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.geode.rel;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Execution;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.ResultCollector;
+import org.apache.geode.distributed.DistributedMember;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the batches sent by {@link GeodeQueryFunction} and exposes them
+ * as an iterator, so that rows can be consumed while other members are still
+ * executing the query.
+ *
+ * <p>The queue between Geode's result threads and the consumer is bounded;
+ * when the consumer falls behind, the members block in
+ * {@link #addResult}. Closing the iterator discards any further batches.
+ *
+ * <p>The end of the results is signalled when Geode calls
+ * {@link #endResults}, and also when the execution finishes or fails, even
+ * if a member failed without ending its results. If no batch arrives for
+ * {@link #RESULT_TIMEOUT_MILLIS}, the consumer fails rather than waiting
+ * for ever.
+ */
+class GeodeFunctionResultCollector
+    implements ResultCollector<Object, Object>, Iterator<Object>,
+    AutoCloseable {
+  private static final Object END = new Object();
+
+  /** Maximum number of batches held in memory. */
+  private static final int QUEUE_CAPACITY = 16;
+
+  /** Longest time the consumer waits for the next batch. */
+  static final long RESULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private static final ExecutorService EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("geode-function-%d")
+              .build());
+
+  private final BlockingQueue<Object> queue =
+      new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final long limit;
+  private Iterator<?> batch = Collections.emptyIterator();
+  private boolean done;
+  private long count;
+  private volatile boolean closed;
+  private final AtomicBoolean ended = new AtomicBoolean();
+
+  private GeodeFunctionResultCollector(long limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * Executes {@link GeodeQueryFunction} on a region and returns an iterator
+   * over its results.
+   *
+   * @param region Region to execute on
+   * @param oql OQL query
+   * @param batchSize Number of rows per batch sent by each member
+   * @param limit Maximum number of rows to return, or null for no limit
+   * @return Iterator over the rows returned by all members
+   */
+  static GeodeFunctionResultCollector execute(Region<?, ?> region,
+      String oql, int batchSize, Long limit) {
+    final GeodeFunctionResultCollector collector =
+        new GeodeFunctionResultCollector(
+            limit == null ? Long.MAX_VALUE : limit);
+    @SuppressWarnings("unchecked")
+    final Execution<Object[], Object, Object> execution =
+        FunctionService.onRegion(region)
+            .setArguments(new Object[] {oql, batchSize})
+            .withCollector(collector);
+    // Execute on a separate thread; on some topologies "execute" does not
+    // return until every member has sent its last result. "getResult" waits
+    // for the members that have not.
+    EXECUTOR.execute(() -> {
+      try {
+        execution.execute(GeodeQueryFunction.ID).getResult();
+      } catch (Throwable e) {
+        collector.put(
+            new RuntimeException(
+                String.format(Locale.ROOT,
+                    "Failed to execute query [%s] on region %s", oql,
+                    region.getName()), e));
+      } finally {
+        collector.end();
+      }
+    });
+    return collector;
+  }
+
+  @Override public void addResult(DistributedMember member, Object result) {
+    if (result instanceof Collection && ((Collection) result).isEmpty()) {
+      return;
+    }
+    put(result);
+  }
+
+  @Override public void endResults() {
+    end();
+  }
+
+  /** Signals the end of the results, if it has not been signalled
+   * already. */
+  private void end() {
+    if (ended.compareAndSet(false, true)) {
+      put(END);
+    }
+  }
+
+  @Override public Object getResult() {
+    return this;
+  }
+
+  @Override public Object getResult(long timeout, TimeUnit unit) {
+    return this;
+  }
+
+  @Override public void clearResults() {
+    queue.clear();
+  }
+
+  private void put(Object o) {
+    try {
+      while (!closed) {
+        if (queue.offer(o, 100, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override public boolean hasNext() {
+    if (count >= limit) {
+      return false;
+    }
+    while (!batch.hasNext()) {
+      if (done) {
+        return false;
+      }
+      final Object o;
+      try {
+        o = queue.poll(RESULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+      if (o == null) {
+        done = true;
+        throw new RuntimeException("No result from Geode in "
+            + RESULT_TIMEOUT_MILLIS + " milliseconds");
+      } else if (o == END) {
+        done = true;
+      } else if (o instanceof Throwable) {
+        done = true;
+        throw o instanceof RuntimeException
+            ? (RuntimeException) o
+            : new RuntimeException((Throwable) o);
+      } else if (o instanceof Collection) {
+        batch = ((Collection<?>) o).iterator();
+      } else {
+        batch = Collections.singletonList(o).iterator();
+      }
+    }
+    return true;
+  }
+
+  @Override public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    ++count;
+    return batch.next();
+  }
+
+  @Override public void close() {
+    closed = true;
+    queue.clear();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.geode.rel;
+
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionException;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.execute.ResultSender;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.SelectResults;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Geode function that runs an OQL query on the data hosted by the member it
+ * executes on, and streams the results back in batches.
+ *
+ * <p>When executed on a partitioned region, every member that hosts buckets
+ * of the region runs the query against its local buckets only, so a scan is
+ * split across the cluster instead of being funnelled through one server.
+ *
+ * <p>The function must be registered on the servers, for example by deploying
+ * the adapter jar with {@code gfsh deploy}, or by calling
+ * {@link org.apache.geode.cache.execute.FunctionService#registerFunction}.
+ *
+ * <p>Arguments are an array {@code [oql, batchSize]}.
+ */
+public class GeodeQueryFunction implements Function<Object[]> {
+  /** Identifier under which the function is registered. */
+  public static final String ID = "calcite-geode-query";
+
+  @Override public void execute(FunctionContext<Object[]> context) {
+    final Object[] arguments = context.getArguments();
+    final String oql = (String) arguments[0];
+    final int batchSize = (Integer) arguments[1];
+    final ResultSender<Object> sender = context.getResultSender();
+    try {
+      final Query query = context.getCache().getQueryService().newQuery(oql);
+      final Object result;
+      if (context instanceof RegionFunctionContext
+          && PartitionRegionHelper.isPartitionedRegion(
+              ((RegionFunctionContext) context).getDataSet())) {
+        result = query.execute((RegionFunctionContext) context);
+      } else {
+        result = query.execute();
+      }
+      final Collection<?> rows = result instanceof SelectResults
+          ? (SelectResults<?>) result
+          : Collections.singletonList(result);
+      List<Object> batch = new ArrayList<>(batchSize);
+      for (Object row : rows) {
+        if (batch.size() == batchSize) {
+          sender.sendResult(batch);
+          batch = new ArrayList<>(batchSize);
+        }
+        batch.add(row);
+      }
+      sender.lastResult(batch);
+    } catch (Exception e) {
+      throw new FunctionException(
+          String.format(Locale.ROOT, "Failed to execute query [%s]", oql), e);
+    }
+  }
+
+  @Override public String getId() {
+    return ID;
+  }
+
+  @Override public boolean optimizeForWrite() {
+    return false;
+  }
+
+  /** Returns false: batches that have already been consumed cannot be
+   * retracted, so re-executing the function after a member failure would
+   * produce duplicate rows. */
+  @Override public boolean isHA() {
+    return false;
+  }
+}
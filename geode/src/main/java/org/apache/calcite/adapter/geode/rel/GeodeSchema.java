@@ -23,6 +23,7 @@
 import org.apache.geode.cache.GemFireCache;
 import org.apache.geode.cache.Region;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
@@ -35,14 +36,37 @@
  */
 public class GeodeSchema extends AbstractSchema {
 
+  /** Default number of rows per batch sent by {@link GeodeQueryFunction}. */
+  public static final int DEFAULT_FUNCTION_BATCH_SIZE = 1000;
+
   final GemFireCache cache;
   private final List<String> regionNames;
+  private final boolean functionExecution;
+  private final int functionBatchSize;
   private ImmutableMap<String, Table> tableMap;
 
   public GeodeSchema(final GemFireCache cache, final Iterable<String> regionNames) {
+    this(cache, regionNames, false, DEFAULT_FUNCTION_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a GeodeSchema.
+   *
+   * @param cache             Geode cache
+   * @param regionNames       Names of the regions to expose as tables
+   * @param functionExecution Whether to run scans as {@link GeodeQueryFunction},
+   *                          which must be registered on the servers
+   * @param functionBatchSize Number of rows per batch sent by the function
+   */
+  public GeodeSchema(final GemFireCache cache, final Iterable<String> regionNames,
+      boolean functionExecution, int functionBatchSize) {
     super();
     this.cache = Objects.requireNonNull(cache, "clientCache");
     this.regionNames = ImmutableList.copyOf(Objects.requireNonNull(regionNames, "regionNames"));
+    Preconditions.checkArgument(functionBatchSize > 0,
+        "functionBatchSize must be positive: %s", functionBatchSize);
+    this.functionExecution = functionExecution;
+    this.functionBatchSize = functionBatchSize;
   }
 
   @Override protected Map<String, Table> getTableMap() {
@@ -53,7 +77,7 @@ public GeodeSchema(final GemFireCache cache, final Iterable<String> regionNames)
 
       for (String regionName : regionNames) {
         Region region = GeodeUtils.createRegion(cache, regionName);
-        Table table = new GeodeTable(region);
+        Table table = new GeodeTable(region, functionExecution, functionBatchSize);
         builder.put(regionName, table);
       }
 
@@ -40,6 +40,8 @@ public class GeodeSchemaFactory implements SchemaFactory {
   public static final String REGIONS = "regions";
   public static final String PDX_SERIALIZABLE_PACKAGE_PATH = "pdxSerializablePackagePath";
   public static final String ALLOW_SPATIAL_FUNCTIONS = "spatialFunction";
+  public static final String FUNCTION_EXECUTION = "functionExecution";
+  public static final String FUNCTION_BATCH_SIZE = "functionBatchSize";
   public static final String COMMA_DELIMITER = ",";
 
   public GeodeSchemaFactory() {
@@ -64,8 +66,18 @@ public synchronized Schema create(SchemaPlus parentSchema, String name,
           GeoFunctions.class.getName(), "*", true);
     }
 
+    boolean functionExecution = false;
+    if (map.containsKey(FUNCTION_EXECUTION)) {
+      functionExecution = Boolean.valueOf(String.valueOf(map.get(FUNCTION_EXECUTION)));
+    }
+
+    int functionBatchSize = GeodeSchema.DEFAULT_FUNCTION_BATCH_SIZE;
+    if (map.containsKey(FUNCTION_BATCH_SIZE)) {
+      functionBatchSize = Integer.valueOf(String.valueOf(map.get(FUNCTION_BATCH_SIZE)));
+    }
+
     return new GeodeSchema(
         createClientCache(locatorHost, locatorPort, pbxSerializablePackagePath, true),
-        Arrays.asList(regionNames));
+        Arrays.asList(regionNames), functionExecution, functionBatchSize);
   }
 }
@@ -64,10 +64,23 @@ public class GeodeTable extends AbstractQueryableTable implements TranslatableTa
   private final String regionName;
   private final RelDataType rowType;
 
+  /** Whether plain scans run as {@link GeodeQueryFunction} on the servers. */
+  private final boolean functionExecution;
+
+  /** Number of rows per batch sent by {@link GeodeQueryFunction}. */
+  private final int functionBatchSize;
+
   GeodeTable(Region<?, ?> region) {
+    this(region, false, GeodeSchema.DEFAULT_FUNCTION_BATCH_SIZE);
+  }
+
+  GeodeTable(Region<?, ?> region, boolean functionExecution,
+      int functionBatchSize) {
     super(Object[].class);
     this.regionName = region.getName();
     this.rowType = GeodeUtils.autodetectRelTypeFromRegion(region);
+    this.functionExecution = functionExecution;
+    this.functionBatchSize = functionBatchSize;
   }
 
   public String toString() {
@@ -80,6 +93,12 @@ public String toString() {
    * <p>Called by the {@link GeodeQueryable} which in turn is
    * called via the generated code.
    *
+   * <p>If function execution is enabled and the query has no grouping,
+   * aggregation or ordering, the query runs as {@link GeodeQueryFunction} on
+   * every member that hosts the region, and rows are returned as the
+   * members send them. Otherwise the query runs through the
+   * {@link QueryService}, which returns the whole result at once.
+   *
    * @param clientCache Geode client cache
    * @param fields      List of fields to project
    * @param predicates  A list of predicates which should be used in the query
@@ -92,7 +111,7 @@ public Enumerable<Object> query(final GemFireCache clientCache,
       final List<String> groupByFields,
       List<String> predicates,
       List<String> orderByFields,
-      Long limit) {
+      final Long limit) {
 
     final RelDataTypeFactory typeFactory = new JavaTypeFactoryExtImpl();
     final RelDataTypeFactory.Builder fieldInfo = typeFactory.builder();
@@ -194,6 +213,24 @@ public Enumerable<Object> query(final GemFireCache clientCache,
     Hook.QUERY_PLAN.run(oqlQuery);
     LOGGER.info("OQL: " + oqlQuery);
 
+    if (functionExecution
+        && groupByFields.isEmpty()
+        && aggFuncMap.isEmpty()
+        && orderByFields.isEmpty()) {
+      // Each member applies the LIMIT to its own data; the collector applies
+      // it again to the combined rows.
+      return new AbstractEnumerable<Object>() {
+        public Enumerator<Object> enumerator() {
+          final Region<?, ?> region =
+              GeodeUtils.createRegion(clientCache, regionName);
+          return new GeodeEnumerator(
+              GeodeFunctionResultCollector.execute(region, oqlQuery,
+                  functionBatchSize, limit),
+              resultRowType);
+        }
+      };
+    }
+
     return new AbstractEnumerable<Object>() {
       public Enumerator<Object> enumerator() {
         final QueryService queryService = clientCache.getQueryService();
@@ -24,6 +24,8 @@
 
 import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.execute.FunctionService;
 import org.apache.geode.cache.query.Query;
 import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.SelectResults;
@@ -53,20 +55,32 @@ public static void setUp() throws Exception {
     Cache cache = POLICY.cache();
     Region<?, ?> region =  cache.<String, Object>createRegionFactory().create("zips");
     new JsonLoader(region).loadClasspathResource("/zips-mini.json");
+
+    Region<?, ?> partitioned = cache.<String, Object>createRegionFactory(RegionShortcut.PARTITION)
+        .create("zipsPartitioned");
+    new JsonLoader(partitioned).loadClasspathResource("/zips-mini.json");
+    FunctionService.registerFunction(new GeodeQueryFunction());
   }
 
   private CalciteAssert.ConnectionFactory newConnectionFactory() {
+    return newConnectionFactory("zips", false);
+  }
+
+  private CalciteAssert.ConnectionFactory newConnectionFactory(String regionName,
+      boolean functionExecution) {
     return new CalciteAssert.ConnectionFactory() {
       @Override public Connection createConnection() throws SQLException {
         final Connection connection = DriverManager.getConnection("jdbc:calcite:lex=JAVA");
         final SchemaPlus root = connection.unwrap(CalciteConnection.class).getRootSchema();
 
-        root.add("geode", new GeodeSchema(POLICY.cache(), Collections.singleton("zips")));
+        root.add("geode",
+            new GeodeSchema(POLICY.cache(), Collections.singleton(regionName),
+                functionExecution, 2));
 
         // add calcite view programmatically
         final String viewSql =  "select \"_id\" AS \"id\", \"city\", \"loc\", "
             + "cast(\"pop\" AS integer) AS \"pop\", cast(\"state\" AS varchar(2)) AS \"state\" "
-            + "from \"geode\".\"zips\"";
+            + "from \"geode\".\"" + regionName + "\"";
 
 
         ViewTableMacro macro = ViewTable.viewMacro(root, viewSql,
@@ -204,6 +218,26 @@ public void testJoin() {
             GeodeAssertions.query(expectedQuery));
   }
 
+  /** Runs the query as {@link GeodeQueryFunction} on a partitioned region;
+   * the function sends batches of 2 rows. */
+  @Test void testWhereWithFunctionExecution() {
+    CalciteAssert.that()
+        .with(newConnectionFactory("zipsPartitioned", true))
+        .query("SELECT state as state "
+            + "FROM view WHERE state = 'MA' OR state = 'RI'")
+        .returnsCount(6)
+        .queryContains(
+            GeodeAssertions.query("SELECT state AS state FROM /zipsPartitioned "
+                + "WHERE state IN SET('MA', 'RI')"));
+  }
+
+  @Test void testLimitWithFunctionExecution() {
+    CalciteAssert.that()
+        .with(newConnectionFactory("zipsPartitioned", true))
+        .query("SELECT city FROM view LIMIT 5")
+        .returnsCount(5);
+  }
+
   @Test void testWhereWithOrForNumericField() {
     calciteAssert()
         .query("SELECT pop as pop "
@@ -39,6 +39,7 @@
   final Consumer consumer;
   final KafkaRowConverter<K, V> rowConverter;
   private final AtomicBoolean cancelFlag;
+  private final Duration pollTimeout;
 
   //runtime
   private final LinkedList<ConsumerRecord<K, V>> bufferedRecords = new LinkedList<>();
@@ -47,9 +48,16 @@
   KafkaMessageEnumerator(final Consumer consumer,
       final KafkaRowConverter<K, V> rowConverter,
       final AtomicBoolean cancelFlag) {
+    this(consumer, rowConverter, cancelFlag, Duration.ofMillis(100));
+  }
+
+  KafkaMessageEnumerator(final Consumer consumer,
+      final KafkaRowConverter<K, V> rowConverter,
+      final AtomicBoolean cancelFlag, final Duration pollTimeout) {
     this.consumer = consumer;
     this.rowConverter = rowConverter;
     this.cancelFlag = cancelFlag;
+    this.pollTimeout = pollTimeout;
   }
 
   /**
@@ -73,7 +81,7 @@
   }
 
   private void pullRecords() {
-    ConsumerRecords<K, V> records = consumer.poll(Duration.ofMillis(100));
+    ConsumerRecords<K, V> records = consumer.poll(pollTimeout);
     for (ConsumerRecord record : records) {
       bufferedRecords.add(record);
     }
@@ -0,0 +1,408 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.kafka;
+
+import org.apache.calcite.linq4j.Enumerator;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.NoOffsetForPartitionException;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Enumerator that reads a range of offsets from each partition of a Kafka
+ * topic, using one or more {@link Consumer}s that poll in background threads.
+ *
+ * <p>Each consumer is assigned a share of the partitions, and seeks to the
+ * start of each partition's range. Polled records are handed to the
+ * enumerator in batches through a bounded queue, so that a slow reader
+ * throttles the consumers. A partition is finished when the consumer's
+ * position reaches the end of its range; a bounded scan ends at the end
+ * offsets of the partitions as of the start of the scan.
+ *
+ * <p>If there is no lower bound on offset or timestamp, a bounded scan reads
+ * each partition from its beginning. An unbounded scan, like a consumer that
+ * subscribes to the topic, starts from the consumer group's committed
+ * offset, or if there is none, from the position given by the consumer's
+ * {@code auto.offset.reset} policy (by default, the end of the partition).
+ *
+ * @param <K> type of Kafka message key
+ * @param <V> type of Kafka message value
+ */
+class KafkaPartitionEnumerator<K, V> implements Enumerator<Object[]> {
+  /** Marks that a consumer has finished. */
+  private static final List<ConsumerRecord<?, ?>> END = new ArrayList<>();
+
+  private final KafkaRowConverter<K, V> rowConverter;
+  private final AtomicBoolean cancelFlag;
+  private final Duration pollTimeout;
+  private final BlockingQueue<Object> queue;
+  private final ExecutorService executor;
+  private final List<Future<?>> futures = new ArrayList<>();
+  private final int consumerCount;
+  private int finished;
+  private Iterator<ConsumerRecord<K, V>> batch = Collections.emptyIterator();
+  private ConsumerRecord<K, V> current;
+  private volatile boolean closed;
+
+  /**
+   * Creates a KafkaPartitionEnumerator.
+   *
+   * @param consumer      Consumer used to find partitions and offsets, and to
+   *                      read the first share of the partitions
+   * @param moreConsumers Creates further consumers, or null if only
+   *                      {@code consumer} may be used
+   * @param options       Table options
+   * @param range         Range of partitions, offsets and timestamps to read
+   * @param cancelFlag    Flag that is set when the query is canceled
+   */
+  KafkaPartitionEnumerator(Consumer<K, V> consumer,
+      Supplier<Consumer<K, V>> moreConsumers, KafkaTableOptions options,
+      KafkaScanRange range, AtomicBoolean cancelFlag) {
+    //noinspection unchecked
+    this.rowConverter = options.getRowConverter();
+    this.cancelFlag = cancelFlag;
+    this.pollTimeout = Duration.ofMillis(options.getPollTimeoutMillis());
+
+    final Map<TopicPartition, long[]> ranges;
+    try {
+      ranges = offsetRanges(consumer, options, range);
+    } catch (RuntimeException | Error e) {
+      consumer.close();
+      throw e;
+    }
+
+    // Deal the partitions round-robin to the consumers.
+    final int parallelism = moreConsumers == null
+        ? 1
+        : Math.max(1, Math.min(options.getParallelism(), ranges.size()));
+    final List<Map<TopicPartition, long[]>> shares = new ArrayList<>();
+    for (int i = 0; i < parallelism; i++) {
+      shares.add(new HashMap<>());
+    }
+    int i = 0;
+    for (Map.Entry<TopicPartition, long[]> entry : ranges.entrySet()) {
+      shares.get(i++ % parallelism).put(entry.getKey(), entry.getValue());
+    }
+
+    this.consumerCount = parallelism;
+    this.queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+    this.executor = Executors.newFixedThreadPool(parallelism,
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("kafka-scan-%d")
+            .build());
+    for (i = 0; i < parallelism; i++) {
+      final Map<TopicPartition, long[]> share = shares.get(i);
+      final Supplier<Consumer<K, V>> supplier;
+      if (i == 0) {
+        supplier = () -> consumer;
+      } else {
+        supplier = moreConsumers;
+      }
+      futures.add(executor.submit(() -> consume(supplier, share)));
+    }
+  }
+
+  /** Returns the partitions of the topic to read, and for each the first
+   * offset to read and the offset at which to stop. */
+  private static <K, V> Map<TopicPartition, long[]> offsetRanges(
+      Consumer<K, V> consumer, KafkaTableOptions options,
+      KafkaScanRange range) {
+    final List<TopicPartition> partitions = new ArrayList<>();
+    for (TopicPartition partition : consumer.assignment()) {
+      if (range.containsPartition(partition.partition())) {
+        partitions.add(partition);
+      }
+    }
+    if (partitions.isEmpty() && consumer.assignment().isEmpty()) {
+      final List<PartitionInfo> infos =
+          consumer.partitionsFor(options.getTopicName());
+      if (infos != null) {
+        for (PartitionInfo info : infos) {
+          if (range.containsPartition(info.partition())) {
+            partitions.add(new TopicPartition(info.topic(), info.partition()));
+          }
+        }
+      }
+    }
+    final Map<TopicPartition, long[]> ranges = new HashMap<>();
+    if (partitions.isEmpty()) {
+      return ranges;
+    }
+
+    final Map<TopicPartition, Long> startOffsets =
+        !options.isBounded()
+            && range.minOffset == Long.MIN_VALUE
+            && range.minTimestamp == Long.MIN_VALUE
+            ? initialOffsets(consumer, options, partitions)
+            : consumer.beginningOffsets(partitions);
+    final Map<TopicPartition, Long> endOffsets = options.isBounded()
+        ? consumer.endOffsets(partitions)
+        : Collections.emptyMap();
+    Map<TopicPartition, OffsetAndTimestamp> timeOffsets = null;
+    if (range.minTimestamp != Long.MIN_VALUE) {
+      final Map<TopicPartition, Long> timestamps = new HashMap<>();
+      for (TopicPartition partition : partitions) {
+        timestamps.put(partition, Math.max(0L, range.minTimestamp));
+      }
+      try {
+        timeOffsets = consumer.offsetsForTimes(timestamps);
+      } catch (UnsupportedOperationException e) {
+        // Consumer cannot look up offsets by time; read from the start of
+        // the range, and let the filter discard earlier messages.
+      }
+    }
+
+    for (TopicPartition partition : partitions) {
+      long start = Math.max(range.minOffset,
+          startOffsets.getOrDefault(partition, 0L));
+      long stop = range.maxOffset == Long.MAX_VALUE
+          ? Long.MAX_VALUE
+          : range.maxOffset + 1;
+      if (options.isBounded()) {
+        stop = Math.min(stop, endOffsets.getOrDefault(partition, 0L));
+      }
+      if (timeOffsets != null) {
+        final OffsetAndTimestamp timeOffset = timeOffsets.get(partition);
+        if (timeOffset != null) {
+          start = Math.max(start, timeOffset.offset());
+        } else if (options.isBounded()) {
+          // No message is as recent as the timestamp.
+          start = stop;
+        } else {
+          // Only messages that have not yet arrived can be recent enough.
+          start = Math.max(start,
+              consumer.endOffsets(Collections.singletonList(partition))
+                  .getOrDefault(partition, start));
+        }
+      }
+      ranges.put(partition, new long[] {start, stop});
+    }
+    return ranges;
+  }
+
+  /** Returns the offsets from which an unbounded scan with no lower bound
+   * starts reading each partition: the committed offset of the consumer's
+   * group, otherwise the beginning or end of the partition, according to the
+   * {@code auto.offset.reset} policy. */
+  private static <K, V> Map<TopicPartition, Long> initialOffsets(
+      Consumer<K, V> consumer, KafkaTableOptions options,
+      List<TopicPartition> partitions) {
+    final Map<String, String> params = options.getConsumerParams();
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    final List<TopicPartition> uncommitted = new ArrayList<>();
+    // Only a consumer that belongs to a group has committed offsets. We
+    // cannot see the configuration of a consumer given in the options, so
+    // assume that it may.
+    if (options.getConsumer() != null
+        || params != null
+        && params.get(ConsumerConfig.GROUP_ID_CONFIG) != null) {
+      for (TopicPartition partition : partitions) {
+        final OffsetAndMetadata committed = consumer.committed(partition);
+        if (committed != null) {
+          offsets.put(partition, committed.offset());
+        } else {
+          uncommitted.add(partition);
+        }
+      }
+    } else {
+      uncommitted.addAll(partitions);
+    }
+    if (uncommitted.isEmpty()) {
+      return offsets;
+    }
+    final String reset = params == null
+        ? null
+        : params.get(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG);
+    final OffsetResetStrategy strategy = reset == null
+        ? OffsetResetStrategy.LATEST
+        : OffsetResetStrategy.valueOf(reset.toUpperCase(Locale.ROOT));
+    switch (strategy) {
+    case EARLIEST:
+      offsets.putAll(consumer.beginningOffsets(uncommitted));
+      break;
+    case LATEST:
+      offsets.putAll(consumer.endOffsets(uncommitted));
+      break;
+    default:
+      throw new NoOffsetForPartitionException(uncommitted.get(0));
+    }
+    return offsets;
+  }
+
+  /** Reads a share of the partitions until each reaches the end of its range
+   * or the enumerator is closed, then closes the consumer. */
+  private void consume(Supplier<Consumer<K, V>> supplier,
+      Map<TopicPartition, long[]> share) {
+    Consumer<K, V> consumer = null;
+    try {
+      consumer = supplier.get();
+      final Map<TopicPartition, Long> remaining = new HashMap<>();
+      for (Map.Entry<TopicPartition, long[]> entry : share.entrySet()) {
+        if (entry.getValue()[0] < entry.getValue()[1]) {
+          remaining.put(entry.getKey(), entry.getValue()[1]);
+        }
+      }
+      consumer.assign(new ArrayList<>(remaining.keySet()));
+      for (TopicPartition partition : remaining.keySet()) {
+        consumer.seek(partition, share.get(partition)[0]);
+      }
+      while (!closed && !remaining.isEmpty()) {
+        final ConsumerRecords<K, V> records = consumer.poll(pollTimeout);
+        final List<ConsumerRecord<K, V>> list = new ArrayList<>(records.count());
+        for (ConsumerRecord<K, V> record : records) {
+          final long[] offsets =
+              share.get(new TopicPartition(record.topic(), record.partition()));
+          if (offsets != null
+              && record.offset() >= offsets[0]
+              && record.offset() < offsets[1]) {
+            list.add(record);
+          }
+        }
+        final List<TopicPartition> done = new ArrayList<>();
+        for (Map.Entry<TopicPartition, Long> entry : remaining.entrySet()) {
+          if (consumer.position(entry.getKey()) >= entry.getValue()) {
+            done.add(entry.getKey());
+          }
+        }
+        if (!done.isEmpty()) {
+          consumer.pause(done);
+          remaining.keySet().removeAll(done);
+        }
+        if (!list.isEmpty() && !offer(list)) {
+          break;
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      offer(e);
+    } finally {
+      if (consumer != null) {
+        consumer.close();
+      }
+      offer(END);
+    }
+  }
+
+  /** Hands an element to the enumerator, waiting for space; returns false if
+   * the enumerator was closed meanwhile. */
+  private boolean offer(Object o) {
+    try {
+      while (!closed) {
+        if (queue.offer(o, pollTimeout.toMillis() + 1, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @Override public Object[] current() {
+    return rowConverter.toRow(current);
+  }
+
+  @Override public boolean moveNext() {
+    for (;;) {
+      if (cancelFlag.get()) {
+        return false;
+      }
+      if (batch.hasNext()) {
+        current = batch.next();
+        return true;
+      }
+      if (finished == consumerCount) {
+        return false;
+      }
+      final Object o;
+      try {
+        o = queue.poll(pollTimeout.toMillis() + 1, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+      if (o == null) {
+        continue;
+      }
+      if (o == END) {
+        ++finished;
+      } else if (o instanceof List) {
+        //noinspection unchecked
+        batch = ((List<ConsumerRecord<K, V>>) o).iterator();
+      } else {
+        close();
+        if (o instanceof Error) {
+          throw (Error) o;
+        }
+        throw (RuntimeException) o;
+      }
+    }
+  }
+
+  @Override public void reset() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Stops the background threads, and waits until they have closed their
+   * consumers. */
+  @Override public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    queue.clear();
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // consume reports its own failures through the queue
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.kafka;
+
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Range of partitions, offsets and timestamps that a scan of a Kafka topic
+ * needs to read, deduced from filters on the
+ * {@code MSG_PARTITION}, {@code MSG_OFFSET} and {@code MSG_TIMESTAMP}
+ * columns.
+ *
+ * <p>The range is conservative: every record that satisfies the filters is
+ * in the range, but not every record in the range satisfies the filters, so
+ * the filters must still be applied to the records read.
+ */
+final class KafkaScanRange {
+  static final String PARTITION_COLUMN = "MSG_PARTITION";
+  static final String OFFSET_COLUMN = "MSG_OFFSET";
+  static final String TIMESTAMP_COLUMN = "MSG_TIMESTAMP";
+
+  private static final BigDecimal MIN_LONG = BigDecimal.valueOf(Long.MIN_VALUE);
+  private static final BigDecimal MAX_LONG = BigDecimal.valueOf(Long.MAX_VALUE);
+
+  /** Range that contains every record. */
+  static final KafkaScanRange ALL =
+      new KafkaScanRange(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE,
+          Long.MAX_VALUE, Long.MIN_VALUE);
+
+  /** Lowest and highest partition, inclusive. */
+  final long minPartition;
+  final long maxPartition;
+  /** Lowest and highest offset, inclusive. */
+  final long minOffset;
+  final long maxOffset;
+  /** Lowest timestamp. There is no upper bound on timestamp, because
+   * timestamps may be out of order within a partition. */
+  final long minTimestamp;
+
+  private KafkaScanRange(long minPartition, long maxPartition, long minOffset,
+      long maxOffset, long minTimestamp) {
+    this.minPartition = minPartition;
+    this.maxPartition = maxPartition;
+    this.minOffset = minOffset;
+    this.maxOffset = maxOffset;
+    this.minTimestamp = minTimestamp;
+  }
+
+  /** Deduces the range from a list of filters, which are implicitly
+   * ANDed together. */
+  static KafkaScanRange of(List<RexNode> filters, RelDataType rowType) {
+    final Builder builder = new Builder(rowType);
+    for (RexNode filter : filters) {
+      builder.add(filter);
+    }
+    return builder.build();
+  }
+
+  /** Returns whether this range contains every record. */
+  boolean isAll() {
+    return minPartition == Long.MIN_VALUE
+        && maxPartition == Long.MAX_VALUE
+        && minOffset == Long.MIN_VALUE
+        && maxOffset == Long.MAX_VALUE
+        && minTimestamp == Long.MIN_VALUE;
+  }
+
+  boolean containsPartition(int partition) {
+    return minPartition <= partition && partition <= maxPartition;
+  }
+
+  @Override public String toString() {
+    return "partition [" + minPartition + ", " + maxPartition
+        + "], offset [" + minOffset + ", " + maxOffset
+        + "], timestamp >= " + minTimestamp;
+  }
+
+  /** Accumulates bounds from filters. */
+  private static class Builder {
+    private final int partitionField;
+    private final int offsetField;
+    private final int timestampField;
+    private long minPartition = Long.MIN_VALUE;
+    private long maxPartition = Long.MAX_VALUE;
+    private long minOffset = Long.MIN_VALUE;
+    private long maxOffset = Long.MAX_VALUE;
+    private long minTimestamp = Long.MIN_VALUE;
+
+    Builder(RelDataType rowType) {
+      this.partitionField = ordinal(rowType, PARTITION_COLUMN);
+      this.offsetField = ordinal(rowType, OFFSET_COLUMN);
+      this.timestampField = ordinal(rowType, TIMESTAMP_COLUMN);
+    }
+
+    private static int ordinal(RelDataType rowType, String name) {
+      final RelDataTypeField field = rowType.getField(name, true, false);
+      return field == null ? -1 : field.getIndex();
+    }
+
+    KafkaScanRange build() {
+      return new KafkaScanRange(minPartition, maxPartition, minOffset,
+          maxOffset, minTimestamp);
+    }
+
+    void add(RexNode filter) {
+      switch (filter.getKind()) {
+      case AND:
+        for (RexNode operand : ((RexCall) filter).getOperands()) {
+          add(operand);
+        }
+        return;
+      case EQUALS:
+      case LESS_THAN:
+      case LESS_THAN_OR_EQUAL:
+      case GREATER_THAN:
+      case GREATER_THAN_OR_EQUAL:
+        final RexCall call = (RexCall) filter;
+        final RexNode left = call.getOperands().get(0);
+        final RexNode right = call.getOperands().get(1);
+        if (left instanceof RexInputRef && right instanceof RexLiteral) {
+          add((RexInputRef) left, filter.getKind(), (RexLiteral) right);
+        } else if (right instanceof RexInputRef && left instanceof RexLiteral) {
+          add((RexInputRef) right, filter.getKind().reverse(),
+              (RexLiteral) left);
+        }
+        return;
+      default:
+        // Other filters do not narrow the range.
+      }
+    }
+
+    private void add(RexInputRef ref, SqlKind kind, RexLiteral literal) {
+      if (!(literal.getValue() instanceof BigDecimal)) {
+        return;
+      }
+      final BigDecimal value = (BigDecimal) literal.getValue();
+      long lower = Long.MIN_VALUE;
+      long upper = Long.MAX_VALUE;
+      switch (kind) {
+      case EQUALS:
+        if (value.stripTrailingZeros().scale() > 0) {
+          // No integer equals a non-integer; the range is empty.
+          lower = Long.MAX_VALUE;
+          upper = Long.MIN_VALUE;
+        } else {
+          lower = upper = toLong(value, RoundingMode.UNNECESSARY);
+        }
+        break;
+      case LESS_THAN:
+        upper = value.compareTo(MIN_LONG) <= 0
+            ? Long.MIN_VALUE
+            : toLong(value, RoundingMode.CEILING) - 1;
+        break;
+      case LESS_THAN_OR_EQUAL:
+        upper = toLong(value, RoundingMode.FLOOR);
+        break;
+      case GREATER_THAN:
+        lower = value.compareTo(MAX_LONG) >= 0
+            ? Long.MAX_VALUE
+            : toLong(value, RoundingMode.FLOOR) + 1;
+        break;
+      case GREATER_THAN_OR_EQUAL:
+        lower = toLong(value, RoundingMode.CEILING);
+        break;
+      default:
+        return;
+      }
+      final int index = ref.getIndex();
+      if (index == partitionField) {
+        minPartition = Math.max(minPartition, lower);
+        maxPartition = Math.min(maxPartition, upper);
+      } else if (index == offsetField) {
+        minOffset = Math.max(minOffset, lower);
+        maxOffset = Math.min(maxOffset, upper);
+      } else if (index == timestampField) {
+        minTimestamp = Math.max(minTimestamp, lower);
+      }
+    }
+
+    /** Converts a literal value to a long, saturating at the bounds of the
+     * long range. */
+    private static long toLong(BigDecimal value, RoundingMode roundingMode) {
+      final BigDecimal rounded = value.setScale(0, roundingMode);
+      if (rounded.compareTo(MAX_LONG) >= 0) {
+        return Long.MAX_VALUE;
+      }
+      if (rounded.compareTo(MIN_LONG) <= 0) {
+        return Long.MIN_VALUE;
+      }
+      return rounded.longValueExact();
+    }
+  }
+}
@@ -24,6 +24,8 @@
 import org.apache.calcite.rel.RelCollations;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.schema.FilterableTable;
 import org.apache.calcite.schema.ScannableTable;
 import org.apache.calcite.schema.Schema;
 import org.apache.calcite.schema.Statistic;
@@ -39,7 +41,10 @@
 
 import com.google.common.collect.ImmutableList;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -48,8 +53,14 @@
  *
  * <p>Currently only {@link KafkaStreamTable} is
  * implemented as a STREAM table.
+ *
+ * <p>By default a scan follows the topic indefinitely. If the table is
+ * bounded, or filters restrict the partitions or offsets, or more than one
+ * consumer may be used, the scan reads each partition from an explicit start
+ * offset using {@link KafkaPartitionEnumerator}.
  */
-public class KafkaStreamTable implements ScannableTable, StreamableTable {
+public class KafkaStreamTable
+    implements ScannableTable, FilterableTable, StreamableTable {
   final KafkaTableOptions tableOptions;
 
   KafkaStreamTable(final KafkaTableOptions tableOptions) {
@@ -57,34 +68,69 @@ public class KafkaStreamTable implements ScannableTable, StreamableTable {
   }
 
   @Override public Enumerable<Object[]> scan(final DataContext root) {
+    return scan(root, new ArrayList<>());
+  }
+
+  /** {@inheritDoc}
+   *
+   * <p>Filters on {@code MSG_PARTITION}, {@code MSG_OFFSET} and
+   * {@code MSG_TIMESTAMP} narrow the partitions and offsets that are read.
+   * No filter is removed from the list, because the range they are converted
+   * to may contain messages that do not match. */
+  @Override public Enumerable<Object[]> scan(final DataContext root,
+      final List<RexNode> filters) {
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+    final KafkaScanRange range =
+        KafkaScanRange.of(filters, getRowType(root.getTypeFactory()));
     return new AbstractEnumerable<Object[]>() {
       public Enumerator<Object[]> enumerator() {
-        if (tableOptions.getConsumer() != null) {
-          return new KafkaMessageEnumerator(tableOptions.getConsumer(),
-              tableOptions.getRowConverter(), cancelFlag);
+        if (!tableOptions.isBounded()
+            && tableOptions.getParallelism() == 1
+            && range.isAll()) {
+          final Consumer consumer;
+          if (tableOptions.getConsumer() != null) {
+            consumer = tableOptions.getConsumer();
+          } else {
+            consumer = createConsumer();
+            consumer.subscribe(
+                Collections.singletonList(tableOptions.getTopicName()));
+          }
+          return new KafkaMessageEnumerator(consumer,
+              tableOptions.getRowConverter(), cancelFlag,
+              Duration.ofMillis(tableOptions.getPollTimeoutMillis()));
         }
 
-        Properties consumerConfig = new Properties();
-        consumerConfig.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG,
-            tableOptions.getBootstrapServers());
-        //by default it's <byte[], byte[]>
-        consumerConfig.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-            "org.apache.kafka.common.serialization.ByteArrayDeserializer");
-        consumerConfig.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
-            "org.apache.kafka.common.serialization.ByteArrayDeserializer");
-
-        if (tableOptions.getConsumerParams() != null) {
-          consumerConfig.putAll(tableOptions.getConsumerParams());
+        if (tableOptions.getConsumer() != null) {
+          return new KafkaPartitionEnumerator<>(tableOptions.getConsumer(),
+              null, tableOptions, range, cancelFlag);
         }
-        Consumer consumer = new KafkaConsumer<>(consumerConfig);
-        consumer.subscribe(Collections.singletonList(tableOptions.getTopicName()));
-
-        return new KafkaMessageEnumerator(consumer, tableOptions.getRowConverter(), cancelFlag);
+        return new KafkaPartitionEnumerator<>(createConsumer(),
+            () -> createConsumer(), tableOptions, range, cancelFlag);
       }
     };
   }
 
+  /** Creates a consumer from the table's options. */
+  private Consumer createConsumer() {
+    Properties consumerConfig = new Properties();
+    consumerConfig.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG,
+        tableOptions.getBootstrapServers());
+    //by default it's <byte[], byte[]>
+    consumerConfig.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+        "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+    consumerConfig.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+        "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+    if (tableOptions.getMaxPollRecords() != null) {
+      consumerConfig.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+          tableOptions.getMaxPollRecords());
+    }
+
+    if (tableOptions.getConsumerParams() != null) {
+      consumerConfig.putAll(tableOptions.getConsumerParams());
+    }
+    return new KafkaConsumer<>(consumerConfig);
+  }
+
   @Override public RelDataType getRowType(final RelDataTypeFactory typeFactory) {
     return tableOptions.getRowConverter().rowDataType(tableOptions.getTopicName());
   }
@@ -25,4 +25,9 @@ interface KafkaTableConstants {
   String SCHEMA_ROW_CONVERTER = "row.converter";
   String SCHEMA_CUST_CONSUMER = "consumer.cust";
   String SCHEMA_CONSUMER_PARAMS = "consumer.params";
+  String SCHEMA_POLL_TIMEOUT_MS = "poll.timeout.ms";
+  String SCHEMA_POLL_MAX_RECORDS = "poll.max.records";
+  String SCHEMA_SCAN_BOUNDED = "scan.bounded";
+  String SCHEMA_SCAN_PARALLELISM = "scan.parallelism";
+  String SCHEMA_SCAN_QUEUE_CAPACITY = "scan.queue.capacity";
 }
@@ -90,6 +90,51 @@ public KafkaTableFactory() {
       }
     }
 
+    if (operand.containsKey(KafkaTableConstants.SCHEMA_POLL_TIMEOUT_MS)) {
+      tableOptionBuilder.setPollTimeoutMillis(
+          longOperand(operand, KafkaTableConstants.SCHEMA_POLL_TIMEOUT_MS));
+    }
+    if (operand.containsKey(KafkaTableConstants.SCHEMA_POLL_MAX_RECORDS)) {
+      tableOptionBuilder.setMaxPollRecords(
+          (int) longOperand(operand, KafkaTableConstants.SCHEMA_POLL_MAX_RECORDS));
+    }
+    if (operand.containsKey(KafkaTableConstants.SCHEMA_SCAN_BOUNDED)) {
+      final Object bounded = operand.get(KafkaTableConstants.SCHEMA_SCAN_BOUNDED);
+      tableOptionBuilder.setBounded(bounded instanceof Boolean
+          ? (Boolean) bounded
+          : Boolean.parseBoolean(String.valueOf(bounded)));
+    }
+    if (operand.containsKey(KafkaTableConstants.SCHEMA_SCAN_PARALLELISM)) {
+      tableOptionBuilder.setParallelism(
+          (int) longOperand(operand, KafkaTableConstants.SCHEMA_SCAN_PARALLELISM));
+    }
+    if (operand.containsKey(KafkaTableConstants.SCHEMA_SCAN_QUEUE_CAPACITY)) {
+      tableOptionBuilder.setQueueCapacity(
+          (int) longOperand(operand, KafkaTableConstants.SCHEMA_SCAN_QUEUE_CAPACITY));
+    }
+    if (tableOptionBuilder.getPollTimeoutMillis() < 0
+        || tableOptionBuilder.getMaxPollRecords() != null
+        && tableOptionBuilder.getMaxPollRecords() <= 0
+        || tableOptionBuilder.getParallelism() <= 0
+        || tableOptionBuilder.getQueueCapacity() <= 0) {
+      final String details = String.format(Locale.ROOT,
+          "Failed to create table '%s' with configuration:\n"
+              + "'%s'\n"
+              + "poll and scan options must be positive",
+          name, operand);
+      throw new IllegalArgumentException(details);
+    }
+
     return new KafkaStreamTable(tableOptionBuilder);
   }
+
+  /** Reads an operand that is a number, or a string that contains a
+   * number. */
+  private static long longOperand(Map<String, Object> operand, String key) {
+    final Object value = operand.get(key);
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    return Long.parseLong(String.valueOf(value).trim());
+  }
 }
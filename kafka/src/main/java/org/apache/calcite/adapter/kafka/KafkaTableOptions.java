@@ -30,6 +30,11 @@ public final class KafkaTableOptions {
   private Map<String, String> consumerParams;
   //added to inject MockConsumer for testing.
   private Consumer consumer;
+  private long pollTimeoutMillis = 100L;
+  private Integer maxPollRecords;
+  private boolean bounded;
+  private int parallelism = 1;
+  private int queueCapacity = 16;
 
   public String getBootstrapServers() {
     return bootstrapServers;
@@ -76,4 +81,55 @@ public KafkaTableOptions setConsumer(final Consumer consumer) {
     this.consumer = consumer;
     return this;
   }
+
+  public long getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
+  public KafkaTableOptions setPollTimeoutMillis(final long pollTimeoutMillis) {
+    this.pollTimeoutMillis = pollTimeoutMillis;
+    return this;
+  }
+
+  public Integer getMaxPollRecords() {
+    return maxPollRecords;
+  }
+
+  public KafkaTableOptions setMaxPollRecords(final Integer maxPollRecords) {
+    this.maxPollRecords = maxPollRecords;
+    return this;
+  }
+
+  /** Returns whether a scan stops at the end offsets of the partitions as of
+   * the start of the scan, rather than waiting for new messages. */
+  public boolean isBounded() {
+    return bounded;
+  }
+
+  public KafkaTableOptions setBounded(final boolean bounded) {
+    this.bounded = bounded;
+    return this;
+  }
+
+  /** Returns the maximum number of consumers that read the partitions of the
+   * topic concurrently. */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public KafkaTableOptions setParallelism(final int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /** Returns the maximum number of polled batches that may be waiting to be
+   * read when the partitions are read concurrently. */
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public KafkaTableOptions setQueueCapacity(final int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+    return this;
+  }
 }
@@ -79,10 +79,40 @@ private CalciteAssert.AssertThat assertModel(URL url) {
 
         .returnsUnordered(
             "MSG_PARTITION=0; MSG_OFFSET=1; MSG_VALUE_BYTES=myvalue1")
-        .explainContains(
-            "PLAN=EnumerableCalc(expr#0..4=[{inputs}], expr#5=[0], expr#6=[>($t2, $t5)], MSG_PARTITION=[$t0], MSG_OFFSET=[$t2], MSG_VALUE_BYTES=[$t4], $condition=[$t6])\n"
-                + "  EnumerableInterpreter\n"
-                + "    BindableTableScan(table=[[KAFKA, MOCKTABLE, (STREAM)]])");
+        .explainContains("  EnumerableInterpreter\n"
+            + "    BindableTableScan(table=[[KAFKA, MOCKTABLE, (STREAM)]],"
+            + " filters=[[>($2, 0)]])");
+  }
+
+  /** Tests a bounded table, whose scan ends at the end offsets of the
+   * partitions, with a filter on offset that sets the range of offsets
+   * that is read. */
+  @Test void testBoundedOffsetRange() {
+    assertModel(MODEL)
+        .query("SELECT STREAM MSG_OFFSET, MSG_VALUE_BYTES"
+            + " FROM KAFKA.MOCKTABLE_BOUNDED"
+            + " WHERE MSG_OFFSET >= 3 AND MSG_OFFSET < 6")
+        .returnsUnordered(
+            "MSG_OFFSET=3; MSG_VALUE_BYTES=myvalue3",
+            "MSG_OFFSET=4; MSG_VALUE_BYTES=myvalue4",
+            "MSG_OFFSET=5; MSG_VALUE_BYTES=myvalue5");
+  }
+
+  /** Tests that a scan of a bounded table ends after the last message. */
+  @Test void testBoundedScan() {
+    assertModel(MODEL)
+        .query("SELECT STREAM * FROM KAFKA.MOCKTABLE_BOUNDED")
+        .returnsCount(10);
+  }
+
+  /** Tests that an unbounded scan with a filter on partition, but no lower
+   * bound on offset, starts from the consumer group's committed offset. */
+  @Test void testUnboundedScanStartsAtCommittedOffset() {
+    assertModel(MODEL)
+        .query("SELECT STREAM MSG_OFFSET FROM KAFKA.MOCKTABLE_COMMITTED"
+            + " WHERE MSG_PARTITION = 0")
+        .limit(3)
+        .returnsUnordered("MSG_OFFSET=7", "MSG_OFFSET=8", "MSG_OFFSET=9");
   }
 
   @Test void testCustRowConverter() {
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collections;
+
+/**
+ * A mock consumer whose group has committed offset 7 of the only partition
+ * of the topic.
+ */
+public class KafkaCommittedMockConsumer extends KafkaMockConsumer {
+  public KafkaCommittedMockConsumer(
+      final OffsetResetStrategy offsetResetStrategy) {
+    super(offsetResetStrategy);
+    commitSync(
+        Collections.singletonMap(new TopicPartition("testtopic", 0),
+            new OffsetAndMetadata(7L)));
+  }
+}
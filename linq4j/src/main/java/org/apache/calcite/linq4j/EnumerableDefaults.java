@@ -46,11 +46,14 @@
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -59,9 +62,18 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.apache.calcite.linq4j.Linq4j.CollectionEnumerable;
 import static org.apache.calcite.linq4j.Linq4j.ListEnumerable;
@@ -650,6 +662,35 @@ public static <TSource> TSource firstOrDefault(Enumerable<TSource> enumerable,
     return null;
   }
 
+  /**
+   * Applies a pipeline of operations to a sequence using several threads,
+   * and returns the combined output of the threads in no particular order.
+   *
+   * <p>Each of {@code parallelism} threads applies {@code pipeline} to an
+   * enumerable of its own. Those enumerables share the enumerator of
+   * {@code source}; whenever a thread needs more input, it takes the next
+   * batch of rows (a "morsel"). Thus each thread sees an arbitrary subset of
+   * the source, and {@code pipeline} must be an operation, such as a filter,
+   * a projection or a partial aggregation, whose results for the subsets
+   * combine to the result for the whole.
+   *
+   * <p>If {@code parallelism} is 1 or less, simply applies {@code pipeline}
+   * to {@code source}.
+   */
+  public static <TSource, TResult> Enumerable<TResult> gather(
+      final Enumerable<TSource> source,
+      final Function1<Enumerable<TSource>, Enumerable<TResult>> pipeline,
+      final int parallelism) {
+    if (parallelism <= 1) {
+      return pipeline.apply(source);
+    }
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        return new GatherEnumerator<>(source, pipeline, parallelism);
+      }
+    };
+  }
+
   /**
    * Groups the elements of a sequence according to a
    * specified key selector function.
@@ -817,6 +858,105 @@ public static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult> groupBy(
         resultSelector);
   }
 
+  /**
+   * Groups the elements of a sequence according to a
+   * specified key selector function, initializing an accumulator for each
+   * group and adding to it each time an element with the same key is seen,
+   * holding at most {@code spillThreshold} groups in memory.
+   *
+   * <p>Once the limit is reached, elements that belong to groups already in
+   * memory are accumulated as usual; other elements are written to one of
+   * several temporary files (see {@link Spiller}), partitioned by the hash of
+   * their key. After the input is exhausted, each partition is aggregated in
+   * the same way, recursively. Elements must therefore be
+   * {@link java.io.Serializable}; keys and accumulators are never written.
+   *
+   * @param comparer Key comparer, or null to use the keys' own
+   *                 {@code equals} and {@code hashCode} methods
+   * @param spillThreshold Maximum number of groups to hold in memory; if
+   *                       negative, there is no limit and nothing is spilled
+   */
+  public static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult> groupByWithSpill(
+      Enumerable<TSource> enumerable, Function1<TSource, TKey> keySelector,
+      Function0<TAccumulate> accumulatorInitializer,
+      Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+      Function2<TKey, TAccumulate, TResult> resultSelector,
+      EqualityComparer<TKey> comparer, int spillThreshold) {
+    if (spillThreshold < 0) {
+      return comparer == null
+          ? groupBy(enumerable, keySelector, accumulatorInitializer,
+              accumulatorAdder, resultSelector)
+          : groupBy(enumerable, keySelector, accumulatorInitializer,
+              accumulatorAdder, resultSelector, comparer);
+    }
+    return new AbstractEnumerable<TResult>() {
+      @Override public Enumerator<TResult> enumerator() {
+        return new SpillingGroupByEnumerator<>(enumerable, keySelector,
+            accumulatorInitializer, accumulatorAdder, resultSelector, comparer,
+            Math.max(spillThreshold, 1));
+      }
+    };
+  }
+
+  /**
+   * Groups the elements of a sequence according to a key that can be held
+   * in a primitive {@code long}, initializing an accumulator for each group
+   * and adding to it each time an element with the same key is seen. Creates
+   * a result value from each accumulator and its key using a specified
+   * function.
+   *
+   * <p>Equivalent to
+   * {@link #groupBy(Enumerable, Function1, Function0, Function2, Function2)},
+   * but groups are found using a hash table with primitive keys, so an
+   * element's key is not boxed. {@code keySelector} is called only for the
+   * first element of each group, to create the key passed to
+   * {@code resultSelector}.
+   *
+   * @param longKeySelector Returns the key of an element; called only if
+   *                        the key is not null
+   * @param nullKeyPredicate Returns whether the key of an element is null,
+   *                         or null if keys are never null
+   */
+  public static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult> groupByLong(
+      Enumerable<TSource> enumerable, Function1<TSource, TKey> keySelector,
+      LongFunction1<TSource> longKeySelector,
+      Predicate1<TSource> nullKeyPredicate,
+      Function0<TAccumulate> accumulatorInitializer,
+      Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+      final Function2<TKey, TAccumulate, TResult> resultSelector) {
+    final LongIntHashMap map = new LongIntHashMap();
+    final List<TKey> keys = new ArrayList<>();
+    final List<TAccumulate> accumulators = new ArrayList<>();
+    int nullGroup = -1;
+    try (Enumerator<TSource> os = enumerable.enumerator()) {
+      while (os.moveNext()) {
+        final TSource o = os.current();
+        final int group;
+        if (nullKeyPredicate != null && nullKeyPredicate.apply(o)) {
+          if (nullGroup < 0) {
+            nullGroup = keys.size();
+          }
+          group = nullGroup;
+        } else {
+          final int previous =
+              map.putIfAbsent(longKeySelector.apply(o), keys.size());
+          group = previous == LongIntHashMap.ABSENT ? keys.size() : previous;
+        }
+        if (group == keys.size()) {
+          keys.add(keySelector.apply(o));
+          accumulators.add(
+              accumulatorAdder.apply(accumulatorInitializer.apply(), o));
+        } else {
+          accumulators.set(group,
+              accumulatorAdder.apply(accumulators.get(group), o));
+        }
+      }
+    }
+    return Linq4j.asEnumerable(
+        Functions.generate(keys.size(),
+            i -> resultSelector.apply(keys.get(i), accumulators.get(i))));
+  }
+
   private static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult> groupBy_(
       final Map<TKey, TAccumulate> map, Enumerable<TSource> enumerable,
       Function1<TSource, TKey> keySelector,
@@ -1140,6 +1280,112 @@ public static <TSource, TInner, TKey, TResult> Enumerable<TResult> hashJoin(
     }
   }
 
+  /**
+   * Correlates the elements of two sequences based on matching keys that can
+   * be held in a primitive {@code long}.
+   *
+   * <p>Equivalent to
+   * {@link #hashJoin(Enumerable, Enumerable, Function1, Function1, Function2, EqualityComparer, boolean, boolean)}
+   * with a null comparer, but the inner sequence is indexed by a hash table
+   * with primitive keys, so no key is boxed while building or probing.
+   * Elements whose key is null never match.
+   *
+   * @param outerKeySelector Returns the key of an outer element; called only
+   *                         if the key is not null
+   * @param outerNullKeyPredicate Returns whether the key of an outer element
+   *                              is null, or null if keys are never null
+   * @param innerKeySelector Returns the key of an inner element; called only
+   *                         if the key is not null
+   * @param innerNullKeyPredicate Returns whether the key of an inner element
+   *                              is null, or null if keys are never null
+   */
+  public static <TSource, TInner, TResult> Enumerable<TResult> longHashJoin(
+      final Enumerable<TSource> outer, final Enumerable<TInner> inner,
+      final LongFunction1<TSource> outerKeySelector,
+      final Predicate1<TSource> outerNullKeyPredicate,
+      final LongFunction1<TInner> innerKeySelector,
+      final Predicate1<TInner> innerNullKeyPredicate,
+      final Function2<TSource, TInner, TResult> resultSelector,
+      final boolean generateNullsOnLeft, final boolean generateNullsOnRight) {
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        return new LongHashJoinEnumerator<>(outer.enumerator(),
+            new LongHashJoinTable<>(inner, innerKeySelector,
+                innerNullKeyPredicate),
+            outerKeySelector, outerNullKeyPredicate, resultSelector,
+            generateNullsOnLeft, generateNullsOnRight);
+      }
+    };
+  }
+
+  /**
+   * Correlates the elements of two sequences based on matching keys, holding
+   * at most {@code spillThreshold} elements of {@code inner} in memory.
+   *
+   * <p>This is a hybrid hash join. Both inputs are split by the hash of their
+   * key into partitions. While the inner input is read, the largest partitions
+   * are written to temporary files (see {@link Spiller}) until the rest fit
+   * within the threshold. Partitions held in memory are joined as the outer
+   * input is read; outer elements that belong to a spilled partition are
+   * written to temporary files, and each pair of spilled partitions is then
+   * joined in the same way, recursively. Elements of both inputs must
+   * therefore be {@link java.io.Serializable}.
+   *
+   * <p>Supports all join types. For {@link JoinType#SEMI} and
+   * {@link JoinType#ANTI}, the result contains elements of {@code outer} and
+   * {@code resultSelector} is ignored.
+   *
+   * @param comparer Key comparer, or null to use the keys' own
+   *                 {@code equals} and {@code hashCode} methods
+   * @param predicate Predicate that matching elements must also satisfy, or
+   *                  null
+   * @param spillThreshold Maximum number of inner elements to hold in memory;
+   *                       if negative, there is no limit and nothing is
+   *                       spilled
+   */
+  public static <TSource, TInner, TKey, TResult> Enumerable<TResult> partitionedHashJoin(
+      final Enumerable<TSource> outer, final Enumerable<TInner> inner,
+      final Function1<TSource, TKey> outerKeySelector,
+      final Function1<TInner, TKey> innerKeySelector,
+      final Function2<TSource, TInner, TResult> resultSelector,
+      final EqualityComparer<TKey> comparer, final JoinType joinType,
+      final Predicate2<TSource, TInner> predicate, int spillThreshold) {
+    if (spillThreshold < 0) {
+      return inMemoryHashJoin(outer, inner, outerKeySelector, innerKeySelector,
+          resultSelector, comparer, joinType, predicate);
+    }
+    final int threshold = Math.max(spillThreshold, 1);
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        return new PartitionedHashJoinEnumerator<>(outer, inner,
+            outerKeySelector, innerKeySelector, resultSelector, comparer,
+            joinType, predicate, threshold, 0);
+      }
+    };
+  }
+
+  /** Joins two inputs by building a hash table of the whole inner input. */
+  private static <TSource, TInner, TKey, TResult> Enumerable<TResult> inMemoryHashJoin(
+      Enumerable<TSource> outer, Enumerable<TInner> inner,
+      Function1<TSource, TKey> outerKeySelector,
+      Function1<TInner, TKey> innerKeySelector,
+      Function2<TSource, TInner, TResult> resultSelector,
+      EqualityComparer<TKey> comparer, JoinType joinType,
+      Predicate2<TSource, TInner> predicate) {
+    switch (joinType) {
+    case SEMI:
+    case ANTI:
+      //noinspection unchecked
+      return (Enumerable<TResult>) (Enumerable) semiJoin(outer, inner,
+          outerKeySelector, innerKeySelector, comparer,
+          joinType == JoinType.ANTI, predicate);
+    default:
+      return hashJoin(outer, inner, outerKeySelector, innerKeySelector,
+          resultSelector, comparer, joinType.generatesNullsOnLeft(),
+          joinType.generatesNullsOnRight(), predicate);
+    }
+  }
+
   /** Implementation of join that builds the right input and probes with the
    * left. */
   private static <TSource, TInner, TKey, TResult> Enumerable<TResult> hashEquiJoin_(
@@ -2489,6 +2735,200 @@ public static <TSource, TKey> Enumerable<TSource> orderBy(
     };
   }
 
+  /**
+   * Sorts the elements of a sequence in ascending order by using a specified
+   * comparer, skips the first {@code offset} elements and returns at most
+   * {@code fetch} elements.
+   *
+   * <p>Unlike {@link #orderBy(Enumerable, Function1, Comparator)}, which
+   * holds the whole input in memory, this method keeps only the best
+   * {@code offset + fetch} elements seen so far in a bounded heap. The sort is
+   * stable: elements with equal keys are returned in input order.
+   *
+   * @param offset Number of leading elements of the sorted sequence to skip;
+   *               must be non-negative
+   * @param fetch  Maximum number of elements to return; if negative, there
+   *               is no limit
+   */
+  public static <TSource, TKey> Enumerable<TSource> orderBy(
+      Enumerable<TSource> source, Function1<TSource, TKey> keySelector,
+      Comparator<TKey> comparator, int offset, int fetch) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset must be non-negative: "
+          + offset);
+    }
+    if (fetch < 0) {
+      return skip(orderBy(source, keySelector, comparator), offset);
+    }
+    return new AbstractEnumerable<TSource>() {
+      @Override public Enumerator<TSource> enumerator() {
+        if (fetch == 0) {
+          return Linq4j.emptyEnumerator();
+        }
+        final long needed = (long) offset + fetch;
+        final List<TSource> list = topN(source, keySelector, comparator,
+            (int) Math.min(needed, Integer.MAX_VALUE));
+        if (list.size() <= offset) {
+          return Linq4j.emptyEnumerator();
+        }
+        return Linq4j.enumerator(list.subList(offset, list.size()));
+      }
+    };
+  }
+
+  /** Returns the {@code n} smallest elements of a sequence, sorted, using a
+   * max-heap of at most {@code n} entries. Ties are broken by input
+   * position, so that the result is stable. */
+  private static <TSource, TKey> List<TSource> topN(
+      Enumerable<TSource> source, Function1<TSource, TKey> keySelector,
+      Comparator<TKey> comparator, int n) {
+    @SuppressWarnings("unchecked")
+    final Comparator<TKey> keyComparator = comparator != null
+        ? comparator
+        : (Comparator<TKey>) Comparator.naturalOrder();
+    final Comparator<HeapEntry<TSource, TKey>> entryComparator =
+        (e0, e1) -> {
+          final int c = keyComparator.compare(e0.key, e1.key);
+          return c != 0 ? c : Long.compare(e0.ordinal, e1.ordinal);
+        };
+    // The head of the queue is the largest entry, the first to be evicted.
+    final PriorityQueue<HeapEntry<TSource, TKey>> heap =
+        new PriorityQueue<>(Math.min(n, 1024) + 1,
+            entryComparator.reversed());
+    long ordinal = 0;
+    try (Enumerator<TSource> os = source.enumerator()) {
+      while (os.moveNext()) {
+        final TSource o = os.current();
+        final TKey key = keySelector.apply(o);
+        if (heap.size() < n) {
+          heap.add(new HeapEntry<>(key, ordinal++, o));
+          continue;
+        }
+        // The heap is full. The new element arrived after every element in
+        // the heap, so it displaces the largest only if its key is strictly
+        // smaller.
+        if (keyComparator.compare(key, heap.peek().key) < 0) {
+          heap.poll();
+          heap.add(new HeapEntry<>(key, ordinal, o));
+        }
+        ++ordinal;
+      }
+    }
+    final Object[] elements = new Object[heap.size()];
+    for (int i = elements.length - 1; i >= 0; i--) {
+      elements[i] = heap.poll().element;
+    }
+    //noinspection unchecked
+    return (List<TSource>) Arrays.asList(elements);
+  }
+
+  /**
+   * Sorts the elements of a sequence in ascending order by using a specified
+   * comparer, holding at most {@code spillThreshold} elements in memory.
+   *
+   * <p>The input is read in runs of {@code spillThreshold} elements. Each run
+   * is sorted and, if more input follows, written to a temporary file (see
+   * {@link Spiller}). The runs are then merged. Elements must therefore be
+   * {@link java.io.Serializable}. As with
+   * {@link #orderBy(Enumerable, Function1, Comparator)}, the sort is stable.
+   *
+   * @param spillThreshold Maximum number of elements to hold in memory; if
+   *                       negative, there is no limit and nothing is spilled
+   */
+  public static <TSource, TKey> Enumerable<TSource> orderByWithSpill(
+      Enumerable<TSource> source, Function1<TSource, TKey> keySelector,
+      Comparator<TKey> comparator, int spillThreshold) {
+    if (spillThreshold < 0) {
+      return orderBy(source, keySelector, comparator);
+    }
+    @SuppressWarnings("unchecked")
+    final Comparator<TKey> keyComparator = comparator != null
+        ? comparator
+        : (Comparator<TKey>) Comparator.naturalOrder();
+    final Comparator<TSource> rowComparator = (o0, o1) ->
+        keyComparator.compare(keySelector.apply(o0), keySelector.apply(o1));
+    final int runSize = Math.max(spillThreshold, 1);
+    return new AbstractEnumerable<TSource>() {
+      @Override public Enumerator<TSource> enumerator() {
+        final List<Spiller.SpillFile<TSource>> runs = new ArrayList<>();
+        final List<TSource> buffer = new ArrayList<>();
+        try {
+          try (Enumerator<TSource> os = source.enumerator()) {
+            while (os.moveNext()) {
+              buffer.add(os.current());
+              if (buffer.size() >= runSize) {
+                runs.add(spillRun(buffer, rowComparator));
+                buffer.clear();
+              }
+            }
+          }
+          buffer.sort(rowComparator);
+          if (runs.isEmpty()) {
+            return Linq4j.enumerator(buffer);
+          }
+          // Merge runs in groups, so that we never have too many files open.
+          // Each merge preserves the order of its runs, so the sort remains
+          // stable.
+          List<Spiller.SpillFile<TSource>> pending = runs;
+          while (pending.size() > MAX_MERGE_WIDTH) {
+            final List<Spiller.SpillFile<TSource>> merged = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i += MAX_MERGE_WIDTH) {
+              final List<Spiller.SpillFile<TSource>> group =
+                  pending.subList(i,
+                      Math.min(i + MAX_MERGE_WIDTH, pending.size()));
+              final Spiller.SpillFile<TSource> run = Spiller.create();
+              merged.add(run);
+              try (Enumerator<TSource> e =
+                       new MergeSortedEnumerator<>(enumerators(group),
+                           rowComparator)) {
+                while (e.moveNext()) {
+                  run.add(e.current());
+                }
+              }
+            }
+            runs.clear();
+            runs.addAll(merged);
+            pending = runs;
+          }
+          final List<Enumerator<TSource>> enumerators = enumerators(runs);
+          runs.clear();
+          enumerators.add(Linq4j.enumerator(buffer));
+          return new MergeSortedEnumerator<>(enumerators, rowComparator);
+        } catch (RuntimeException e) {
+          for (Spiller.SpillFile<TSource> run : runs) {
+            run.close();
+          }
+          throw e;
+        }
+      }
+    };
+  }
+
+  /** Maximum number of sorted runs that
+   * {@link #orderByWithSpill(Enumerable, Function1, Comparator, int)} merges
+   * at a time. */
+  private static final int MAX_MERGE_WIDTH = 64;
+
+  /** Sorts a list and writes it to a temporary file. */
+  private static <TSource> Spiller.SpillFile<TSource> spillRun(
+      List<TSource> list, Comparator<TSource> comparator) {
+    list.sort(comparator);
+    final Spiller.SpillFile<TSource> run = Spiller.create();
+    for (TSource o : list) {
+      run.add(o);
+    }
+    return run;
+  }
+
+  private static <TSource> List<Enumerator<TSource>> enumerators(
+      List<Spiller.SpillFile<TSource>> runs) {
+    final List<Enumerator<TSource>> list = new ArrayList<>();
+    for (Spiller.SpillFile<TSource> run : runs) {
+      list.add(run.enumerator());
+    }
+    return list;
+  }
+
   /**
    * Sorts the elements of a sequence in descending
    * order according to a key.
@@ -3747,6 +4187,827 @@ public T unwrap() {
     }
   }
 
+  /** Entry in the bounded heap used by
+   * {@link #orderBy(Enumerable, Function1, Comparator, int, int)}.
+   *
+   * @param <TSource> element type
+   * @param <TKey> key type */
+  private static class HeapEntry<TSource, TKey> {
+    final TKey key;
+    final long ordinal;
+    final TSource element;
+
+    HeapEntry(TKey key, long ordinal, TSource element) {
+      this.key = key;
+      this.ordinal = ordinal;
+      this.element = element;
+    }
+  }
+
+  /** Returns the partition, between 0 and {@code partitionCount - 1}, into
+   * which an operator that spills should put a row with a given key.
+   *
+   * <p>Each level uses a different hash function, so that a partition that
+   * is still too large can be split further. */
+  private static <TKey> int spillPartition(TKey key,
+      EqualityComparer<TKey> comparer, int level, int partitionCount) {
+    int h = key == null ? 0
+        : comparer == null ? key.hashCode()
+        : comparer.hashCode(key);
+    h = (h + level) * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return (h & Integer.MAX_VALUE) % partitionCount;
+  }
+
+  /** Enumerator that implements
+   * {@link #partitionedHashJoin(Enumerable, Enumerable, Function1, Function1, Function2, EqualityComparer, JoinType, Predicate2, int)}.
+   *
+   * @param <TSource> outer element type
+   * @param <TInner> inner element type
+   * @param <TKey> key type
+   * @param <TResult> result type */
+  private static class PartitionedHashJoinEnumerator<TSource, TInner, TKey,
+      TResult> implements Enumerator<TResult> {
+    /** Number of partitions that each input is split into. */
+    private static final int PARTITION_COUNT = 16;
+
+    /** Depth of partitioning beyond which a partition is joined in memory
+     * regardless of its size. */
+    private static final int MAX_LEVEL = 4;
+
+    private final Enumerable<TSource> outer;
+    private final Enumerable<TInner> inner;
+    private final Function1<TSource, TKey> outerKeySelector;
+    private final Function1<TInner, TKey> innerKeySelector;
+    private final Function2<TSource, TInner, TResult> resultSelector;
+    private final EqualityComparer<TKey> comparer;
+    private final JoinType joinType;
+    private final Predicate2<TSource, TInner> predicate;
+    private final int spillThreshold;
+    private final int level;
+
+    /** Spilled inner partitions; null for partitions held in memory. */
+    private final List<Spiller.SpillFile<TInner>> innerFiles =
+        new ArrayList<>();
+    /** Spilled outer partitions; null for partitions held in memory. */
+    private final List<Spiller.SpillFile<TSource>> outerFiles =
+        new ArrayList<>();
+    private Enumerator<TResult> current;
+    private boolean started;
+    private int nextPartition;
+
+    PartitionedHashJoinEnumerator(Enumerable<TSource> outer,
+        Enumerable<TInner> inner, Function1<TSource, TKey> outerKeySelector,
+        Function1<TInner, TKey> innerKeySelector,
+        Function2<TSource, TInner, TResult> resultSelector,
+        EqualityComparer<TKey> comparer, JoinType joinType,
+        Predicate2<TSource, TInner> predicate, int spillThreshold,
+        int level) {
+      this.outer = outer;
+      this.inner = inner;
+      this.outerKeySelector = outerKeySelector;
+      this.innerKeySelector = innerKeySelector;
+      this.resultSelector = resultSelector;
+      this.comparer = comparer;
+      this.joinType = joinType;
+      this.predicate = predicate;
+      this.spillThreshold = spillThreshold;
+      this.level = level;
+    }
+
+    public TResult current() {
+      return current.current();
+    }
+
+    public boolean moveNext() {
+      if (!started) {
+        started = true;
+        current = start();
+      }
+      for (;;) {
+        if (current.moveNext()) {
+          return true;
+        }
+        current.close();
+        current = Linq4j.emptyEnumerator();
+        if (nextPartition >= innerFiles.size()) {
+          return false;
+        }
+        final int p = nextPartition++;
+        final Spiller.SpillFile<TInner> innerFile = innerFiles.get(p);
+        final Spiller.SpillFile<TSource> outerFile = outerFiles.get(p);
+        if (innerFile == null) {
+          continue; // partition was joined in memory
+        }
+        if (outerFile.rowCount() == 0 && !joinType.generatesNullsOnLeft()) {
+          // No outer rows, and unmatched inner rows are not needed
+          innerFile.close();
+          outerFile.close();
+          continue;
+        }
+        current =
+            new PartitionedHashJoinEnumerator<>(outerFile.asEnumerable(),
+                innerFile.asEnumerable(), outerKeySelector, innerKeySelector,
+                resultSelector, comparer, joinType, predicate, spillThreshold,
+                level + 1);
+      }
+    }
+
+    /** Reads the inner input, spilling the largest partitions while more
+     * than {@code spillThreshold} rows are in memory, and returns an
+     * enumerator that joins the partitions held in memory. As it reads the
+     * outer input, that enumerator writes rows that belong to spilled
+     * partitions to {@link #outerFiles}. */
+    private Enumerator<TResult> start() {
+      final List<List<TInner>> buffers = new ArrayList<>();
+      for (int i = 0; i < PARTITION_COUNT; i++) {
+        buffers.add(new ArrayList<>());
+        innerFiles.add(null);
+        outerFiles.add(null);
+      }
+      boolean spilled = false;
+      int rowCount = 0;
+      try (Enumerator<TInner> inners = inner.enumerator()) {
+        while (inners.moveNext()) {
+          final TInner row = inners.current();
+          final int p =
+              partition(row == null ? null : innerKeySelector.apply(row));
+          final Spiller.SpillFile<TInner> file = innerFiles.get(p);
+          if (file != null) {
+            file.add(row);
+            continue;
+          }
+          buffers.get(p).add(row);
+          ++rowCount;
+          while (rowCount > spillThreshold && level < MAX_LEVEL) {
+            // Spill the largest partition that is still in memory
+            int q = -1;
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+              if (innerFiles.get(i) == null
+                  && (q < 0 || buffers.get(i).size() > buffers.get(q).size())) {
+                q = i;
+              }
+            }
+            final Spiller.SpillFile<TInner> spillFile = Spiller.create();
+            innerFiles.set(q, spillFile);
+            outerFiles.set(q, Spiller.create());
+            for (TInner r : buffers.get(q)) {
+              spillFile.add(r);
+            }
+            rowCount -= buffers.get(q).size();
+            buffers.set(q, ImmutableList.of());
+            spilled = true;
+          }
+        }
+      }
+      final List<TInner> residentInner = new ArrayList<>(rowCount);
+      for (List<TInner> buffer : buffers) {
+        residentInner.addAll(buffer);
+      }
+      final Enumerable<TSource> residentOuter;
+      if (spilled) {
+        residentOuter = new AbstractEnumerable<TSource>() {
+          public Enumerator<TSource> enumerator() {
+            return EnumerableDefaults.where(outer.enumerator(), row -> {
+              final Spiller.SpillFile<TSource> file =
+                  outerFiles.get(
+                      partition(row == null ? null
+                          : outerKeySelector.apply(row)));
+              if (file == null) {
+                return true;
+              }
+              file.add(row);
+              return false;
+            });
+          }
+        };
+      } else {
+        residentOuter = outer;
+      }
+      return inMemoryHashJoin(residentOuter, Linq4j.asEnumerable(residentInner),
+          outerKeySelector, innerKeySelector, resultSelector, comparer,
+          joinType, predicate).enumerator();
+    }
+
+    private int partition(TKey key) {
+      return spillPartition(key, comparer, level, PARTITION_COUNT);
+    }
+
+    public void reset() {
+      close();
+      innerFiles.clear();
+      outerFiles.clear();
+      nextPartition = 0;
+      started = false;
+    }
+
+    public void close() {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      for (Spiller.SpillFile<TInner> file : innerFiles) {
+        if (file != null) {
+          file.close();
+        }
+      }
+      for (Spiller.SpillFile<TSource> file : outerFiles) {
+        if (file != null) {
+          file.close();
+        }
+      }
+    }
+  }
+
+  /** Inner input of {@link #longHashJoin}, indexed by its primitive keys.
+   *
+   * <p>Elements with the same key form a chain, in the order they were read,
+   * via {@link #next}; the hash table maps each key to the first element of
+   * its chain.
+   *
+   * @param <TInner> Element type */
+  private static class LongHashJoinTable<TInner> {
+    final List<TInner> rows = new ArrayList<>();
+    final LongIntHashMap heads = new LongIntHashMap();
+    /** Key of each element; meaningless if the key is null. */
+    long[] keys = new long[16];
+    /** Index of the next element with the same key, or -1. */
+    int[] next = new int[16];
+    /** Elements whose key is null. */
+    final BitSet nullKeys = new BitSet();
+
+    LongHashJoinTable(Enumerable<TInner> inner,
+        LongFunction1<TInner> keySelector,
+        Predicate1<TInner> nullKeyPredicate) {
+      // For each chain, the index of its last element
+      int[] tails = new int[16];
+      try (Enumerator<TInner> os = inner.enumerator()) {
+        while (os.moveNext()) {
+          final TInner o = os.current();
+          final int i = rows.size();
+          rows.add(o);
+          if (i == next.length) {
+            keys = Arrays.copyOf(keys, i * 2);
+            next = Arrays.copyOf(next, i * 2);
+            tails = Arrays.copyOf(tails, i * 2);
+          }
+          next[i] = -1;
+          if (nullKeyPredicate != null && nullKeyPredicate.apply(o)) {
+            nullKeys.set(i);
+            continue;
+          }
+          final long key = keySelector.apply(o);
+          keys[i] = key;
+          final int head = heads.putIfAbsent(key, i);
+          if (head == LongIntHashMap.ABSENT) {
+            tails[i] = i;
+          } else {
+            next[tails[head]] = i;
+            tails[head] = i;
+          }
+        }
+      }
+    }
+  }
+
+  /** Enumerator that probes a {@link LongHashJoinTable} with each element of
+   * the outer input of {@link #longHashJoin}.
+   *
+   * @param <TSource> Outer element type
+   * @param <TInner> Inner element type
+   * @param <TResult> Result type */
+  private static class LongHashJoinEnumerator<TSource, TInner, TResult>
+      implements Enumerator<TResult> {
+    private final Enumerator<TSource> outers;
+    private final LongHashJoinTable<TInner> table;
+    private final LongFunction1<TSource> outerKeySelector;
+    private final Predicate1<TSource> outerNullKeyPredicate;
+    private final Function2<TSource, TInner, TResult> resultSelector;
+    private final boolean generateNullsOnRight;
+    /** Heads of the chains that have matched an outer element, or null if
+     * unmatched inner elements are not needed. */
+    private final BitSet matchedHeads;
+
+    private TSource outer;
+    /** Index of the next inner element that matches {@link #outer}, or
+     * -1. */
+    private int next = -1;
+    private boolean outersDone;
+    /** Index of the next inner element to check for a match, after the
+     * outer input is exhausted. */
+    private int unmatched;
+    private TResult current;
+
+    LongHashJoinEnumerator(Enumerator<TSource> outers,
+        LongHashJoinTable<TInner> table,
+        LongFunction1<TSource> outerKeySelector,
+        Predicate1<TSource> outerNullKeyPredicate,
+        Function2<TSource, TInner, TResult> resultSelector,
+        boolean generateNullsOnLeft, boolean generateNullsOnRight) {
+      this.outers = outers;
+      this.table = table;
+      this.outerKeySelector = outerKeySelector;
+      this.outerNullKeyPredicate = outerNullKeyPredicate;
+      this.resultSelector = resultSelector;
+      this.generateNullsOnRight = generateNullsOnRight;
+      this.matchedHeads = generateNullsOnLeft ? new BitSet() : null;
+    }
+
+    public TResult current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      for (;;) {
+        if (next >= 0) {
+          current = resultSelector.apply(outer, table.rows.get(next));
+          next = table.next[next];
+          return true;
+        }
+        if (!outersDone) {
+          if (outers.moveNext()) {
+            outer = outers.current();
+            int head = LongIntHashMap.ABSENT;
+            if (outer != null
+                && (outerNullKeyPredicate == null
+                    || !outerNullKeyPredicate.apply(outer))) {
+              head = table.heads.get(outerKeySelector.apply(outer));
+            }
+            if (head != LongIntHashMap.ABSENT) {
+              if (matchedHeads != null) {
+                matchedHeads.set(head);
+              }
+              next = head;
+            } else if (generateNullsOnRight) {
+              current = resultSelector.apply(outer, null);
+              return true;
+            }
+            continue;
+          }
+          outersDone = true;
+          outer = null;
+        }
+        if (matchedHeads != null) {
+          // Emit inner elements that matched no outer element
+          while (unmatched < table.rows.size()) {
+            final int i = unmatched++;
+            if (table.nullKeys.get(i)
+                || !matchedHeads.get(table.heads.get(table.keys[i]))) {
+              current = resultSelector.apply(null, table.rows.get(i));
+              return true;
+            }
+          }
+        }
+        return false;
+      }
+    }
+
+    public void reset() {
+      outers.reset();
+      if (matchedHeads != null) {
+        matchedHeads.clear();
+      }
+      outer = null;
+      next = -1;
+      outersDone = false;
+      unmatched = 0;
+      current = null;
+    }
+
+    public void close() {
+      outers.close();
+    }
+  }
+
+  /** Enumerator that implements
+   * {@link #gather(Enumerable, Function1, int)}.
+   *
+   * @param <TSource> source element type
+   * @param <TResult> result element type */
+  private static class GatherEnumerator<TSource, TResult>
+      implements Enumerator<TResult> {
+    /** Number of rows in a batch of input or of output. */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Milliseconds that a thread waits on the queue before it checks whether
+     * the enumerator has been closed or a worker has failed. */
+    private static final long POLL_MILLIS = 10;
+
+    private static final ExecutorService EXECUTOR =
+        Executors.newCachedThreadPool(runnable -> {
+          final Thread thread = new Thread(runnable, "calcite-gather");
+          thread.setDaemon(true);
+          return thread;
+        });
+
+    /** Batch that a worker puts on the queue when it has finished. */
+    private static final List<Object> END = new ArrayList<>();
+
+    private final Enumerable<TSource> source;
+    private final Function1<Enumerable<TSource>, Enumerable<TResult>> pipeline;
+    private final int parallelism;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /** Shared by the workers; guarded by {@code this}. */
+    private Enumerator<TSource> sourceEnumerator;
+    private boolean sourceDone;
+    private BlockingQueue<List<TResult>> queue;
+    private CountDownLatch finished;
+    /** Number of workers that have not yet put {@link #END} on the queue. */
+    private int running;
+    private List<TResult> batch = ImmutableList.of();
+    private int index;
+    private TResult current;
+
+    GatherEnumerator(Enumerable<TSource> source,
+        Function1<Enumerable<TSource>, Enumerable<TResult>> pipeline,
+        int parallelism) {
+      this.source = source;
+      this.pipeline = pipeline;
+      this.parallelism = parallelism;
+    }
+
+    public TResult current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      if (finished == null) {
+        start();
+      }
+      for (;;) {
+        if (index < batch.size()) {
+          current = batch.get(index++);
+          return true;
+        }
+        if (running == 0) {
+          return false;
+        }
+        final List<TResult> next;
+        try {
+          next = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+        final Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+          throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+          throw (Error) e;
+        } else if (e != null) {
+          throw new RuntimeException(e);
+        }
+        if (next == END) {
+          --running;
+        } else if (next != null) {
+          batch = next;
+          index = 0;
+        }
+      }
+    }
+
+    private void start() {
+      sourceEnumerator = source.enumerator();
+      sourceDone = false;
+      queue = new ArrayBlockingQueue<>(2 * parallelism);
+      finished = new CountDownLatch(parallelism);
+      cancelled.set(false);
+      failure.set(null);
+      running = parallelism;
+      for (int i = 0; i < parallelism; i++) {
+        EXECUTOR.execute(this::work);
+      }
+    }
+
+    /** Body of a worker thread. Applies the pipeline to morsels of the
+     * source, and puts the results on the queue in batches. */
+    private void work() {
+      final Enumerable<TSource> morsels = new AbstractEnumerable<TSource>() {
+        public Enumerator<TSource> enumerator() {
+          return new MorselEnumerator();
+        }
+      };
+      try (Enumerator<TResult> results = pipeline.apply(morsels).enumerator()) {
+        List<TResult> out = new ArrayList<>(BATCH_SIZE);
+        while (!cancelled.get() && results.moveNext()) {
+          out.add(results.current());
+          if (out.size() == BATCH_SIZE) {
+            put(out);
+            out = new ArrayList<>(BATCH_SIZE);
+          }
+        }
+        if (!out.isEmpty()) {
+          put(out);
+        }
+        //noinspection unchecked
+        put((List<TResult>) (List) END);
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+        cancelled.set(true);
+      } finally {
+        finished.countDown();
+      }
+    }
+
+    /** Puts a batch on the queue, waiting for space if necessary, unless the
+     * enumerator has been closed. */
+    private void put(List<TResult> list) throws InterruptedException {
+      while (!cancelled.get()) {
+        if (queue.offer(list, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    }
+
+    /** Returns the next morsel of the source, or an empty list if the source
+     * is exhausted. */
+    private synchronized List<TSource> nextMorsel() {
+      final List<TSource> list = new ArrayList<>(BATCH_SIZE);
+      while (!sourceDone && list.size() < BATCH_SIZE) {
+        if (sourceEnumerator.moveNext()) {
+          list.add(sourceEnumerator.current());
+        } else {
+          sourceDone = true;
+        }
+      }
+      return list;
+    }
+
+    public void reset() {
+      close();
+      batch = ImmutableList.of();
+      index = 0;
+    }
+
+    public void close() {
+      if (finished == null) {
+        return;
+      }
+      cancelled.set(true);
+      try {
+        finished.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } finally {
+        finished = null;
+        queue.clear();
+        sourceEnumerator.close();
+      }
+    }
+
+    /** Enumerator over the rows that one worker reads from the source. */
+    private class MorselEnumerator implements Enumerator<TSource> {
+      private List<TSource> morsel = ImmutableList.of();
+      private int i;
+      private TSource current;
+
+      public TSource current() {
+        return current;
+      }
+
+      public boolean moveNext() {
+        while (i >= morsel.size()) {
+          if (cancelled.get()) {
+            return false;
+          }
+          morsel = nextMorsel();
+          i = 0;
+          if (morsel.isEmpty()) {
+            return false;
+          }
+        }
+        current = morsel.get(i++);
+        return true;
+      }
+
+      public void reset() {
+        throw new UnsupportedOperationException();
+      }
+
+      public void close() {
+      }
+    }
+  }
+
+  /** Enumerator that merges several enumerators, each of which is sorted,
+   * into one sorted sequence. Elements that compare equal are returned in the
+   * order of the enumerators that produced them.
+   *
+   * @param <TSource> element type */
+  private static class MergeSortedEnumerator<TSource>
+      implements Enumerator<TSource> {
+    private final List<Enumerator<TSource>> enumerators;
+    private final PriorityQueue<Integer> queue;
+    private TSource current;
+
+    MergeSortedEnumerator(List<Enumerator<TSource>> enumerators,
+        Comparator<TSource> comparator) {
+      this.enumerators = enumerators;
+      this.queue = new PriorityQueue<>(Math.max(enumerators.size(), 1),
+          (i0, i1) -> {
+            final int c = comparator.compare(enumerators.get(i0).current(),
+                enumerators.get(i1).current());
+            return c != 0 ? c : Integer.compare(i0, i1);
+          });
+      for (int i = 0; i < enumerators.size(); i++) {
+        if (enumerators.get(i).moveNext()) {
+          queue.add(i);
+        }
+      }
+    }
+
+    public TSource current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      final Integer i = queue.poll();
+      if (i == null) {
+        return false;
+      }
+      final Enumerator<TSource> enumerator = enumerators.get(i);
+      current = enumerator.current();
+      if (enumerator.moveNext()) {
+        queue.add(i);
+      }
+      return true;
+    }
+
+    public void reset() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      RuntimeException exception = null;
+      for (Enumerator<TSource> enumerator : enumerators) {
+        try {
+          enumerator.close();
+        } catch (RuntimeException e) {
+          if (exception == null) {
+            exception = e;
+          }
+        }
+      }
+      queue.clear();
+      if (exception != null) {
+        throw exception;
+      }
+    }
+  }
+
+  /** Enumerator that implements
+   * {@link #groupByWithSpill(Enumerable, Function1, Function0, Function2, Function2, EqualityComparer, int)}.
+   *
+   * @param <TSource> element type
+   * @param <TKey> key type
+   * @param <TAccumulate> accumulator type
+   * @param <TResult> result type */
+  private static class SpillingGroupByEnumerator<TSource, TKey, TAccumulate,
+      TResult> implements Enumerator<TResult> {
+    /** Number of partitions that a spilled input is split into. */
+    private static final int PARTITION_COUNT = 16;
+
+    /** Depth of partitioning beyond which a partition is aggregated in
+     * memory regardless of its size. */
+    private static final int MAX_LEVEL = 4;
+
+    private final Enumerable<TSource> source;
+    private final Function1<TSource, TKey> keySelector;
+    private final Function0<TAccumulate> accumulatorInitializer;
+    private final Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder;
+    private final Function2<TKey, TAccumulate, TResult> resultSelector;
+    private final EqualityComparer<TKey> comparer;
+    private final int spillThreshold;
+
+    /** Partitions that have been spilled but not yet aggregated. */
+    private final Deque<Partition<TSource>> pending = new ArrayDeque<>();
+    private Enumerator<TResult> current;
+    private boolean started;
+
+    SpillingGroupByEnumerator(Enumerable<TSource> source,
+        Function1<TSource, TKey> keySelector,
+        Function0<TAccumulate> accumulatorInitializer,
+        Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+        Function2<TKey, TAccumulate, TResult> resultSelector,
+        EqualityComparer<TKey> comparer, int spillThreshold) {
+      this.source = source;
+      this.keySelector = keySelector;
+      this.accumulatorInitializer = accumulatorInitializer;
+      this.accumulatorAdder = accumulatorAdder;
+      this.resultSelector = resultSelector;
+      this.comparer = comparer;
+      this.spillThreshold = spillThreshold;
+    }
+
+    public TResult current() {
+      return current.current();
+    }
+
+    public boolean moveNext() {
+      for (;;) {
+        if (current == null) {
+          if (!started) {
+            started = true;
+            current = aggregate(source.enumerator(), 0);
+          } else if (!pending.isEmpty()) {
+            final Partition<TSource> partition = pending.removeFirst();
+            current = aggregate(partition.file.enumerator(), partition.level);
+          } else {
+            return false;
+          }
+        }
+        if (current.moveNext()) {
+          return true;
+        }
+        current.close();
+        current = null;
+      }
+    }
+
+    /** Aggregates the elements of an enumerator, holding at most
+     * {@code spillThreshold} groups in memory and adding partitions of
+     * elements that do not fit to {@link #pending}. Closes the enumerator. */
+    private Enumerator<TResult> aggregate(Enumerator<TSource> os, int level) {
+      final Map<TKey, TAccumulate> map = comparer == null
+          ? new HashMap<>()
+          : new WrapMap<>(() -> new HashMap<Wrapped<TKey>, TAccumulate>(),
+              comparer);
+      List<Spiller.SpillFile<TSource>> partitions = null;
+      try {
+        while (os.moveNext()) {
+          final TSource o = os.current();
+          final TKey key = keySelector.apply(o);
+          TAccumulate accumulator = map.get(key);
+          if (accumulator == null) {
+            if (map.size() >= spillThreshold && level < MAX_LEVEL) {
+              if (partitions == null) {
+                partitions = new ArrayList<>();
+                for (int i = 0; i < PARTITION_COUNT; i++) {
+                  final Spiller.SpillFile<TSource> partition =
+                      Spiller.create();
+                  partitions.add(partition);
+                  pending.add(new Partition<>(partition, level + 1));
+                }
+              }
+              partitions.get(partition(key, level)).add(o);
+              continue;
+            }
+            accumulator = accumulatorInitializer.apply();
+            accumulator = accumulatorAdder.apply(accumulator, o);
+            map.put(key, accumulator);
+          } else {
+            TAccumulate accumulator0 = accumulator;
+            accumulator = accumulatorAdder.apply(accumulator, o);
+            if (accumulator != accumulator0) {
+              map.put(key, accumulator);
+            }
+          }
+        }
+      } finally {
+        os.close();
+      }
+      return new LookupResultEnumerable<>(map, resultSelector).enumerator();
+    }
+
+    private int partition(TKey key, int level) {
+      return spillPartition(key, comparer, level, PARTITION_COUNT);
+    }
+
+    public void reset() {
+      close();
+      started = false;
+    }
+
+    public void close() {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      for (Partition<TSource> partition : pending) {
+        partition.file.close();
+      }
+      pending.clear();
+    }
+
+    /** Spilled partition, and the level at which it is to be aggregated.
+     *
+     * @param <TSource> element type */
+    private static class Partition<TSource> {
+      final Spiller.SpillFile<TSource> file;
+      final int level;
+
+      Partition(Spiller.SpillFile<TSource> file, int level) {
+        this.file = file;
+        this.level = level;
+      }
+    }
+  }
+
   /** Map that wraps each value.
    *
    * @param <K> key type
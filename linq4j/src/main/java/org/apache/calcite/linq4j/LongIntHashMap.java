@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.linq4j;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive {@code long} keys to non-negative {@code int}
+ * values.
+ *
+ * <p>Uses open addressing with linear probing, so that neither keys nor
+ * values are boxed, and a lookup touches one or two adjacent array slots
+ * rather than following a chain of entry objects. Values are typically
+ * indexes into a list of rows or accumulators held by the caller.
+ */
+final class LongIntHashMap {
+  /** Value returned by {@link #get} if the key is not present. */
+  static final int ABSENT = -1;
+
+  private long[] keys;
+  /** Values, or {@link #ABSENT} if a slot is empty. */
+  private int[] values;
+  private int mask;
+  private int size;
+
+  LongIntHashMap() {
+    this(16);
+  }
+
+  LongIntHashMap(int expectedSize) {
+    allocate(tableSize(expectedSize));
+  }
+
+  private static int tableSize(int expectedSize) {
+    // Keep the load factor at or below 0.5
+    int n = 16;
+    while (n < expectedSize * 2 && n < (1 << 30)) {
+      n <<= 1;
+    }
+    return n;
+  }
+
+  private void allocate(int n) {
+    keys = new long[n];
+    values = new int[n];
+    Arrays.fill(values, ABSENT);
+    mask = n - 1;
+  }
+
+  /** Spreads the bits of a key, so that consecutive keys do not occupy
+   * consecutive slots. */
+  private static int hash(long key) {
+    final long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /** Returns the number of keys. */
+  int size() {
+    return size;
+  }
+
+  /** Returns the value of a key, or {@link #ABSENT}. */
+  int get(long key) {
+    for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+      final int value = values[i];
+      if (value == ABSENT || keys[i] == key) {
+        return value;
+      }
+    }
+  }
+
+  /** Associates a value with a key if the key is not already present.
+   * Returns the previous value, or {@link #ABSENT} if the value was
+   * added. */
+  int putIfAbsent(long key, int value) {
+    assert value >= 0 : value;
+    int i = hash(key) & mask;
+    for (;; i = (i + 1) & mask) {
+      final int previous = values[i];
+      if (previous == ABSENT) {
+        break;
+      }
+      if (keys[i] == key) {
+        return previous;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (++size * 2 > values.length) {
+      rehash();
+    }
+    return ABSENT;
+  }
+
+  private void rehash() {
+    final long[] oldKeys = keys;
+    final int[] oldValues = values;
+    allocate(oldValues.length * 2);
+    for (int j = 0; j < oldValues.length; j++) {
+      if (oldValues[j] != ABSENT) {
+        int i = hash(oldKeys[j]) & mask;
+        while (values[i] != ABSENT) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+}
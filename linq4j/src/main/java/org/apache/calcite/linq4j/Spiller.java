@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.linq4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes rows to temporary files and reads them back.
+ *
+ * <p>Operators such as
+ * {@link EnumerableDefaults#orderByWithSpill} and
+ * {@link EnumerableDefaults#groupByWithSpill} use it when their input does
+ * not fit in the memory they have been allowed; this is called "spilling".
+ *
+ * <p>Rows are written using Java serialization, and therefore must be
+ * {@link java.io.Serializable}.
+ */
+public final class Spiller {
+  private static final AtomicLong SPILL_COUNT = new AtomicLong();
+  private static final AtomicLong SPILLED_ROW_COUNT = new AtomicLong();
+
+  /** Number of rows after which the stream's table of back-references is
+   * cleared, so that a long file does not keep every row reachable. */
+  private static final int RESET_INTERVAL = 1000;
+
+  private Spiller() {
+  }
+
+  /** Returns the number of temporary files that operators in this JVM have
+   * written since it started. Zero means that nothing has spilled. */
+  public static long spillCount() {
+    return SPILL_COUNT.get();
+  }
+
+  /** Returns the number of rows that operators in this JVM have written to
+   * temporary files since it started. */
+  public static long spilledRowCount() {
+    return SPILLED_ROW_COUNT.get();
+  }
+
+  /** Creates an empty temporary file, ready to have rows added to it. */
+  static <T> SpillFile<T> create() {
+    try {
+      final File file = Files.createTempFile("calcite-spill-", ".bin")
+          .toFile();
+      SPILL_COUNT.incrementAndGet();
+      return new SpillFile<>(file);
+    } catch (IOException e) {
+      throw new RuntimeException("Error while creating spill file", e);
+    }
+  }
+
+  /** Temporary file that holds a sequence of rows.
+   *
+   * <p>Rows are added using {@link #add}, then read back, once, using
+   * {@link #enumerator()}. The file is deleted when that enumerator is
+   * closed, or when the file is closed, whichever happens first.
+   *
+   * @param <T> row type */
+  static class SpillFile<T> implements AutoCloseable {
+    final File file;
+    private ObjectOutputStream out;
+    private int rowCount;
+
+    private SpillFile(File file) {
+      this.file = file;
+    }
+
+    /** Returns the number of rows written so far. */
+    int rowCount() {
+      return rowCount;
+    }
+
+    /** Appends a row. */
+    void add(T row) {
+      try {
+        if (out == null) {
+          out = new ObjectOutputStream(
+              new BufferedOutputStream(Files.newOutputStream(file.toPath())));
+        }
+        out.writeObject(row);
+        if (++rowCount % RESET_INTERVAL == 0) {
+          out.reset();
+        }
+        SPILLED_ROW_COUNT.incrementAndGet();
+      } catch (IOException e) {
+        throw new RuntimeException("Error while spilling row to " + file, e);
+      }
+    }
+
+    /** Flushes and closes the output stream, if open. */
+    private void finish() {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          throw new RuntimeException("Error while closing " + file, e);
+        } finally {
+          out = null;
+        }
+      }
+    }
+
+    /** Returns an enumerator over the rows of this file. */
+    Enumerator<T> enumerator() {
+      finish();
+      if (rowCount == 0) {
+        close();
+        return Linq4j.emptyEnumerator();
+      }
+      final ObjectInputStream in;
+      try {
+        in = new ObjectInputStream(
+            new BufferedInputStream(Files.newInputStream(file.toPath())));
+      } catch (IOException e) {
+        close();
+        throw new RuntimeException("Error while reading " + file, e);
+      }
+      return new Enumerator<T>() {
+        private int remaining = rowCount;
+        private T current;
+        private boolean closed;
+
+        public T current() {
+          if (current == null && remaining == rowCount) {
+            throw new NoSuchElementException();
+          }
+          return current;
+        }
+
+        public boolean moveNext() {
+          if (remaining == 0) {
+            return false;
+          }
+          try {
+            //noinspection unchecked
+            current = (T) in.readObject();
+          } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Error while reading " + file, e);
+          }
+          --remaining;
+          return true;
+        }
+
+        public void reset() {
+          throw new UnsupportedOperationException();
+        }
+
+        public void close() {
+          if (!closed) {
+            closed = true;
+            try {
+              in.close();
+            } catch (IOException e) {
+              // ignore; we are about to delete the file
+            }
+            SpillFile.this.close();
+          }
+        }
+      };
+    }
+
+    /** Returns an enumerable over the rows of this file. It can be
+     * enumerated only once. */
+    Enumerable<T> asEnumerable() {
+      return new AbstractEnumerable<T>() {
+        public Enumerator<T> enumerator() {
+          return SpillFile.this.enumerator();
+        }
+      };
+    }
+
+    /** Deletes the file. */
+    public void close() {
+      try {
+        finish();
+      } finally {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+      }
+    }
+  }
+}
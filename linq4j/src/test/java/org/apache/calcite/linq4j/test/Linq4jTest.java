@@ -22,10 +22,12 @@
 import org.apache.calcite.linq4j.Enumerator;
 import org.apache.calcite.linq4j.ExtendedEnumerable;
 import org.apache.calcite.linq4j.Grouping;
+import org.apache.calcite.linq4j.JoinType;
 import org.apache.calcite.linq4j.Linq4j;
 import org.apache.calcite.linq4j.Lookup;
 import org.apache.calcite.linq4j.Queryable;
 import org.apache.calcite.linq4j.QueryableDefaults;
+import org.apache.calcite.linq4j.Spiller;
 import org.apache.calcite.linq4j.function.EqualityComparer;
 import org.apache.calcite.linq4j.function.Function0;
 import org.apache.calcite.linq4j.function.Function1;
@@ -1477,6 +1479,176 @@ public boolean apply(Department v1, Integer v2) {
             .toList().toString());
   }
 
+  @Test void testOrderByWithFetchAndOffset() {
+    // Sort is stable, so the ties Fred, Eric, Janet keep their input order.
+    assertEquals(
+        "[Employee(name: Eric, deptno:10),"
+            + " Employee(name: Janet, deptno:10)]",
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, null, 1, 2)
+            .toList().toString());
+    assertEquals(
+        "[Employee(name: Bill, deptno:30),"
+            + " Employee(name: Fred, deptno:10)]",
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, Collections.reverseOrder(), 0, 2)
+            .toList().toString());
+    // Negative fetch means no limit
+    assertEquals(
+        "[Employee(name: Janet, deptno:10),"
+            + " Employee(name: Bill, deptno:30)]",
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, null, 2, -1)
+            .toList().toString());
+    assertEquals(0,
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, null, 0, 0).count());
+    assertEquals(0,
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, null, 4, 10).count());
+  }
+
+  @Test void testOrderByWithSpill() {
+    // Rows are spilled, so must be serializable; a list is, an Employee is not
+    final List<List<Object>> rows = new ArrayList<>();
+    for (Employee emp : emps) {
+      rows.add(Arrays.asList(emp.name, emp.deptno));
+    }
+    final long spillCount = Spiller.spillCount();
+    // With at most one row in memory, every row goes into its own run; the
+    // merge must still be stable.
+    assertEquals("[[Fred, 10], [Eric, 10], [Janet, 10], [Bill, 30]]",
+        EnumerableDefaults.orderByWithSpill(Linq4j.asEnumerable(rows),
+            row -> (Integer) row.get(1), null, 1)
+            .toList().toString());
+    assertThat(Spiller.spillCount() > spillCount, is(true));
+
+    // Negative threshold means never spill
+    assertEquals(
+        "[Employee(name: Bill, deptno:30),"
+            + " Employee(name: Fred, deptno:10),"
+            + " Employee(name: Eric, deptno:10),"
+            + " Employee(name: Janet, deptno:10)]",
+        EnumerableDefaults.orderByWithSpill(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, Collections.reverseOrder(), -1)
+            .toList().toString());
+  }
+
+  @Test void testGather() {
+    final List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      list.add(i);
+    }
+    final List<Integer> evens =
+        EnumerableDefaults.<Integer, Integer>gather(Linq4j.asEnumerable(list),
+            e -> e.where(i -> i % 2 == 0), 4)
+            .orderBy(i -> i)
+            .toList();
+    assertThat(evens.size(), is(5000));
+    for (int i = 0; i < evens.size(); i++) {
+      assertThat(evens.get(i), is(2 * i));
+    }
+
+    // Each thread computes a partial count; the sum of partial counts is
+    // the total
+    assertThat(
+        EnumerableDefaults.<Integer, Integer>gather(Linq4j.asEnumerable(list),
+            e -> Linq4j.singletonEnumerable(e.count()), 4)
+            .sum((Integer i) -> i),
+        is(10000));
+  }
+
+  @Test void testGroupByWithSpill() {
+    final List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add(i % 70);
+    }
+    final long spillCount = Spiller.spillCount();
+    final Map<Integer, Integer> counts = new HashMap<>();
+    EnumerableDefaults.groupByWithSpill(Linq4j.asEnumerable(list),
+        i -> i, () -> 0, (Integer acc, Integer i) -> acc + 1,
+        (Integer key, Integer acc) -> Arrays.asList(key, acc), null, 8)
+        .forEach(pair -> assertNull(counts.put(pair.get(0), pair.get(1))));
+    assertThat(Spiller.spillCount() > spillCount, is(true));
+    assertThat(counts.size(), is(70));
+    for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+      assertThat(entry.getValue(), is(entry.getKey() < 20 ? 15 : 14));
+    }
+  }
+
+  @Test void testPartitionedHashJoin() {
+    final List<Integer> outer = new ArrayList<>();
+    final List<Integer> inner = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      outer.add(i % 70);
+      inner.add(i % 90);
+    }
+    for (JoinType joinType : JoinType.values()) {
+      final long spillCount = Spiller.spillCount();
+      final List<String> expected =
+          EnumerableDefaults.<Integer, Integer, Integer, Object>partitionedHashJoin(
+              Linq4j.asEnumerable(outer), Linq4j.asEnumerable(inner),
+              i -> i / 2, i -> i / 3, (i, j) -> i + ":" + j, null, joinType,
+              null, -1)
+              .select(String::valueOf).orderBy(s -> s).toList();
+      assertThat(Spiller.spillCount(), is(spillCount));
+      final List<String> actual =
+          EnumerableDefaults.<Integer, Integer, Integer, Object>partitionedHashJoin(
+              Linq4j.asEnumerable(outer), Linq4j.asEnumerable(inner),
+              i -> i / 2, i -> i / 3, (i, j) -> i + ":" + j, null, joinType,
+              null, 8)
+              .select(String::valueOf).orderBy(s -> s).toList();
+      assertThat(Spiller.spillCount() > spillCount, is(true));
+      assertThat(joinType.toString(), actual, is(expected));
+    }
+  }
+
+  @Test void testLongHashJoin() {
+    final List<Integer> outer = new ArrayList<>();
+    final List<Integer> inner = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      outer.add(i % 11 == 0 ? null : i % 70);
+      inner.add(i % 13 == 0 ? null : i % 90);
+    }
+    for (boolean generateNullsOnLeft : new boolean[] {false, true}) {
+      for (boolean generateNullsOnRight : new boolean[] {false, true}) {
+        final List<String> expected =
+            EnumerableDefaults.<Integer, Integer, Integer, String>hashJoin(
+                Linq4j.asEnumerable(outer), Linq4j.asEnumerable(inner),
+                i -> i == null ? null : i / 2, i -> i == null ? null : i / 3,
+                (i, j) -> i + ":" + j, null, generateNullsOnLeft,
+                generateNullsOnRight, null)
+                .orderBy(s -> s).toList();
+        final List<String> actual =
+            EnumerableDefaults.<Integer, Integer, String>longHashJoin(
+                Linq4j.asEnumerable(outer), Linq4j.asEnumerable(inner),
+                i -> i / 2, Objects::isNull, i -> i / 3, Objects::isNull,
+                (i, j) -> i + ":" + j, generateNullsOnLeft,
+                generateNullsOnRight)
+                .orderBy(s -> s).toList();
+        assertThat(actual, is(expected));
+      }
+    }
+  }
+
+  @Test void testGroupByLong() {
+    final List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add(i % 100 == 0 ? null : i % 70);
+    }
+    final Map<Integer, Integer> counts = new HashMap<>();
+    EnumerableDefaults.groupByLong(Linq4j.asEnumerable(list),
+        i -> i, i -> i, Objects::isNull, () -> 0,
+        (Integer acc, Integer i) -> acc + 1,
+        (Integer key, Integer acc) -> Arrays.asList(key, acc))
+        .forEach(pair -> assertNull(counts.put(pair.get(0), pair.get(1))));
+    assertThat(counts.size(), is(71));
+    assertThat(counts.get(null), is(10));
+    assertThat(counts.get(0), is(13));
+    assertThat(counts.get(1), is(15));
+    assertThat(counts.get(69), is(14));
+  }
+
   @Test void testOrderByInSeries() {
     // OrderBy in series works because sort is stable.
     assertEquals(
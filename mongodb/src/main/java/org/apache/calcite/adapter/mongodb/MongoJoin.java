@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.mongodb;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.Util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of {@link org.apache.calcite.rel.core.Join} relational
+ * expression in MongoDB.
+ *
+ * <p>The join is executed as a {@code $lookup} stage that fetches the
+ * matching documents of another collection in the same database, followed by
+ * {@code $unwind} and {@code $project} stages that flatten each match into a
+ * row. Only inner joins with a single equality condition are supported; the
+ * right input must read fields directly from the looked-up collection, and
+ * its relational expression is only used for costing.
+ */
+public class MongoJoin extends Join implements MongoRel {
+  /** Name of the array field that holds the documents matched by
+   * {@code $lookup}. */
+  static final String JOIN_FIELD = "_join";
+
+  /** Name of the collection that the right input reads. */
+  final String collectionName;
+
+  /** For each field of the right input, the name of the document field in
+   * the looked-up collection. */
+  final ImmutableList<String> rightFields;
+
+  public MongoJoin(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode left, RelNode right, RexNode condition, JoinRelType joinType,
+      String collectionName, List<String> rightFields)
+      throws InvalidRelException {
+    super(cluster, traitSet, ImmutableList.of(), left, right, condition,
+        ImmutableSet.of(), joinType);
+    assert getConvention() == MongoRel.CONVENTION;
+    this.collectionName = collectionName;
+    this.rightFields = ImmutableList.copyOf(rightFields);
+    assert this.rightFields.size() == right.getRowType().getFieldCount();
+
+    if (joinType != JoinRelType.INNER) {
+      throw new InvalidRelException("unsupported join type: " + joinType);
+    }
+    if (!joinInfo.isEqui() || joinInfo.leftKeys.size() != 1) {
+      throw new InvalidRelException(
+          "join condition must be a single equality: " + condition);
+    }
+  }
+
+  @Override public Join copy(RelTraitSet traitSet, RexNode condition,
+      RelNode left, RelNode right, JoinRelType joinType,
+      boolean semiJoinDone) {
+    try {
+      return new MongoJoin(getCluster(), traitSet, left, right, condition,
+          joinType, collectionName, rightFields);
+    } catch (InvalidRelException e) {
+      // Semantic error not possible. Must be a bug. Convert to
+      // internal error.
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override public RelWriter explainTerms(RelWriter pw) {
+    return super.explainTerms(pw)
+        .item("collection", collectionName);
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq).multiplyBy(0.1);
+  }
+
+  public void implement(Implementor implementor) {
+    implementor.visitChild(0, getLeft());
+
+    final List<String> leftNames =
+        MongoRules.mongoFieldNames(getLeft().getRowType());
+    final String localField = leftNames.get(joinInfo.leftKeys.get(0));
+    final String foreignField = rightFields.get(joinInfo.rightKeys.get(0));
+
+    // In SQL, NULL never equals anything, but $lookup matches a missing or
+    // null local field with every document whose foreign field is missing
+    // or null.
+    implementor.add(null,
+        "{$match: {" + MongoRules.maybeQuote(localField) + ": {$ne: null}}}");
+    implementor.add(null,
+        "{$lookup: {from: " + MongoRules.quote(collectionName)
+            + ", localField: " + MongoRules.quote(localField)
+            + ", foreignField: " + MongoRules.quote(foreignField)
+            + ", as: " + MongoRules.quote(JOIN_FIELD) + "}}");
+    implementor.add(null,
+        "{$unwind: " + MongoRules.quote("$" + JOIN_FIELD) + "}");
+
+    final List<String> names = MongoRules.mongoFieldNames(getRowType());
+    final List<String> items = new ArrayList<>();
+    for (int i = 0; i < names.size(); i++) {
+      final String name = names.get(i);
+      final String source = i < leftNames.size()
+          ? leftNames.get(i)
+          : JOIN_FIELD + "." + rightFields.get(i - leftNames.size());
+      items.add(source.equals(name)
+          ? MongoRules.maybeQuote(name) + ": 1"
+          : MongoRules.maybeQuote(name) + ": "
+              + MongoRules.quote("$" + source));
+    }
+    implementor.add(null,
+        "{$project: " + Util.toString(items, "{", ", ", "}") + "}");
+  }
+}
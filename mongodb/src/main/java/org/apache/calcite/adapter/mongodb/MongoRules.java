@@ -21,21 +21,27 @@
 import org.apache.calcite.adapter.java.JavaTypeFactory;
 import org.apache.calcite.plan.Convention;
 import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
 import org.apache.calcite.plan.RelTrait;
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.InvalidRelException;
 import org.apache.calcite.rel.RelCollations;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.core.Sort;
 import org.apache.calcite.rel.logical.LogicalAggregate;
 import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
 import org.apache.calcite.rex.RexLiteral;
 import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexTableInputRef;
 import org.apache.calcite.rex.RexVisitorImpl;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlOperator;
@@ -53,6 +59,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Rules and relational operators for
@@ -69,6 +76,7 @@ private MongoRules() {}
       MongoFilterRule.INSTANCE,
       MongoProjectRule.INSTANCE,
       MongoAggregateRule.INSTANCE,
+      MongoJoinRule.INSTANCE,
   };
 
   /** Returns 'string' if it is a call to item['string'], null otherwise. */
@@ -87,6 +95,15 @@ static String isItem(RexCall call) {
     return null;
   }
 
+  /** Returns 'string' if the expression is item['string'], possibly wrapped
+   * in casts; null otherwise. */
+  static String itemName(RexNode e) {
+    while (e.getKind() == SqlKind.CAST) {
+      e = ((RexCall) e).operands.get(0);
+    }
+    return e instanceof RexCall ? isItem((RexCall) e) : null;
+  }
+
   static List<String> mongoFieldNames(final RelDataType rowType) {
     return SqlValidatorUtil.uniquify(
         new AbstractList<String>() {
@@ -323,6 +340,90 @@ public RelNode convert(RelNode rel) {
     }
   }
 
+  /**
+   * Rule to convert an inner equi-join
+   * {@link org.apache.calcite.rel.logical.LogicalJoin} whose right input
+   * projects fields of a MongoDB collection to a {@link MongoJoin}.
+   *
+   * <p>Every table read by the left input must be a collection in the same
+   * database as the right input, because {@code $lookup} cannot reach
+   * another database.
+   */
+  private static class MongoJoinRule extends RelOptRule {
+    private static final MongoJoinRule INSTANCE = new MongoJoinRule();
+
+    private MongoJoinRule() {
+      super(
+          operand(LogicalJoin.class, Convention.NONE,
+              some(operand(RelNode.class, any()),
+                  operand(LogicalProject.class,
+                      operand(MongoTableScan.class, none())))),
+          "MongoJoinRule");
+    }
+
+    @Override public void onMatch(RelOptRuleCall call) {
+      final LogicalJoin join = call.rel(0);
+      final LogicalProject project = call.rel(2);
+      final MongoTableScan scan = call.rel(3);
+      if (join.getJoinType() != JoinRelType.INNER) {
+        return;
+      }
+      final JoinInfo joinInfo = join.analyzeCondition();
+      if (!joinInfo.isEqui() || joinInfo.leftKeys.size() != 1) {
+        return;
+      }
+      final RelDataType leftKeyType = join.getLeft().getRowType()
+          .getFieldList().get(joinInfo.leftKeys.get(0)).getType();
+      if (leftKeyType.getSqlTypeName() == SqlTypeName.MAP) {
+        return;
+      }
+      final List<String> rightFields = new ArrayList<>();
+      for (RexNode e : project.getProjects()) {
+        final String name = itemName(e);
+        if (name == null) {
+          return;
+        }
+        rightFields.add(name);
+      }
+      if (!sameDatabase(join.getLeft(), scan, call.getMetadataQuery())) {
+        return;
+      }
+      final RelTraitSet traitSet =
+          join.getTraitSet().replace(MongoRel.CONVENTION);
+      try {
+        call.transformTo(
+            new MongoJoin(join.getCluster(), traitSet,
+                convert(join.getLeft(), MongoRel.CONVENTION),
+                convert(join.getRight(), MongoRel.CONVENTION),
+                join.getCondition(), join.getJoinType(),
+                scan.mongoTable.collectionName, rightFields));
+      } catch (InvalidRelException e) {
+        LOGGER.warn(e.toString());
+      }
+    }
+
+    /** Returns whether every table read by {@code left} is a MongoDB
+     * collection in the same schema as {@code scan}. */
+    private static boolean sameDatabase(RelNode left, MongoTableScan scan,
+        RelMetadataQuery mq) {
+      final List<String> schemaPath =
+          Util.skipLast(scan.getTable().getQualifiedName());
+      final Set<RexTableInputRef.RelTableRef> tableRefs =
+          mq.getTableReferences(left);
+      if (tableRefs == null || tableRefs.isEmpty()) {
+        return false;
+      }
+      for (RexTableInputRef.RelTableRef tableRef : tableRefs) {
+        if (tableRef.getTable().unwrap(MongoTable.class) == null
+            || !Util.skipLast(tableRef.getQualifiedName())
+                .equals(schemaPath)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
 /*
 
   /**
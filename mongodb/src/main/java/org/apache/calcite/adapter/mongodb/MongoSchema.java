@@ -37,6 +37,12 @@
 public class MongoSchema extends AbstractSchema {
   final MongoDatabase mongoDb;
 
+  /** Number of documents per cursor batch, or null for the server default. */
+  final Integer batchSize;
+
+  /** Whether aggregation stages may write temporary files on the server. */
+  final boolean allowDiskUse;
+
   /**
    * Creates a MongoDB schema.
    *
@@ -47,7 +53,25 @@ public class MongoSchema extends AbstractSchema {
    */
   MongoSchema(String host, String database,
       MongoCredential credential, MongoClientOptions options) {
+    this(host, database, credential, options, null, false);
+  }
+
+  /**
+   * Creates a MongoDB schema with cursor options.
+   *
+   * @param host Mongo host, e.g. "localhost"
+   * @param database Mongo database name, e.g. "foodmart"
+   * @param credential Optional credentials (null for none)
+   * @param options Mongo connection options
+   * @param batchSize Number of documents per cursor batch, or null
+   * @param allowDiskUse Whether aggregation pipelines may spill to disk
+   */
+  MongoSchema(String host, String database,
+      MongoCredential credential, MongoClientOptions options,
+      Integer batchSize, boolean allowDiskUse) {
     super();
+    this.batchSize = batchSize;
+    this.allowDiskUse = allowDiskUse;
     try {
       final MongoClient mongo = credential == null
           ? new MongoClient(new ServerAddress(host), options)
@@ -67,6 +91,8 @@ public class MongoSchema extends AbstractSchema {
   MongoSchema(MongoDatabase mongoDb) {
     super();
     this.mongoDb = Objects.requireNonNull(mongoDb, "mongoDb");
+    this.batchSize = null;
+    this.allowDiskUse = false;
   }
 
   @Override protected Map<String, Table> getTableMap() {
@@ -51,7 +51,35 @@ public Schema create(SchemaPlus parentSchema, String name,
       credential = null;
     }
 
-    return new MongoSchema(host, database, credential, options.build());
+    final Integer batchSize = intOperand(operand, "batchSize");
+    if (batchSize != null && batchSize < 0) {
+      throw new IllegalArgumentException("batchSize must not be negative: "
+          + batchSize);
+    }
+    final boolean allowDiskUse = booleanOperand(operand, "allowDiskUse");
+
+    return new MongoSchema(host, database, credential, options.build(),
+        batchSize, allowDiskUse);
+  }
+
+  private static Integer intOperand(Map<String, Object> operand, String name) {
+    final Object value = operand.get(name);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).intValue();
+    }
+    return Integer.valueOf(value.toString());
+  }
+
+  private static boolean booleanOperand(Map<String, Object> operand,
+      String name) {
+    final Object value = operand.get(name);
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    return value != null && Boolean.parseBoolean(value.toString());
   }
 
   private MongoCredential createCredential(Map<String, Object> map) {
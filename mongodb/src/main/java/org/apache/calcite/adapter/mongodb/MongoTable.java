@@ -34,9 +34,9 @@
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.util.Util;
 
+import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
 
 import org.bson.BsonDocument;
 import org.bson.Document;
@@ -52,7 +52,7 @@
  */
 public class MongoTable extends AbstractQueryableTable
     implements TranslatableTable {
-  private final String collectionName;
+  final String collectionName;
 
   /** Creates a MongoTable. */
   MongoTable(String collectionName) {
@@ -91,16 +91,17 @@ public RelNode toRel(
    * <p>For example,
    * <code>zipsTable.find("{state: 'OR'}", "{city: 1, zipcode: 1}")</code></p>
    *
-   * @param mongoDb MongoDB connection
+   * @param schema MongoDB schema, which holds the connection and cursor options
    * @param filterJson Filter JSON string, or null
    * @param projectJson Project JSON string, or null
    * @param fields List of fields to project; or null to return map
    * @return Enumerator of results
    */
-  private Enumerable<Object> find(MongoDatabase mongoDb, String filterJson,
+  private Enumerable<Object> find(MongoSchema schema, String filterJson,
       String projectJson, List<Map.Entry<String, Class>> fields) {
     final MongoCollection collection =
-        mongoDb.getCollection(collectionName);
+        schema.mongoDb.getCollection(collectionName);
+    final Integer batchSize = schema.batchSize;
     final Bson filter =
         filterJson == null ? null : BsonDocument.parse(filterJson);
     final Bson project =
@@ -110,6 +111,9 @@ private Enumerable<Object> find(MongoDatabase mongoDb, String filterJson,
       public Enumerator<Object> enumerator() {
         @SuppressWarnings("unchecked") final FindIterable<Document> cursor =
             collection.find(filter).projection(project);
+        if (batchSize != null) {
+          cursor.batchSize(batchSize);
+        }
         return new MongoEnumerator(cursor.iterator(), getter);
       }
     };
@@ -123,12 +127,12 @@ public Enumerator<Object> enumerator() {
    * "{$group: {_id: '$city', c: {$sum: 1}, p: {$sum: '$pop'}}}")
    * </code></p>
    *
-   * @param mongoDb MongoDB connection
+   * @param schema MongoDB schema, which holds the connection and cursor options
    * @param fields List of fields to project; or null to return map
    * @param operations One or more JSON strings
    * @return Enumerator of results
    */
-  private Enumerable<Object> aggregate(final MongoDatabase mongoDb,
+  private Enumerable<Object> aggregate(final MongoSchema schema,
       final List<Map.Entry<String, Class>> fields,
       final List<String> operations) {
     final List<Bson> list = new ArrayList<>();
@@ -141,8 +145,15 @@ private Enumerable<Object> aggregate(final MongoDatabase mongoDb,
       public Enumerator<Object> enumerator() {
         final Iterator<Document> resultIterator;
         try {
-          resultIterator = mongoDb.getCollection(collectionName)
-              .aggregate(list).iterator();
+          final AggregateIterable<Document> cursor =
+              schema.mongoDb.getCollection(collectionName).aggregate(list);
+          if (schema.batchSize != null) {
+            cursor.batchSize(schema.batchSize);
+          }
+          if (schema.allowDiskUse) {
+            cursor.allowDiskUse(true);
+          }
+          resultIterator = cursor.iterator();
         } catch (Exception e) {
           throw new RuntimeException("While running MongoDB query "
               + Util.toString(operations, "[", ",\n", "]"), e);
@@ -165,12 +176,12 @@ public Enumerator<Object> enumerator() {
     public Enumerator<T> enumerator() {
       //noinspection unchecked
       final Enumerable<T> enumerable =
-          (Enumerable<T>) getTable().find(getMongoDb(), null, null, null);
+          (Enumerable<T>) getTable().find(getMongoSchema(), null, null, null);
       return enumerable.enumerator();
     }
 
-    private MongoDatabase getMongoDb() {
-      return schema.unwrap(MongoSchema.class).mongoDb;
+    private MongoSchema getMongoSchema() {
+      return schema.unwrap(MongoSchema.class);
     }
 
     private MongoTable getTable() {
@@ -184,7 +195,7 @@ private MongoTable getTable() {
     @SuppressWarnings("UnusedDeclaration")
     public Enumerable<Object> aggregate(List<Map.Entry<String, Class>> fields,
         List<String> operations) {
-      return getTable().aggregate(getMongoDb(), fields, operations);
+      return getTable().aggregate(getMongoSchema(), fields, operations);
     }
 
     /** Called via code-generation.
@@ -199,7 +210,7 @@ public Enumerable<Object> aggregate(List<Map.Entry<String, Class>> fields,
     @SuppressWarnings("UnusedDeclaration")
     public Enumerable<Object> find(String filterJson,
         String projectJson, List<Map.Entry<String, Class>> fields) {
-      return getTable().find(getMongoDb(), filterJson, projectJson, fields);
+      return getTable().find(getMongoSchema(), filterJson, projectJson, fields);
     }
   }
 }
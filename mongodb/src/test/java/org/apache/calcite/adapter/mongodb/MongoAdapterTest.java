@@ -60,6 +60,7 @@
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -321,6 +322,26 @@ private CalciteAssert.AssertThat assertModel(URL url) {
                 "{$project: {warehouse_id: 1, warehouse_state_province: 1}}"));
   }
 
+  /** Tests that an equi-join between two collections in the same database
+   * is executed as a {@code $lookup} stage. */
+  @Test void testJoin() {
+    assertModel(MODEL)
+        .query("select s.\"store_name\", w.\"warehouse_state_province\"\n"
+            + "from \"store\" as s\n"
+            + "join \"warehouse\" as w on s.\"store_id\" = w.\"warehouse_id\"\n"
+            + "where s.\"store_name\" in ('Store 6', 'Store 7')")
+        .explainContains("MongoJoin(condition=")
+        .returns(
+            MongoAssertions.checkResultUnordered(
+                "store_name=Store 6; warehouse_state_province=CA",
+                "store_name=Store 7; warehouse_state_province=CA"))
+        .queryContains(list ->
+            assertThat(list.get(0).toString(),
+                containsString("{$lookup: {from: 'warehouse', "
+                    + "localField: 'store_id', foreignField: 'warehouse_id', "
+                    + "as: '_join'}}")));
+  }
+
   @Test void testInPlan() {
     assertModel(MODEL)
         .query("select \"store_id\", \"store_name\" from \"store\"\n"
@@ -821,26 +821,37 @@ SqlSelect SqlSelect() :
  */
 
 /**
- * Parses an EXPLAIN PLAN statement.
+ * Parses an EXPLAIN PLAN or EXPLAIN ANALYZE statement.
  */
 SqlNode SqlExplain() :
 {
     SqlNode stmt;
     SqlExplainLevel detailLevel = SqlExplainLevel.EXPPLAN_ATTRIBUTES;
     SqlExplain.Depth depth;
-    final SqlExplainFormat format;
+    SqlExplainFormat format;
+    boolean analyze = false;
 }
 {
-    <EXPLAIN> <PLAN>
-    [ detailLevel = ExplainDetailLevel() ]
-    depth = ExplainDepth()
+    <EXPLAIN>
     (
-        LOOKAHEAD(2)
-        <AS> <XML> { format = SqlExplainFormat.XML; }
-    |
-        <AS> <JSON> { format = SqlExplainFormat.JSON; }
+        <PLAN>
+        [ detailLevel = ExplainDetailLevel() ]
+        depth = ExplainDepth()
+        (
+            LOOKAHEAD(2)
+            <AS> <XML> { format = SqlExplainFormat.XML; }
+        |
+            <AS> <JSON> { format = SqlExplainFormat.JSON; }
+        |
+            { format = SqlExplainFormat.TEXT; }
+        )
     |
-        { format = SqlExplainFormat.TEXT; }
+        <ANALYZE> {
+            analyze = true;
+            depth = SqlExplain.Depth.PHYSICAL;
+            format = SqlExplainFormat.TEXT;
+        }
+        [ detailLevel = ExplainDetailLevel() ]
     )
     <FOR> stmt = SqlQueryOrDml() {
         return new SqlExplain(getPos(),
@@ -848,7 +859,8 @@ SqlNode SqlExplain() :
             detailLevel.symbol(SqlParserPos.ZERO),
             depth.symbol(SqlParserPos.ZERO),
             format.symbol(SqlParserPos.ZERO),
-            nDynamicParams);
+            nDynamicParams,
+            analyze);
     }
 }
 
@@ -32,6 +32,7 @@
 import org.apache.calcite.sql.parser.SqlParseException;
 import org.apache.calcite.sql.parser.SqlParser;
 import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.sql.parser.SqlParserUtil;
 import org.apache.calcite.sql.pretty.SqlPrettyWriter;
 import org.apache.calcite.sql.test.SqlTests;
@@ -39,6 +40,7 @@
 import org.apache.calcite.sql.validate.SqlConformanceEnum;
 import org.apache.calcite.util.Bug;
 import org.apache.calcite.util.ConversionUtil;
+import org.apache.calcite.util.Litmus;
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.SourceStringReader;
 import org.apache.calcite.util.TestUtil;
@@ -3463,6 +3465,35 @@ void checkPeriodPredicate(Checker checker) {
             + "FROM `EMPS`");
   }
 
+  @Test void testExplainAnalyze() {
+    sql("explain analyze for select * from emps")
+        .ok("EXPLAIN ANALYZE INCLUDING ATTRIBUTES FOR\n"
+            + "SELECT *\n"
+            + "FROM `EMPS`");
+    sql("explain analyze including all attributes for select * from emps")
+        .ok("EXPLAIN ANALYZE INCLUDING ALL ATTRIBUTES FOR\n"
+            + "SELECT *\n"
+            + "FROM `EMPS`");
+    sql("explain analyze ^with^ implementation for select * from emps")
+        .fails("(?s).*Encountered \"with\" at .*");
+  }
+
+  /** Tests that a copy of EXPLAIN ANALYZE, made by rebuilding the call from
+   * its operands, is still EXPLAIN ANALYZE, and differs from EXPLAIN PLAN. */
+  @Test void testExplainAnalyzeClone() throws SqlParseException {
+    final SqlExplain explain = (SqlExplain)
+        getSqlParser("explain analyze for select * from emps").parseStmt();
+    assertThat(explain.isAnalyze(), is(true));
+    final SqlExplain clone = (SqlExplain) explain.clone(SqlParserPos.ZERO);
+    assertThat(clone.isAnalyze(), is(true));
+    assertThat(clone.toString(), is(explain.toString()));
+    assertThat(clone.equalsDeep(explain, Litmus.IGNORE), is(true));
+
+    final SqlNode plan =
+        getSqlParser("explain plan for select * from emps").parseStmt();
+    assertThat(plan.equalsDeep(explain, Litmus.IGNORE), is(false));
+  }
+
   @Test void testExplainWithType() {
     sql("explain plan with type for (values (true))")
         .ok("EXPLAIN PLAN INCLUDING ATTRIBUTES WITH TYPE FOR\n"
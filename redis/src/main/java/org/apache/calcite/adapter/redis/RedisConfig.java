@@ -20,16 +20,29 @@
  * Set the redis config.
  */
 public class RedisConfig {
+  /** Default number of values fetched per round trip to the server. */
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
   private final String host;
   private final int port;
   private final int database;
   private final String password;
+  private final int batchSize;
 
   public RedisConfig(String host, int port, int database, String password) {
+    this(host, port, database, password, DEFAULT_BATCH_SIZE);
+  }
+
+  public RedisConfig(String host, int port, int database, String password,
+      int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
     this.host = host;
     this.port = port;
     this.database = database;
     this.password = password;
+    this.batchSize = batchSize;
   }
 
   public String getHost() {
@@ -47,4 +60,10 @@ public int getDatabase() {
   public String getPassword() {
     return password;
   }
+
+  /** Returns the number of values to fetch per round trip to the server; the
+   * COUNT hint of SCAN commands, and the number of keys per MGET. */
+  public int getBatchSize() {
+    return batchSize;
+  }
 }
@@ -16,17 +16,25 @@
  */
 package org.apache.calcite.adapter.redis;
 
+import org.apache.calcite.linq4j.Enumerator;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
 
 /**
  * The class with RedisDataProcess.
@@ -59,34 +67,53 @@ public RedisDataProcess(Jedis jedis, RedisTableFieldInfo tableFieldInfo) {
 
   public List<Object[]> read() {
     List<Object[]> objs = new ArrayList<>();
-    switch (dataType) {
-    case STRING:
-      return parse(jedis.keys(tableName));
-    case LIST:
-      return parse(jedis.lrange(tableName, 0, -1));
-    case SET:
-      return parse(jedis.smembers(tableName));
-    case SORTED_SET:
-      return parse(jedis.zrange(tableName, 0, -1));
-    case HASH:
-      return parse(jedis.hvals(tableName));
-    default:
-      return objs;
+    try (Enumerator<Object[]> enumerator =
+             scan(null, null, RedisConfig.DEFAULT_BATCH_SIZE)) {
+      while (enumerator.moveNext()) {
+        objs.add(enumerator.current());
+      }
     }
+    return objs;
+  }
+
+  /**
+   * Returns an enumerator that reads the table lazily, fetching at most
+   * {@code batchSize} values per round trip: SCAN and MGET for strings,
+   * HSCAN, SSCAN and ZSCAN for hashes, sets and sorted sets, and LRANGE for
+   * lists.
+   *
+   * <p>The enumerator holds at most one batch in memory. It does not
+   * remember what it has already returned, and so, like the SCAN family of
+   * commands, it may return an element more than once, for instance if a
+   * hash table is resized during the scan; and it may or may not return
+   * elements that are added or removed during the scan. Lists are read by
+   * index, so a list that is not modified during the scan is returned
+   * exactly once.
+   *
+   * @param pattern   Glob-style pattern that members of a set or sorted set
+   *                  must match, or null; ignored for other data types, whose
+   *                  SCAN commands match keys or hash fields rather than values
+   * @param projects  Ordinals of the fields to return, or null for all
+   * @param batchSize Number of values to fetch per round trip
+   */
+  public Enumerator<Object[]> scan(String pattern, int[] projects,
+      int batchSize) {
+    return new ScanEnumerator(pattern, projects, batchSize);
   }
 
-  private Object[] parseJson(String value) {
+  private Object[] parseJson(String value, int[] projects) {
     assert StringUtils.isNotEmpty(value);
-    Object[] arr = new Object[fields.size()];
+    Object[] arr = new Object[projects == null ? fields.size() : projects.length];
     try {
       JsonNode jsonNode = objectMapper.readTree(value);
       Object obj;
       for (int i = 0; i < arr.length; i++) {
-        obj = fields.get(i).get("mapping");
+        final int field = projects == null ? i : projects[i];
+        obj = fields.get(field).get("mapping");
         if (obj == null) {
           arr[i] = "";
         } else {
-          arr[i] = jsonNode.findValue(fields.get(i).get("mapping").toString());
+          arr[i] = jsonNode.findValue(obj.toString());
         }
       }
     } catch (Exception e) {
@@ -95,60 +122,164 @@ private Object[] parseJson(String value) {
     return arr;
   }
 
-  private Object[] parseCsv(String value) {
+  private Object[] parseCsv(String value, int[] projects) {
     assert StringUtils.isNotEmpty(value);
     String[] values = value.split(keyDelimiter);
-    Object[] arr = new Object[fields.size()];
-    assert values.length == arr.length;
+    assert values.length == fields.size();
+    Object[] arr = new Object[projects == null ? fields.size() : projects.length];
     for (int i = 0; i < arr.length; i++) {
-      arr[i] = values[i] == null ? "" : values[i];
+      final int field = projects == null ? i : projects[i];
+      arr[i] = values[field] == null ? "" : values[field];
     }
     return arr;
   }
 
+  /** Converts a value to a row, or returns null if the data format is not
+   * known. */
+  private Object[] parseValue(String value, int[] projects) {
+    switch (redisDataFormat) {
+    case RAW:
+      return new Object[]{value};
+    case JSON:
+      return parseJson(value, projects);
+    case CSV:
+      return parseCsv(value, projects);
+    default:
+      return null;
+    }
+  }
+
   List<Object[]> parse(Iterable<String> keys) {
     List<Object[]> objs = new ArrayList<>();
     for (String key : keys) {
       if (dataType == RedisDataType.STRING) {
         key = jedis.get(key);
       }
-      switch (redisDataFormat) {
-      case RAW:
-        objs.add(new Object[]{key});
-        break;
-      case JSON:
-        objs.add(parseJson(key));
-        break;
-      case CSV:
-        objs.add(parseCsv(key));
-        break;
-      default:
-        break;
+      Object[] row = parseValue(key, null);
+      if (row != null) {
+        objs.add(row);
       }
     }
     return objs;
   }
 
   public List<Object[]> parse(List<String> keys) {
-    List<Object[]> objs = new ArrayList<>();
-    for (String key : keys) {
+    return parse((Iterable<String>) keys);
+  }
+
+  /** Enumerator that fetches values in batches, using a cursor. */
+  private class ScanEnumerator implements Enumerator<Object[]> {
+    private final ScanParams params;
+    private final int[] projects;
+    private final int batchSize;
+    private final Deque<String> values = new ArrayDeque<>();
+    private String cursor;
+    private long offset;
+    private boolean done;
+    private Object[] current;
+
+    ScanEnumerator(String pattern, int[] projects, int batchSize) {
+      this.projects = projects;
+      this.batchSize = batchSize;
+      this.params = new ScanParams().count(batchSize);
       if (dataType == RedisDataType.STRING) {
-        key = jedis.get(key);
+        // For strings, the table name is a pattern that matches keys
+        params.match(tableName);
+      } else if (pattern != null
+          && (dataType == RedisDataType.SET
+              || dataType == RedisDataType.SORTED_SET)) {
+        params.match(pattern);
+      }
+      reset();
+    }
+
+    public Object[] current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      for (;;) {
+        while (values.isEmpty() && !done) {
+          fetch();
+        }
+        final String value = values.poll();
+        if (value == null) {
+          current = null;
+          return false;
+        }
+        current = parseValue(value, projects);
+        if (current != null) {
+          return true;
+        }
       }
-      switch (redisDataFormat) {
-      case RAW:
-        objs.add(new Object[]{key});
+    }
+
+    /** Fetches the next batch of values into {@link #values}. */
+    private void fetch() {
+      switch (dataType) {
+      case STRING:
+        final ScanResult<String> keys = jedis.scan(cursor, params);
+        if (!keys.getResult().isEmpty()) {
+          for (String value
+              : jedis.mget(keys.getResult().toArray(new String[0]))) {
+            // A key may have been removed since it was scanned
+            if (value != null) {
+              values.add(value);
+            }
+          }
+        }
+        advance(keys.getStringCursor());
+        break;
+      case HASH:
+        final ScanResult<Map.Entry<String, String>> entries =
+            jedis.hscan(tableName, cursor, params);
+        for (Map.Entry<String, String> entry : entries.getResult()) {
+          values.add(entry.getValue());
+        }
+        advance(entries.getStringCursor());
         break;
-      case JSON:
-        objs.add(parseJson(key));
+      case SET:
+        final ScanResult<String> members =
+            jedis.sscan(tableName, cursor, params);
+        values.addAll(members.getResult());
+        advance(members.getStringCursor());
         break;
-      case CSV:
-        objs.add(parseCsv(key));
+      case SORTED_SET:
+        final ScanResult<Tuple> tuples =
+            jedis.zscan(tableName, cursor, params);
+        for (Tuple tuple : tuples.getResult()) {
+          values.add(tuple.getElement());
+        }
+        advance(tuples.getStringCursor());
         break;
-      default:
+      case LIST:
+        final List<String> list =
+            jedis.lrange(tableName, offset, offset + batchSize - 1);
+        values.addAll(list);
+        offset += list.size();
+        done = list.size() < batchSize;
         break;
+      default:
+        done = true;
       }
     }
-    return objs;
+
+    private void advance(String nextCursor) {
+      cursor = nextCursor;
+      done = cursor.equals(ScanParams.SCAN_POINTER_START);
+    }
+
+    public void reset() {
+      values.clear();
+      cursor = ScanParams.SCAN_POINTER_START;
+      offset = 0;
+      done = false;
+      current = null;
+    }
+
+    public void close() {
+      values.clear();
+      done = true;
+    }
   }
 }
@@ -17,12 +17,10 @@
 package org.apache.calcite.adapter.redis;
 
 import org.apache.calcite.linq4j.Enumerator;
-import org.apache.calcite.linq4j.Linq4j;
 
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 import redis.clients.jedis.Jedis;
@@ -31,21 +29,39 @@
  * Implementation of {@link RedisEnumerator}.
  */
 class RedisEnumerator implements Enumerator<Object[]> {
+  private final RedisJedisManager redisManager;
+  private final Jedis jedis;
   private final Enumerator<Object[]> enumerator;
 
   RedisEnumerator(RedisConfig redisConfig, RedisSchema schema, String tableName) {
+    this(redisConfig, schema, tableName, null, null);
+  }
+
+  /** Creates a RedisEnumerator that reads the table lazily.
+   *
+   * @param pattern  Glob-style pattern that members of a set or sorted set
+   *                 must match, or null
+   * @param projects Ordinals of the fields to return, or null for all
+   */
+  RedisEnumerator(RedisConfig redisConfig, RedisSchema schema, String tableName,
+      String pattern, int[] projects) {
     RedisTableFieldInfo tableFieldInfo = schema.getTableFieldInfo(tableName);
 
-    RedisJedisManager redisManager = new RedisJedisManager(redisConfig.getHost(),
+    redisManager = new RedisJedisManager(redisConfig.getHost(),
         redisConfig.getPort(), redisConfig.getDatabase(), redisConfig.getPassword());
 
-    try (Jedis jedis = redisManager.getResource()) {
+    jedis = redisManager.getResource();
+    try {
       if (StringUtils.isNotEmpty(redisConfig.getPassword())) {
         jedis.auth(redisConfig.getPassword());
       }
       RedisDataProcess dataProcess = new RedisDataProcess(jedis, tableFieldInfo);
-      List<Object[]> objs = dataProcess.read();
-      enumerator = Linq4j.enumerator(objs);
+      enumerator =
+          dataProcess.scan(pattern, projects, redisConfig.getBatchSize());
+    } catch (RuntimeException e) {
+      jedis.close();
+      redisManager.close();
+      throw e;
     }
   }
 
@@ -77,6 +93,11 @@ public void reset() {
   }
 
   public void close() {
-    enumerator.close();
+    try {
+      enumerator.close();
+    } finally {
+      jedis.close();
+      redisManager.close();
+    }
   }
 }
@@ -44,6 +44,7 @@ class RedisSchema extends AbstractSchema {
   public final int port;
   public final int database;
   public final String password;
+  public final int batchSize;
   public final List<Map<String, Object>> tables;
   private Map<String, Table> tableMap = null;
 
@@ -51,11 +52,13 @@ class RedisSchema extends AbstractSchema {
       int port,
       int database,
       String password,
+      int batchSize,
       List<Map<String, Object>> tables) {
     this.host = host;
     this.port = port;
     this.database = database;
     this.password = password;
+    this.batchSize = batchSize;
     this.tables = tables;
   }
 
@@ -71,7 +74,8 @@ class RedisSchema extends AbstractSchema {
   }
 
   private Table table(String tableName) {
-    RedisConfig redisConfig = new RedisConfig(host, port, database, password);
+    RedisConfig redisConfig =
+        new RedisConfig(host, port, database, password, batchSize);
     return RedisTable.create(RedisSchema.this, tableName, redisConfig, null);
   }
 
@@ -55,6 +55,9 @@ public Schema create(SchemaPlus schema, String name,
     int database = Integer.parseInt(operand.get("database").toString());
     String password = operand.get("password") == null ? null
         : operand.get("password").toString();
-    return new RedisSchema(host, port, database, password, tables);
+    int batchSize = operand.get("batchSize") == null
+        ? RedisConfig.DEFAULT_BATCH_SIZE
+        : Integer.parseInt(operand.get("batchSize").toString());
+    return new RedisSchema(host, port, database, password, batchSize, tables);
   }
 }
@@ -23,7 +23,11 @@
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelProtoDataType;
-import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.schema.ProjectableFilterableTable;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.calcite.util.Pair;
@@ -36,9 +40,16 @@
 
 /**
  * Table mapped onto a redis table.
+ *
+ * <p>Reads lazily, a batch at a time. Only the requested fields are parsed.
+ * If the table is in raw format, equality and prefix {@code LIKE} filters on
+ * its only field become the pattern of an SSCAN or ZSCAN command, so that
+ * the server returns only matching members of a set or sorted set; the
+ * filters are still evaluated by Calcite, because the pattern does not apply
+ * to other data types.
  */
 public class RedisTable extends AbstractTable
-    implements ScannableTable {
+    implements ProjectableFilterableTable {
 
   final RedisSchema schema;
   final String tableName;
@@ -100,11 +111,85 @@ static Table create(
     return create(schema, tableName, redisConfig, protoRowType);
   }
 
-  @Override public Enumerable<Object[]> scan(DataContext root) {
+  @Override public Enumerable<Object[]> scan(DataContext root,
+      List<RexNode> filters, int[] projects) {
+    final String pattern = RedisDataFormat.fromTypeName(dataFormat)
+        == RedisDataFormat.RAW ? pattern(filters) : null;
     return new AbstractEnumerable<Object[]>() {
       public Enumerator<Object[]> enumerator() {
-        return new RedisEnumerator(redisConfig, schema, tableName);
+        return new RedisEnumerator(redisConfig, schema, tableName, pattern,
+            projects);
       }
     };
   }
+
+  /** Returns a glob-style pattern that values must match in order to satisfy
+   * one of the filters, or null if no filter can be converted. */
+  static String pattern(List<RexNode> filters) {
+    for (RexNode filter : filters) {
+      if (!(filter instanceof RexCall)) {
+        continue;
+      }
+      final RexCall call = (RexCall) filter;
+      if (call.getOperands().size() != 2
+          || !(call.getOperands().get(0) instanceof RexInputRef)
+          || !(call.getOperands().get(1) instanceof RexLiteral)) {
+        continue;
+      }
+      final String value =
+          ((RexLiteral) call.getOperands().get(1)).getValueAs(String.class);
+      if (value == null) {
+        continue;
+      }
+      switch (call.getKind()) {
+      case EQUALS:
+        return escape(value);
+      case LIKE:
+        final String pattern = likeToGlob(value);
+        if (pattern != null) {
+          return pattern;
+        }
+        break;
+      default:
+        break;
+      }
+    }
+    return null;
+  }
+
+  /** Converts a {@code LIKE} pattern of the form {@code 'abc%'} to a glob
+   * pattern; returns null if the pattern has any other wildcards. */
+  private static String likeToGlob(String like) {
+    final int n = like.length();
+    if (n == 0 || like.charAt(n - 1) != '%') {
+      return null;
+    }
+    final String prefix = like.substring(0, n - 1);
+    if (prefix.indexOf('%') >= 0 || prefix.indexOf('_') >= 0) {
+      return null;
+    }
+    return escape(prefix) + "*";
+  }
+
+  /** Escapes the characters that have special meaning in a glob-style
+   * pattern. */
+  private static String escape(String s) {
+    final StringBuilder buf = new StringBuilder();
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      switch (c) {
+      case '*':
+      case '?':
+      case '[':
+      case ']':
+      case '\\':
+        buf.append('\\');
+        break;
+      default:
+        break;
+      }
+      buf.append(c);
+    }
+    return buf.toString();
+  }
 }
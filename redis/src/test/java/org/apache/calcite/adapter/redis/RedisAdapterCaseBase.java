@@ -17,23 +17,39 @@
 package org.apache.calcite.adapter.redis;
 
 import org.apache.calcite.config.CalciteSystemProperty;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.rel.type.RelDataTypeSystem;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.test.CalciteAssert;
 import org.apache.calcite.util.Sources;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Protocol;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for the {@code org.apache.calcite.adapter.redis} package.
@@ -123,4 +139,89 @@ private void readModelByJson() {
         + "on a.DEPTNO=b.DEPTNO where true";
     sql(sql).returnsUnordered("DEPTNO=10; NAME=\"Sales1\"");
   }
+
+  @Test void testFilterAndProject() {
+    sql("select * from \"raw_03\" where \"key\" = 'user1'")
+        .returnsUnordered("key=user1");
+    sql("select * from \"raw_04\" where \"key\" like 'user%'")
+        .returnsUnordered("key=user3", "key=user4");
+    sql("select * from \"raw_02\" where \"key\" like 'book2%'")
+        .returnsUnordered("key=book2");
+    sql("select NAME from \"csv_02\"")
+        .returnsUnordered("NAME=Sales", "NAME=Sales");
+  }
+
+  /** Tests that a scan that takes many round trips returns every element of
+   * each data type. The SCAN commands may return an element more than once,
+   * so only the number of distinct values is exact, except for lists. */
+  @Test void testScanRowCounts() {
+    final int n = 1000;
+    try (Jedis jedis = new Jedis(HOST, PORT)) {
+      jedis.del("scan_list", "scan_set", "scan_zset", "scan_hash");
+      final String[] members = new String[n];
+      final Map<String, String> hash = new HashMap<>();
+      for (int i = 0; i < n; i++) {
+        members[i] = "m" + i;
+        jedis.zadd("scan_zset", i, members[i]);
+        hash.put("f" + i, members[i]);
+      }
+      jedis.rpush("scan_list", members);
+      jedis.sadd("scan_set", members);
+      jedis.hmset("scan_hash", hash);
+
+      checkScanRowCount(jedis, "raw_01", null, 1);
+      checkScanRowCount(jedis, "scan_list", null, n);
+      checkScanRowCount(jedis, "scan_set", null, n);
+      checkScanRowCount(jedis, "scan_zset", null, n);
+      checkScanRowCount(jedis, "scan_hash", null, n);
+      // "m1", "m10" to "m19", and "m100" to "m199"
+      checkScanRowCount(jedis, "scan_set", "m1*", 111);
+      checkScanRowCount(jedis, "scan_zset", "m1*", 111);
+    }
+  }
+
+  private static void checkScanRowCount(Jedis jedis, String tableName,
+      String pattern, int expected) {
+    final RedisTableFieldInfo tableFieldInfo = new RedisTableFieldInfo();
+    tableFieldInfo.setTableName(tableName);
+    tableFieldInfo.setDataFormat(RedisDataFormat.RAW.getTypeName());
+    tableFieldInfo.setKeyDelimiter(":");
+    tableFieldInfo.setFields(new ArrayList<>());
+    final RedisDataProcess dataProcess =
+        new RedisDataProcess(jedis, tableFieldInfo);
+    final Set<Object> values = new HashSet<>();
+    int count = 0;
+    try (Enumerator<Object[]> enumerator =
+             dataProcess.scan(pattern, null, 10)) {
+      while (enumerator.moveNext()) {
+        values.add(enumerator.current()[0]);
+        ++count;
+      }
+    }
+    if (tableName.equals("scan_list")) {
+      assertThat(tableName, count, is(expected));
+    } else {
+      assertTrue(count >= expected, tableName);
+    }
+    assertThat(tableName, values.size(), is(expected));
+  }
+
+  @Test void testRedisPattern() {
+    final RexBuilder rexBuilder =
+        new RexBuilder(new JavaTypeFactoryImpl(RelDataTypeSystem.DEFAULT));
+    final RexNode ref = rexBuilder.makeInputRef(
+        rexBuilder.getTypeFactory().createSqlType(SqlTypeName.VARCHAR), 0);
+    final RexNode equals =
+        rexBuilder.makeCall(SqlStdOperatorTable.EQUALS, ref,
+            rexBuilder.makeLiteral("a*b"));
+    assertThat(RedisTable.pattern(ImmutableList.of(equals)), is("a\\*b"));
+    final RexNode like =
+        rexBuilder.makeCall(SqlStdOperatorTable.LIKE, ref,
+            rexBuilder.makeLiteral("user%"));
+    assertThat(RedisTable.pattern(ImmutableList.of(like)), is("user*"));
+    final RexNode like2 =
+        rexBuilder.makeCall(SqlStdOperatorTable.LIKE, ref,
+            rexBuilder.makeLiteral("u_er%"));
+    assertThat(RedisTable.pattern(ImmutableList.of(like2)), nullValue());
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.benchmarks;
+
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.EnumerableDefaults;
+import org.apache.calcite.linq4j.Linq4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks that compare hash joins and hash aggregates whose keys are boxed
+ * objects ({@link EnumerableDefaults#hashJoin} and
+ * {@link EnumerableDefaults#groupBy}) with their primitive-keyed equivalents
+ * ({@link EnumerableDefaults#longHashJoin} and
+ * {@link EnumerableDefaults#groupByLong}).
+ *
+ * <p>Rows are {@code Object[]} whose first field is a {@code BIGINT} key,
+ * as in code generated for an {@code EnumerableHashJoin} or
+ * {@code EnumerableAggregate}.
+ */
+@Fork(value = 1, jvmArgsPrepend = "-Xmx2048m")
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class PrimitiveHashKeyBenchmark {
+  @Param({"100000", "1000000"})
+  int rowCount;
+
+  @Param({"100", "100000"})
+  int keyCount;
+
+  private Enumerable<Object[]> left;
+  private Enumerable<Object[]> right;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(0);
+    left = Linq4j.asEnumerable(rows(random, rowCount));
+    right = Linq4j.asEnumerable(rows(random, keyCount));
+  }
+
+  private List<Object[]> rows(Random random, int n) {
+    final List<Object[]> rows = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      // Keys are large enough that Long.valueOf does not use its cache
+      final long key = 1_000_000L + random.nextInt(keyCount);
+      rows.add(new Object[] {key, i});
+    }
+    return rows;
+  }
+
+  @Benchmark
+  public long groupByBoxed() {
+    return EnumerableDefaults.groupBy(left,
+        row -> (Long) row[0],
+        () -> 0L,
+        (Long acc, Object[] row) -> acc + 1,
+        (Long key, Long acc) -> acc)
+        .count();
+  }
+
+  @Benchmark
+  public long groupByLong() {
+    return EnumerableDefaults.groupByLong(left,
+        row -> (Long) row[0],
+        row -> (Long) row[0],
+        row -> row[0] == null,
+        () -> 0L,
+        (Long acc, Object[] row) -> acc + 1,
+        (Long key, Long acc) -> acc)
+        .count();
+  }
+
+  @Benchmark
+  public long hashJoinBoxed() {
+    return EnumerableDefaults.<Object[], Object[], Long, Object[]>hashJoin(
+        left, right,
+        row -> (Long) row[0],
+        row -> (Long) row[0],
+        (l, r) -> l, null, false, false, null)
+        .count();
+  }
+
+  @Benchmark
+  public long hashJoinLong() {
+    return EnumerableDefaults.<Object[], Object[], Object[]>longHashJoin(
+        left, right,
+        row -> (Long) row[0], row -> row[0] == null,
+        row -> (Long) row[0], row -> row[0] == null,
+        (l, r) -> l, false, false)
+        .count();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(PrimitiveHashKeyBenchmark.class.getName())
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}